@@ -42,6 +42,9 @@ import java.util.Set;
 import org.apache.fop.fonts.FontType;
 import org.apache.fop.fonts.Base14Font;
 import org.apache.fop.fonts.CodePointMapping;
+<xsl:if test="count(kerning) &gt; 0">
+import org.apache.fop.fonts.KerningTable;
+</xsl:if>
 import org.apache.fop.fonts.Typeface;;
 
 public class <xsl:value-of select="class-name"/> extends Base14Font {
@@ -60,6 +63,7 @@ public class <xsl:value-of select="class-name"/> extends Base14Font {
         CodePointMapping.getMapping("<xsl:value-of select="$encoding"/>");
 <xsl:if test="count(kerning) &gt; 0">
     private final static Map kerning;
+    private final static KerningTable kerningTable;
 </xsl:if>
 
     private boolean enableKerning = false;
@@ -72,6 +76,7 @@ public class <xsl:value-of select="class-name"/> extends Base14Font {
         Integer first, second;
         Map pairs;
         <xsl:apply-templates select="kerning"/>
+        kerningTable = KerningTable.create(kerning);
 </xsl:if>
         familyNames = new java.util.HashSet();
         familyNames.add("<xsl:value-of select="family-name"/>");
@@ -152,6 +157,10 @@ public class <xsl:value-of select="class-name"/> extends Base14Font {
     public java.util.Map getKerningInfo() {
         return kerning;
     }
+
+    public int getKernValue(int ch1, int ch2) {
+        return enableKerning ? kerningTable.get(ch1, ch2) : 0;
+    }
   </xsl:when>
   <xsl:otherwise>
     public boolean hasKerningInfo() {
@@ -161,6 +170,10 @@ public class <xsl:value-of select="class-name"/> extends Base14Font {
     public java.util.Map getKerningInfo() {
         return java.util.Collections.EMPTY_MAP;
     }
+
+    public int getKernValue(int ch1, int ch2) {
+        return 0;
+    }
   </xsl:otherwise>
 </xsl:choose>
 
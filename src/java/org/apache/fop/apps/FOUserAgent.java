@@ -100,6 +100,10 @@ public class FOUserAgent {
     private FOEventHandler foEventHandlerOverride = null;
     private boolean locatorEnabled = true; // true by default (for error messages).
     private boolean conserveMemoryPolicy = false;
+    private int layoutThreadCount = 0;
+    private int pageBreakingLookahead = 0;
+    private int renderingQueueSize = 0;
+    private int shapingCacheSize = 0;
     private EventBroadcaster eventBroadcaster = new FOPEventBroadcaster();
 
     private StructureTree structureTree;
@@ -649,6 +653,116 @@ public class FOUserAgent {
         this.conserveMemoryPolicy = conserveMemoryPolicy;
     }
 
+    /**
+     * Returns the number of worker threads used to lay out independent page-sequences
+     * concurrently. A value of 0 (the default) means that all page-sequences are laid out
+     * sequentially on the thread that builds the FO tree.
+     *
+     * @return the number of layout worker threads
+     */
+    public int getLayoutThreadCount() {
+        return this.layoutThreadCount;
+    }
+
+    /**
+     * Sets the number of worker threads used to lay out independent page-sequences
+     * concurrently. Only page-sequences with an explicit initial-page-number, a
+     * simple-page-master and no page-number-citations to content outside of themselves are
+     * laid out concurrently; all others are still laid out in document order.
+     *
+     * @param layoutThreadCount the number of layout worker threads (0 to disable)
+     */
+    public void setLayoutThreadCount(int layoutThreadCount) {
+        if (layoutThreadCount < 0) {
+            throw new IllegalArgumentException("layoutThreadCount must not be negative");
+        }
+        this.layoutThreadCount = layoutThreadCount;
+    }
+
+    /**
+     * Returns the number of pages the page breaking looks ahead before it commits the page
+     * breaks found so far. A value of 0 (the default) means that the breaks are optimized over
+     * the whole flow of a page-sequence.
+     *
+     * @return the page breaking lookahead (in pages)
+     */
+    public int getPageBreakingLookahead() {
+        return this.pageBreakingLookahead;
+    }
+
+    /**
+     * Sets the number of pages the page breaking looks ahead before it commits the page
+     * breaks found so far. With a lookahead, the pages of a long flow are added to the area
+     * tree while the rest of the flow is still being broken, and the layout elements of the
+     * committed pages are released. The breaking state and time no longer grow with the
+     * length of the flow, at the cost of slightly less optimal page breaks. The layout elements
+     * of the bodies of a table placed directly in the flow are created one row group at a time
+     * while the pages are broken (unless the table has widow or orphan content limits); the
+     * layout elements of the other content of a flow are all created before its page breaking
+     * starts.
+     *
+     * @param pageBreakingLookahead the page breaking lookahead (in pages, 0 to disable)
+     */
+    public void setPageBreakingLookahead(int pageBreakingLookahead) {
+        if (pageBreakingLookahead < 0) {
+            throw new IllegalArgumentException("pageBreakingLookahead must not be negative");
+        }
+        this.pageBreakingLookahead = pageBreakingLookahead;
+    }
+
+    /**
+     * Returns the maximum number of rendering tasks (mostly pages) waiting for the rendering
+     * thread. A value of 0 (the default) means that the pages are rendered on the thread
+     * doing the layout.
+     *
+     * @return the rendering queue size
+     */
+    public int getRenderingQueueSize() {
+        return this.renderingQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of rendering tasks (mostly pages) waiting for the rendering
+     * thread. With a queue, the pages are rendered on a dedicated thread, so the layout of
+     * the next pages and the rendering of the pages already laid out overlap. Once the queue
+     * is full, the layout waits for the rendering. The rendering thread is not used when the
+     * memory-conservation policy is enabled.
+     *
+     * @param renderingQueueSize the rendering queue size (0 to render on the layout thread)
+     */
+    public void setRenderingQueueSize(int renderingQueueSize) {
+        if (renderingQueueSize < 0) {
+            throw new IllegalArgumentException("renderingQueueSize must not be negative");
+        }
+        this.renderingQueueSize = renderingQueueSize;
+    }
+
+    /**
+     * Returns the maximum number of complex script words whose shaping results are cached
+     * per font and font size.
+     *
+     * @return the shaping cache size (0 if shaping results are not cached)
+     */
+    public int getShapingCacheSize() {
+        return this.shapingCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of complex script words whose shaping results (substituted
+     * characters and glyph position adjustments) are cached per font and font size. Arabic
+     * or Indic documents repeat the same words many times, and each of them otherwise goes
+     * through glyph substitution and positioning again. A value of 0 (the default) disables
+     * the cache. This must be set before the rendering starts.
+     *
+     * @param shapingCacheSize the shaping cache size (0 to shape every word)
+     */
+    public void setShapingCacheSize(int shapingCacheSize) {
+        if (shapingCacheSize < 0) {
+            throw new IllegalArgumentException("shapingCacheSize must not be negative");
+        }
+        this.shapingCacheSize = shapingCacheSize;
+    }
+
     /**
      * Check whether complex script features are enabled.
      *
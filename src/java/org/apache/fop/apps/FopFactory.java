@@ -48,6 +48,7 @@ import org.apache.fop.fo.ElementMapping;
 import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fonts.FontCache;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.hyphenation.HyphenationCache;
 import org.apache.fop.hyphenation.HyphenationTreeResolver;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
 import org.apache.fop.render.ImageHandlerRegistry;
@@ -116,6 +117,9 @@ public class FopFactory implements ImageContext {
      */
     private Map/*<String,String>*/ hyphPatNames = null;
 
+    /** Cache of hyphenated words (null if disabled) */
+    private HyphenationCache hyphenationCache = null;
+
     /**
      * FOP has the ability, for some FO's, to continue processing even if the
      * input XSL violates that FO's content model.  This is the default
@@ -451,6 +455,23 @@ public class FopFactory implements ImageContext {
         this.hyphPatNames = hyphPatNames;
     }
 
+    /**
+     * Sets the maximum number of hyphenated words per language that are cached for reuse.
+     * A value of 0 disables the cache (default).
+     * @param size the maximum number of words per language
+     */
+    public void setHyphenationCacheSize(int size) {
+        this.hyphenationCache = (size > 0) ? new HyphenationCache(size) : null;
+    }
+
+    /**
+     * Returns the cache of hyphenated words.
+     * @return the cache or null if it is disabled
+     */
+    public HyphenationCache getHyphenationCache() {
+        return this.hyphenationCache;
+    }
+
     /**
      * Sets the URI Resolver. It is used for resolving factory-level URIs like hyphenation
      * patterns and as backup for URI resolution performed during a rendering run.
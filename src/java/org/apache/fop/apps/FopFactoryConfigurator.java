@@ -218,6 +218,15 @@ public class FopFactoryConfigurator {
             factory.setHyphPatNames(hyphPatNames);
         }
 
+        if (cfg.getChild("hyphenation-cache-size", false) != null) {
+            try {
+                factory.setHyphenationCacheSize(
+                        cfg.getChild("hyphenation-cache-size").getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+
         // renderer options
         if (cfg.getChild("source-resolution", false) != null) {
             factory.setSourceResolution(
@@ -86,8 +86,15 @@ public class AreaTreeHandler extends FOEventHandler {
 
     private TopLevelLayoutManager prevPageSeqLM;
 
+    // Whether a page-sequence has been started (prevPageSeqLM is null after a
+    // page-sequence dispatched to a worker thread)
+    private boolean firstPageSequenceStarted = false;
+
     private int idGen = 0;
 
+    // Lays out independent page-sequences on worker threads (null if disabled)
+    private PageSequenceDispatcher dispatcher;
+
     /**
      * Constructor.
      *
@@ -112,11 +119,32 @@ public class AreaTreeHandler extends FOEventHandler {
 
         this.useComplexScriptFeatures = userAgent.isComplexScriptFeaturesEnabled();
 
+        if (userAgent.getLayoutThreadCount() > 0) {
+            this.dispatcher = new PageSequenceDispatcher(this, userAgent.getLayoutThreadCount());
+        }
+
         if (log.isDebugEnabled()) {
             statistics = new Statistics();
         }
     }
 
+    /**
+     * Constructor for a handler that lays out a single page-sequence in isolation on behalf
+     * of another handler. It shares the user agent, the fonts and the layout manager maker
+     * of its parent but has its own area tree model and ID tracker.
+     *
+     * @param parent the handler on whose behalf the page-sequence is laid out
+     * @param model the area tree model receiving the pages of the page-sequence
+     */
+    AreaTreeHandler(AreaTreeHandler parent, AreaTreeModel model) {
+        super(parent.getUserAgent());
+        this.fontInfo = parent.getFontInfo();
+        this.model = model;
+        this.lmMaker = parent.lmMaker;
+        this.idTracker = new IDTracker();
+        this.useComplexScriptFeatures = parent.useComplexScriptFeatures;
+    }
+
     /**
      * Sets up the AreaTreeModel instance for use by the AreaTreeHandler.
      *
@@ -130,6 +158,9 @@ public class AreaTreeHandler extends FOEventHandler {
             OutputStream stream) throws FOPException {
         if (userAgent.isConserveMemoryPolicyEnabled()) {
             this.model = new CachedRenderPagesModel(userAgent, outputFormat, fontInfo, stream);
+        } else if (userAgent.getRenderingQueueSize() > 0) {
+            this.model = new AsyncRenderPagesModel(userAgent, outputFormat, fontInfo, stream,
+                    userAgent.getRenderingQueueSize());
         } else {
             this.model = new RenderPagesModel(userAgent, outputFormat, fontInfo, stream);
         }
@@ -217,7 +248,8 @@ public class AreaTreeHandler extends FOEventHandler {
         rootFObj = pageSequence.getRoot();
 
         //Before the first page-sequence...
-        if (this.prevPageSeqLM == null) {
+        if (!this.firstPageSequenceStarted) {
+            this.firstPageSequenceStarted = true;
             // extension attachments from fo:root
             wrapAndAddExtensionAttachments(rootFObj.getExtensionAttachments());
             // extension attachments from fo:declarations
@@ -227,6 +259,9 @@ public class AreaTreeHandler extends FOEventHandler {
             }
         }
 
+        if (dispatcher != null) {
+            dispatcher.startPageSequence(pageSequence);
+        }
         finishPrevPageSequence(pageSequence.getInitialPageNumber());
         pageSequence.initPageNumber();
     }
@@ -252,6 +287,13 @@ public class AreaTreeHandler extends FOEventHandler {
 
         // If no main flow, nothing to layout!
         if (pageSequence.getMainFlow() != null) {
+            if (dispatcher != null) {
+                if (dispatcher.dispatch(pageSequence)) {
+                    return;
+                }
+                // the page-sequence depends on its predecessors, so they must be complete
+                dispatcher.finishPending();
+            }
             PageSequenceLayoutManager pageSLM;
             pageSLM = getLayoutManagerMaker().makePageSequenceLayoutManager(
                     this, pageSequence);
@@ -307,6 +349,10 @@ public class AreaTreeHandler extends FOEventHandler {
     @Override
     public void endDocument() throws SAXException {
 
+        if (dispatcher != null) {
+            dispatcher.finishPending();
+            dispatcher.shutdown();
+        }
         finishPrevPageSequence(null);
         // process fox:destination elements
         if (rootFObj != null) {
@@ -373,7 +419,7 @@ public class AreaTreeHandler extends FOEventHandler {
      *
      * @return the generated key.
      */
-    public String generatePageViewportKey() {
+    public synchronized String generatePageViewportKey() {
         this.idGen++;
         return "P" + this.idGen;
     }
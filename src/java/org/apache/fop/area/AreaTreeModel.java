@@ -77,6 +77,20 @@ public class AreaTreeModel {
         page.setPageSequence(currentPageSequence);
     }
 
+    /**
+     * Adds a complete page-sequence whose pages have been produced in isolation, i.e. by
+     * laying it out on a worker thread. The pages are added in document order, which
+     * assigns their final page indices, exactly as if they had been added one by one.
+     * @param pageSequence the page sequence
+     * @param pages the pages of the page sequence, in document order
+     */
+    public void addPageSequence(PageSequence pageSequence, List<PageViewport> pages) {
+        startPageSequence(pageSequence);
+        for (PageViewport page : pages) {
+            addPage(page);
+        }
+    }
+
     /**
      * Handle an OffDocumentItem
      * @param ext the extension to handle
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.xml.sax.SAXException;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.fonts.FontInfo;
+
+/**
+ * Render pages model which renders the pages on a dedicated thread, so the layout of the
+ * next pages overlaps with the rendering (serialization, image encoding, compression...)
+ * of the pages already laid out.
+ * <p>
+ * All the calls to the renderer are queued, in the order in which {@link RenderPagesModel}
+ * would make them, and run one after the other by a single rendering thread. The queue is
+ * bounded: once it is full, adding a page blocks until the rendering thread catches up. A
+ * page handed to the rendering thread is no longer accessed by the layout, as only
+ * resolved pages are rendered. If a rendering task fails, the exception is thrown on the
+ * layout thread by the next call to the model, and the remaining tasks are skipped.
+ * The rendering thread is started with the model and ends with the document.
+ */
+public class AsyncRenderPagesModel extends RenderPagesModel {
+
+    private final ThreadPoolExecutor executor;
+
+    /** the first exception thrown by a rendering task */
+    private volatile Throwable failure;
+
+    /**
+     * Create a new render pages model with the given renderer.
+     * @param userAgent FOUserAgent object for process
+     * @param outputFormat the MIME type of the output format to use (ex. "application/pdf").
+     * @param fontInfo FontInfo object
+     * @param stream OutputStream
+     * @param queueSize the maximum number of rendering tasks waiting for the rendering thread
+     * @throws FOPException if the renderer cannot be properly initialized
+     */
+    public AsyncRenderPagesModel(FOUserAgent userAgent, String outputFormat,
+            FontInfo fontInfo, OutputStream stream, int queueSize) throws FOPException {
+        super(userAgent, outputFormat, fontInfo, stream);
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("queueSize must be greater than 0");
+        }
+        //A single thread guarantees that the tasks run in the order they were queued
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), new RenderingThreadFactory(),
+                new WaitForQueue());
+        executor.prestartCoreThread();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void runRendererTask(final Runnable task) {
+        checkFailure();
+        executor.execute(new Runnable() {
+            public void run() {
+                if (failure == null) {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        failure = t;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The renderer is called from the layout thread here, so the queued tasks must be
+     * done first.
+     */
+    @Override
+    protected void preparePage(PageViewport page) {
+        if (renderer.supportsOutOfOrder()) {
+            waitForRenderer();
+        }
+        super.preparePage(page);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void stopRenderer() throws IOException {
+        waitForRenderer();
+        super.stopRenderer();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endDocument() throws SAXException {
+        try {
+            super.endDocument();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Waits until all the queued rendering tasks are done.
+     */
+    private void waitForRenderer() {
+        final CountDownLatch done = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        });
+        try {
+            done.await();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the rendering thread", ie);
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        Throwable t = failure;
+        if (t != null) {
+            executor.shutdownNow();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            } else {
+                throw new RuntimeException(t);
+            }
+        }
+    }
+
+    /** Blocks the layout thread while the queue is full. */
+    private static final class WaitForQueue implements RejectedExecutionHandler {
+
+        /** {@inheritDoc} */
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Rendering thread is shut down");
+            }
+            BlockingQueue<Runnable> queue = executor.getQueue();
+            try {
+                queue.put(r);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(ie);
+            }
+        }
+    }
+
+    private static final class RenderingThreadFactory implements ThreadFactory {
+
+        /** {@inheritDoc} */
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "FOP rendering thread");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -238,4 +238,39 @@ public class IDTracker {
         // add Resolvable object to this HashSet
         todo.add(res);
     }
+
+    /**
+     * Transfers the state of a tracker that was used to lay out a single page-sequence in
+     * isolation into this (document-wide) tracker. IDs located in the other tracker are
+     * associated with their page viewports, its unresolved references are carried over
+     * and IDs it has finished processing are signalled as processed here, so references
+     * from other page-sequences waiting for them are resolved.
+     *
+     * @param other the tracker of the isolated page-sequence
+     * @param pages the page viewports of the isolated page-sequence, in document order
+     */
+    void mergeIsolated(IDTracker other, List<PageViewport> pages) {
+        for (String id : other.alreadyResolvedIDs) {
+            if (!alreadyResolvedIDs.contains(id)) {
+                signalPendingID(id);
+            }
+        }
+        unfinishedIDs.addAll(other.unfinishedIDs);
+        for (Map.Entry<String, List<PageViewport>> entry : other.idLocations.entrySet()) {
+            for (PageViewport pv : entry.getValue()) {
+                associateIDWithPageViewport(entry.getKey(), pv);
+            }
+        }
+        for (Map.Entry<String, Set<Resolvable>> entry : other.unresolvedIDRefs.entrySet()) {
+            for (Resolvable res : entry.getValue()) {
+                addUnresolvedIDRef(entry.getKey(), res);
+            }
+        }
+        for (PageViewport pv : pages) {
+            tryIDResolution(pv);
+        }
+        for (String id : other.alreadyResolvedIDs) {
+            signalIDProcessed(id);
+        }
+    }
 }
@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.datatypes.Numeric;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.flow.AbstractPageNumberCitation;
+import org.apache.fop.fo.flow.RetrieveMarker;
+import org.apache.fop.fo.pagination.AbstractPageSequence;
+import org.apache.fop.fo.pagination.PageSequence;
+import org.apache.fop.layoutmgr.PageSequenceLayoutManager;
+
+/**
+ * Lays out independent page-sequences on a pool of worker threads and hands their pages
+ * to the {@link AreaTreeHandler}'s area tree model in document order.
+ * <p>
+ * A page-sequence is independent if its page numbers and its content do not depend on
+ * the layout of any other page-sequence: it has an explicit initial-page-number, its
+ * master-reference names a simple-page-master (page-sequence-masters keep state while
+ * they are used), all its page-number-citations refer to IDs inside the page-sequence
+ * and none of its retrieve-markers has a retrieve-boundary of "document". Such a
+ * page-sequence is laid out against its own area tree model and ID tracker. When it is
+ * done and its successor has started (which determines the effect of force-page-count),
+ * its pages are reconciled on the FO tree building thread: the ID tracker state is merged
+ * into the document-wide tracker, which resolves references across page-sequences, and
+ * the pages are added to the real area tree model, which assigns their final position in
+ * the document before they reach the renderer.
+ * <p>
+ * Page-sequences that are not independent are laid out on the calling thread as usual,
+ * after all previously dispatched page-sequences have been reconciled.
+ */
+final class PageSequenceDispatcher {
+
+    private static Log log = LogFactory.getLog(PageSequenceDispatcher.class);
+
+    private final AreaTreeHandler areaTreeHandler;
+
+    private final ExecutorService executor;
+
+    /** Maximum number of dispatched page-sequences kept before blocking for the oldest. */
+    private final int maxPending;
+
+    private final LinkedList<PendingPageSequence> pending
+            = new LinkedList<PendingPageSequence>();
+
+    /**
+     * Creates a new dispatcher.
+     * @param areaTreeHandler the area tree handler whose page-sequences are laid out
+     * @param threadCount the number of worker threads
+     */
+    PageSequenceDispatcher(AreaTreeHandler areaTreeHandler, int threadCount) {
+        this.areaTreeHandler = areaTreeHandler;
+        this.executor = Executors.newFixedThreadPool(threadCount, new LayoutThreadFactory());
+        this.maxPending = threadCount * 2;
+    }
+
+    /**
+     * Notifies the dispatcher that a new page-sequence starts. This makes the
+     * initial-page-number of the new page-sequence known to the preceding dispatched
+     * page-sequence (for force-page-count="auto"). If the new page-sequence cannot be
+     * laid out independently in any case (an external document or a page-sequence whose
+     * page numbers continue from its predecessor), all pending page-sequences are finished.
+     * @param pageSequence the page-sequence that starts
+     */
+    void startPageSequence(AbstractPageSequence pageSequence) {
+        if (!pending.isEmpty()) {
+            pending.getLast().successorStarted(pageSequence.getInitialPageNumber());
+        }
+        if (!(pageSequence instanceof PageSequence)
+                || !hasExplicitInitialPageNumber(pageSequence)) {
+            finishPending();
+        }
+    }
+
+    /**
+     * Dispatches the layout of a page-sequence to a worker thread, if it is independent of
+     * the other page-sequences of the document.
+     * @param pageSequence the page-sequence, fully built
+     * @return true if the page-sequence was dispatched, false if it needs to be laid out
+     *          by the caller
+     */
+    boolean dispatch(PageSequence pageSequence) {
+        if (!isIndependent(pageSequence)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Page-sequence " + pageSequence.getId()
+                        + " depends on other page-sequences; laying it out sequentially");
+            }
+            return false;
+        }
+        IsolatedAreaTreeModel isolatedModel = new IsolatedAreaTreeModel();
+        AreaTreeHandler isolatedHandler = new IsolatedAreaTreeHandler(areaTreeHandler,
+                isolatedModel);
+        final PageSequenceLayoutManager pageSLM = isolatedHandler.getLayoutManagerMaker()
+                .makePageSequenceLayoutManager(isolatedHandler, pageSequence);
+        Future<?> future = executor.submit(new Runnable() {
+            public void run() {
+                pageSLM.activateLayout();
+            }
+        });
+        pending.add(new PendingPageSequence(pageSLM, isolatedHandler, isolatedModel, future));
+
+        // reconcile what is ready, and block if too many page-sequences are in flight
+        while (!pending.isEmpty() && pending.getFirst().isReady()) {
+            finishFirst();
+        }
+        while (pending.size() > maxPending) {
+            finishFirst();
+        }
+        return true;
+    }
+
+    /**
+     * Waits for all dispatched page-sequences and reconciles them in document order.
+     */
+    void finishPending() {
+        while (!pending.isEmpty()) {
+            finishFirst();
+        }
+    }
+
+    /**
+     * Shuts the worker threads down. Must be called after {@link #finishPending()}.
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private void finishFirst() {
+        PendingPageSequence first = pending.removeFirst();
+        try {
+            first.finish(areaTreeHandler);
+        } catch (RuntimeException re) {
+            abort();
+            throw re;
+        } catch (Error e) {
+            abort();
+            throw e;
+        }
+    }
+
+    private void abort() {
+        pending.clear();
+        executor.shutdownNow();
+    }
+
+    private static boolean hasExplicitInitialPageNumber(AbstractPageSequence pageSequence) {
+        Numeric initialPageNumber = pageSequence.getInitialPageNumber();
+        return initialPageNumber != null && initialPageNumber.getEnum() == 0;
+    }
+
+    private static boolean isIndependent(PageSequence pageSequence) {
+        if (!hasExplicitInitialPageNumber(pageSequence)) {
+            return false;
+        }
+        if (pageSequence.getRoot().getLayoutMasterSet().getSimplePageMaster(
+                pageSequence.getMasterReference()) == null) {
+            return false;
+        }
+        Set<String> ids = new java.util.HashSet<String>();
+        Set<String> refIds = new java.util.HashSet<String>();
+        if (pageSequence.hasId()) {
+            ids.add(pageSequence.getId());
+        }
+        if (!collectIDs(pageSequence.getTitleFO(), ids, refIds)
+                || !collectIDs(pageSequence.getMainFlow(), ids, refIds)) {
+            return false;
+        }
+        for (FONode staticContent : pageSequence.getFlowMap().values()) {
+            if (!collectIDs(staticContent, ids, refIds)) {
+                return false;
+            }
+        }
+        return ids.containsAll(refIds);
+    }
+
+    /**
+     * Collects the IDs defined and the IDs cited by page-number-citations within a subtree.
+     * @return false if the subtree contains a retrieve-marker with a document boundary
+     */
+    private static boolean collectIDs(FONode node, Set<String> ids, Set<String> refIds) {
+        if (node == null) {
+            return true;
+        }
+        if (node instanceof FObj) {
+            FObj fobj = (FObj) node;
+            if (fobj.hasId()) {
+                ids.add(fobj.getId());
+            }
+            if (fobj instanceof AbstractPageNumberCitation) {
+                refIds.add(((AbstractPageNumberCitation) fobj).getRefId());
+            } else if (fobj instanceof RetrieveMarker
+                    && ((RetrieveMarker) fobj).getRetrieveBoundary() == Constants.EN_DOCUMENT) {
+                return false;
+            }
+            if (fobj.hasMarkers()) {
+                for (Object marker : fobj.getMarkers().values()) {
+                    if (!collectIDs((FONode) marker, ids, refIds)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        Iterator children = node.getChildNodes();
+        if (children != null) {
+            while (children.hasNext()) {
+                if (!collectIDs((FONode) children.next(), ids, refIds)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** A page-sequence laid out (or being laid out) on a worker thread. */
+    private static final class PendingPageSequence {
+
+        private final PageSequenceLayoutManager pageSLM;
+        private final AreaTreeHandler isolatedHandler;
+        private final IsolatedAreaTreeModel isolatedModel;
+        private final Future<?> future;
+
+        private boolean successorStarted;
+        private Numeric nextInitialPageNumber;
+
+        PendingPageSequence(PageSequenceLayoutManager pageSLM, AreaTreeHandler isolatedHandler,
+                IsolatedAreaTreeModel isolatedModel, Future<?> future) {
+            this.pageSLM = pageSLM;
+            this.isolatedHandler = isolatedHandler;
+            this.isolatedModel = isolatedModel;
+            this.future = future;
+        }
+
+        void successorStarted(Numeric initialPageNumber) {
+            this.successorStarted = true;
+            this.nextInitialPageNumber = initialPageNumber;
+        }
+
+        boolean isReady() {
+            return successorStarted && future.isDone();
+        }
+
+        /**
+         * Waits for the layout to complete, finishes the page-sequence and hands its pages
+         * to the area tree model of the given handler.
+         */
+        void finish(AreaTreeHandler target) {
+            try {
+                future.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for page-sequence layout",
+                        ie);
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else {
+                    throw new RuntimeException(cause);
+                }
+            }
+            // force-page-count and the end of the page-sequence are handled in document order
+            pageSLM.doForcePageCount(nextInitialPageNumber);
+            pageSLM.finishPageSequence();
+
+            List<PageViewport> pages = isolatedModel.getPages();
+            target.getIDTracker().mergeIsolated(isolatedHandler.getIDTracker(), pages);
+            target.getAreaTreeModel().addPageSequence(
+                    isolatedModel.getCurrentPageSequence(), pages);
+        }
+    }
+
+    /**
+     * Area tree handler for a single page-sequence laid out in isolation. Page viewport
+     * keys and formatting results are shared with the parent handler.
+     */
+    private static final class IsolatedAreaTreeHandler extends AreaTreeHandler {
+
+        private final AreaTreeHandler parent;
+
+        IsolatedAreaTreeHandler(AreaTreeHandler parent, AreaTreeModel model) {
+            super(parent, model);
+            this.parent = parent;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String generatePageViewportKey() {
+            return parent.generatePageViewportKey();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void notifyPageSequenceFinished(AbstractPageSequence pageSequence,
+                int pageCount) {
+            parent.notifyPageSequenceFinished(pageSequence, pageCount);
+        }
+    }
+
+    /**
+     * Area tree model that only collects the pages of a single page-sequence. It behaves
+     * like a model containing just that page-sequence, which is what marker retrieval
+     * with a retrieve-boundary of "page-sequence" or "page" requires.
+     */
+    private static final class IsolatedAreaTreeModel extends AreaTreeModel {
+
+        private final List<PageViewport> pages = new java.util.ArrayList<PageViewport>();
+
+        /** {@inheritDoc} */
+        @Override
+        public void startPageSequence(org.apache.fop.area.PageSequence pageSequence) {
+            if (currentPageSequence != null) {
+                throw new IllegalStateException("Only one page-sequence may be added");
+            }
+            this.currentPageSequence = pageSequence;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void addPage(PageViewport page) {
+            pages.add(page);
+            page.setPageIndex(pages.size() - 1);
+            page.setPageSequence(currentPageSequence);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int getPageSequenceCount() {
+            return (currentPageSequence != null) ? 1 : 0;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int getPageCount(int seq) {
+            return pages.size();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public PageViewport getPage(int seq, int count) {
+            return pages.get(count);
+        }
+
+        List<PageViewport> getPages() {
+            return pages;
+        }
+    }
+
+    private static final class LayoutThreadFactory implements ThreadFactory {
+
+        private int threadNumber = 0;
+
+        /** {@inheritDoc} */
+        public synchronized Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "FOP layout worker " + (++threadNumber));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.fop.area;
 // Java
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -88,7 +89,12 @@ public class RenderPagesModel extends AreaTreeModel {
     public void startPageSequence(PageSequence pageSequence) {
         super.startPageSequence(pageSequence);
         if (renderer.supportsOutOfOrder()) {
-            renderer.startPageSequence(getCurrentPageSequence());
+            final PageSequence currentPageSequence = getCurrentPageSequence();
+            runRendererTask(new Runnable() {
+                public void run() {
+                    renderer.startPageSequence(currentPageSequence);
+                }
+            });
         }
     }
 
@@ -101,7 +107,7 @@ public class RenderPagesModel extends AreaTreeModel {
      * @param page the page to add to the model
      */
     @Override
-    public void addPage(PageViewport page) {
+    public void addPage(final PageViewport page) {
         super.addPage(page);
 
         // for links the renderer needs to prepare the page
@@ -113,24 +119,28 @@ public class RenderPagesModel extends AreaTreeModel {
             if (!renderer.supportsOutOfOrder() && page.getPageSequence().isFirstPage(page)) {
                 renderer.startPageSequence(getCurrentPageSequence());
             }
-            try {
-                renderer.renderPage(page);
-            } catch (RuntimeException re) {
-                String err = "Error while rendering page " + page.getPageNumberString();
-                log.error(err, re);
-                throw re;
-            } catch (IOException ioe) {
-                RendererEventProducer eventProducer = RendererEventProducer.Provider.get(
-                        renderer.getUserAgent().getEventBroadcaster());
-                eventProducer.ioError(this, ioe);
-            } catch (FOPException e) {
-                //TODO use error handler to handle this FOPException or propagate exception
-                String err = "Error while rendering page " + page.getPageNumberString();
-                log.error(err, e);
-                throw new IllegalStateException("Fatal error occurred. Cannot continue. "
-                        + e.getClass().getName() + ": " + err);
-            }
-            page.clear();
+            runRendererTask(new Runnable() {
+                public void run() {
+                    try {
+                        renderer.renderPage(page);
+                    } catch (RuntimeException re) {
+                        String err = "Error while rendering page " + page.getPageNumberString();
+                        log.error(err, re);
+                        throw re;
+                    } catch (IOException ioe) {
+                        RendererEventProducer eventProducer = RendererEventProducer.Provider.get(
+                                renderer.getUserAgent().getEventBroadcaster());
+                        eventProducer.ioError(RenderPagesModel.this, ioe);
+                    } catch (FOPException e) {
+                        //TODO use error handler to handle this FOPException or propagate exception
+                        String err = "Error while rendering page " + page.getPageNumberString();
+                        log.error(err, e);
+                        throw new IllegalStateException("Fatal error occurred. Cannot continue. "
+                                + e.getClass().getName() + ": " + err);
+                    }
+                    page.clear();
+                }
+            });
         } else {
             preparePage(page);
         }
@@ -159,14 +169,19 @@ public class RenderPagesModel extends AreaTreeModel {
                                          boolean renderUnresolved) {
 
         for (Iterator iter = prepared.iterator(); iter.hasNext();) {
-            PageViewport pageViewport = (PageViewport)iter.next();
+            final PageViewport pageViewport = (PageViewport)iter.next();
             if (pageViewport.isResolved() || renderUnresolved) {
-                if (!renderer.supportsOutOfOrder()
-                        && pageViewport.getPageSequence().isFirstPage(pageViewport)) {
-                    renderer.startPageSequence(pageViewport.getPageSequence());
-                }
-                renderPage(pageViewport);
-                pageViewport.clear();
+                final boolean startPageSequence = !renderer.supportsOutOfOrder()
+                        && pageViewport.getPageSequence().isFirstPage(pageViewport);
+                runRendererTask(new Runnable() {
+                    public void run() {
+                        if (startPageSequence) {
+                            renderer.startPageSequence(pageViewport.getPageSequence());
+                        }
+                        renderPage(pageViewport);
+                        pageViewport.clear();
+                    }
+                });
                 iter.remove();
             } else {
                 // if keeping order then stop at first page not resolved
@@ -218,12 +233,34 @@ public class RenderPagesModel extends AreaTreeModel {
         prepared.add(page);
     }
 
+    /**
+     * Runs a task using the renderer. All the calls to the renderer made while pages are
+     * added go through this method, in the order in which the renderer must receive them.
+     * This implementation runs the task immediately, on the calling thread.
+     * @param task the task
+     */
+    protected void runRendererTask(Runnable task) {
+        task.run();
+    }
+
+    /**
+     * Stops the renderer, once all the pages have been rendered.
+     * @throws IOException if an I/O error occurs
+     */
+    protected void stopRenderer() throws IOException {
+        renderer.stopRenderer();
+    }
+
     /** {@inheritDoc} */
     @Override
-    public void handleOffDocumentItem(OffDocumentItem oDI) {
+    public void handleOffDocumentItem(final OffDocumentItem oDI) {
         switch(oDI.getWhenToProcess()) {
             case OffDocumentItem.IMMEDIATELY:
-                renderer.processOffDocumentItem(oDI);
+                runRendererTask(new Runnable() {
+                    public void run() {
+                        renderer.processOffDocumentItem(oDI);
+                    }
+                });
                 break;
             case OffDocumentItem.AFTER_PAGE:
                 pendingODI.add(oDI);
@@ -237,9 +274,14 @@ public class RenderPagesModel extends AreaTreeModel {
     }
 
     private void processOffDocumentItems(List<OffDocumentItem> list) {
-        for (OffDocumentItem oDI : list) {
-            renderer.processOffDocumentItem(oDI);
-        }
+        final List<OffDocumentItem> items = new ArrayList<OffDocumentItem>(list);
+        runRendererTask(new Runnable() {
+            public void run() {
+                for (OffDocumentItem oDI : items) {
+                    renderer.processOffDocumentItem(oDI);
+                }
+            }
+        });
     }
 
     /**
@@ -256,7 +298,7 @@ public class RenderPagesModel extends AreaTreeModel {
         processOffDocumentItems(endDocODI);
 
         try {
-            renderer.stopRenderer();
+            stopRenderer();
         } catch (IOException ex) {
             throw new SAXException(ex);
         }
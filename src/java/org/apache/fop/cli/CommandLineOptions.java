@@ -118,6 +118,14 @@ public class CommandLineOptions {
     private int targetResolution = 0;
     /* control memory-conservation policy */
     private boolean conserveMemoryPolicy = false;
+    /* number of threads used to lay out independent page-sequences */
+    private int layoutThreadCount = 0;
+    /* page breaking lookahead (in pages, 0 = whole flow) */
+    private int pageBreakingLookahead = 0;
+    /* rendering queue size (0 = render on the layout thread) */
+    private int renderingQueueSize = 0;
+    /* number of shaped words cached per font (0 = no cache) */
+    private int shapingCacheSize = 0;
     /* true if a complex script features are enabled */
     private boolean useComplexScriptFeatures = true;
 
@@ -183,6 +191,10 @@ public class CommandLineOptions {
                 addXSLTParameter("fop-output-format", getOutputFormat());
                 addXSLTParameter("fop-version", Version.getVersion());
                 foUserAgent.setConserveMemoryPolicy(conserveMemoryPolicy);
+                foUserAgent.setLayoutThreadCount(layoutThreadCount);
+                foUserAgent.setPageBreakingLookahead(pageBreakingLookahead);
+                foUserAgent.setRenderingQueueSize(renderingQueueSize);
+                foUserAgent.setShapingCacheSize(shapingCacheSize);
                 if (!useComplexScriptFeatures) {
                     foUserAgent.setComplexScriptFeaturesEnabled(false);
                 }
@@ -294,6 +306,14 @@ public class CommandLineOptions {
                 factory.setStrictValidation(false);
             } else if (args[i].equals("-conserve")) {
                 conserveMemoryPolicy = true;
+            } else if (args[i].equals("-lthreads")) {
+                i = i + parseLayoutThreadsOption(args, i);
+            } else if (args[i].equals("-lookahead")) {
+                i = i + parseLookaheadOption(args, i);
+            } else if (args[i].equals("-rqueue")) {
+                i = i + parseRenderingQueueOption(args, i);
+            } else if (args[i].equals("-shapingcache")) {
+                i = i + parseShapingCacheOption(args, i);
             } else if (args[i].equals("-flush")) {
                 flushCache = true;
             } else if (args[i].equals("-cache")) {
@@ -452,6 +472,50 @@ public class CommandLineOptions {
         }
     }
 
+    private int parseLayoutThreadsOption(String[] args, int i) throws FOPException {
+        if ((i + 1 == args.length)
+                || (isOption(args[i + 1]))) {
+            throw new FOPException(
+                    "if you use '-lthreads', you must specify the number of layout threads");
+        } else {
+            this.layoutThreadCount = Integer.parseInt(args[i + 1]);
+            return 1;
+        }
+    }
+
+    private int parseLookaheadOption(String[] args, int i) throws FOPException {
+        if ((i + 1 == args.length)
+                || (isOption(args[i + 1]))) {
+            throw new FOPException(
+                    "if you use '-lookahead', you must specify the number of pages");
+        } else {
+            this.pageBreakingLookahead = Integer.parseInt(args[i + 1]);
+            return 1;
+        }
+    }
+
+    private int parseRenderingQueueOption(String[] args, int i) throws FOPException {
+        if ((i + 1 == args.length)
+                || (isOption(args[i + 1]))) {
+            throw new FOPException(
+                    "if you use '-rqueue', you must specify the size of the rendering queue");
+        } else {
+            this.renderingQueueSize = Integer.parseInt(args[i + 1]);
+            return 1;
+        }
+    }
+
+    private int parseShapingCacheOption(String[] args, int i) throws FOPException {
+        if ((i + 1 == args.length)
+                || (isOption(args[i + 1]))) {
+            throw new FOPException(
+                    "if you use '-shapingcache', you must specify the number of words");
+        } else {
+            this.shapingCacheSize = Integer.parseInt(args[i + 1]);
+            return 1;
+        }
+    }
+
     private int parseFOInputOption(String[] args, int i) throws FOPException {
         setInputFormat(FO_INPUT);
         if ((i + 1 == args.length)
@@ -1211,7 +1275,17 @@ public class CommandLineOptions {
             + "  -conserve         enable memory-conservation policy (trades memory-consumption"
             + " for disk I/O)\n"
             + "                    (Note: currently only influences whether the area tree is"
-            + " serialized.)\n\n"
+            + " serialized.)\n"
+            + "  -lthreads n       lay out independent page-sequences (explicit"
+            + " initial-page-number,\n"
+            + "                    no outside page-number-citations) on n worker threads\n"
+            + "  -lookahead n      commit page breaks after looking ahead n pages (bounded"
+            + " memory\n"
+            + "                    for very long flows, slightly less optimal page breaks)\n"
+            + "  -rqueue n         render pages on a separate thread, with up to n pages"
+            + " queued\n"
+            + "  -shapingcache n   cache the shaping of up to n complex script words per font"
+            + " and size\n\n"
 
             + "  -cache            specifies a file/directory path location"
             + " for the font cache file\n"
@@ -89,6 +89,13 @@ public final class BidiResolver {
             log.debug( "BD: REORDER: { min = " + mm[0] + ", max = " + mm[1] + "}" );
         }
 
+        // 3a. nothing to reorder or mirror if all runs are left-to-right at level zero, as
+        // occurs for lines of purely left-to-right text in a block that contains some
+        // right-to-left text
+        if ( ( mm[0] == 0 ) && ( mm[1] == 0 ) ) {
+            return;
+        }
+
         // 4. reorder from maximum level to minimum odd level
         int mn = mm[0];
         int mx = mm[1];
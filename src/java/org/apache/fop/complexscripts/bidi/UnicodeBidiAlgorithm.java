@@ -60,6 +60,9 @@ public final class UnicodeBidiAlgorithm implements BidiConstants {
      * @param defaultLevel the default paragraph level, which must be zero (LR) or one (RL)
      */
     public static int[] resolveLevels ( CharSequence cs, Direction defaultLevel ) {
+        if ( ( defaultLevel != Direction.RL ) && ! triggersBidi ( cs ) ) {
+            return null;
+        }
         int[] chars = new int [ cs.length() ];
         if ( convertToScalar ( cs, chars ) || ( defaultLevel == Direction.RL ) ) {
             return resolveLevels ( chars, ( defaultLevel == Direction.RL ) ? 1 : 0, new int [ chars.length ] );
@@ -693,6 +696,40 @@ public final class UnicodeBidiAlgorithm implements BidiConstants {
         return triggered;
     }
 
+    /**
+     * Determine if a character sequence contains a character that triggers bidirectional
+     * processing, i.e., a strong right-to-left character, an arabic letter or number, or a
+     * right-to-left embedding or override character. Unlike {@link #resolveLevels}, neither
+     * scalar values nor classes are stored, so that the (common) case of purely left-to-right
+     * text is detected without allocation; moreover, since no character below U+0590 triggers
+     * bidirectional processing, the class of such characters is not looked up.
+     * @return true if some character triggers bidirectional processing, or if the sequence
+     * contains an ill-formed surrogate pair, which is to be reported by full resolution
+     * @param cs input character sequence representing a UTF-16 encoded string
+     */
+    public static boolean triggersBidi ( CharSequence cs ) {
+        for ( int i = 0, n = cs.length(); i < n; i++ ) {
+            int ch = cs.charAt ( i );
+            if ( ch < 0x0590 ) {
+                continue;
+            } else if ( ( ch >= 0xD800 ) && ( ch <= 0xDFFF ) ) {
+                int chLo;
+                if ( ( ch > 0xDBFF ) || ( ( i + 1 ) == n ) ) {
+                    return true;
+                } else if ( ( ( chLo = cs.charAt ( i + 1 ) ) < 0xDC00 ) || ( chLo > 0xDFFF ) ) {
+                    return true;
+                } else {
+                    ch = convertToScalar ( ch, chLo );
+                    i++;
+                }
+            }
+            if ( triggersBidi ( ch ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Convert UTF-16 surrogate pair to unicode scalar valuee.
      * @return a unicode scalar value
@@ -94,6 +94,33 @@ public final class GlyphClassTable extends GlyphMappingTable implements GlyphCla
         return new GlyphClassTable ( cm );
     }
 
+    /**
+     * Create glyph class table from an array of glyph classes, as read from a class definition table of format 1.
+     * @param firstGlyph the first glyph to which a class is assigned
+     * @param classes array of classes of consecutive glyphs, which is owned by the class table once created
+     * @return a new class table instance
+     */
+    public static GlyphClassTable createClassTable ( int firstGlyph, int[] classes ) {
+        return new GlyphClassTable ( new MappedClassTable ( firstGlyph, classes ) );
+    }
+
+    /**
+     * Create glyph class table from arrays of glyph ranges, as read from a class definition table of format 2.
+     * @param starts array of range (inclusive) starts
+     * @param ends array of range (inclusive) ends
+     * @param classes array of range classes
+     * @return a new class table instance
+     */
+    public static GlyphClassTable createClassTable ( int[] starts, int[] ends, int[] classes ) {
+        GlyphClassMapping cm;
+        if ( starts.length == 0 ) {
+            cm = new EmptyClassTable ( null );
+        } else {
+            cm = new RangeClassTable ( starts, ends, classes );
+        }
+        return new GlyphClassTable ( cm );
+    }
+
     private static boolean isMappedClass ( List entries ) {
         if ( ( entries == null ) || ( entries.size() == 0 ) ) {
             return false;
@@ -157,6 +184,9 @@ public final class GlyphClassTable extends GlyphMappingTable implements GlyphCla
         public MappedClassTable ( List entries ) {
             populate ( entries );
         }
+        public MappedClassTable ( int firstGlyph, int[] gca ) {
+            populate ( firstGlyph, gca );
+        }
         /** {@inheritDoc} */
         public List getEntries() {
             List entries = new java.util.ArrayList();
@@ -203,21 +233,26 @@ public final class GlyphClassTable extends GlyphMappingTable implements GlyphCla
                 }
             }
             // extract glyph class array
-            int i = 0, n = entries.size() - 1, gcMax = -1;
+            int i = 0, n = entries.size() - 1;
             int[] gca = new int [ n ];
             while ( it.hasNext() ) {
                 Object o = it.next();
                 if ( o instanceof Integer ) {
-                    int gc = ( (Integer) o ) . intValue();
-                    gca [ i++ ] = gc;
-                    if ( gc > gcMax ) {
-                        gcMax = gc;
-                    }
+                    gca [ i++ ] = ( (Integer) o ) . intValue();
                 } else {
                     throw new AdvancedTypographicTableFormatException ( "illegal mapping entry, must be Integer: " + o );
                 }
             }
             assert i == n;
+            populate ( firstGlyph, gca );
+        }
+        private void populate ( int firstGlyph, int[] gca ) {
+            int gcMax = -1;
+            for ( int i = 0, n = gca.length; i < n; i++ ) {
+                if ( gca [ i ] > gcMax ) {
+                    gcMax = gca [ i ];
+                }
+            }
             assert this.gca == null;
             this.firstGlyph = firstGlyph;
             this.gca = gca;
@@ -242,6 +277,9 @@ public final class GlyphClassTable extends GlyphMappingTable implements GlyphCla
         public RangeClassTable ( List entries ) {
             super ( entries );
         }
+        public RangeClassTable ( int[] starts, int[] ends, int[] classes ) {
+            super ( starts, ends, classes );
+        }
         /** {@inheritDoc} */
         public int getMappedIndex ( int gid, int s, int m ) {
             return m;
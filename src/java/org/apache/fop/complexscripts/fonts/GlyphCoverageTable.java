@@ -96,6 +96,38 @@ public final class GlyphCoverageTable extends GlyphMappingTable implements Glyph
         return new GlyphCoverageTable ( cm );
     }
 
+    /**
+     * Create glyph coverage table from an array of glyphs, as read from a coverage table of format 1.
+     * @param glyphs array of glyphs in increasing order, which is owned by the coverage table once created
+     * @return a new coverage table instance
+     */
+    public static GlyphCoverageTable createCoverageTable ( int[] glyphs ) {
+        GlyphCoverageMapping cm;
+        if ( glyphs.length == 0 ) {
+            cm = new EmptyCoverageTable ( null );
+        } else {
+            cm = new MappedCoverageTable ( glyphs );
+        }
+        return new GlyphCoverageTable ( cm );
+    }
+
+    /**
+     * Create glyph coverage table from arrays of glyph ranges, as read from a coverage table of format 2.
+     * @param starts array of range (inclusive) starts
+     * @param ends array of range (inclusive) ends
+     * @param indices array of coverage indices of range starts
+     * @return a new coverage table instance
+     */
+    public static GlyphCoverageTable createCoverageTable ( int[] starts, int[] ends, int[] indices ) {
+        GlyphCoverageMapping cm;
+        if ( starts.length == 0 ) {
+            cm = new EmptyCoverageTable ( null );
+        } else {
+            cm = new RangeCoverageTable ( starts, ends, indices );
+        }
+        return new GlyphCoverageTable ( cm );
+    }
+
     private static boolean isMappedCoverage ( List entries ) {
         if ( ( entries == null ) || ( entries.size() == 0 ) ) {
             return false;
@@ -143,6 +175,9 @@ public final class GlyphCoverageTable extends GlyphMappingTable implements Glyph
         public MappedCoverageTable ( List entries ) {
             populate ( entries );
         }
+        public MappedCoverageTable ( int[] glyphs ) {
+            populate ( glyphs );
+        }
         /** {@inheritDoc} */
         public List getEntries() {
             List entries = new java.util.ArrayList();
@@ -174,26 +209,38 @@ public final class GlyphCoverageTable extends GlyphMappingTable implements Glyph
             return getMappedIndex ( gid );
         }
         private void populate ( List entries ) {
-            int i = 0, n = entries.size(), gidMax = -1;
-            int[] map = new int [ n ];
+            int i = 0, n = entries.size();
+            int[] glyphs = new int [ n ];
             for ( Iterator it = entries.iterator(); it.hasNext();) {
                 Object o = it.next();
                 if ( o instanceof Integer ) {
-                    int gid = ( (Integer) o ) . intValue();
-                    if ( ( gid >= 0 ) && ( gid < 65536 ) ) {
-                        if ( gid > gidMax ) {
-                            map [ i++ ] = gidMax = gid;
-                        } else {
-                            log.info ( "ignoring out of order or duplicate glyph index: " + gid );
-                        }
-                    } else {
-                        throw new AdvancedTypographicTableFormatException ( "illegal glyph index: " + gid );
-                    }
+                    glyphs [ i++ ] = ( (Integer) o ) . intValue();
                 } else {
                     throw new AdvancedTypographicTableFormatException ( "illegal coverage entry, must be Integer: " + o );
                 }
             }
             assert i == n;
+            populate ( glyphs );
+        }
+        private void populate ( int[] glyphs ) {
+            int i = 0, n = glyphs.length, gidMax = -1;
+            int[] map = glyphs;
+            for ( int k = 0; k < n; k++ ) {
+                int gid = glyphs [ k ];
+                if ( ( gid >= 0 ) && ( gid < 65536 ) ) {
+                    if ( gid > gidMax ) {
+                        map [ i++ ] = gidMax = gid;
+                    } else {
+                        log.info ( "ignoring out of order or duplicate glyph index: " + gid );
+                    }
+                } else {
+                    throw new AdvancedTypographicTableFormatException ( "illegal glyph index: " + gid );
+                }
+            }
+            if ( i < n ) {
+                map = new int [ i ];
+                System.arraycopy ( glyphs, 0, map, 0, i );
+            }
             assert this.map == null;
             this.map = map;
         }
@@ -216,6 +263,9 @@ public final class GlyphCoverageTable extends GlyphMappingTable implements Glyph
         public RangeCoverageTable ( List entries ) {
             super ( entries );
         }
+        public RangeCoverageTable ( int[] starts, int[] ends, int[] indices ) {
+            super ( starts, ends, indices );
+        }
         /** {@inheritDoc} */
         public int getMappedIndex ( int gid, int s, int m ) {
             return m + gid - s;
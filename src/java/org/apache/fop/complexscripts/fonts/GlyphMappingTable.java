@@ -178,8 +178,17 @@ public class GlyphMappingTable {
          * @return non-negative glyph mapping index or -1 if glyph identifiers is not mapped by table
          */
         public abstract int getMappedIndex ( int gid, int s, int m );
+        /**
+         * Construct range mapping table.
+         * @param starts array of range (inclusive) starts
+         * @param ends array of range (inclusive) ends
+         * @param indices array of range mapping indices
+         */
+        public RangeMappingTable ( int[] starts, int[] ends, int[] indices ) {
+            populate ( starts, ends, indices );
+        }
         private void populate ( List entries ) {
-            int i = 0, n = entries.size(), gidMax = -1, miMax = -1;
+            int i = 0, n = entries.size();
             int[] sa = new int [ n ];
             int[] ea = new int [ n ];
             int[] ma = new int [ n ];
@@ -187,34 +196,44 @@ public class GlyphMappingTable {
                 Object o = it.next();
                 if ( o instanceof MappingRange ) {
                     MappingRange r = (MappingRange) o;
-                    int gs = r.getStart();
-                    int ge = r.getEnd();
-                    int mi = r.getIndex();
-                    if ( ( gs < 0 ) || ( gs > 65535 ) ) {
-                        throw new AdvancedTypographicTableFormatException ( "illegal glyph range: [" + gs + "," + ge + "]: bad start index" );
-                    } else if ( ( ge < 0 ) || ( ge > 65535 ) ) {
-                        throw new AdvancedTypographicTableFormatException ( "illegal glyph range: [" + gs + "," + ge + "]: bad end index" );
-                    } else if ( gs > ge ) {
-                        throw new AdvancedTypographicTableFormatException ( "illegal glyph range: [" + gs + "," + ge + "]: start index exceeds end index" );
-                    } else if ( gs < gidMax ) {
-                        throw new AdvancedTypographicTableFormatException ( "out of order glyph range: [" + gs + "," + ge + "]" );
-                    } else if ( mi < 0 ) {
-                        throw new AdvancedTypographicTableFormatException ( "illegal mapping index: " + mi );
-                    } else {
-                        int miLast;
-                        sa [ i ] = gs;
-                        ea [ i ] = gidMax = ge;
-                        ma [ i ] = mi;
-                        if ( ( miLast = mi + ( ge - gs ) ) > miMax ) {
-                            miMax = miLast;
-                        }
-                        i++;
-                    }
+                    sa [ i ] = r.getStart();
+                    ea [ i ] = r.getEnd();
+                    ma [ i ] = r.getIndex();
+                    i++;
                 } else {
                     throw new AdvancedTypographicTableFormatException ( "illegal mapping entry, must be Integer: " + o );
                 }
             }
             assert i == n;
+            populate ( sa, ea, ma );
+        }
+        private void populate ( int[] sa, int[] ea, int[] ma ) {
+            int gidMax = -1, miMax = -1;
+            if ( ( sa.length != ea.length ) || ( sa.length != ma.length ) ) {
+                throw new AdvancedTypographicTableFormatException ( "mismatched glyph range arrays" );
+            }
+            for ( int i = 0, n = sa.length; i < n; i++ ) {
+                int gs = sa [ i ];
+                int ge = ea [ i ];
+                int mi = ma [ i ];
+                if ( ( gs < 0 ) || ( gs > 65535 ) ) {
+                    throw new AdvancedTypographicTableFormatException ( "illegal glyph range: [" + gs + "," + ge + "]: bad start index" );
+                } else if ( ( ge < 0 ) || ( ge > 65535 ) ) {
+                    throw new AdvancedTypographicTableFormatException ( "illegal glyph range: [" + gs + "," + ge + "]: bad end index" );
+                } else if ( gs > ge ) {
+                    throw new AdvancedTypographicTableFormatException ( "illegal glyph range: [" + gs + "," + ge + "]: start index exceeds end index" );
+                } else if ( gs < gidMax ) {
+                    throw new AdvancedTypographicTableFormatException ( "out of order glyph range: [" + gs + "," + ge + "]" );
+                } else if ( mi < 0 ) {
+                    throw new AdvancedTypographicTableFormatException ( "illegal mapping index: " + mi );
+                } else {
+                    int miLast;
+                    gidMax = ge;
+                    if ( ( miLast = mi + ( ge - gs ) ) > miMax ) {
+                        miMax = miLast;
+                    }
+                }
+            }
             assert this.sa == null;
             assert this.ea == null;
             assert this.ma == null;
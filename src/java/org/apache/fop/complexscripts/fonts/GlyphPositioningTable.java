@@ -90,6 +90,18 @@ public class GlyphPositioningTable extends GlyphTable {
         }
     }
 
+    /**
+     * Instantiate a <code>GlyphPositioningTable</code> object using the specified lookups,
+     * whose subtables are loaded on first use.
+     * @param gdef glyph definition table that applies
+     * @param lookups a map of lookup specifications to subtable identifier strings
+     * @param loader loader of the glyph positioning subtables of lookup tables
+     */
+    public GlyphPositioningTable ( GlyphDefinitionTable gdef, Map lookups, LookupTableLoader loader ) {
+        super ( gdef, lookups, loader );
+        freezeSubtables();
+    }
+
     /**
      * Map a lookup type name to its constant (integer) value.
      * @param name lookup type name
@@ -235,10 +247,10 @@ public class GlyphPositioningTable extends GlyphTable {
      * @return true if some adjustment is not zero; otherwise, false
      */
     public boolean position ( GlyphSequence gs, String script, String language, int fontSize, int[] widths, int[][] adjustments ) {
-        Map/*<LookupSpec,List<LookupTable>>*/ lookups = matchLookups ( script, language, "*" );
-        if ( ( lookups != null ) && ( lookups.size() > 0 ) ) {
-            ScriptProcessor sp = ScriptProcessor.getInstance ( script );
-            return sp.position ( this, gs, script, language, fontSize, lookups, widths, adjustments );
+        ScriptProcessor sp = ScriptProcessor.getInstance ( script );
+        UseSpec[] usa = getAssembledLookups ( script, language, sp.getPositioningFeatures() );
+        if ( usa != null ) {
+            return sp.position ( gs, script, language, fontSize, usa, widths, adjustments, sp.getPositioningContextTester() );
         } else {
             return false;
         }
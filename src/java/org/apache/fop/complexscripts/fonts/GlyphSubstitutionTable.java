@@ -88,6 +88,18 @@ public class GlyphSubstitutionTable extends GlyphTable {
         }
     }
 
+    /**
+     * Instantiate a <code>GlyphSubstitutionTable</code> object using the specified lookups,
+     * whose subtables are loaded on first use.
+     * @param gdef glyph definition table that applies
+     * @param lookups a map of lookup specifications to subtable identifier strings
+     * @param loader loader of the glyph substitution subtables of lookup tables
+     */
+    public GlyphSubstitutionTable ( GlyphDefinitionTable gdef, Map lookups, LookupTableLoader loader ) {
+        super ( gdef, lookups, loader );
+        freezeSubtables();
+    }
+
     /**
      * Perform substitution processing using all matching lookups.
      * @param gs an input glyph sequence
@@ -97,10 +109,10 @@ public class GlyphSubstitutionTable extends GlyphTable {
      */
     public GlyphSequence substitute ( GlyphSequence gs, String script, String language ) {
         GlyphSequence ogs;
-        Map/*<LookupSpec,List<LookupTable>>*/ lookups = matchLookups ( script, language, "*" );
-        if ( ( lookups != null ) && ( lookups.size() > 0 ) ) {
-            ScriptProcessor sp = ScriptProcessor.getInstance ( script );
-            ogs = sp.substitute ( this, gs, script, language, lookups );
+        ScriptProcessor sp = ScriptProcessor.getInstance ( script );
+        UseSpec[] usa = getAssembledLookups ( script, language, sp.getSubstitutionFeatures() );
+        if ( usa != null ) {
+            ogs = sp.substitute ( gs, script, language, usa, sp.getSubstitutionContextTester() );
         } else {
             ogs = gs;
         }
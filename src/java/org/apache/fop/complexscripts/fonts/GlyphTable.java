@@ -19,6 +19,7 @@
 
 package org.apache.fop.complexscripts.fonts;
 
+import java.util.AbstractMap;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -30,6 +31,8 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -76,12 +79,36 @@ public class GlyphTable {
     // if true, then prevent further subtable addition
     private boolean frozen;
 
+    // (optional) loader of lookup tables on first use, and identifiers of lookup tables not loaded yet
+    private final LookupTableLoader loader;
+    private Set/*<String>*/ unloadedLookups;
+
+    // number of lookup tables being frozen, which may load the lookup tables they refer to
+    private int freezeDepth;
+
+    // if true, then all lookup tables are loaded and lookup tables no longer change
+    private volatile boolean lookupsLoaded;
+
+    // map from scripts to maps from languages to assembled lookups, filled in on first use
+    private final ConcurrentMap<String,ConcurrentMap<String,AssembledLookups>> assembledLookups
+        = new ConcurrentHashMap<String,ConcurrentMap<String,AssembledLookups>>();
+
     /**
      * Instantiate glyph table with specified lookups.
      * @param gdef glyph definition table that applies
      * @param lookups map from lookup specs to lookup tables
      */
     public GlyphTable ( GlyphTable gdef, Map/*<LookupSpec,List<String>>*/ lookups ) {
+        this ( gdef, lookups, null );
+    }
+
+    /**
+     * Instantiate glyph table with specified lookups, whose lookup tables are loaded on first use.
+     * @param gdef glyph definition table that applies
+     * @param lookups map from lookup specs to lookup tables
+     * @param loader loader of lookup tables, or null if subtables are added instead
+     */
+    public GlyphTable ( GlyphTable gdef, Map/*<LookupSpec,List<String>>*/ lookups, LookupTableLoader loader ) {
         if ( ( gdef != null ) && ! ( gdef instanceof GlyphDefinitionTable ) ) {
             throw new AdvancedTypographicTableFormatException ( "bad glyph definition table" );
         } else if ( lookups == null ) {
@@ -90,6 +117,10 @@ public class GlyphTable {
             this.gdef = gdef;
             this.lookups = lookups;
             this.lookupTables = new LinkedHashMap/*<String,List<LookupTable>>*/();
+            this.loader = loader;
+            if ( loader != null ) {
+                this.unloadedLookups = new java.util.HashSet/*<String>*/ ( loader.getLookupIds() );
+            }
         }
     }
 
@@ -115,11 +146,21 @@ public class GlyphTable {
      * @return (possibly empty) ordered list of all lookup tables
      */
     public List/*<LookupTable>*/ getLookupTables() {
-        TreeSet/*<String>*/ lids = new TreeSet/*<String>*/ ( lookupTables.keySet() );
+        TreeSet/*<String>*/ lids;
+        if ( loader != null ) {
+            synchronized ( this ) {
+                for ( Iterator it = loader.getLookupIds().iterator(); it.hasNext(); ) {
+                    obtainLookupTable ( (String) it.next() );
+                }
+                lids = new TreeSet/*<String>*/ ( lookupTables.keySet() );
+            }
+        } else {
+            lids = new TreeSet/*<String>*/ ( lookupTables.keySet() );
+        }
         List/*<LookupTable>*/ ltl = new ArrayList/*<LookupTable>*/ ( lids.size() );
         for ( Iterator it = lids.iterator(); it.hasNext(); ) {
             String lid = (String) it.next();
-            ltl.add ( lookupTables.get ( lid ) );
+            ltl.add ( obtainLookupTable ( lid ) );
         }
         return ltl;
     }
@@ -131,7 +172,55 @@ public class GlyphTable {
      * @return table associated with lookup id or null if none
      */
     public LookupTable getLookupTable ( String lid ) {
-        return (LookupTable) lookupTables.get ( lid );
+        return obtainLookupTable ( lid );
+    }
+
+    /**
+     * Obtain lookup table by lookup id, loading it (and the lookup tables it refers to) on first use
+     * if this table has a lookup table loader. Lookup tables are shared across documents (and threads)
+     * with their fonts, so loading is serialized until all lookup tables are loaded.
+     * @param lid lookup id
+     * @return table associated with lookup id or null if none (or if it has no subtables)
+     */
+    private LookupTable obtainLookupTable ( String lid ) {
+        if ( ( loader == null ) || lookupsLoaded ) {
+            return (LookupTable) lookupTables.get ( lid );
+        }
+        synchronized ( this ) {
+            if ( unloadedLookups.remove ( lid ) ) {
+                List/*<GlyphSubtable>*/ subtables;
+                try {
+                    subtables = loader.loadSubtables ( lid );
+                } catch ( AdvancedTypographicTableFormatException e ) {
+                    log.warn ( "ignoring lookup table '" + lid + "' with invalid format: " + e.getMessage() );
+                    subtables = null;
+                }
+                if ( ( subtables != null ) && ( subtables.size() > 0 ) ) {
+                    LookupTable lt = null;
+                    for ( Iterator it = subtables.iterator(); it.hasNext(); ) {
+                        GlyphSubtable st = (GlyphSubtable) it.next();
+                        st.setTable ( this );
+                        if ( lt == null ) {
+                            lt = new LookupTable ( lid, st );
+                        } else {
+                            lt.addSubtable ( st );
+                        }
+                    }
+                    // add before freezing, so cyclic lookup references terminate
+                    lookupTables.put ( lid, lt );
+                    freezeDepth++;
+                    try {
+                        lt.freezeSubtables ( new LookupTableResolver() );
+                    } finally {
+                        freezeDepth--;
+                    }
+                }
+            }
+            if ( ( freezeDepth == 0 ) && unloadedLookups.isEmpty() ) {
+                lookupsLoaded = true;
+            }
+            return (LookupTable) lookupTables.get ( lid );
+        }
     }
 
     /**
@@ -233,7 +322,7 @@ public class GlyphTable {
             for ( Iterator it = ids.iterator(); it.hasNext();) {
                 String lid = (String) it.next();
                 LookupTable lt;
-                if ( ( lt = (LookupTable) lookupTables.get ( lid ) ) != null ) {
+                if ( ( lt = obtainLookupTable ( lid ) ) != null ) {
                     lts.add ( lt );
                 }
             }
@@ -268,6 +357,100 @@ public class GlyphTable {
         }
         return (UseSpec[]) uss.toArray ( new UseSpec [ uss.size() ] );
     }
+
+    /**
+     * Obtain ordered array of lookup table use specifications that apply to the specified script and language,
+     * according to the specified features. The result is assembled from all lookups matching the script and
+     * language on first use, then cached, so repeated calls (e.g., once per word) neither match nor assemble
+     * lookups again. The returned array is shared and must not be modified.
+     * @param script a script identifier
+     * @param language a language identifier
+     * @param features array of feature identifiers to apply
+     * @return ordered array of assembled lookup table use specifications, or null if no lookup matches the
+     * script and language
+     */
+    public UseSpec[] getAssembledLookups ( String script, String language, String[] features ) {
+        if ( ( script == null ) || ( language == null ) ) {
+            return assembleMatchingLookups ( script, language, features );
+        }
+        ConcurrentMap<String,AssembledLookups> languages = assembledLookups.get ( script );
+        if ( languages == null ) {
+            languages = new ConcurrentHashMap<String,AssembledLookups>();
+            ConcurrentMap<String,AssembledLookups> previous = assembledLookups.putIfAbsent ( script, languages );
+            if ( previous != null ) {
+                languages = previous;
+            }
+        }
+        AssembledLookups al = languages.get ( language );
+        if ( ( al == null ) || ! Arrays.equals ( al.features, features ) ) {
+            // lookups are only ever assembled for the features of the script's processor, so
+            // replacing an entry for different features does not happen in practice
+            al = new AssembledLookups ( features, assembleMatchingLookups ( script, language, features ) );
+            languages.put ( language, al );
+        }
+        return al.uses;
+    }
+
+    private UseSpec[] assembleMatchingLookups ( String script, String language, String[] features ) {
+        List/*<LookupSpec>*/ lsl = matchLookupSpecs ( script, language, "*" );
+        if ( lsl.size() > 0 ) {
+            // only obtain lookup tables of requested features, so others need not be loaded
+            Set/*<String>*/ fs = new java.util.HashSet/*<String>*/ ( Arrays.asList ( features ) );
+            Map/*<LookupSpec,List<LookupTable>>*/ lookups = new LinkedHashMap();
+            for ( Iterator it = lsl.iterator(); it.hasNext(); ) {
+                LookupSpec ls = (LookupSpec) it.next();
+                if ( fs.contains ( ls.getFeature() ) ) {
+                    lookups.put ( ls, findLookupTables ( ls ) );
+                }
+            }
+            return assembleLookups ( features, lookups );
+        } else {
+            return null;
+        }
+    }
+
+    /** Map resolving lookup table references, which loads referenced lookup tables on first use. */
+    private class LookupTableResolver extends AbstractMap/*<String,LookupTable>*/ {
+        /** {@inheritDoc} */
+        public Object get ( Object lid ) {
+            return ( lid instanceof String ) ? obtainLookupTable ( (String) lid ) : null;
+        }
+        /** {@inheritDoc} */
+        public Set entrySet() {
+            return lookupTables.entrySet();
+        }
+    }
+
+    /**
+     * Loader of the lookup tables of a glyph table on first use, so that lookup tables not used by a
+     * document (e.g., those of scripts not present in the document) are not read.
+     */
+    public interface LookupTableLoader {
+
+        /**
+         * Obtain the identifiers of all lookup tables, e.g. "lu4".
+         * @return list of lookup table identifiers
+         */
+        List/*<String>*/ getLookupIds();
+
+        /**
+         * Load the subtables of a lookup table. Called at most once per lookup table.
+         * @param lid lookup table identifier
+         * @return (possibly empty) list of subtables
+         * @throws AdvancedTypographicTableFormatException if the lookup table has an invalid format
+         */
+        List/*<GlyphSubtable>*/ loadSubtables ( String lid ) throws AdvancedTypographicTableFormatException;
+    }
+
+    /** Lookup table use specifications assembled for a script, language and features. */
+    private static final class AssembledLookups {
+        private final String[] features;
+        private final UseSpec[] uses;
+        AssembledLookups ( String[] features, UseSpec[] uses ) {
+            this.features = features;
+            this.uses = uses;
+        }
+    }
     
     /** {@inheritDoc} */
     public String toString() {
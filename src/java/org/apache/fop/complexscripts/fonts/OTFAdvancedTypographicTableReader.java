@@ -61,8 +61,9 @@ public final class OTFAdvancedTypographicTableReader {
     // logging state
     private static Log log = LogFactory.getLog(OTFAdvancedTypographicTableReader.class);
     // instance state
-    private TTFFile ttf;                                        // parent font file reader
+    private TTFFile ttf;                                        // parent font file reader (null when reading lookups on demand)
     private FontFileReader in;                                  // input reader
+    private int upem;                                           // units per em
     private GlyphDefinitionTable gdef;                          // glyph definition table
     private GlyphSubstitutionTable gsub;                        // glyph substitution table
     private GlyphPositioningTable gpos;                         // glyph positioning table
@@ -73,6 +74,7 @@ public final class OTFAdvancedTypographicTableReader {
     private transient GlyphMappingTable seMapping;              // subtable entry mappings
     private transient List seEntries;                           // subtable entry entries
     private transient List seSubtables;                         // subtable entry subtables
+    private transient long[] seLookups;                         // lookup table offsets, indexed by lookup sequence
 
     /**
      * Construct an <code>OTFAdvancedTypographicTableReader</code> instance.
@@ -84,6 +86,19 @@ public final class OTFAdvancedTypographicTableReader {
         assert in != null;
         this.ttf = ttf;
         this.in = in;
+        this.upem = ttf.getUnitsPerEm();
+    }
+
+    /**
+     * Construct an <code>OTFAdvancedTypographicTableReader</code> instance reading the lookups
+     * of a GSUB or GPOS table on demand.
+     * @param in table reader (must be non-null)
+     * @param upem units per em of the font
+     */
+    private OTFAdvancedTypographicTableReader ( FontFileReader in, int upem ) {
+        assert in != null;
+        this.in = in;
+        this.upem = upem;
     }
 
     /**
@@ -561,7 +576,6 @@ public final class OTFAdvancedTypographicTableReader {
     }
 
     private GlyphCoverageTable readCoverageTableFormat1(String label, long tableOffset, int coverageFormat) throws IOException {
-        List entries = new java.util.ArrayList();
         in.seekSet(tableOffset);
         // skip over format (already known)
         in.skip ( 2 );
@@ -571,22 +585,23 @@ public final class OTFAdvancedTypographicTableReader {
         for ( int i = 0, n = ng; i < n; i++ ) {
             int g = in.readTTFUShort();
             ga[i] = g;
-            entries.add ( Integer.valueOf(g) );
         }
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(label + " glyphs: " + toString(ga) );
         }
-        return GlyphCoverageTable.createCoverageTable ( entries );
+        return GlyphCoverageTable.createCoverageTable ( ga );
     }
 
     private GlyphCoverageTable readCoverageTableFormat2(String label, long tableOffset, int coverageFormat) throws IOException {
-        List entries = new java.util.ArrayList();
         in.seekSet(tableOffset);
         // skip over format (already known)
         in.skip ( 2 );
         // read range record count
         int nr = in.readTTFUShort();
+        int[] sa = new int[nr];
+        int[] ea = new int[nr];
+        int[] ma = new int[nr];
         for ( int i = 0, n = nr; i < n; i++ ) {
             // read range start
             int s = in.readTTFUShort();
@@ -598,9 +613,11 @@ public final class OTFAdvancedTypographicTableReader {
             if (log.isDebugEnabled()) {
                 log.debug(label + " range[" + i + "]: [" + s + "," + e + "]: " + m );
             }
-            entries.add ( new GlyphCoverageTable.MappingRange ( s, e, m ) );
+            sa[i] = s;
+            ea[i] = e;
+            ma[i] = m;
         }
-        return GlyphCoverageTable.createCoverageTable ( entries );
+        return GlyphCoverageTable.createCoverageTable ( sa, ea, ma );
     }
 
     private GlyphCoverageTable readCoverageTable(String label, long tableOffset) throws IOException {
@@ -621,13 +638,11 @@ public final class OTFAdvancedTypographicTableReader {
     }
 
     private GlyphClassTable readClassDefTableFormat1(String label, long tableOffset, int classFormat) throws IOException {
-        List entries = new java.util.ArrayList();
         in.seekSet(tableOffset);
         // skip over format (already known)
         in.skip ( 2 );
         // read start glyph
         int sg = in.readTTFUShort();
-        entries.add ( Integer.valueOf(sg) );
         // read glyph count
         int ng = in.readTTFUShort();
         // read glyph classes
@@ -635,22 +650,23 @@ public final class OTFAdvancedTypographicTableReader {
         for ( int i = 0, n = ng; i < n; i++ ) {
             int gc = in.readTTFUShort();
             ca[i] = gc;
-            entries.add ( Integer.valueOf(gc) );
         }
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(label + " glyph classes: " + toString(ca) );
         }
-        return GlyphClassTable.createClassTable ( entries );
+        return GlyphClassTable.createClassTable ( sg, ca );
     }
 
     private GlyphClassTable readClassDefTableFormat2(String label, long tableOffset, int classFormat) throws IOException {
-        List entries = new java.util.ArrayList();
         in.seekSet(tableOffset);
         // skip over format (already known)
         in.skip ( 2 );
         // read range record count
         int nr = in.readTTFUShort();
+        int[] sa = new int[nr];
+        int[] ea = new int[nr];
+        int[] ma = new int[nr];
         for ( int i = 0, n = nr; i < n; i++ ) {
             // read range start
             int s = in.readTTFUShort();
@@ -662,9 +678,11 @@ public final class OTFAdvancedTypographicTableReader {
             if (log.isDebugEnabled()) {
                 log.debug(label + " range[" + i + "]: [" + s + "," + e + "]: " + m );
             }
-            entries.add ( new GlyphClassTable.MappingRange ( s, e, m ) );
+            sa[i] = s;
+            ea[i] = e;
+            ma[i] = m;
         }
-        return GlyphClassTable.createClassTable ( entries );
+        return GlyphClassTable.createClassTable ( sa, ea, ma );
     }
 
     private GlyphClassTable readClassDefTable(String label, long tableOffset) throws IOException {
@@ -1731,28 +1749,28 @@ public final class OTFAdvancedTypographicTableReader {
         // XPlacement
         int xp;
         if ( ( valueFormat & GlyphPositioningTable.Value.X_PLACEMENT ) != 0 ) {
-            xp = ttf.convertTTFUnit2PDFUnit ( in.readTTFShort() );
+            xp = convertTTFUnit2PDFUnit ( in.readTTFShort() );
         } else {
             xp = 0;
         }
         // YPlacement
         int yp;
         if ( ( valueFormat & GlyphPositioningTable.Value.Y_PLACEMENT ) != 0 ) {
-            yp = ttf.convertTTFUnit2PDFUnit ( in.readTTFShort() );
+            yp = convertTTFUnit2PDFUnit ( in.readTTFShort() );
         } else {
             yp = 0;
         }
         // XAdvance
         int xa;
         if ( ( valueFormat & GlyphPositioningTable.Value.X_ADVANCE ) != 0 ) {
-            xa = ttf.convertTTFUnit2PDFUnit ( in.readTTFShort() );
+            xa = convertTTFUnit2PDFUnit ( in.readTTFShort() );
         } else {
             xa = 0;
         }
         // YAdvance
         int ya;
         if ( ( valueFormat & GlyphPositioningTable.Value.Y_ADVANCE ) != 0 ) {
-            ya = ttf.convertTTFUnit2PDFUnit ( in.readTTFShort() );
+            ya = convertTTFUnit2PDFUnit ( in.readTTFShort() );
         } else {
             ya = 0;
         }
@@ -2024,23 +2042,23 @@ public final class OTFAdvancedTypographicTableReader {
         int af = in.readTTFUShort();
         if ( af == 1 ) {
             // read x coordinate
-            int x = ttf.convertTTFUnit2PDFUnit ( in.readTTFShort() );
+            int x = convertTTFUnit2PDFUnit ( in.readTTFShort() );
             // read y coordinate
-            int y = ttf.convertTTFUnit2PDFUnit ( in.readTTFShort() );
+            int y = convertTTFUnit2PDFUnit ( in.readTTFShort() );
             a = new GlyphPositioningTable.Anchor ( x, y );
         } else if ( af == 2 ) {
             // read x coordinate
-            int x = ttf.convertTTFUnit2PDFUnit ( in.readTTFShort() );
+            int x = convertTTFUnit2PDFUnit ( in.readTTFShort() );
             // read y coordinate
-            int y = ttf.convertTTFUnit2PDFUnit ( in.readTTFShort() );
+            int y = convertTTFUnit2PDFUnit ( in.readTTFShort() );
             // read anchor point index
             int ap = in.readTTFUShort();
             a = new GlyphPositioningTable.Anchor ( x, y, ap );
         } else if ( af == 3 ) {
             // read x coordinate
-            int x = ttf.convertTTFUnit2PDFUnit ( in.readTTFShort() );
+            int x = convertTTFUnit2PDFUnit ( in.readTTFShort() );
             // read y coordinate
-            int y = ttf.convertTTFUnit2PDFUnit ( in.readTTFShort() );
+            int y = convertTTFUnit2PDFUnit ( in.readTTFShort() );
             // read x device table offset
             int xdo = in.readTTFUShort();
             // read y device table offset
@@ -3210,18 +3228,44 @@ public final class OTFAdvancedTypographicTableReader {
                 }
                 loa[i] = lo;
             }
-            // read lookup tables
+            // record lookup table offsets, lookup tables are read on demand
+            seLookups = new long[nl];
             for ( int i = 0, n = nl; i < n; i++ ) {
-                if (log.isDebugEnabled()) {
-                    log.debug(tableTag + " lookup index: " + i );
-                }
-                readLookupTable ( tableTag, i, lookupList + loa [ i ] );
+                seLookups [ i ] = lookupList + loa [ i ];
             }
         }
     }
 
     /**
-     * Read the common layout tables (used by GSUB and GPOS).
+     * Read the subtables of a lookup table (of the GSUB or GPOS table being read on demand).
+     * @param tableTag tag of table being read
+     * @param lookupSequence lookup sequence number
+     * @param lookupTable offset to lookup table from beginning of table
+     * @return (possibly empty) list of subtables
+     * @throws AdvancedTypographicTableFormatException if the lookup table has an invalid format
+     */
+    private List readLookupSubtables ( String tableTag, int lookupSequence, long lookupTable ) throws AdvancedTypographicTableFormatException {
+        try {
+            initATState();
+            if (log.isDebugEnabled()) {
+                log.debug(tableTag + " lookup index: " + lookupSequence );
+            }
+            readLookupTable ( tableTag, lookupSequence, lookupTable );
+            if ( tableTag.equals ( "GSUB" ) ) {
+                return constructGSUBSubtables();
+            } else {
+                return constructGPOSSubtables();
+            }
+        } catch ( IOException e ) {
+            throw new AdvancedTypographicTableFormatException ( e.getMessage(), e );
+        } finally {
+            resetATState();
+        }
+    }
+
+    /**
+     * Read the common layout tables (used by GSUB and GPOS), except for the lookup tables,
+     * whose offsets are recorded so they can be read on demand.
      * @param tableTag tag of table being read
      * @param scriptList offset to script list from beginning of font file
      * @param featureList offset to feature list from beginning of font file
@@ -3461,7 +3505,7 @@ public final class OTFAdvancedTypographicTableReader {
             long to = dirTab.getOffset();
             readCommonLayoutTables ( tableTag, to + slo, to + flo, to + llo );
             GlyphSubstitutionTable gsub;
-            if ( ( gsub = constructGSUB() ) != null ) {
+            if ( ( gsub = constructGSUB ( dirTab ) ) != null ) {
                 this.gsub = gsub;
             }
         }
@@ -3498,7 +3542,7 @@ public final class OTFAdvancedTypographicTableReader {
             long to = dirTab.getOffset();
             readCommonLayoutTables ( tableTag, to + slo, to + flo, to + llo );
             GlyphPositioningTable gpos;
-            if ( ( gpos = constructGPOS() ) != null ) {
+            if ( ( gpos = constructGPOS ( dirTab ) ) != null ) {
                 this.gpos = gpos;
             }
         }
@@ -3523,17 +3567,18 @@ public final class OTFAdvancedTypographicTableReader {
 
     /**
      * Construct the (internal representation of the) GSUB table based on previously
-     * parsed state.
+     * parsed state, whose lookup tables are read on demand.
+     * @param dirTab directory entry of GSUB table
      * @returns glyph substitution table or null if insufficient or invalid state
      */
-    private GlyphSubstitutionTable constructGSUB() {
+    private GlyphSubstitutionTable constructGSUB ( TTFDirTabEntry dirTab ) throws IOException {
         GlyphSubstitutionTable gsub = null;
         Map lookups;
         if ( ( lookups = constructLookups() ) != null ) {
-            List subtables;
-            if ( ( subtables = constructGSUBSubtables() ) != null ) {
-                if ( ( lookups.size() > 0 ) && ( subtables.size() > 0 ) ) {
-                    gsub = new GlyphSubstitutionTable ( gdef, lookups, subtables );
+            LookupLoader loader;
+            if ( ( loader = constructLookupLoader ( "GSUB", dirTab ) ) != null ) {
+                if ( lookups.size() > 0 ) {
+                    gsub = new GlyphSubstitutionTable ( gdef, lookups, loader );
                 }
             }
         }
@@ -3543,17 +3588,18 @@ public final class OTFAdvancedTypographicTableReader {
 
     /**
      * Construct the (internal representation of the) GPOS table based on previously
-     * parsed state.
+     * parsed state, whose lookup tables are read on demand.
+     * @param dirTab directory entry of GPOS table
      * @returns glyph positioning table or null if insufficient or invalid state
      */
-    private GlyphPositioningTable constructGPOS() {
+    private GlyphPositioningTable constructGPOS ( TTFDirTabEntry dirTab ) throws IOException {
         GlyphPositioningTable gpos = null;
         Map lookups;
         if ( ( lookups = constructLookups() ) != null ) {
-            List subtables;
-            if ( ( subtables = constructGPOSSubtables() ) != null ) {
-                if ( ( lookups.size() > 0 ) && ( subtables.size() > 0 ) ) {
-                    gpos = new GlyphPositioningTable ( gdef, lookups, subtables );
+            LookupLoader loader;
+            if ( ( loader = constructLookupLoader ( "GPOS", dirTab ) ) != null ) {
+                if ( lookups.size() > 0 ) {
+                    gpos = new GlyphPositioningTable ( gdef, lookups, loader );
                 }
             }
         }
@@ -3561,6 +3607,28 @@ public final class OTFAdvancedTypographicTableReader {
         return gpos;
     }
 
+    /**
+     * Construct the loader of the lookup tables of a GSUB or GPOS table, based on previously
+     * parsed state. The loader reads a copy of the table (or the table in the mapped font file),
+     * so the font file reader is not retained.
+     * @param tableTag tag of table being read
+     * @param dirTab directory entry of table
+     * @returns lookup table loader or null if no lookup tables are present
+     */
+    private LookupLoader constructLookupLoader ( String tableTag, TTFDirTabEntry dirTab ) throws IOException {
+        if ( ( seLookups == null ) || ( seLookups.length == 0 ) ) {
+            return null;
+        } else {
+            long to = dirTab.getOffset();
+            long[] loa = new long [ seLookups.length ];
+            for ( int i = 0, n = loa.length; i < n; i++ ) {
+                loa [ i ] = seLookups [ i ] - to;
+            }
+            FontFileReader tin = in.getPartReader ( (int) to, (int) dirTab.getLength() );
+            return new LookupLoader ( tableTag, new OTFAdvancedTypographicTableReader ( tin, upem ), loa );
+        }
+    }
+
     private void constructLookupsFeature ( Map lookups, String st, String lt, String fid ) {
         Object[] fp = (Object[]) seFeatures.get ( fid );
         if ( fp != null ) {
@@ -3741,6 +3809,7 @@ public final class OTFAdvancedTypographicTableReader {
         seLanguages = null;
         seFeatures = null;
         seSubtables = null;
+        seLookups = null;
         resetATSubState();
     }
 
@@ -3775,6 +3844,10 @@ public final class OTFAdvancedTypographicTableReader {
         gdef = null; gsub = null; gpos = null;
     }
 
+    private int convertTTFUnit2PDFUnit ( int n ) {
+        return TTFFile.convertTTFUnit2PDFUnit ( n, upem );
+    }
+
     /** helper method for formatting an integer array for output */
     private String toString ( int[] ia ) {
         StringBuffer sb = new StringBuffer();
@@ -3794,4 +3867,32 @@ public final class OTFAdvancedTypographicTableReader {
         return sb.toString();
     }
 
+    /**
+     * Loader of the lookup tables of a GSUB or GPOS table, which reads the subtables of a
+     * lookup table on first use. Used by a single glyph table, which serializes loading.
+     */
+    private static final class LookupLoader implements GlyphTable.LookupTableLoader {
+        private final String tableTag;
+        private final OTFAdvancedTypographicTableReader reader;
+        private final long[] lookups;                           // lookup table offsets, indexed by lookup sequence
+        LookupLoader ( String tableTag, OTFAdvancedTypographicTableReader reader, long[] lookups ) {
+            this.tableTag = tableTag;
+            this.reader = reader;
+            this.lookups = lookups;
+        }
+        /** {@inheritDoc} */
+        public List/*<String>*/ getLookupIds() {
+            List/*<String>*/ lids = new java.util.ArrayList ( lookups.length );
+            for ( int i = 0, n = lookups.length; i < n; i++ ) {
+                lids.add ( "lu" + i );
+            }
+            return lids;
+        }
+        /** {@inheritDoc} */
+        public List/*<GlyphSubtable>*/ loadSubtables ( String lid ) throws AdvancedTypographicTableFormatException {
+            int ln = Integer.parseInt ( lid.substring ( 2 ) );
+            return reader.readLookupSubtables ( tableTag, ln, lookups [ ln ] );
+        }
+    }
+
 }
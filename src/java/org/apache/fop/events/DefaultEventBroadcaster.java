@@ -117,7 +117,7 @@ public class DefaultEventBroadcaster implements EventBroadcaster {
     }
 
     /** {@inheritDoc} */
-    public EventProducer getEventProducerFor(Class clazz) {
+    public synchronized EventProducer getEventProducerFor(Class clazz) {
         if (!EventProducer.class.isAssignableFrom(clazz)) {
             throw new IllegalArgumentException(
                     "Class must be an implementation of the EventProducer interface: "
@@ -81,6 +81,7 @@ public abstract class FOEventHandler {
         this.foUserAgent = foUserAgent;
         this.fontInfo = new FontInfo();
         this.fontInfo.setEventListener(new FontEventAdapter(foUserAgent.getEventBroadcaster()));
+        this.fontInfo.setShapingCacheSize(foUserAgent.getShapingCacheSize());
     }
 
     /**
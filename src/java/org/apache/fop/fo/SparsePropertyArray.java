@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo;
+
+import org.apache.fop.fo.properties.Property;
+
+/**
+ * Sparse storage of properties indexed by property ID. Only a few of the
+ * {@link Constants#PROPERTY_COUNT} properties are set or used on a given FO, so instead of
+ * an array with a slot for every property ID, a bitmap marks the IDs present and the
+ * values are stored densely, in ID order. The index of a value is the number of bits set
+ * before its own bit in the bitmap.
+ */
+final class SparsePropertyArray {
+
+    private static final Property[] EMPTY = new Property[0];
+
+    private final long[] bitmap = new long[(Constants.PROPERTY_COUNT >> 6) + 1];
+
+    private Property[] values = EMPTY;
+
+    private int size;
+
+    /**
+     * Returns the property stored for the given ID.
+     * @param propId the property ID
+     * @return the property, or null if there is no property for the ID
+     */
+    Property get(int propId) {
+        int word = propId >> 6;
+        long bit = 1L << propId;
+        if ((bitmap[word] & bit) == 0) {
+            return null;
+        }
+        return values[indexOf(word, bit)];
+    }
+
+    /**
+     * Stores a property for the given ID. Storing null removes the property.
+     * @param propId the property ID
+     * @param value the property
+     */
+    void put(int propId, Property value) {
+        int word = propId >> 6;
+        long bit = 1L << propId;
+        int index = indexOf(word, bit);
+        if ((bitmap[word] & bit) != 0) {
+            if (value != null) {
+                values[index] = value;
+            } else {
+                bitmap[word] &= ~bit;
+                size--;
+                System.arraycopy(values, index + 1, values, index, size - index);
+                values[size] = null;
+            }
+        } else if (value != null) {
+            if (size == values.length) {
+                Property[] newValues = new Property[Math.max(4, size * 2)];
+                System.arraycopy(values, 0, newValues, 0, size);
+                values = newValues;
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            bitmap[word] |= bit;
+            size++;
+        }
+    }
+
+    /** @return the number of properties stored */
+    int size() {
+        return size;
+    }
+
+    private int indexOf(int word, long bit) {
+        int index = Long.bitCount(bitmap[word] & (bit - 1));
+        for (int i = 0; i < word; i++) {
+            index += Long.bitCount(bitmap[i]);
+        }
+        return index;
+    }
+}
@@ -20,8 +20,10 @@
 package org.apache.fop.fo.expr;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.xmlgraphics.util.UnitConv;
 
@@ -45,7 +47,31 @@ import org.apache.fop.fo.properties.StringProperty;
 public final class PropertyParser extends PropertyTokenizer {
     private PropertyInfo propInfo;    // Maker and propertyList related info
 
+    /**
+     * True as long as the result of the expression may be cached: it does not depend on the
+     * context in which it is evaluated, and it is not a name or a string literal, which are
+     * often unique (ids, references)
+     */
+    private boolean cacheable = true;
+
     private static final String RELUNIT = "em";
+
+    /** maximum number of expressions held by the expression cache */
+    private static final int MAX_CACHED_EXPRESSIONS = 4096;
+
+    /**
+     * Results of the most recently used cacheable expressions. Templated FO documents
+     * repeat the same values ("12pt", "1.2", "2pt * 3", ...) over and over.
+     * Access must be synchronized on the map.
+     */
+    private static final Map EXPRESSION_CACHE = new LinkedHashMap(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > MAX_CACHED_EXPRESSIONS;
+        }
+    };
     private static final HashMap FUNCTION_TABLE = new HashMap();
 
     static {
@@ -91,8 +117,22 @@ public final class PropertyParser extends PropertyTokenizer {
      */
     public static Property parse(String expr, PropertyInfo propInfo)
             throws PropertyException {
+        Property prop;
+        synchronized (EXPRESSION_CACHE) {
+            prop = (Property) EXPRESSION_CACHE.get(expr);
+        }
+        if (prop != null) {
+            return prop;
+        }
         try {
-            return new PropertyParser(expr, propInfo).parseProperty();
+            PropertyParser parser = new PropertyParser(expr, propInfo);
+            prop = parser.parseProperty();
+            if (parser.cacheable) {
+                synchronized (EXPRESSION_CACHE) {
+                    EXPRESSION_CACHE.put(expr, prop);
+                }
+            }
+            return prop;
         } catch (PropertyException exc) {
             exc.setPropertyInfo(propInfo);
             throw exc;
@@ -135,6 +175,8 @@ public final class PropertyParser extends PropertyTokenizer {
                     return prop;
                 }
             } else {
+                //ListProperty instances are modified after parsing
+                cacheable = false;
                 if (propList == null) {
                     propList = new ListProperty(prop);
                 } else {
@@ -250,10 +292,12 @@ public final class PropertyParser extends PropertyTokenizer {
             return prop;
 
         case TOK_LITERAL:
+            cacheable = false;
             prop = StringProperty.getInstance(currentTokenValue);
             break;
 
         case TOK_NCNAME:
+            cacheable = false;
             // Interpret this in context of the property or do it later?
             prop = new NCnameProperty(currentTokenValue);
             break;
@@ -267,6 +311,7 @@ public final class PropertyParser extends PropertyTokenizer {
             break;
 
         case TOK_PERCENT:
+            cacheable = false;
             /*
              * Get the length base value object from the Maker. If null, then
              * this property can't have % values. Treat it as a real number.
@@ -309,11 +354,13 @@ public final class PropertyParser extends PropertyTokenizer {
             String unitPart = currentTokenValue.substring(numLen);
             double numPart = Double.parseDouble(currentTokenValue.substring(0, numLen));
             if (RELUNIT.equals(unitPart)) {
+                cacheable = false;
                 prop = (Property) NumericOp.multiply(
                                     NumberProperty.getInstance(numPart),
                                     propInfo.currentFontSize());
             } else {
                 if ("px".equals(unitPart)) {
+                    cacheable = false;
                     //pass the ratio between target-resolution and
                     //the default resolution of 72dpi
                     float resolution = propInfo.getPropertyList().getFObj()
@@ -329,10 +376,12 @@ public final class PropertyParser extends PropertyTokenizer {
             break;
 
         case TOK_COLORSPEC:
+            cacheable = false;
             prop = ColorProperty.getInstance(propInfo.getUserAgent(), currentTokenValue);
             break;
 
         case TOK_FUNCTION_LPAR:
+            cacheable = false;
             Function function = (Function)FUNCTION_TABLE.get(currentTokenValue);
             if (function == null) {
                 throw new PropertyException("no such function: "
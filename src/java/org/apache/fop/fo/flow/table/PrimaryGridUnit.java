@@ -121,6 +121,18 @@ public class PrimaryGridUnit extends GridUnit {
         return this.elements;
     }
 
+    /**
+     * Releases the layout manager and the Knuth elements of this grid unit. To be called
+     * once all the areas for the cell have been added, as the grid unit is kept by the FO
+     * tree until the end of the page-sequence. This doesn't lower the peak memory needed
+     * for the layout of the table, which is reached before any area is added.
+     */
+    public void releaseLayoutData() {
+        getContentLength();
+        this.cellLM = null;
+        this.elements = null;
+    }
+
     /**
      * Returns the widths of the border-before and -after for this cell. In the separate
      * border model the border-separation is included. In the collapsing model only half
@@ -19,28 +19,36 @@
 
 package org.apache.fop.fo.properties;
 
-import org.apache.fop.fo.flow.Marker;
-
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.fop.fo.flow.Marker;
 
 /**
  *  Dedicated cache, meant for storing canonical instances
  *  of property-related classes.
  *  The public access points are overloaded <code>fetch()</code> methods
  *  that each correspond to a cached type.
- *  It is designed especially to be used concurrently by multiple threads,
- *  drawing heavily upon the principles behind Java 1.5's
- *  <code>ConcurrentHashMap</code>.
+ *  It is designed especially to be used concurrently by multiple threads:
+ *  the instances are held weakly in a <code>ConcurrentHashMap</code>, so that
+ *  finding a cached instance takes no lock, and the entries of the instances
+ *  which have been garbage collected are removed when new instances are added.
  */
 public final class PropertyCache {
 
-    private static final int SEGMENT_COUNT = 32; //0x20
-    private static final int INITIAL_BUCKET_COUNT = SEGMENT_COUNT;
+    /** number of stripes of the counters (a power of 2) */
+    private static final int COUNTER_STRIPES = 16;
+
+    /** distance between two stripes, to keep them on separate cache lines */
+    private static final int COUNTER_PADDING = 8;
+
+    private static final int HITS = 0;
+    private static final int MISSES = 1;
+    private static final int EVICTIONS = 2;
 
-    /** bitmask to apply to the hash to get to the
-     *  corresponding cache segment */
-    private static final int SEGMENT_MASK = SEGMENT_COUNT - 1; //0x1F
     /**
      * Indicates whether the cache should be used at all
      * Can be controlled by the system property:
@@ -48,238 +56,53 @@ public final class PropertyCache {
      */
     private final boolean useCache;
 
-    /** the segments array (length = 32) */
-    private CacheSegment[] segments = new CacheSegment[SEGMENT_COUNT];
-    /** the table of hash-buckets */
-    private CacheEntry[] table = new CacheEntry[INITIAL_BUCKET_COUNT];
+    /** the cached instances, each entry being mapped to itself */
+    private final ConcurrentMap<CacheEntry, CacheEntry> map;
 
-    private Class runtimeType;
-
-    private final boolean[] votesForRehash = new boolean[SEGMENT_COUNT];
+    /** queue of the entries whose instance has been garbage collected */
+    private final ReferenceQueue<Object> refQueue = new ReferenceQueue<Object>();
 
-    /* same hash function as used by java.util.HashMap */
-    private static int hash(Object x) {
-        return hash(x.hashCode());
-    }
-
-    private static int hash(int hashCode) {
-        int h = hashCode;
-        h += ~(h << 9);
-        h ^= (h >>> 14);
-        h += (h << 4);
-        h ^= (h >>> 10);
-        return h;
-    }
+    /** hit, miss and eviction counts, striped by thread */
+    private final AtomicLongArray counters
+            = new AtomicLongArray(COUNTER_STRIPES * COUNTER_PADDING * 3);
 
-    /* shortcut function */
-    private static boolean eq(Object p, Object q) {
-        return (p == q || (p != null && p.equals(q)));
-    }
+    private Class runtimeType;
 
     /* Class modeling a cached entry */
-    private static class CacheEntry extends WeakReference {
-        private volatile CacheEntry nextEntry;
+    private static final class CacheEntry extends WeakReference<Object> {
+
         private final int hash;
 
         /* main constructor */
-        public CacheEntry(Object p, CacheEntry nextEntry, ReferenceQueue refQueue) {
+        CacheEntry(Object p, ReferenceQueue<Object> refQueue) {
             super(p, refQueue);
-            this.nextEntry = nextEntry;
-            this.hash = hash(p);
+            this.hash = p.hashCode();
         }
 
-        /* main constructor */
-        public CacheEntry(Object p, CacheEntry nextEntry) {
-            super(p);
-            this.nextEntry = nextEntry;
-            this.hash = hash(p);
+        /** {@inheritDoc} */
+        public int hashCode() {
+            return hash;
         }
 
-    }
-
-    /* Wrapper objects to synchronize on */
-    private static final class CacheSegment {
-        CacheSegment() {
-        }
-        private int count = 0;
-        int getCount() {
-            return count;
-        }
-    }
-
-    private void cleanSegment(int segmentIndex) {
-        CacheSegment segment = segments[segmentIndex];
-
-        int oldCount = segment.count;
-
-        /* clean all buckets in this segment */
-        for (int bucketIndex = segmentIndex;
-                    bucketIndex < table.length;
-                    bucketIndex += SEGMENT_COUNT) {
-            CacheEntry prev = null;
-            CacheEntry entry = table[bucketIndex];
-            if (entry == null) {
-                continue;
-            }
-            do {
-                if (entry.get() == null) {
-                    if (prev == null) {
-                        table[bucketIndex] = entry.nextEntry;
-                    } else {
-                        prev.nextEntry = entry.nextEntry;
-                    }
-                    segment.count--;
-                    assert segment.count >= 0;
-                } else {
-                    prev = entry;
-                }
-                entry = entry.nextEntry;
-            } while (entry != null);
-        }
-
-        synchronized (votesForRehash) {
-            if (oldCount > segment.count) {
-                votesForRehash[segmentIndex] = false;
-                return;
-            }
-            /* cleanup had no effect */
-            if (!votesForRehash[segmentIndex]) {
-                /* first time for this segment */
-                votesForRehash[segmentIndex] = true;
-                int voteCount = 0;
-                for (int i = SEGMENT_MASK + 1; --i >= 0;) {
-                    if (votesForRehash[i]) {
-                        voteCount++;
-                    }
-                }
-                if (voteCount > SEGMENT_MASK / 4) {
-                    rehash(SEGMENT_MASK);
-                    /* reset votes */
-                    for (int i = SEGMENT_MASK + 1; --i >= 0;) {
-                        votesForRehash[i] = false;
-                    }
-
-                }
-            }
-        }
-    }
-
-    /*
-     * Puts a new instance in the cache.
-     * If the total number of entries for the corresponding
-     * segment exceeds twice the amount of hash-buckets, a
-     * cleanup will be performed to try and remove obsolete
-     * entries.
-     */
-    private void put(Object o) {
-
-        int hash = hash(o);
-        int segmentIndex = hash & SEGMENT_MASK;
-        CacheSegment segment = segments[segmentIndex];
-
-        synchronized (segment) {
-            int index = hash & (table.length - 1);
-            CacheEntry entry = table[index];
-
-            if (entry == null) {
-                entry = new CacheEntry(o, null);
-                table[index] = entry;
-                segment.count++;
-            } else {
-                Object p = entry.get();
-                if (eq(p, o)) {
-                    return;
-                } else {
-                    CacheEntry newEntry = new CacheEntry(o, entry);
-                    table[index] = newEntry;
-                    segment.count++;
-                }
-            }
-
-            if (segment.count > (2 * table.length)) {
-                  cleanSegment(segmentIndex);
-            }
-        }
-    }
-
-
-    /* Gets a cached instance. Returns null if not found */
-    private Object get(Object o) {
-
-        int hash = hash(o);
-        int index = hash & (table.length - 1);
-
-        CacheEntry entry = table[index];
-        Object q;
-
-        /* try non-synched first */
-        for (CacheEntry e = entry; e != null; e = e.nextEntry) {
-            if ( e.hash == hash ) {
-                q = e.get();
-                if ( ( q != null ) &&  eq ( q, o ) ) {
-                    return q;
-                }
+        /**
+         * Two entries are equal if they are the same entry, or if their instances are
+         * equal. An entry whose instance has been garbage collected is only equal to
+         * itself, so that it can still be removed from the map.
+         * {@inheritDoc}
+         */
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
             }
-        }
-
-        /* retry synched, only if the above attempt did not succeed,
-         * as another thread may, in the meantime, have added a
-         * corresponding entry */
-        CacheSegment segment = segments[hash & SEGMENT_MASK];
-        synchronized (segment) {
-            entry = table[index];
-            for (CacheEntry e = entry; e != null; e = e.nextEntry) {
-                if ( e.hash == hash ) {
-                    q = e.get();
-                    if ( ( q != null ) &&  eq ( q, o ) ) {
-                        return q;
-                    }
-                }
+            if (!(obj instanceof CacheEntry)) {
+                return false;
             }
-        }
-        return null;
-    }
-
-    /*
-     * Recursively acquires locks on all 32 segments,
-     * extends the cache and redistributes the entries.
-     *
-     */
-    private void rehash(int index) {
-
-        CacheSegment seg = segments[index];
-        synchronized (seg) {
-            if (index > 0) {
-                /* need to recursively acquire locks on all segments */
-                rehash(index - 1);
-            } else {
-                /* double the amount of buckets */
-                int newLength = table.length << 1;
-                if (newLength > 0) { //no overflow?
-                    /* reset segment counts */
-                    for (int i = segments.length; --i >= 0;) {
-                        segments[i].count = 0;
-                    }
-
-                    CacheEntry[] newTable = new CacheEntry[newLength];
-
-                    int hash, idx;
-                    Object o;
-                    newLength--;
-                    for (int i = table.length; --i >= 0;) {
-                        for (CacheEntry c = table[i]; c != null; c = c.nextEntry) {
-                            o = c.get();
-                            if (o != null) {
-                                hash = c.hash;
-                                idx = hash & newLength;
-                                newTable[idx] = new CacheEntry(o, newTable[idx]);
-                                segments[hash & SEGMENT_MASK].count++;
-                            }
-                        }
-                    }
-                    table = newTable;
-                }
+            CacheEntry other = (CacheEntry) obj;
+            if (hash != other.hash) {
+                return false;
             }
+            Object p = get();
+            return p != null && p.equals(other.get());
         }
     }
 
@@ -293,9 +116,9 @@ public final class PropertyCache {
                             "org.apache.fop.fo.properties.use-cache", "true")
                         ).booleanValue();
         if (useCache) {
-            for (int i = SEGMENT_MASK + 1; --i >= 0;) {
-                segments[i] = new CacheSegment();
-            }
+            map = new ConcurrentHashMap<CacheEntry, CacheEntry>();
+        } else {
+            map = null;
         }
         this.runtimeType = c;
     }
@@ -318,12 +141,83 @@ public final class PropertyCache {
             return null;
         }
 
-        Object cacheEntry = get(obj);
-        if (cacheEntry != null) {
-            return cacheEntry;
+        CacheEntry entry = new CacheEntry(obj, refQueue);
+        CacheEntry cached = map.get(entry);
+        while (true) {
+            if (cached == null) {
+                expungeStaleEntries();
+                cached = map.putIfAbsent(entry, entry);
+                if (cached == null) {
+                    increment(MISSES);
+                    return obj;
+                }
+            }
+            Object o = cached.get();
+            if (o != null) {
+                increment(HITS);
+                return o;
+            }
+            /* the cached instance has just been garbage collected */
+            map.remove(cached, cached);
+            cached = null;
+        }
+    }
+
+    /* Removes the entries whose instance has been garbage collected */
+    private void expungeStaleEntries() {
+        Object stale;
+        while ((stale = refQueue.poll()) != null) {
+            if (map.remove(stale, stale)) {
+                increment(EVICTIONS);
+            }
         }
-        put(obj);
-        return obj;
+    }
+
+    private void increment(int counter) {
+        int stripe = (int) Thread.currentThread().getId() & (COUNTER_STRIPES - 1);
+        counters.incrementAndGet((stripe * 3 + counter) * COUNTER_PADDING);
+    }
+
+    private long getCount(int counter) {
+        long count = 0;
+        for (int stripe = 0; stripe < COUNTER_STRIPES; stripe++) {
+            count += counters.get((stripe * 3 + counter) * COUNTER_PADDING);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of entries in the cache. This may include some instances which
+     * have been garbage collected but not removed from the cache yet.
+     * @return the number of entries
+     */
+    public int size() {
+        return (useCache ? map.size() : 0);
+    }
+
+    /**
+     * Returns the number of fetches which found a cached instance.
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return getCount(HITS);
+    }
+
+    /**
+     * Returns the number of fetches which added the given instance to the cache.
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return getCount(MISSES);
+    }
+
+    /**
+     * Returns the number of entries removed from the cache, because their instance had
+     * been garbage collected.
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return getCount(EVICTIONS);
     }
 
     /**
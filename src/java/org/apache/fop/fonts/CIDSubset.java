@@ -23,6 +23,7 @@ import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.fop.util.CharUtilities;
 
@@ -40,9 +41,10 @@ import org.apache.fop.util.CharUtilities;
 public class CIDSubset {
 
     /**
-     * usedGlyphs contains orginal, new glyph index (glyph index -> char selector)
+     * usedGlyphs contains orginal, new glyph index (glyph index -> char selector). It is
+     * read without locking, new glyphs are added while holding the subset's monitor.
      */
-    private Map<Integer, Integer> usedGlyphs = new HashMap<Integer, Integer>();
+    private Map<Integer, Integer> usedGlyphs = new ConcurrentHashMap<Integer, Integer>();
 
     /**
      * usedGlyphsIndex contains new glyph, original index (char selector -> glyph index)
@@ -64,7 +66,7 @@ public class CIDSubset {
     /**
      * Adds the first glyph which is reserved for .notdef for all CID subsets.
      */
-    public void setupFirstGlyph() {
+    public synchronized void setupFirstGlyph() {
         usedGlyphs.put(Integer.valueOf(0), Integer.valueOf(0));
         usedGlyphsIndex.put(Integer.valueOf(0), Integer.valueOf(0));
         usedGlyphsCount++;
@@ -113,20 +115,30 @@ public class CIDSubset {
         // IOW, accumulate the accessed characters and build a character map for them
         Integer subsetCharSelector = usedGlyphs.get(Integer.valueOf(glyphIndex));
         if (subsetCharSelector == null) {
-            int selector = usedGlyphsCount;
-            usedGlyphs.put(Integer.valueOf(glyphIndex),
-                           Integer.valueOf(selector));
-            usedGlyphsIndex.put(Integer.valueOf(selector),
-                                Integer.valueOf(glyphIndex));
-            usedCharsIndex.put(Integer.valueOf(selector),
-                                Character.valueOf(unicode));
-            usedGlyphsCount++;
-            return selector;
+            return addSubsetChar(glyphIndex, unicode);
         } else {
             return subsetCharSelector.intValue();
         }
     }
 
+    private synchronized int addSubsetChar(int glyphIndex, char unicode) {
+        Integer subsetCharSelector = usedGlyphs.get(Integer.valueOf(glyphIndex));
+        if (subsetCharSelector != null) {
+            //added by another layout thread in the meantime
+            return subsetCharSelector.intValue();
+        }
+        int selector = usedGlyphsCount;
+        usedGlyphsIndex.put(Integer.valueOf(selector),
+                            Integer.valueOf(glyphIndex));
+        usedCharsIndex.put(Integer.valueOf(selector),
+                            Character.valueOf(unicode));
+        usedGlyphsCount++;
+        //published last, so the glyph is complete once it is found without locking
+        usedGlyphs.put(Integer.valueOf(glyphIndex),
+                       Integer.valueOf(selector));
+        return selector;
+    }
+
     /**
      * Returns an unmodifiable Map of the font subset. It maps from glyph index to
      * character selector (i.e. the subset index in this case).
@@ -21,7 +21,6 @@ package org.apache.fop.fonts;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -33,7 +32,7 @@ import javax.xml.transform.Source;
  * Abstract base class for custom fonts loaded from files, for example.
  */
 public abstract class CustomFont extends Typeface
-            implements FontDescriptor, MutableFont {
+            implements FontDescriptor, MutableFont, Cloneable {
 
     private String fontName = null;
     private String fullName = null;
@@ -57,7 +56,10 @@ public abstract class CustomFont extends Typeface
     private int firstChar = 0;
     private int lastChar = 255;
 
-    private Map<Integer, Map<Integer, Integer>> kerning;
+    /** kerning pairs added through putKerningEntry() not yet packed into the kerning table */
+    private volatile Map<Integer, Map<Integer, Integer>> pendingKerning;
+
+    private volatile KerningTable kerningTable = KerningTable.EMPTY;
 
     private boolean useKerning = true;
     private boolean useAdvanced = true;
@@ -272,20 +274,65 @@ public abstract class CustomFont extends Typeface
      * {@inheritDoc}
      */
     public final boolean hasKerningInfo() {
-        return (isKerningEnabled() && (kerning != null) && !kerning.isEmpty());
+        return (isKerningEnabled() && !getKerningTable().isEmpty());
     }
 
     /**
      * {@inheritDoc}
+     * The kerning pairs are held in a {@link KerningTable}, so this creates a new map on
+     * every call. Use {@link #getKernValue(int, int)} for lookups.
      */
     public final Map<Integer, Map<Integer, Integer>> getKerningInfo() {
         if (hasKerningInfo()) {
-            return kerning;
+            return getKerningTable().toMap();
         } else {
             return Collections.emptyMap();
         }
     }
 
+    /** {@inheritDoc} */
+    public final int getKernValue(int ch1, int ch2) {
+        return isKerningEnabled() ? getKerningTable().get(ch1, ch2) : 0;
+    }
+
+    /**
+     * Returns the kerning table of the font (regardless of whether kerning is enabled).
+     * @return the kerning table
+     */
+    public final KerningTable getKerningTable() {
+        if (pendingKerning != null) {
+            packKerning();
+        }
+        return kerningTable;
+    }
+
+    private synchronized void packKerning() {
+        if (pendingKerning != null) {
+            kerningTable = KerningTable.create(pendingKerning);
+            pendingKerning = null;
+        }
+    }
+
+    /**
+     * Creates a copy of this font. The copy shares the font's metrics (which are not changed
+     * after the font has been loaded) but none of the state collected while the font is
+     * used in a document, like the glyphs used for subsetting. The copy has no event
+     * listener.
+     * @return the copy
+     */
+    public CustomFont copy() {
+        //make sure the kerning table is built once for all copies
+        getKerningTable();
+        CustomFont copy;
+        try {
+            copy = (CustomFont) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        copy.resetUsageState();
+        return copy;
+    }
+
     /**
      * Used to determine if advanced typographic features are enabled.
      * By default, this is false, but may be overridden by subclasses.
@@ -453,11 +500,12 @@ public abstract class CustomFont extends Typeface
     }
 
     /** {@inheritDoc} */
-    public void putKerningEntry(Integer key, Map<Integer, Integer> value) {
-        if (kerning == null) {
-            kerning = new HashMap<Integer, Map<Integer, Integer>>();
+    public synchronized void putKerningEntry(Integer key, Map<Integer, Integer> value) {
+        if (pendingKerning == null) {
+            pendingKerning = kerningTable.toMap();
+            kerningTable = KerningTable.EMPTY;
         }
-        this.kerning.put(key, value);
+        this.pendingKerning.put(key, value);
     }
 
     /**
@@ -465,12 +513,9 @@ public abstract class CustomFont extends Typeface
      * @param kerningMap the kerning map (Map<Integer, Map<Integer, Integer>, the integers are
      *                          character codes)
      */
-    public void replaceKerningMap(Map<Integer, Map<Integer, Integer>> kerningMap) {
-        if (kerningMap == null) {
-            this.kerning = Collections.emptyMap();
-        } else {
-            this.kerning = kerningMap;
-        }
+    public synchronized void replaceKerningMap(Map<Integer, Map<Integer, Integer>> kerningMap) {
+        this.pendingKerning = null;
+        this.kerningTable = KerningTable.create(kerningMap);
     }
 
 }
@@ -81,6 +81,9 @@ public class Font implements Substitutable, Positionable {
 
     private final FontMetrics metric;
 
+    /** shaped words (null if not cached) */
+    private ShapingCache shapingCache;
+
     /**
      * Main constructor
      * @param key key of the font
@@ -103,6 +106,22 @@ public class Font implements Substitutable, Positionable {
         return this.metric;
     }
 
+    /**
+     * Returns the cache of the words shaped with this font, if complex script words are cached.
+     * @return the shaping cache or null
+     */
+    public ShapingCache getShapingCache() {
+        return this.shapingCache;
+    }
+
+    /**
+     * Sets the cache of the words shaped with this font.
+     * @param shapingCache the shaping cache (may be null)
+     */
+    void setShapingCache(ShapingCache shapingCache) {
+        this.shapingCache = shapingCache;
+    }
+
     /**
      * Returns the font's ascender.
      * @return the ascender
@@ -164,7 +183,9 @@ public class Font implements Substitutable, Positionable {
     /**
      * Returns the font's kerning table
      * @return the kerning table
+     * @deprecated use {@link #getKernValue(int, int)} to look up kerning pairs
      */
+    @Deprecated
     public Map<Integer, Map<Integer, Integer>> getKerning() {
         if (metric.hasKerningInfo()) {
             return metric.getKerningInfo();
@@ -183,14 +204,8 @@ public class Font implements Substitutable, Positionable {
      * @return the distance to adjust for kerning, 0 if there's no kerning
      */
     public int getKernValue(char ch1, char ch2) {
-        Map<Integer, Integer> kernPair = getKerning().get((int) ch1);
-        if (kernPair != null) {
-            Integer width = kernPair.get((int) ch2);
-            if (width != null) {
-                return width.intValue() * getFontSize() / 1000;
-            }
-        }
-        return 0;
+        int width = metric.getKernValue(ch1, ch2);
+        return (width != 0) ? width * getFontSize() / 1000 : 0;
     }
 
     /**
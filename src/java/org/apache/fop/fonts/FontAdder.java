@@ -21,11 +21,17 @@ package org.apache.fop.fonts;
 
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.apache.fop.fonts.autodetect.FontDetectionExecutors;
 import org.apache.fop.fonts.autodetect.FontInfoFinder;
 
 /**
- * Adds a list of fonts to a given font info list
+ * Adds a list of fonts to a given font info list. The font files are read on a pool of
+ * threads, but the fonts are added in the order of the font file list.
  */
 public class FontAdder {
     private final FontEventListener listener;
@@ -50,20 +56,52 @@ public class FontAdder {
      * @param fontInfoList a configured font info list
      */
     public void add(List<URL> fontURLList, List<EmbedFontInfo> fontInfoList) {
-        FontCache cache = manager.getFontCache();
-        FontInfoFinder finder = new FontInfoFinder();
+        final FontCache cache = manager.getFontCache();
+        final FontInfoFinder finder = new FontInfoFinder();
         finder.setEventListener(listener);
 
-        for (URL fontURL : fontURLList) {
-            EmbedFontInfo[] embedFontInfos = finder.find(fontURL, resolver, cache);
-            if (embedFontInfos == null) {
-                continue;
+        if (fontURLList.size() < 2) {
+            for (URL fontURL : fontURLList) {
+                addFontInfos(finder.find(fontURL, resolver, cache), fontInfoList);
             }
-            for (int i = 0, c = embedFontInfos.length; i < c; i++) {
-                EmbedFontInfo fontInfo = embedFontInfos[i];
-                if (fontInfo != null) {
-                    fontInfoList.add(fontInfo);
-                }
+            return;
+        }
+        ExecutorService executor = FontDetectionExecutors.newExecutor("FOP font detection");
+        try {
+            List<Future<EmbedFontInfo[]>> results
+                    = new java.util.ArrayList<Future<EmbedFontInfo[]>>(fontURLList.size());
+            for (final URL fontURL : fontURLList) {
+                results.add(executor.submit(new Callable<EmbedFontInfo[]>() {
+                    public EmbedFontInfo[] call() {
+                        return finder.find(fontURL, resolver, cache);
+                    }
+                }));
+            }
+            for (Future<EmbedFontInfo[]> result : results) {
+                addFontInfos(result.get(), fontInfoList);
+            }
+        } catch (InterruptedException e) {
+            //Don't return a partial font list as if detection had completed
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while reading font files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void addFontInfos(EmbedFontInfo[] embedFontInfos, List<EmbedFontInfo> fontInfoList) {
+        if (embedFontInfos == null) {
+            return;
+        }
+        for (int i = 0, c = embedFontInfos.length; i < c; i++) {
+            EmbedFontInfo fontInfo = embedFontInfos[i];
+            if (fontInfo != null) {
+                fontInfoList.add(fontInfo);
             }
         }
     }
@@ -19,19 +19,21 @@
 
 package org.apache.fop.fonts;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
@@ -44,14 +46,13 @@ import org.apache.fop.util.LogUtil;
 
 /**
  * Fop cache (currently only used for font info caching)
+ * <p>
+ * The cache is stored in a compact, versioned binary format. The font information of each
+ * font file is only decoded when it is requested. Besides the font files, the cache records
+ * the contents of the scanned font directories, so directories which haven't been modified
+ * don't have to be listed again.
  */
-public final class FontCache implements Serializable {
-
-    /**
-     * Serialization Version UID. Change this value if you want to make sure the
-     * user's cache file is purged after an update.
-     */
-    private static final long serialVersionUID = 605232520271754719L;
+public final class FontCache {
 
     /** logging instance */
     private static Log log = LogFactory.getLog(FontCache.class);
@@ -62,8 +63,17 @@ public final class FontCache implements Serializable {
     /** font cache file path */
     private static final String DEFAULT_CACHE_FILENAME = "fop-fonts.cache";
 
+    /** identifies the binary cache format ("FOPC") */
+    private static final int MAGIC = 0x464F5043;
+
+    /** version of the binary cache format; change it if the format changes */
+    private static final int FORMAT_VERSION = 1;
+
     /** has this cache been changed since it was last read? */
-    private transient boolean changed = false;
+    private boolean changed = false;
+
+    /** number of times entries have been invalidated (ex. because a font file has changed) */
+    private volatile int invalidationCount = 0;
 
     /** change lock */
     private final boolean[] changeLock = new boolean[1];
@@ -80,6 +90,9 @@ public final class FontCache implements Serializable {
      */
     private Map<String, Long> failedFontMap = null;
 
+    /** mapping of directory path -> contents of the directory (font files, subdirectories) */
+    private Map<String, CachedDirectory> directoryMap = null;
+
     /**
      * Default constructor
      */
@@ -157,18 +170,14 @@ public final class FontCache implements Serializable {
                     log.trace("Loading font cache from "
                             + cacheFile.getCanonicalPath());
                 }
-                InputStream in = new BufferedInputStream(new FileInputStream(cacheFile));
-                ObjectInputStream oin = new ObjectInputStream(in);
+                byte[] data;
+                InputStream in = new FileInputStream(cacheFile);
                 try {
-                    return (FontCache) oin.readObject();
+                    data = IOUtils.toByteArray(in);
                 } finally {
-                    IOUtils.closeQuietly(oin);
+                    IOUtils.closeQuietly(in);
                 }
-            } catch (ClassNotFoundException e) {
-                // We don't really care about the exception since it's just a
-                // cache file
-                log.warn("Could not read font cache. Discarding font cache file. Reason: "
-                        + e.getMessage());
+                return read(data);
             } catch (IOException ioe) {
                 // We don't really care about the exception since it's just a
                 // cache file
@@ -185,6 +194,77 @@ public final class FontCache implements Serializable {
         return null;
     }
 
+    private static FontCache read(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (data.length < 8 || in.readInt() != MAGIC) {
+            throw new IOException("not a font cache file or written by an older version");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("unsupported font cache format version " + version);
+        }
+        FontCache cache = new FontCache();
+        for (int i = 0, c = in.readInt(); i < c; i++) {
+            String embedUrl = in.readUTF();
+            cache.getFailedFontMap().put(embedUrl, Long.valueOf(in.readLong()));
+        }
+        for (int i = 0, c = in.readInt(); i < c; i++) {
+            String path = in.readUTF();
+            long lastModified = in.readLong();
+            String[] fontURLs = readStrings(in);
+            String[] subdirectories = readStrings(in);
+            cache.getDirectoryMap().put(path,
+                    new CachedDirectory(lastModified, fontURLs, subdirectories));
+        }
+        int fileCount = in.readInt();
+        String[] embedUrls = new String[fileCount];
+        long[] lastModified = new long[fileCount];
+        int[] lengths = new int[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            embedUrls[i] = in.readUTF();
+            lastModified[i] = in.readLong();
+            lengths[i] = in.readInt();
+        }
+        //the font records follow the index, they are decoded on demand
+        int offset = data.length - in.available();
+        for (int i = 0; i < fileCount; i++) {
+            if (lengths[i] < 0 || offset + lengths[i] > data.length) {
+                throw new IOException("font cache file is truncated");
+            }
+            CachedFontFile cachedFontFile = new CachedFontFile(lastModified[i]);
+            cachedFontFile.setRecord(data, offset, lengths[i]);
+            cache.getFontFileMap().put(embedUrls[i], cachedFontFile);
+            offset += lengths[i];
+        }
+        return cache;
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+        return strings;
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for (int i = 0; i < strings.length; i++) {
+            out.writeUTF(strings[i]);
+        }
+    }
+
+    private static String readOptionalString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeOptionalString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
     /**
      * Writes the font cache to disk.
      *
@@ -210,11 +290,10 @@ public final class FontCache implements Serializable {
                     log.trace("Writing font cache to " + cacheFile.getCanonicalPath());
                     OutputStream out = new java.io.FileOutputStream(cacheFile);
                     out = new java.io.BufferedOutputStream(out);
-                    ObjectOutputStream oout = new ObjectOutputStream(out);
                     try {
-                        oout.writeObject(this);
+                        write(new DataOutputStream(out));
                     } finally {
-                        IOUtils.closeQuietly(oout);
+                        IOUtils.closeQuietly(out);
                     }
                 } catch (IOException ioe) {
                     LogUtil.handleException(log, ioe, true);
@@ -225,6 +304,46 @@ public final class FontCache implements Serializable {
         }
     }
 
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        Map<String, Long> failedFonts = getFailedFontMap();
+        out.writeInt(failedFonts.size());
+        for (Iterator<Map.Entry<String, Long>> iter = failedFonts.entrySet().iterator();
+                iter.hasNext();) {
+            Map.Entry<String, Long> entry = iter.next();
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue().longValue());
+        }
+        Map<String, CachedDirectory> directories = getDirectoryMap();
+        out.writeInt(directories.size());
+        for (Iterator<Map.Entry<String, CachedDirectory>> iter
+                = directories.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<String, CachedDirectory> entry = iter.next();
+            CachedDirectory dir = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeLong(dir.lastModified());
+            writeStrings(out, dir.getFontURLs());
+            writeStrings(out, dir.getSubdirectories());
+        }
+        Map<String, CachedFontFile> fontFiles = getFontFileMap();
+        List<byte[]> records = new ArrayList<byte[]>(fontFiles.size());
+        out.writeInt(fontFiles.size());
+        for (Iterator<Map.Entry<String, CachedFontFile>> iter = fontFiles.entrySet().iterator();
+                iter.hasNext();) {
+            Map.Entry<String, CachedFontFile> entry = iter.next();
+            byte[] record = entry.getValue().getRecord();
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue().lastModified());
+            out.writeInt(record.length);
+            records.add(record);
+        }
+        for (Iterator<byte[]> iter = records.iterator(); iter.hasNext();) {
+            out.write(iter.next());
+        }
+        out.flush();
+    }
+
     /**
      * creates a key given a font info for the font mapping
      *
@@ -250,6 +369,17 @@ public final class FontCache implements Serializable {
         return this.changed;
     }
 
+    /**
+     * Returns the number of times entries of this cache have been invalidated, for example
+     * because a font file has changed or the cache has been cleared. Font setups built from
+     * cached information need to be rebuilt when this number changes.
+     *
+     * @return the invalidation count
+     */
+    public int getInvalidationCount() {
+        return this.invalidationCount;
+    }
+
     /**
      * is this font in the cache?
      *
@@ -258,7 +388,9 @@ public final class FontCache implements Serializable {
      * @return boolean
      */
     public boolean containsFont(String embedUrl) {
-        return (embedUrl != null && getFontFileMap().containsKey(embedUrl));
+        synchronized (changeLock) {
+            return (embedUrl != null && getFontFileMap().containsKey(embedUrl));
+        }
     }
 
     /**
@@ -269,8 +401,10 @@ public final class FontCache implements Serializable {
      * @return font
      */
     public boolean containsFont(EmbedFontInfo fontInfo) {
-        return (fontInfo != null && getFontFileMap().containsKey(
-                getCacheKey(fontInfo)));
+        synchronized (changeLock) {
+            return (fontInfo != null && getFontFileMap().containsKey(
+                    getCacheKey(fontInfo)));
+        }
     }
 
     /**
@@ -352,7 +486,9 @@ public final class FontCache implements Serializable {
      * @return CachedFontFile object
      */
     public CachedFontFile getFontFile(String embedUrl) {
-        return containsFont(embedUrl) ? getFontFileMap().get(embedUrl) : null;
+        synchronized (changeLock) {
+            return containsFont(embedUrl) ? getFontFileMap().get(embedUrl) : null;
+        }
     }
 
     /**
@@ -368,12 +504,14 @@ public final class FontCache implements Serializable {
      *         if it is outdated
      */
     public EmbedFontInfo[] getFontInfos(String embedUrl, long lastModified) {
-        CachedFontFile cff = getFontFile(embedUrl);
-        if (cff.lastModified() == lastModified) {
-            return cff.getEmbedFontInfos();
-        } else {
-            removeFont(embedUrl);
-            return null;
+        synchronized (changeLock) {
+            CachedFontFile cff = getFontFile(embedUrl);
+            if (cff.lastModified() == lastModified) {
+                return cff.getEmbedFontInfos();
+            } else {
+                removeFont(embedUrl);
+                return null;
+            }
         }
     }
 
@@ -391,6 +529,7 @@ public final class FontCache implements Serializable {
                 }
                 getFontFileMap().remove(embedUrl);
                 changed = true;
+                invalidationCount++;
             }
         }
     }
@@ -414,6 +553,7 @@ public final class FontCache implements Serializable {
                     // from failed font map for now
                     getFailedFontMap().remove(embedUrl);
                     changed = true;
+                    invalidationCount++;
                 }
                 return true;
             } else {
@@ -439,6 +579,60 @@ public final class FontCache implements Serializable {
         }
     }
 
+    private Map<String, CachedDirectory> getDirectoryMap() {
+        if (directoryMap == null) {
+            directoryMap = new HashMap<String, CachedDirectory>();
+        }
+        return directoryMap;
+    }
+
+    /**
+     * Returns the cached contents of a font directory. If the directory was modified since
+     * it was cached (i.e. files have been added, removed or renamed), the entry is removed
+     * and null is returned.
+     *
+     * @param directory the directory
+     * @return the cached directory contents or null if there's no cached entry or if it is
+     *         outdated
+     */
+    public CachedDirectory getDirectory(File directory) {
+        String path = directory.getAbsolutePath();
+        synchronized (changeLock) {
+            CachedDirectory cached = getDirectoryMap().get(path);
+            if (cached == null) {
+                return null;
+            } else if (cached.lastModified() == directory.lastModified()) {
+                return cached;
+            } else {
+                if (log.isTraceEnabled()) {
+                    log.trace("Font directory changed: " + path);
+                }
+                getDirectoryMap().remove(path);
+                changed = true;
+                invalidationCount++;
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Adds the contents of a font directory to the cache.
+     *
+     * @param directory the directory
+     * @param lastModified the last modified date/time of the directory (taken before listing
+     *          its contents)
+     * @param fontURLs the URLs of the font files in the directory
+     * @param subdirectories the paths of the subdirectories of the directory
+     */
+    public void addDirectory(File directory, long lastModified, String[] fontURLs,
+            String[] subdirectories) {
+        synchronized (changeLock) {
+            getDirectoryMap().put(directory.getAbsolutePath(),
+                    new CachedDirectory(lastModified, fontURLs, subdirectories));
+            changed = true;
+        }
+    }
+
     private Map<String, Long> getFailedFontMap() {
         if (failedFontMap == null) {
             failedFontMap = new HashMap<String, Long>();
@@ -456,7 +650,9 @@ public final class FontCache implements Serializable {
             }
             fontfileMap = null;
             failedFontMap = null;
+            directoryMap = null;
             changed = true;
+            invalidationCount++;
         }
     }
 
@@ -468,6 +664,12 @@ public final class FontCache implements Serializable {
      * @return the last modified date/time
      */
     public static long getLastModified(URL url) {
+        if ("file".equals(url.getProtocol())) {
+            File file = FileUtils.toFile(url);
+            if (file != null) {
+                return file.lastModified();
+            }
+        }
         try {
             URLConnection conn = url.openConnection();
             try {
@@ -484,25 +686,106 @@ public final class FontCache implements Serializable {
         }
     }
 
-    private static class CachedFontFile implements Serializable {
-        private static final long serialVersionUID = 4524237324330578883L;
+    private static class CachedFontFile {
 
         /** file modify date (if available) */
         private long lastModified = -1;
 
         private Map<String, EmbedFontInfo> filefontsMap = null;
 
+        /** the encoded font information as read from the cache file (null once decoded) */
+        private byte[] recordData;
+        private int recordOffset;
+        private int recordLength;
+
         public CachedFontFile(long lastModified) {
             setLastModified(lastModified);
         }
 
+        void setRecord(byte[] data, int offset, int length) {
+            this.recordData = data;
+            this.recordOffset = offset;
+            this.recordLength = length;
+        }
+
         private Map<String, EmbedFontInfo> getFileFontsMap() {
             if (filefontsMap == null) {
                 filefontsMap = new HashMap<String, EmbedFontInfo>();
+                if (recordData != null) {
+                    try {
+                        decodeRecord();
+                    } catch (IOException ioe) {
+                        log.warn("Invalid entry in font cache: " + ioe.getMessage());
+                    }
+                    recordData = null;
+                }
             }
             return filefontsMap;
         }
 
+        private void decodeRecord() throws IOException {
+            DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(recordData, recordOffset, recordLength));
+            for (int i = 0, c = in.readInt(); i < c; i++) {
+                String metricsFile = readOptionalString(in);
+                String embedFile = readOptionalString(in);
+                boolean kerning = in.readBoolean();
+                boolean advanced = in.readBoolean();
+                EncodingMode encodingMode = EncodingMode.getEncodingMode(in.readUTF());
+                String postScriptName = readOptionalString(in);
+                String subFontName = readOptionalString(in);
+                int tripletCount = in.readInt();
+                List<FontTriplet> triplets = new ArrayList<FontTriplet>(tripletCount);
+                for (int j = 0; j < tripletCount; j++) {
+                    String name = in.readUTF();
+                    String style = in.readUTF();
+                    int weight = in.readInt();
+                    triplets.add(new FontTriplet(name, style, weight, in.readInt()));
+                }
+                EmbedFontInfo efi = new EmbedFontInfo(metricsFile, kerning, advanced,
+                        triplets, embedFile, subFontName);
+                efi.setEncodingMode(encodingMode);
+                efi.setPostScriptName(postScriptName);
+                filefontsMap.put(postScriptName, efi);
+            }
+        }
+
+        /** Encodes the font information for the cache file. */
+        byte[] getRecord() throws IOException {
+            if (recordData != null) {
+                //not decoded, yet
+                byte[] record = new byte[recordLength];
+                System.arraycopy(recordData, recordOffset, record, 0, recordLength);
+                return record;
+            }
+            java.io.ByteArrayOutputStream bout = new java.io.ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bout);
+            Map<String, EmbedFontInfo> fonts = getFileFontsMap();
+            out.writeInt(fonts.size());
+            for (Iterator<EmbedFontInfo> iter = fonts.values().iterator(); iter.hasNext();) {
+                EmbedFontInfo efi = iter.next();
+                writeOptionalString(out, efi.getMetricsFile());
+                writeOptionalString(out, efi.getEmbedFile());
+                out.writeBoolean(efi.getKerning());
+                out.writeBoolean(efi.getAdvanced());
+                out.writeUTF(efi.getEncodingMode().getName());
+                writeOptionalString(out, efi.getPostScriptName());
+                writeOptionalString(out, efi.getSubFontName());
+                List<FontTriplet> triplets = efi.getFontTriplets();
+                out.writeInt(triplets.size());
+                for (Iterator<FontTriplet> tripletIter = triplets.iterator();
+                        tripletIter.hasNext();) {
+                    FontTriplet triplet = tripletIter.next();
+                    out.writeUTF(triplet.getName());
+                    out.writeUTF(triplet.getStyle());
+                    out.writeInt(triplet.getWeight());
+                    out.writeInt(triplet.getPriority());
+                }
+            }
+            out.flush();
+            return bout.toByteArray();
+        }
+
         void put(EmbedFontInfo efi) {
             getFileFontsMap().put(efi.getPostScriptName(), efi);
         }
@@ -545,4 +828,47 @@ public final class FontCache implements Serializable {
         }
 
     }
+
+    /**
+     * The cached contents of a font directory.
+     */
+    public static final class CachedDirectory {
+
+        private final long lastModified;
+        private final String[] fontURLs;
+        private final String[] subdirectories;
+
+        CachedDirectory(long lastModified, String[] fontURLs, String[] subdirectories) {
+            this.lastModified = lastModified;
+            this.fontURLs = fontURLs;
+            this.subdirectories = subdirectories;
+        }
+
+        /**
+         * Gets the modified timestamp of the directory
+         *
+         * @return modified timestamp
+         */
+        public long lastModified() {
+            return this.lastModified;
+        }
+
+        /**
+         * Returns the URLs of the font files in the directory.
+         *
+         * @return the font file URLs
+         */
+        public String[] getFontURLs() {
+            return this.fontURLs.clone();
+        }
+
+        /**
+         * Returns the (absolute) paths of the subdirectories of the directory.
+         *
+         * @return the subdirectory paths
+         */
+        public String[] getSubdirectories() {
+            return this.subdirectories.clone();
+        }
+    }
 }
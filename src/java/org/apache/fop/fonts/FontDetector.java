@@ -72,7 +72,8 @@ public class FontDetector {
     public void detect(List<EmbedFontInfo> fontInfoList) throws FOPException {
         // search in font base if it is defined and
         // is a directory but don't recurse
-        FontFileFinder fontFileFinder = new FontFileFinder(eventListener);
+        FontFileFinder fontFileFinder = new FontFileFinder(FontFileFinder.DEFAULT_DEPTH_LIMIT,
+                eventListener, fontManager.getFontCache());
         String fontBaseURL = fontManager.getFontBaseURL();
         if (fontBaseURL != null) {
             try {
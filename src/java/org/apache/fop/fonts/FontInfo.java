@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -66,11 +67,14 @@ public class FontInfo {
     private Set<FontTriplet> loggedFontKeys = null;
 
     /** Cache for Font instances. */
-    private Map<FontTriplet, Map<Integer, Font>> fontInstanceCache = null;
+    private volatile Map<FontTriplet, Map<Integer, Font>> fontInstanceCache = null;
 
     /** Event listener for font events */
     private FontEventListener eventListener = null;
 
+    /** Maximum number of shaped words cached per Font instance (0: no cache) */
+    private int shapingCacheSize = 0;
+
     /**
      * Main constructor
      */
@@ -90,6 +94,19 @@ public class FontInfo {
         this.eventListener = listener;
     }
 
+    /**
+     * Sets the maximum number of complex script words whose shaping results are cached per
+     * font and font size. A value of 0 (the default) disables the cache. Only the Font
+     * instances created afterwards are affected.
+     * @param size the maximum number of words per font and font size
+     */
+    public void setShapingCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative");
+        }
+        this.shapingCacheSize = size;
+    }
+
     /**
      * Checks if the font setup is valid (At least the ultimate fallback font
      * must be registered.)
@@ -291,13 +308,13 @@ public class FontInfo {
      * Tells this class that the font with the given internal name has been used.
      * @param internalName the internal font name (F1, F2 etc.)
      */
-    public void useFont(String internalName) {
+    public synchronized void useFont(String internalName) {
         usedFonts.put(internalName, fonts.get(internalName));
     }
 
     private Map<FontTriplet, Map<Integer, Font>> getFontInstanceCache() {
         if (fontInstanceCache == null) {
-            fontInstanceCache = new HashMap<FontTriplet, Map<Integer, Font>>();
+            fontInstanceCache = new ConcurrentHashMap<FontTriplet, Map<Integer, Font>>();
         }
         return fontInstanceCache;
     }
@@ -310,10 +327,25 @@ public class FontInfo {
      * @return the requested Font instance
      */
     public Font getFontInstance(FontTriplet triplet, int fontSize) {
+        Map<FontTriplet, Map<Integer, Font>> cache = fontInstanceCache;
+        if (cache != null) {
+            Map<Integer, Font> sizes = cache.get(triplet);
+            if (sizes != null) {
+                Font font = sizes.get(Integer.valueOf(fontSize));
+                if (font != null) {
+                    return font;
+                }
+            }
+        }
+        //Only the creation of new instances is synchronized (for the layout threads)
+        return createFontInstance(triplet, fontSize);
+    }
+
+    private synchronized Font createFontInstance(FontTriplet triplet, int fontSize) {
         Map<Integer, Font> sizes
             = getFontInstanceCache().get(triplet);
         if (sizes == null) {
-            sizes = new HashMap<Integer, Font>();
+            sizes = new ConcurrentHashMap<Integer, Font>();
             getFontInstanceCache().put(triplet, sizes);
         }
         Integer size = Integer.valueOf(fontSize);
@@ -323,6 +355,9 @@ public class FontInfo {
             useFont(fontKey);
             FontMetrics metrics = getMetricsFor(fontKey);
             font = new Font(fontKey, triplet, metrics, fontSize);
+            if (shapingCacheSize > 0) {
+                font.setShapingCache(new ShapingCache(shapingCacheSize));
+            }
             sizes.put(size, font);
         }
         return font;
@@ -460,7 +495,7 @@ public class FontInfo {
         return loggedFontKeys;
     }
 
-    private void notifyFontReplacement(FontTriplet replacedKey, FontTriplet newKey) {
+    private synchronized void notifyFontReplacement(FontTriplet replacedKey, FontTriplet newKey) {
         if (!getLoggedFontKeys().contains(replacedKey)) {
             getLoggedFontKeys().add(replacedKey);
             if (this.eventListener != null) {
@@ -141,7 +141,8 @@ public class FontInfoConfigurator {
             }
 
             // add fonts found in directory
-            FontFileFinder fontFileFinder = new FontFileFinder(recursive ? -1 : 1, listener);
+            FontFileFinder fontFileFinder = new FontFileFinder(recursive ? -1 : 1, listener,
+                    fontManager.getFontCache());
             List<URL> fontURLList;
             try {
                 fontURLList = fontFileFinder.find(directory);
@@ -28,9 +28,11 @@ import java.net.URL;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.fonts.truetype.FontFileReader;
 import org.apache.fop.fonts.truetype.TTFFontLoader;
 import org.apache.fop.fonts.type1.Type1FontLoader;
 
@@ -158,29 +160,75 @@ public abstract class FontLoader {
                     throws IOException, MalformedURLException {
         InputStream in = null;
         if (resolver != null) {
-            Source source = resolver.resolve(uri);
-            if (source == null) {
-                String err = "Cannot load font: failed to create Source for font file "
-                    + uri;
-                throw new IOException(err);
-            }
-            if (source instanceof StreamSource) {
-                in = ((StreamSource) source).getInputStream();
-            }
-            if (in == null && source.getSystemId() != null) {
-                in = new java.net.URL(source.getSystemId()).openStream();
-            }
-            if (in == null) {
-                String err = "Cannot load font: failed to create InputStream from"
-                    + " Source for font file " + uri;
-                throw new IOException(err);
-            }
+            in = openSource(resolveFontUri(resolver, uri), uri);
         } else {
             in = new URL(uri).openStream();
         }
         return in;
     }
 
+    /**
+     * Opens a font URI for reading with a {@link FontFileReader}. If the URI resolves to
+     * a local file, the file is mapped into memory instead of being read into a byte array.
+     * @param resolver the FontResolver to use for font URI resolution
+     * @param uri the URI representing the font
+     * @return the FontFileReader to read the font with
+     * @throws IOException In case of an I/O error
+     * @throws MalformedURLException If an invalid URL is built
+     */
+    public static FontFileReader openFontFileReader(FontResolver resolver, String uri)
+                    throws IOException, MalformedURLException {
+        InputStream in = null;
+        try {
+            if (resolver != null) {
+                Source source = resolveFontUri(resolver, uri);
+                File file = FontFileReader.getLocalFile(source.getSystemId());
+                if (file != null) {
+                    if (source instanceof StreamSource) {
+                        IOUtils.closeQuietly(((StreamSource) source).getInputStream());
+                    }
+                    return new FontFileReader(file);
+                }
+                in = openSource(source, uri);
+            } else {
+                File file = FontFileReader.getLocalFile(uri);
+                if (file != null) {
+                    return new FontFileReader(file);
+                }
+                in = new URL(uri).openStream();
+            }
+            return new FontFileReader(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private static Source resolveFontUri(FontResolver resolver, String uri) throws IOException {
+        Source source = resolver.resolve(uri);
+        if (source == null) {
+            String err = "Cannot load font: failed to create Source for font file "
+                + uri;
+            throw new IOException(err);
+        }
+        return source;
+    }
+
+    private static InputStream openSource(Source source, String uri) throws IOException {
+        InputStream in = null;
+        if (source instanceof StreamSource) {
+            in = ((StreamSource) source).getInputStream();
+        }
+        if (in == null && source.getSystemId() != null) {
+            in = new java.net.URL(source.getSystemId()).openStream();
+        }
+        if (in == null) {
+            String err = "Cannot load font: failed to create InputStream from"
+                + " Source for font file " + uri;
+            throw new IOException(err);
+        }
+        return in;
+    }
+
     /**
      * Reads/parses the font data.
      * @throws IOException In case of an I/O error
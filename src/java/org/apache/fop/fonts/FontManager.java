@@ -21,7 +21,10 @@ package org.apache.fop.fonts;
 
 import java.io.File;
 import java.net.MalformedURLException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
@@ -62,6 +65,16 @@ public class FontManager {
     /** Provides a font cache file path **/
     private File cacheFile;
 
+    /** the cache of generated font subsets (null if disabled) */
+    private FontSubsetCache subsetCache;
+
+    /** font lists built from font configurations: configuration -> (key -> font list) */
+    private final Map<Object, Map<String, List<EmbedFontInfo>>> fontSetupSnapshots
+            = new WeakHashMap<Object, Map<String, List<EmbedFontInfo>>>();
+
+    /** the invalidation count of the font cache when the snapshots were taken */
+    private int snapshotInvalidationCount;
+
     /**
      * Main constructor
      */
@@ -123,6 +136,7 @@ public class FontManager {
      */
     public void setCacheFile(File cacheFile) {
         this.cacheFile = cacheFile;
+        invalidateFontSetupSnapshots();
     }
 
     /**
@@ -144,6 +158,7 @@ public class FontManager {
         this.useCache = useCache;
         if (!useCache) {
             this.fontCache = null;
+            invalidateFontSetupSnapshots();
         }
     }
 
@@ -159,7 +174,7 @@ public class FontManager {
      * Returns the font cache instance used by this font manager.
      * @return the font cache
      */
-    public FontCache getFontCache() {
+    public synchronized FontCache getFontCache() {
         if (fontCache == null) {
             if (useCache) {
                 if (cacheFile != null) {
@@ -175,6 +190,27 @@ public class FontManager {
         return fontCache;
     }
 
+    /**
+     * Sets the maximum number of font subsets that are cached for reuse in later rendering
+     * runs.
+     * @param size the maximum number of cached subsets (0 disables the cache)
+     */
+    public void setSubsetCacheSize(int size) {
+        if (size > 0) {
+            this.subsetCache = new FontSubsetCache(size);
+        } else {
+            this.subsetCache = null;
+        }
+    }
+
+    /**
+     * Returns the cache of generated font subsets.
+     * @return the font subset cache or null if subsets are not cached
+     */
+    public FontSubsetCache getSubsetCache() {
+        return this.subsetCache;
+    }
+
     /**
      * Saves the FontCache as necessary
      *
@@ -208,6 +244,59 @@ public class FontManager {
         return deleted;
     }
 
+    /**
+     * Returns the font list which has previously been built from a font configuration. Building
+     * the font list can be expensive (ex. when fonts are auto-detected), so it is only done once
+     * per configuration, unless the font cache detects changed font files.
+     * @param configuration the font configuration (compared by identity)
+     * @param key identifies the settings (other than the configuration) the list depends on
+     * @return the font list (unmodifiable) or null if there is none
+     */
+    public synchronized List<EmbedFontInfo> getFontSetupSnapshot(Object configuration,
+            String key) {
+        checkFontCacheInvalidations();
+        Map<String, List<EmbedFontInfo>> snapshots = fontSetupSnapshots.get(configuration);
+        return (snapshots != null) ? snapshots.get(key) : null;
+    }
+
+    /**
+     * Keeps a font list built from a font configuration for later font setups.
+     * @param configuration the font configuration (compared by identity)
+     * @param key identifies the settings (other than the configuration) the list depends on
+     * @param fontInfoList the font list
+     * @return the font list which has been kept (unmodifiable)
+     */
+    public synchronized List<EmbedFontInfo> putFontSetupSnapshot(Object configuration,
+            String key, List<EmbedFontInfo> fontInfoList) {
+        checkFontCacheInvalidations();
+        List<EmbedFontInfo> snapshot = Collections.unmodifiableList(
+                new java.util.ArrayList<EmbedFontInfo>(fontInfoList));
+        Map<String, List<EmbedFontInfo>> snapshots = fontSetupSnapshots.get(configuration);
+        if (snapshots == null) {
+            snapshots = new java.util.HashMap<String, List<EmbedFontInfo>>();
+            fontSetupSnapshots.put(configuration, snapshots);
+        }
+        snapshots.put(key, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Discards all font lists kept for font setups, so they are built again from the
+     * configuration (ex. after fonts have been installed or removed).
+     */
+    public synchronized void invalidateFontSetupSnapshots() {
+        fontSetupSnapshots.clear();
+    }
+
+    private void checkFontCacheInvalidations() {
+        FontCache cache = this.fontCache;
+        int count = (cache != null) ? cache.getInvalidationCount() : 0;
+        if (count != snapshotInvalidationCount) {
+            fontSetupSnapshots.clear();
+            snapshotInvalidationCount = count;
+        }
+    }
+
     /**
      * Sets up the fonts on a given FontInfo object. The fonts to setup are defined by an
      * array of {@link FontCollection} objects.
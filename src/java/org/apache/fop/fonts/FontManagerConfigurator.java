@@ -86,6 +86,14 @@ public class FontManagerConfigurator {
                 LogUtil.handleException(log, e, true);
             }
         }
+        if (cfg.getChild("font-subset-cache-size", false) != null) {
+            try {
+                fontManager.setSubsetCacheSize(
+                        cfg.getChild("font-subset-cache-size").getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, true);
+            }
+        }
         if (cfg.getChild("font-base", false) != null) {
             String path = cfg.getChild("font-base").getValue(null);
             if (baseURI != null) {
@@ -131,4 +131,14 @@ public interface FontMetrics {
      */
     Map<Integer, Map<Integer, Integer>> getKerningInfo();
 
+    /**
+     * Returns the kerning value for a pair of characters. Unlike {@link #getKerningInfo()},
+     * this doesn't need to create or box anything.
+     * @param ch1 the first character
+     * @param ch2 the second character
+     * @return the kerning value (in 1/1000ths of the font size), 0 if there's no kerning
+     *          for the pair or kerning is not available or disabled
+     */
+    int getKernValue(int ch1, int ch2);
+
 }
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.fop.fonts.truetype.FontFileReader;
+
+/**
+ * Process-wide cache of loaded fonts, shared by all {@link FontInfo} setups (and therefore
+ * all FopFactory instances) in the JVM. Parsing a font file can take a considerable amount
+ * of time and memory, so fonts are parsed only once per font file and set of loading options.
+ * Every user of a cached font gets its own {@link CustomFont#copy() copy}, which shares the
+ * metrics of the cached font but keeps its own per-document state (ex. the glyphs used
+ * for subsetting).
+ * <p>
+ * Only fonts loaded from local files are cached, so the file's modification time can be
+ * checked. The cache holds its fonts through soft references, so the garbage collector can
+ * release them when memory runs low.
+ */
+public final class FontMetricsCache {
+
+    private static final FontMetricsCache INSTANCE = new FontMetricsCache();
+
+    private final Map<Key, FontReference> fonts = new HashMap<Key, FontReference>();
+    private final ReferenceQueue<CustomFont> queue = new ReferenceQueue<CustomFont>();
+
+    private volatile boolean enabled = true;
+    private long hitCount;
+    private long missCount;
+
+    private FontMetricsCache() {
+    }
+
+    /**
+     * Returns the process-wide font metrics cache.
+     * @return the font metrics cache
+     */
+    public static FontMetricsCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enables or disables the cache. When disabled, fonts are loaded from their files
+     * every time.
+     * @param enabled true to enable the cache
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Indicates whether the cache is enabled.
+     * @return true if the cache is enabled
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Creates the cache key for a font.
+     * @param resolver the font resolver used to resolve the font URIs (may be null)
+     * @param metricsFileName the URI of the XML font metrics file (may be null)
+     * @param fontEmbedPath the URI of the font file (may be null)
+     * @param subFontName the sub-font name (for TrueType Collections, null otherwise)
+     * @param embedded true if the font is embedded
+     * @param encodingMode the encoding mode
+     * @param useKerning true if kerning information is loaded
+     * @param useAdvanced true if advanced typographic information is loaded
+     * @return the key or null if the font can't be cached (ex. if it isn't a local file)
+     */
+    public static Object createKey(FontResolver resolver, String metricsFileName,
+            String fontEmbedPath, String subFontName, boolean embedded,
+            EncodingMode encodingMode, boolean useKerning, boolean useAdvanced) {
+        String uri = (metricsFileName != null) ? metricsFileName : fontEmbedPath;
+        if (uri == null) {
+            return null;
+        }
+        File file = resolveLocalFile(resolver, uri.trim());
+        if (file == null) {
+            return null;
+        }
+        return new Key(new Object[] {
+                file.getAbsolutePath(), Long.valueOf(file.lastModified()),
+                Long.valueOf(file.length()), metricsFileName,
+                (metricsFileName != null) ? fontEmbedPath : null, subFontName,
+                Boolean.valueOf(embedded), encodingMode,
+                Boolean.valueOf(useKerning), Boolean.valueOf(useAdvanced)});
+    }
+
+    private static File resolveLocalFile(FontResolver resolver, String uri) {
+        if (resolver == null) {
+            return FontFileReader.getLocalFile(uri);
+        }
+        Source source = resolver.resolve(uri);
+        if (source == null) {
+            return null;
+        }
+        if (source instanceof StreamSource) {
+            //only the location is needed
+            IOUtils.closeQuietly(((StreamSource) source).getInputStream());
+        }
+        return FontFileReader.getLocalFile(source.getSystemId());
+    }
+
+    /**
+     * Returns a copy of a cached font.
+     * @param key the key (as returned by {@link #createKey})
+     * @return a copy of the font or null if the font is not in the cache
+     */
+    public CustomFont get(Object key) {
+        if (!enabled || key == null) {
+            return null;
+        }
+        CustomFont font = null;
+        synchronized (this) {
+            expungeStaleEntries();
+            FontReference ref = fonts.get(key);
+            if (ref != null) {
+                font = ref.get();
+            }
+            if (font != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+        }
+        return (font != null) ? font.copy() : null;
+    }
+
+    /**
+     * Adds a freshly loaded font to the cache. The cache keeps a copy of the font, so the
+     * font itself can be used in a document.
+     * @param key the key (as returned by {@link #createKey})
+     * @param font the font
+     */
+    public void put(Object key, CustomFont font) {
+        if (!enabled || key == null) {
+            return;
+        }
+        CustomFont copy = font.copy();
+        synchronized (this) {
+            expungeStaleEntries();
+            fonts.put((Key) key, new FontReference((Key) key, copy, queue));
+        }
+    }
+
+    /** Removes all fonts from the cache. */
+    public synchronized void clear() {
+        fonts.clear();
+        expungeStaleEntries();
+    }
+
+    /**
+     * Returns the number of fonts in the cache (including fonts that may already have been
+     * released by the garbage collector).
+     * @return the number of cached fonts
+     */
+    public synchronized int size() {
+        expungeStaleEntries();
+        return fonts.size();
+    }
+
+    /**
+     * Returns the number of lookups which found a font.
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which didn't find a font.
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private void expungeStaleEntries() {
+        FontReference ref;
+        while ((ref = (FontReference) queue.poll()) != null) {
+            if (fonts.get(ref.key) == ref) {
+                fonts.remove(ref.key);
+            }
+        }
+    }
+
+    private static final class FontReference extends SoftReference<CustomFont> {
+
+        private final Key key;
+
+        FontReference(Key key, CustomFont font, ReferenceQueue<CustomFont> queue) {
+            super(font, queue);
+            this.key = key;
+        }
+    }
+
+    private static final class Key {
+
+        private final Object[] values;
+        private final int hash;
+
+        Key(Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            return hash;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            return (obj instanceof Key) && Arrays.equals(values, ((Key) obj).values);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.fop.fonts.truetype.FontFileReader;
+
+/**
+ * Bounded LRU cache of generated font subsets. Documents produced from the same templates
+ * usually use the same glyphs of a font, so the subset built for one document can be
+ * embedded in the next one instead of being built again. A subset is identified by the font
+ * file (including its modification time), the sub-font name and the glyph mapping of the
+ * subset (original glyph index -> subset glyph index).
+ */
+public class FontSubsetCache {
+
+    private final int maxSize;
+
+    private final Map<Key, byte[]> subsets;
+
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of subsets held by the cache
+     */
+    public FontSubsetCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        this.subsets = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Creates the cache key for a font subset.
+     * @param systemId the system ID (URI) of the font file
+     * @param subFontName the sub-font name (for TrueType Collections, null otherwise)
+     * @param glyphs the glyph mapping of the subset (original glyph index -> subset index)
+     * @return the key or null if the subset can't be cached (ex. if the font isn't a local file)
+     */
+    public static Object createKey(String systemId, String subFontName,
+            Map<Integer, Integer> glyphs) {
+        File file = FontFileReader.getLocalFile(systemId);
+        if (file == null) {
+            return null;
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buf = new byte[8];
+        for (Iterator<Map.Entry<Integer, Integer>> iter
+                = new TreeMap<Integer, Integer>(glyphs).entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<Integer, Integer> entry = iter.next();
+            int glyph = entry.getKey().intValue();
+            int subsetIndex = entry.getValue().intValue();
+            for (int i = 0; i < 4; i++) {
+                buf[i] = (byte) (glyph >>> (24 - 8 * i));
+                buf[i + 4] = (byte) (subsetIndex >>> (24 - 8 * i));
+            }
+            digest.update(buf);
+        }
+        return new Key(new Object[] {file.getAbsolutePath(),
+                Long.valueOf(file.lastModified()), Long.valueOf(file.length()), subFontName,
+                Integer.valueOf(glyphs.size()), new String(toHex(digest.digest()))});
+    }
+
+    private static char[] toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = Character.forDigit((bytes[i] >> 4) & 0xF, 16);
+            hex[2 * i + 1] = Character.forDigit(bytes[i] & 0xF, 16);
+        }
+        return hex;
+    }
+
+    /**
+     * Returns a cached font subset.
+     * @param key the key (as returned by {@link #createKey})
+     * @return the subset font data or null if the subset is not in the cache
+     */
+    public synchronized byte[] get(Object key) {
+        byte[] subset = (key != null) ? subsets.get(key) : null;
+        if (subset != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return subset;
+    }
+
+    /**
+     * Adds a font subset to the cache. The data must not be changed afterwards.
+     * @param key the key (as returned by {@link #createKey})
+     * @param subset the subset font data
+     */
+    public synchronized void put(Object key, byte[] subset) {
+        if (key != null) {
+            subsets.put((Key) key, subset);
+        }
+    }
+
+    /**
+     * Returns the maximum number of subsets held by the cache.
+     * @return the maximum size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of subsets in the cache.
+     * @return the number of subsets
+     */
+    public synchronized int size() {
+        return subsets.size();
+    }
+
+    /**
+     * Returns the number of lookups which found a subset.
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which didn't find a subset.
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private static final class Key {
+
+        private final Object[] values;
+        private final int hash;
+
+        Key(Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            return hash;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            return (obj instanceof Key) && Arrays.equals(values, ((Key) obj).values);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Immutable table of kerning pairs. The pairs are stored in an open-addressed hash table
+ * of primitive values (the two characters packed into a long key), so looking up the
+ * kerning of a character pair doesn't allocate any objects and the table needs a fraction
+ * of the memory of nested maps.
+ */
+public final class KerningTable {
+
+    /** the empty kerning table */
+    public static final KerningTable EMPTY = new KerningTable(0);
+
+    /** marks unused slots (not a valid key as characters are never negative) */
+    private static final long NO_KEY = -1L;
+
+    private final long[] keys;
+    private final int[] values;
+    private final int mask;
+    private int size;
+
+    private KerningTable(int pairCount) {
+        //keep the load factor at or below 0.75
+        int capacity = 1;
+        while (capacity * 3 < pairCount * 4 + 1) {
+            capacity <<= 1;
+        }
+        this.keys = new long[capacity];
+        Arrays.fill(this.keys, NO_KEY);
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Creates a kerning table from a kerning map.
+     * @param kerningMap the kerning map (first character -> (second character -> kerning
+     *          value)), may be null
+     * @return the kerning table
+     */
+    public static KerningTable create(Map<Integer, Map<Integer, Integer>> kerningMap) {
+        if (kerningMap == null || kerningMap.isEmpty()) {
+            return EMPTY;
+        }
+        int pairCount = 0;
+        for (Iterator<Map<Integer, Integer>> iter = kerningMap.values().iterator();
+                iter.hasNext();) {
+            Map<Integer, Integer> pairs = iter.next();
+            if (pairs != null) {
+                pairCount += pairs.size();
+            }
+        }
+        KerningTable table = new KerningTable(pairCount);
+        for (Iterator<Map.Entry<Integer, Map<Integer, Integer>>> iter
+                = kerningMap.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<Integer, Map<Integer, Integer>> entry = iter.next();
+            if (entry.getValue() == null) {
+                continue;
+            }
+            int ch1 = entry.getKey().intValue();
+            for (Iterator<Map.Entry<Integer, Integer>> pairIter
+                    = entry.getValue().entrySet().iterator(); pairIter.hasNext();) {
+                Map.Entry<Integer, Integer> pair = pairIter.next();
+                table.put(ch1, pair.getKey().intValue(), pair.getValue().intValue());
+            }
+        }
+        return table;
+    }
+
+    private static long toKey(int ch1, int ch2) {
+        return ((long)ch1 << 32) | (ch2 & 0xFFFFFFFFL);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32)) & mask;
+    }
+
+    private void put(int ch1, int ch2, int value) {
+        long key = toKey(ch1, ch2);
+        int i = slot(key);
+        while (keys[i] != NO_KEY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == NO_KEY) {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    /**
+     * Returns the kerning value for a pair of characters.
+     * @param ch1 the first character
+     * @param ch2 the second character
+     * @return the kerning value (in 1/1000ths of the font size) or 0 if there's no kerning for
+     *          the pair
+     */
+    public int get(int ch1, int ch2) {
+        if (size == 0 || ch1 < 0 || ch2 < 0) {
+            return 0;
+        }
+        long key = toKey(ch1, ch2);
+        int i = slot(key);
+        long k;
+        while ((k = keys[i]) != NO_KEY) {
+            if (k == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Indicates whether the table is empty.
+     * @return true if there are no kerning pairs
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of kerning pairs.
+     * @return the number of kerning pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Creates a kerning map with the pairs of this table. Note that this creates new maps
+     * on every call; use {@link #get(int, int)} for lookups.
+     * @return the kerning map (first character -> (second character -> kerning value))
+     */
+    public Map<Integer, Map<Integer, Integer>> toMap() {
+        Map<Integer, Map<Integer, Integer>> map = new HashMap<Integer, Map<Integer, Integer>>();
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            if (key != NO_KEY) {
+                Integer ch1 = Integer.valueOf((int)(key >>> 32));
+                Map<Integer, Integer> pairs = map.get(ch1);
+                if (pairs == null) {
+                    pairs = new HashMap<Integer, Integer>();
+                    map.put(ch1, pairs);
+                }
+                pairs.put(Integer.valueOf((int)key), Integer.valueOf(values[i]));
+            }
+        }
+        return map;
+    }
+}
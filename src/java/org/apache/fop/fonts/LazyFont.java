@@ -53,7 +53,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     private boolean embedded;
     private String subFontName;
 
-    private boolean isMetricsLoaded;
+    private volatile boolean isMetricsLoaded;
     private Typeface realFont;
     private FontDescriptor realFontDescriptor;
 
@@ -93,9 +93,27 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     }   
 
     private void load(boolean fail) {
+        if (!isMetricsLoaded) {
+            loadMetrics(fail);
+        }
+    }
+
+    private synchronized void loadMetrics(boolean fail) {
         if (!isMetricsLoaded) {
             try {
-                if (metricsFileName != null) {
+                FontMetricsCache cache = FontMetricsCache.getInstance();
+                Object cacheKey = null;
+                CustomFont cachedFont = null;
+                if (cache.isEnabled()) {
+                    cacheKey = FontMetricsCache.createKey(resolver, metricsFileName,
+                            fontEmbedPath, subFontName, embedded, encodingMode,
+                            useKerning, useAdvanced);
+                    cachedFont = cache.get(cacheKey);
+                }
+                if (cachedFont != null) {
+                    cachedFont.setResolver(resolver);
+                    realFont = cachedFont;
+                } else if (metricsFileName != null) {
                     /**@todo Possible thread problem here */
                     FontReader reader = null;
                     if (resolver != null) {
@@ -151,6 +169,9 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
                     realFont = FontLoader.loadFont(fontEmbedPath, this.subFontName,
                             this.embedded, this.encodingMode, useKerning, useAdvanced, resolver);
                 }
+                if (cachedFont == null && cacheKey != null && realFont instanceof CustomFont) {
+                    cache.put(cacheKey, (CustomFont) realFont);
+                }
                 if (realFont instanceof FontDescriptor) {
                     realFontDescriptor = (FontDescriptor) realFont;
                 }
@@ -315,6 +336,14 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         return realFont.getKerningInfo();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public int getKernValue(int ch1, int ch2) {
+        load(true);
+        return realFont.getKernValue(ch1, ch2);
+    }
+
     // ---- FontDescriptor interface ----
     /**
      * {@inheritDoc}
@@ -53,12 +53,16 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
 
     /**
      * A map from Unicode indices to glyph indices. No assumption
-     * about ordering is made below. If lookup is changed to a binary
-     * search (from the current linear search), then addPrivateUseMapping()
-     * needs to be changed to perform ordered inserts.
+     * about ordering is made. If ranges overlap, the first one wins.
      */
     private BFEntry[] bfentries = null;
 
+    /** Unicode index to glyph index lookup table built from the bfentries */
+    private volatile RangeMap glyphIndexMap = RangeMap.EMPTY;
+
+    /** glyph index to Unicode index lookup table (built on first use) */
+    private volatile RangeMap characterMap;
+
     /* advanced typographic support */
     private GlyphDefinitionTable gdef;
     private GlyphSubstitutionTable gsub;
@@ -81,6 +85,14 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         setFontType(FontType.TYPE0);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void resetUsageState() {
+        super.resetUsageState();
+        subset = new CIDSubset();
+        subset.setupFirstGlyph();
+    }
+
     /** {@inheritDoc} */
     public int getDefaultWidth() {
         return defaultWidth;
@@ -166,35 +178,17 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @param c the Unicode character index
      * @return the glyph index (or 0 if the glyph is not available)
      */
-    // [TBD] - needs optimization, i.e., change from linear search to binary search
     private int findGlyphIndex(int c) {
-        int idx = c;
-        int retIdx = SingleByteEncoding.NOT_FOUND_CODE_POINT;
-
-        for (int i = 0; (i < bfentries.length) && retIdx == 0; i++) {
-            if (bfentries[i].getUnicodeStart() <= idx
-                && bfentries[i].getUnicodeEnd() >= idx) {
-
-                retIdx = bfentries[i].getGlyphStartIndex()
-                    + idx
-                    - bfentries[i].getUnicodeStart();
-            }
-        }
-        return retIdx;
+        return glyphIndexMap.get(c);
     }
 
     /**
-     * Add a private use mapping {PU,GI} to the existing BFENTRIES map.
-     * N.B. Does not insert in order, merely appends to end of existing map.
+     * Add a private use mapping {PU,GI} to the existing lookup tables.
      */
     private synchronized void addPrivateUseMapping ( int pu, int gi ) {
         assert findGlyphIndex ( pu ) == SingleByteEncoding.NOT_FOUND_CODE_POINT;
-        BFEntry[] bfeOld = bfentries;
-        int       bfeCnt = bfeOld.length;
-        BFEntry[] bfeNew = new BFEntry [ bfeCnt + 1 ];
-        System.arraycopy ( bfeOld, 0, bfeNew, 0, bfeCnt );
-        bfeNew [ bfeCnt ] = new BFEntry ( pu, pu, gi );
-        bfentries = bfeNew;
+        glyphIndexMap = glyphIndexMap.with ( pu, gi );
+        characterMap = getCharacterMap().with ( gi, pu );
     }
 
     /**
@@ -209,7 +203,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @param gi glyph index
      * @returns unicode scalar value
      */
-    private int createPrivateUseMapping ( int gi ) {
+    private synchronized int createPrivateUseMapping ( int gi ) {
         while ( ( nextPrivateUse < 0xF900 )
                 && ( findGlyphIndex(nextPrivateUse) != SingleByteEncoding.NOT_FOUND_CODE_POINT ) ) {
             nextPrivateUse++;
@@ -249,18 +243,8 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @param gi glyph index
      * @returns unicode scalar value
      */
-    // [TBD] - needs optimization, i.e., change from linear search to binary search
     private int findCharacterFromGlyphIndex ( int gi, boolean augment ) {
-        int cc = 0;
-        for ( int i = 0, n = bfentries.length; i < n; i++ ) {
-            BFEntry be = bfentries [ i ];
-            int s = be.getGlyphStartIndex();
-            int e = s + ( be.getUnicodeEnd() - be.getUnicodeStart() );
-            if ( ( gi >= s ) && ( gi <= e ) ) {
-                cc = be.getUnicodeStart() + ( gi - s );
-                break;
-            }
-        }
+        int cc = getCharacterMap().get ( gi );
         if ( ( cc == 0 ) && augment ) {
             cc = createPrivateUseMapping ( gi );
         }
@@ -271,6 +255,32 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         return findCharacterFromGlyphIndex ( gi, true );
     }
 
+    private RangeMap getCharacterMap() {
+        RangeMap map = characterMap;
+        if ( map == null ) {
+            synchronized ( this ) {
+                map = characterMap;
+                if ( map == null ) {
+                    BFEntry[] entries = bfentries;
+                    int n = entries.length;
+                    int[] glyphStarts = new int [ n ];
+                    int[] glyphEnds = new int [ n ];
+                    int[] unicodeStarts = new int [ n ];
+                    for ( int i = 0; i < n; i++ ) {
+                        BFEntry be = entries [ i ];
+                        glyphStarts [ i ] = be.getGlyphStartIndex();
+                        glyphEnds [ i ] = be.getGlyphStartIndex()
+                            + ( be.getUnicodeEnd() - be.getUnicodeStart() );
+                        unicodeStarts [ i ] = be.getUnicodeStart();
+                    }
+                    map = RangeMap.create ( glyphStarts, glyphEnds, unicodeStarts );
+                    characterMap = map;
+                }
+            }
+        }
+        return map;
+    }
+
 
     /** {@inheritDoc} */
     public char mapChar(char c) {
@@ -297,7 +307,18 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @param entries the Unicode to glyph index map
      */
     public void setBFEntries(BFEntry[] entries) {
+        int n = entries.length;
+        int[] unicodeStarts = new int[n];
+        int[] unicodeEnds = new int[n];
+        int[] glyphStarts = new int[n];
+        for (int i = 0; i < n; i++) {
+            unicodeStarts[i] = entries[i].getUnicodeStart();
+            unicodeEnds[i] = entries[i].getUnicodeEnd();
+            glyphStarts[i] = entries[i].getGlyphStartIndex();
+        }
         this.bfentries = entries;
+        this.glyphIndexMap = RangeMap.create(unicodeStarts, unicodeEnds, glyphStarts);
+        this.characterMap = null;
     }
 
     /**
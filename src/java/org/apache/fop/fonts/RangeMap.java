@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An immutable map of integer keys to integer values, organized as ranges of consecutive
+ * keys which map to consecutive values (like the ranges of a character map). The ranges
+ * are kept sorted and disjoint in primitive arrays. Lookups use a page index over the Basic
+ * Multilingual Plane which narrows the binary search to the few ranges touching the page of
+ * the key, so the lookup time practically doesn't depend on the number of ranges.
+ * <p>
+ * The value 0 means "not mapped" (like glyph index 0 or character 0).
+ */
+final class RangeMap {
+
+    /** the empty map */
+    static final RangeMap EMPTY = new RangeMap(new int[0], new int[0], new int[0]);
+
+    private static final int PAGE_SHIFT = 8;
+
+    /** the number of pages covering the BMP */
+    private static final int PAGE_COUNT = 0x10000 >> PAGE_SHIFT;
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] values;
+
+    /** for each page: index of the first range ending on or after the start of the page */
+    private final int[] pageIndex;
+
+    private RangeMap(int[] starts, int[] ends, int[] values) {
+        this.starts = starts;
+        this.ends = ends;
+        this.values = values;
+        this.pageIndex = new int[PAGE_COUNT + 1];
+        int r = 0;
+        for (int p = 0; p <= PAGE_COUNT; p++) {
+            int pageStart = p << PAGE_SHIFT;
+            while (r < ends.length && ends[r] < pageStart) {
+                r++;
+            }
+            pageIndex[p] = r;
+        }
+    }
+
+    /**
+     * Creates a map from a list of ranges. If ranges overlap, the one that comes first takes
+     * precedence for the overlapping keys. A key mapped to 0 is left unmapped, so another range
+     * can map it.
+     * @param keyStarts the first key of each range
+     * @param keyEnds the last key (inclusive) of each range
+     * @param valueStarts the value of the first key of each range
+     * @return the map
+     */
+    static RangeMap create(int[] keyStarts, int[] keyEnds, int[] valueStarts) {
+        SortedMap<Integer, int[]> ranges = new TreeMap<Integer, int[]>();
+        for (int i = 0; i < keyStarts.length; i++) {
+            addUncovered(ranges, keyStarts[i], keyEnds[i], valueStarts[i]);
+        }
+        int[] starts = new int[ranges.size()];
+        int[] ends = new int[ranges.size()];
+        int[] values = new int[ranges.size()];
+        int i = 0;
+        for (Iterator<Map.Entry<Integer, int[]>> iter = ranges.entrySet().iterator();
+                iter.hasNext(); i++) {
+            Map.Entry<Integer, int[]> entry = iter.next();
+            starts[i] = entry.getKey().intValue();
+            ends[i] = entry.getValue()[0];
+            values[i] = entry.getValue()[1];
+        }
+        return new RangeMap(starts, ends, values);
+    }
+
+    /** Adds those parts of a range that aren't covered by the existing ranges. */
+    private static void addUncovered(SortedMap<Integer, int[]> ranges,
+            int start, int end, int value) {
+        int first = start;
+        if (value == 0) {
+            //the first key maps to 0, i.e. is not mapped
+            first++;
+        }
+        int s = first;
+        while (s <= end) {
+            SortedMap<Integer, int[]> head = ranges.headMap(Integer.valueOf(s + 1));
+            if (!head.isEmpty()) {
+                int[] previous = ranges.get(head.lastKey());
+                if (previous[0] >= s) {
+                    //already covered
+                    s = previous[0] + 1;
+                    continue;
+                }
+            }
+            int gapEnd = end;
+            SortedMap<Integer, int[]> tail = ranges.tailMap(Integer.valueOf(s + 1));
+            if (!tail.isEmpty()) {
+                gapEnd = Math.min(end, tail.firstKey().intValue() - 1);
+            }
+            ranges.put(Integer.valueOf(s), new int[] {gapEnd, value + (s - start)});
+            s = gapEnd + 1;
+        }
+    }
+
+    /**
+     * Returns the value for a key.
+     * @param key the key
+     * @return the value or 0 if the key is not mapped
+     */
+    int get(int key) {
+        int i = findRange(key);
+        return (i < 0) ? 0 : values[i] + (key - starts[i]);
+    }
+
+    private int findRange(int key) {
+        int n = starts.length;
+        int lo;
+        int hi;
+        if (key < 0) {
+            return -1;
+        } else if (key < 0x10000) {
+            int page = key >> PAGE_SHIFT;
+            lo = pageIndex[page];
+            //the range containing the key can't come after the first range reaching the next page
+            hi = Math.min(pageIndex[page + 1] + 1, n);
+        } else {
+            lo = pageIndex[PAGE_COUNT];
+            hi = n;
+        }
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ends[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        if (lo < n && starts[lo] <= key && ends[lo] >= key) {
+            return lo;
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns a map with an additional single key mapping. Nothing changes if the key is
+     * already mapped or if the value is 0.
+     * @param key the key
+     * @param value the value
+     * @return the new map (or this map if nothing has changed)
+     */
+    RangeMap with(int key, int value) {
+        if (value == 0 || findRange(key) >= 0) {
+            return this;
+        }
+        int lo = 0;
+        int hi = starts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return new RangeMap(insert(starts, lo, key), insert(ends, lo, key),
+                insert(values, lo, value));
+    }
+
+    private static int[] insert(int[] array, int pos, int value) {
+        int[] result = new int[array.length + 1];
+        System.arraycopy(array, 0, result, 0, pos);
+        result[pos] = value;
+        System.arraycopy(array, pos, result, pos + 1, array.length - pos);
+        return result;
+    }
+
+    /**
+     * Returns the number of (disjoint) ranges in this map.
+     * @return the number of ranges
+     */
+    int getRangeCount() {
+        return starts.length;
+    }
+
+}
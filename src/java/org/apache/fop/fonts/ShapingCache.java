@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of shaped words for a font at a given size. Complex script text repeats the
+ * same words over and over again, and each of them is mapped to glyphs, substituted,
+ * positioned and mapped back to characters. The cache holds the most recently used words
+ * with the resulting (substituted and reordered) characters and glyph position adjustments.
+ * The cache is safe for concurrent use.
+ * <p>
+ * Cached results are shared: neither the characters nor the adjustments may be modified.
+ */
+public class ShapingCache {
+
+    private final int maxSize;
+
+    private final Map<Key, Result> words;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of words held
+     */
+    public ShapingCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        this.words = new LinkedHashMap<Key, Result>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<Key, Result> eldest) {
+                if (size() > ShapingCache.this.maxSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the shaping result of a word, if it is cached.
+     * @param word the (unmapped) characters of the word
+     * @param script the script identifier
+     * @param language the language identifier
+     * @return the cached result or null if the word has not been shaped yet
+     */
+    public Result get(String word, String script, String language) {
+        Result result;
+        synchronized (words) {
+            result = words.get(new Key(word, script, language));
+        }
+        if (result != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Adds the shaping result of a word.
+     * @param word the (unmapped) characters of the word
+     * @param script the script identifier
+     * @param language the language identifier
+     * @param chars the substituted and reordered characters
+     * @param adjustments the glyph position adjustments (may be null)
+     * @return the added result
+     */
+    public Result put(String word, String script, String language, CharSequence chars,
+            int[][] adjustments) {
+        Result result = new Result(chars.toString(), adjustments);
+        synchronized (words) {
+            words.put(new Key(word, script, language), result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of words held.
+     * @return the maximum size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of cached words.
+     * @return the number of words
+     */
+    public int size() {
+        synchronized (words) {
+            return words.size();
+        }
+    }
+
+    /**
+     * Returns the number of words found in the cache.
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of words which had to be shaped.
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of words dropped to make room for other words.
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /** The shaping result of a word. */
+    public static final class Result {
+
+        private final String chars;
+        private final int[][] adjustments;
+
+        Result(String chars, int[][] adjustments) {
+            this.chars = chars;
+            this.adjustments = adjustments;
+        }
+
+        /**
+         * Returns the substituted and reordered characters.
+         * @return the characters
+         */
+        public String getChars() {
+            return chars;
+        }
+
+        /**
+         * Returns the glyph position adjustments, which must not be modified.
+         * @return the adjustments or null if there are none
+         */
+        public int[][] getAdjustments() {
+            return adjustments;
+        }
+    }
+
+    private static final class Key {
+
+        private final String word;
+        private final String script;
+        private final String language;
+
+        Key(String word, String script, String language) {
+            this.word = word;
+            this.script = script;
+            this.language = language;
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            return (word.hashCode() * 31 + script.hashCode()) * 31 + language.hashCode();
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return word.equals(other.word)
+                    && script.equals(other.script)
+                    && language.equals(other.language);
+        }
+    }
+}
@@ -56,6 +56,14 @@ public class SingleByteFont extends CustomFont {
         setEncoding(CodePointMapping.WIN_ANSI_ENCODING);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void resetUsageState() {
+        super.resetUsageState();
+        additionalEncodings = null;
+        alternativeCodes = null;
+    }
+
     /** {@inheritDoc} */
     public boolean isEmbeddable() {
         return (!(getEmbedFileName() == null
@@ -112,7 +120,7 @@ public class SingleByteFont extends CustomFont {
      * @param c the character
      * @return the suggested alternative character present in the font
      */
-    private char findAlternative(char c) {
+    private synchronized char findAlternative(char c) {
         char d;
         if (alternativeCodes == null) {
             alternativeCodes = new java.util.HashMap<Character, Character>();
@@ -174,7 +182,7 @@ public class SingleByteFont extends CustomFont {
         return Typeface.NOT_FOUND;
     }
 
-    private char mapUnencodedChar(char ch) {
+    private synchronized char mapUnencodedChar(char ch) {
         if (this.unencodedCharacters != null) {
             UnencodedCharacter unencoded = this.unencodedCharacters.get(Character.valueOf(ch));
             if (unencoded != null) {
@@ -20,6 +20,7 @@
 package org.apache.fop.fonts;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -97,11 +98,39 @@ public abstract class Typeface implements FontMetrics {
         return false;
     }
 
+    /**
+     * {@inheritDoc}
+     * This implementation looks up the pair in the map returned by
+     * {@link #getKerningInfo()}. Subclasses with their own kerning storage should override it.
+     */
+    public int getKernValue(int ch1, int ch2) {
+        if (hasKerningInfo()) {
+            Map<Integer, Integer> pairs = getKerningInfo().get(Integer.valueOf(ch1));
+            if (pairs != null) {
+                Integer value = pairs.get(Integer.valueOf(ch2));
+                if (value != null) {
+                    return value.intValue();
+                }
+            }
+        }
+        return 0;
+    }
+
     /** {@inheritDoc} */
     public int getMaxAscent(int size) {
         return getAscender(size);
     }
 
+    /**
+     * Resets the state collected while the font is used in a document (mapping operations,
+     * warnings, the event listener). Used when copies of a font are made for other documents.
+     */
+    protected void resetUsageState() {
+        this.charMapOps = 0;
+        this.warnedChars = null;
+        this.eventListener = null;
+    }
+
     /**
      * Sets the font event listener that can be used to receive events about particular events
      * in this class.
@@ -117,7 +146,7 @@ public abstract class Typeface implements FontMetrics {
      * @param c
      *            the character which is missing.
      */
-    protected void warnMissingGlyph(char c) {
+    protected synchronized void warnMissingGlyph(char c) {
         // Give up, character is not available
         Character ch = new Character(c);
         if (warnedChars == null) {
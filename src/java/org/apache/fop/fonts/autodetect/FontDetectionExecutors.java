@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts.autodetect;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the thread pools used to scan font directories and to read font files during
+ * font auto-detection.
+ */
+public final class FontDetectionExecutors {
+
+    private FontDetectionExecutors() {
+    }
+
+    /**
+     * Returns the number of threads used for font detection.
+     * @return the number of threads (the number of available processors)
+     */
+    public static int getThreadCount() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Creates a new thread pool with daemon threads. The caller has to shut it down.
+     * @param name the name of the threads
+     * @return the thread pool
+     */
+    public static ExecutorService newExecutor(final String name) {
+        return Executors.newFixedThreadPool(getThreadCount(), new ThreadFactory() {
+            private int count = 0;
+
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + " " + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
@@ -21,10 +21,22 @@ package org.apache.fop.fonts.autodetect;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.io.DirectoryWalker;
 import org.apache.commons.io.IOCase;
@@ -34,10 +46,21 @@ import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.fonts.FontCache;
 import org.apache.fop.fonts.FontEventListener;
 
 /**
  * Helps to autodetect/locate available operating system fonts.
+ * <p>
+ * The directories are scanned on a pool of threads. If a {@link FontCache} is available,
+ * the contents of the scanned directories are recorded in the cache, and directories which
+ * haven't been modified since are not listed again. The font files are returned in
+ * depth-first order, with the files and subdirectories of each directory sorted by name.
+ * Once the scan is complete, the {@link #handleDirectory(File, int, Collection)},
+ * {@link #handleFile(File, int, Collection)} and
+ * {@link #handleDirectoryEnd(File, int, Collection)} hooks are called in that order on the
+ * calling thread, as {@link DirectoryWalker} would, so subclasses may still skip
+ * directories or change the results.
  */
 public class FontFileFinder extends DirectoryWalker implements FontFinder {
 
@@ -48,6 +71,14 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
     public static final int DEFAULT_DEPTH_LIMIT = -1;
     private final FontEventListener eventListener;
 
+    private final int depthLimit;
+
+    private final FontCache fontCache;
+
+    private final IOFileFilter directoryFilter = getDirectoryFilter();
+
+    private final IOFileFilter fileFilter = getFileFilter();
+
     /**
      * Default constructor
      * @param listener for throwing font related events
@@ -62,8 +93,20 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
      * @param listener for throwing font related events
      */
     public FontFileFinder(int depthLimit, FontEventListener listener) {
+        this(depthLimit, listener, null);
+    }
+
+    /**
+     * Constructor
+     * @param depthLimit recursion depth limit
+     * @param listener for throwing font related events
+     * @param fontCache the font cache used to skip unmodified directories (may be null)
+     */
+    public FontFileFinder(int depthLimit, FontEventListener listener, FontCache fontCache) {
         super(getDirectoryFilter(), getFileFilter(), depthLimit);
-        eventListener = listener;
+        this.eventListener = listener;
+        this.depthLimit = depthLimit;
+        this.fontCache = fontCache;
     }
 
     /**
@@ -152,11 +195,7 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
             }
         }
         List<File> fontDirs = fontDirFinder.find();
-        List<URL> results = new java.util.ArrayList<URL>();
-        for (File dir : fontDirs) {
-            super.walk(dir, results);
-        }
-        return results;
+        return scan(fontDirs);
     }
 
     /**
@@ -167,14 +206,144 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
      * @throws IOException thrown if an I/O exception of some sort has occurred
      */
     public List<URL> find(String dir) throws IOException {
-        List<URL> results = new java.util.ArrayList<URL>();
-        super.walk(new File(dir), results);
         File directory = new File(dir);
         if (!directory.isDirectory()) {
             eventListener.fontDirectoryNotFound(this, dir);
+            return new java.util.ArrayList<URL>();
         } else {
-            super.walk(directory, results);
+            return scan(Arrays.asList(new File[] {directory}));
+        }
+    }
+
+    private boolean isWithinDepthLimit(int depth) {
+        return depthLimit < 0 || depth <= depthLimit;
+    }
+
+    /** Scans directories (and their subdirectories) concurrently. */
+    private List<URL> scan(List<File> directories) throws IOException {
+        Map<String, DirectoryContents> scanned = new HashMap<String, DirectoryContents>();
+        ExecutorService executor = FontDetectionExecutors.newExecutor("FOP font directory scan");
+        try {
+            CompletionService<DirectoryContents> completionService
+                    = new ExecutorCompletionService<DirectoryContents>(executor);
+            int pending = 0;
+            for (File dir : directories) {
+                if (isWithinDepthLimit(1)) {
+                    completionService.submit(new DirectoryScan(dir, 0));
+                    pending++;
+                }
+            }
+            while (pending > 0) {
+                DirectoryContents contents = completionService.take().get();
+                pending--;
+                scanned.put(contents.directory.getAbsolutePath(), contents);
+                //the files of a subdirectory are at depth + 2
+                if (isWithinDepthLimit(contents.depth + 2)) {
+                    for (int i = 0; i < contents.subdirectories.length; i++) {
+                        completionService.submit(new DirectoryScan(
+                                new File(contents.subdirectories[i]), contents.depth + 1));
+                        pending++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Font directory scan interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        List<URL> results = new java.util.ArrayList<URL>();
+        for (File dir : directories) {
+            collect(dir.getAbsolutePath(), 0, scanned, results);
         }
         return results;
     }
+
+    /** Walks the scanned directories depth-first, calling the walker's hooks. */
+    private void collect(String path, int depth, Map<String, DirectoryContents> scanned,
+            List<URL> results) {
+        DirectoryContents contents = scanned.get(path);
+        if (contents == null || !handleDirectory(contents.directory, depth, results)) {
+            return;
+        }
+        for (int i = 0; i < contents.fontURLs.length; i++) {
+            try {
+                handleFile(new File(new URI(contents.fontURLs[i])), depth + 1, results);
+            } catch (URISyntaxException e) {
+                log.debug("URISyntaxException" + e.getMessage());
+            }
+        }
+        for (int i = 0; i < contents.subdirectories.length; i++) {
+            collect(contents.subdirectories[i], depth + 1, scanned, results);
+        }
+        handleDirectoryEnd(contents.directory, depth, results);
+    }
+
+    /** Lists the font files and subdirectories of a directory. */
+    private class DirectoryScan implements Callable<DirectoryContents> {
+
+        private final File directory;
+        private final int depth;
+
+        DirectoryScan(File directory, int depth) {
+            this.directory = directory;
+            this.depth = depth;
+        }
+
+        public DirectoryContents call() throws IOException {
+            if (fontCache != null) {
+                FontCache.CachedDirectory cached = fontCache.getDirectory(directory);
+                if (cached != null) {
+                    return new DirectoryContents(directory, depth,
+                            cached.getFontURLs(), cached.getSubdirectories());
+                }
+            }
+            long lastModified = directory.lastModified();
+            File[] children = directory.listFiles();
+            if (children == null) {
+                children = new File[0];
+            }
+            Arrays.sort(children);
+            List<String> fontURLs = new ArrayList<String>();
+            List<String> subdirectories = new ArrayList<String>();
+            for (int i = 0; i < children.length; i++) {
+                File child = children[i];
+                if (directoryFilter.accept(child)) {
+                    subdirectories.add(child.getAbsolutePath());
+                } else if (fileFilter.accept(child)) {
+                    // Looks Strange, but is actually recommended over just .URL()
+                    fontURLs.add(child.toURI().toURL().toExternalForm());
+                }
+            }
+            DirectoryContents contents = new DirectoryContents(directory, depth,
+                    fontURLs.toArray(new String[fontURLs.size()]),
+                    subdirectories.toArray(new String[subdirectories.size()]));
+            if (fontCache != null) {
+                fontCache.addDirectory(directory, lastModified,
+                        contents.fontURLs, contents.subdirectories);
+            }
+            return contents;
+        }
+    }
+
+    private static final class DirectoryContents {
+
+        private final File directory;
+        private final int depth;
+        private final String[] fontURLs;
+        private final String[] subdirectories;
+
+        DirectoryContents(File directory, int depth, String[] fontURLs,
+                String[] subdirectories) {
+            this.directory = directory;
+            this.depth = depth;
+            this.fontURLs = fontURLs;
+            this.subdirectories = subdirectories;
+        }
+    }
 }
@@ -19,14 +19,12 @@
 
 package org.apache.fop.fonts.autodetect;
 
-import java.io.InputStream;
 import java.net.URL;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.fop.fonts.CustomFont;
@@ -197,19 +195,15 @@ public class FontInfoFinder {
             // Get a list of the TTC Font names
             List<String> ttcNames = null;
             String fontFileURL = fontURL.toExternalForm().trim();
-            InputStream in = null;
             try {
-                in = FontLoader.openFontUri(resolver, fontFileURL);
                 TTFFile ttf = new TTFFile(false, false);
-                FontFileReader reader = new FontFileReader(in);
+                FontFileReader reader = FontLoader.openFontFileReader(resolver, fontFileURL);
                 ttcNames = ttf.getTTCnames(reader);
             } catch (Exception e) {
                 if (this.eventListener != null) {
                     this.eventListener.fontLoadingErrorAtAutoDetection(this, fontFileURL, e);
                 }
                 return null;
-            } finally {
-                IOUtils.closeQuietly(in);
             }
 
             List<EmbedFontInfo> embedFontInfoList = new java.util.ArrayList<EmbedFontInfo>();
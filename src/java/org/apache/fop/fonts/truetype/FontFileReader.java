@@ -20,20 +20,37 @@
 package org.apache.fop.fonts.truetype;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.apache.commons.io.IOUtils;
 
 /**
- * Reads a TrueType font file into a byte array and
- * provides file like functions for array access.
+ * Provides file like functions for access to a TrueType font file. The font data is either
+ * read into a byte array or, for local files, mapped into memory (read-only), so the font
+ * data doesn't have to be copied onto the heap and the operating system's page cache is
+ * shared by everyone reading the same font file.
+ * <p>
+ * Writing to a mapped font file doesn't change the file: the written bytes are kept in
+ * a small overlay which is applied when reading.
  */
 public class FontFileReader {
 
     private int fsize;      // file size
     private int current;    // current position in file
-    private byte[] file;
+    private ByteBuffer file;
+
+    /** bytes written to a read-only (mapped) file: position -> value, null if none */
+    private SortedMap<Integer, Byte> patches;
 
     /**
      * Initializes class and reads stream. Init does not close stream.
@@ -42,8 +59,12 @@ public class FontFileReader {
      * @throws IOException In case of an I/O problem
      */
     private void init(InputStream in) throws java.io.IOException {
-        this.file = IOUtils.toByteArray(in);
-        this.fsize = this.file.length;
+        init(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+    }
+
+    private void init(ByteBuffer buffer) {
+        this.file = buffer;
+        this.fsize = buffer.limit();
         this.current = 0;
     }
 
@@ -54,16 +75,41 @@ public class FontFileReader {
      * @throws IOException In case of an I/O problem
      */
     public FontFileReader(String fileName) throws IOException {
-        final File f = new File(fileName);
-        InputStream in = new java.io.FileInputStream(f);
+        this(new File(fileName));
+    }
+
+    /**
+     * Constructor. The file is mapped into memory read-only. If the file cannot be mapped,
+     * it is read into memory instead.
+     *
+     * @param f the font file
+     * @throws IOException In case of an I/O problem
+     */
+    public FontFileReader(File f) throws IOException {
+        FileInputStream in = new FileInputStream(f);
         try {
-            init(in);
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Font file too large: " + f);
+            }
+            ByteBuffer buffer;
+            try {
+                //The mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } catch (IOException ioe) {
+                buffer = null;
+            }
+            if (buffer != null) {
+                init(buffer);
+            } else {
+                init(in);
+            }
         } finally {
             in.close();
         }
     }
 
-
     /**
      * Constructor
      *
@@ -74,6 +120,40 @@ public class FontFileReader {
         init(in);
     }
 
+    private FontFileReader(ByteBuffer buffer) {
+        init(buffer);
+    }
+
+    /**
+     * Returns the local file a system ID refers to, so the file can be mapped into memory
+     * instead of being read through a stream.
+     *
+     * @param systemId the system ID (URI) of a font file (may be null)
+     * @return the file or null if the system ID doesn't refer to an existing local file
+     */
+    public static File getLocalFile(String systemId) {
+        if (systemId == null || !systemId.startsWith("file:")) {
+            return null;
+        }
+        try {
+            File f = new File(new URI(systemId));
+            return f.isFile() ? f : null;
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            //not a hierarchical URI (ex. "file:fonts/font.ttf") or one with an authority
+            return null;
+        }
+    }
+
+    /**
+     * Indicates whether the font data is mapped into memory rather than held on the heap.
+     *
+     * @return true if the font file is memory-mapped
+     */
+    public boolean isMapped() {
+        return file.isDirect();
+    }
 
     /**
      * Set current file position to offset
@@ -138,7 +218,7 @@ public class FontFileReader {
             throw new java.io.EOFException("Reached EOF, file size=" + fsize);
         }
 
-        final byte ret = file[current++];
+        final byte ret = get(current++);
         return ret;
     }
 
@@ -205,8 +285,49 @@ public class FontFileReader {
         final byte b1 = (byte)((val >> 8) & 0xff);
         final byte b2 = (byte)(val & 0xff);
         final int fileIndex = (int) pos;
-        file[fileIndex] = b1;
-        file[fileIndex + 1] = b2;
+        put(fileIndex, b1);
+        put(fileIndex + 1, b2);
+    }
+
+    private byte get(int pos) {
+        if (patches != null) {
+            Byte patch = patches.get(Integer.valueOf(pos));
+            if (patch != null) {
+                return patch.byteValue();
+            }
+        }
+        return file.get(pos);
+    }
+
+    private void put(int pos, byte b) {
+        if (file.isReadOnly()) {
+            if (patches == null) {
+                patches = new TreeMap<Integer, Byte>();
+            }
+            patches.put(Integer.valueOf(pos), Byte.valueOf(b));
+        } else {
+            file.put(pos, b);
+        }
+    }
+
+    /** Copies bytes of the file (including any written bytes) to an array. */
+    private void copy(int offset, byte[] dest, int length) {
+        if (file.hasArray()) {
+            System.arraycopy(file.array(), file.arrayOffset() + offset, dest, 0, length);
+        } else {
+            ByteBuffer view = file.duplicate();
+            view.position(offset);
+            view.get(dest, 0, length);
+        }
+        if (patches != null) {
+            Iterator<Map.Entry<Integer, Byte>> iter = patches.subMap(
+                    Integer.valueOf(offset), Integer.valueOf(offset + length))
+                    .entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<Integer, Byte> patch = iter.next();
+                dest[patch.getKey().intValue() - offset] = patch.getValue().byteValue();
+            }
+        }
     }
 
     /**
@@ -277,7 +398,7 @@ public class FontFileReader {
      */
     public final String readTTFString() throws IOException {
         int i = current;
-        while (file[i++] != 0) {
+        while (get(i++) != 0) {
             if (i > fsize) {
                 throw new java.io.EOFException("Reached EOF, file size="
                                                + fsize);
@@ -285,7 +406,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[i - current];
-        System.arraycopy(file, current, tmp, 0, i - current);
+        copy(current, tmp, i - current);
         return new String(tmp, "ISO-8859-1");
     }
 
@@ -303,7 +424,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        copy(current, tmp, len);
         current += len;
         final String encoding;
         if ((tmp.length > 0) && (tmp[0] == 0)) {
@@ -328,7 +449,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        copy(current, tmp, len);
         current += len;
         final String encoding;
         encoding = "UTF-16BE"; //Use this for all known encoding IDs for now
@@ -350,9 +471,35 @@ public class FontFileReader {
         }
 
         byte[] ret = new byte[length];
-        System.arraycopy(file, offset, ret, 0, length);
+        copy(offset, ret, length);
         return ret;
     }
 
+    /**
+     * Returns a reader for a part of the file, for instance a table which is only read on
+     * demand. The part is copied unless the file is mapped into memory, in which case it
+     * stays shared with the operating system's page cache.
+     *
+     * @param offset The absolute offset of the part
+     * @param length The length of the part
+     * @return A reader for the part, whose offsets are relative to the start of the part
+     * @throws IOException if out of bounds
+     */
+    public FontFileReader getPartReader(int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || (offset + length) > fsize) {
+            throw new java.io.IOException("Reached EOF");
+        }
+        ByteBuffer part;
+        if (isMapped() && patches == null) {
+            ByteBuffer view = file.duplicate();
+            view.position(offset);
+            view.limit(offset + length);
+            part = view.slice();
+        } else {
+            part = ByteBuffer.wrap(getBytes(offset, length));
+        }
+        return new FontFileReader(part);
+    }
+
 
 }
\ No newline at end of file
@@ -253,6 +253,17 @@ public class TTFFile {
      * @return pdf unit
      */
     public int convertTTFUnit2PDFUnit(int n) {
+        return convertTTFUnit2PDFUnit(n, upem);
+    }
+
+    /**
+     * Convert from truetype unit to pdf unit based on the given
+     * unitsPerEm value
+     * @param n truetype unit
+     * @param upem units per em
+     * @return pdf unit
+     */
+    public static int convertTTFUnit2PDFUnit(int n, int upem) {
         int ret;
         if (n < 0) {
             long rest1 = n % upem;
@@ -724,6 +735,14 @@ public class TTFFile {
         return encoding;
     }
 
+    /**
+     * Returns the number of units per em, from the "head" table.
+     * @return int The units per em
+     */
+    public int getUnitsPerEm() {
+        return upem;
+    }
+
     /**
      * Returns the CapHeight attribute of the font.
      * @return int The CapHeight
@@ -20,13 +20,9 @@
 package org.apache.fop.fonts.truetype;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.fop.fonts.BFEntry;
 import org.apache.fop.fonts.CIDFontType;
 import org.apache.fop.fonts.EncodingMode;
@@ -92,19 +88,14 @@ public class TTFFontLoader extends FontLoader {
      * @throws IOException if an I/O error occurs
      */
     private void read(String ttcFontName) throws IOException {
-        InputStream in = openFontUri(resolver, this.fontFileURI);
-        try {
-            TTFFile ttf = new TTFFile(useKerning, useAdvanced);
-            FontFileReader reader = new FontFileReader(in);
-            boolean supported = ttf.readFont(reader, ttcFontName);
-            if (!supported) {
-                throw new IOException("TrueType font is not supported: " + fontFileURI);
-            }
-            buildFont(ttf, ttcFontName);
-            loaded = true;
-        } finally {
-            IOUtils.closeQuietly(in);
+        FontFileReader reader = openFontFileReader(resolver, this.fontFileURI);
+        TTFFile ttf = new TTFFile(useKerning, useAdvanced);
+        boolean supported = ttf.readFont(reader, ttcFontName);
+        if (!supported) {
+            throw new IOException("TrueType font is not supported: " + fontFileURI);
         }
+        buildFont(ttf, ttcFontName);
+        loaded = true;
     }
 
 
@@ -213,24 +204,10 @@ public class TTFFontLoader extends FontLoader {
      * Copy kerning information.
      */
     private void copyKerning(TTFFile ttf, boolean isCid) {
-
-        // Get kerning
-        Set<Integer> kerningSet;
         if (isCid) {
-            kerningSet = ttf.getKerning().keySet();
+            returnFont.replaceKerningMap(ttf.getKerning());
         } else {
-            kerningSet = ttf.getAnsiKerning().keySet();
-        }
-
-        for (Integer kpx1 : kerningSet) {
-
-            Map<Integer, Integer> h2;
-            if (isCid) {
-                h2 = ttf.getKerning().get(kpx1);
-            } else {
-                h2 = ttf.getAnsiKerning().get(kpx1);
-            }
-            returnFont.putKerningEntry(kpx1, h2);
+            returnFont.replaceKerningMap(ttf.getAnsiKerning());
         }
     }
 
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Converts hyphenation patterns to the compact binary format read by
+ * {@link MappedHyphenationTree}.
+ * For all serialized pattern files (.hyp) and all xml files without a corresponding
+ * serialized pattern file in the source directory a compact pattern file (.hyb) is built
+ * in the target directory.
+ * This class may be called from the ant build file in a java task
+ */
+public class CompactHyphPattern {
+
+    private static final String SERIALIZED_EXTENSION = ".hyp";
+
+    private static final String XML_EXTENSION = ".xml";
+
+    /**
+     * Converts all pattern files in sourceDir, and writes compact pattern files in targetDir
+     * @param sourceDir Directory with serialized pattern files and/or pattern xml files
+     * @param targetDir Directory to which the compact pattern files should be written
+     */
+    public void compactDir(File sourceDir, File targetDir) {
+        String[] sourceFiles = sourceDir.list(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SERIALIZED_EXTENSION) || name.endsWith(XML_EXTENSION);
+            }
+        });
+        if (sourceFiles == null) {
+            System.err.println("Not a directory: " + sourceDir);
+            return;
+        }
+        for (int j = 0; j < sourceFiles.length; j++) {
+            String name = sourceFiles[j];
+            boolean serialized = name.endsWith(SERIALIZED_EXTENSION);
+            String baseName = name.substring(0, name.lastIndexOf('.'));
+            if (!serialized && new File(sourceDir, baseName + SERIALIZED_EXTENSION).exists()) {
+                continue;
+            }
+            File infile = new File(sourceDir, name);
+            File outfile = new File(targetDir, baseName + MappedHyphenationTree.EXTENSION);
+            if (!outfile.exists() || outfile.lastModified() < infile.lastModified()) {
+                compactFile(infile, serialized, outfile);
+            }
+        }
+    }
+
+    private void compactFile(File infile, boolean serialized, File outfile) {
+        System.out.println("Processing " + infile);
+        HyphenationTree hTree;
+        try {
+            hTree = serialized ? readSerialized(infile) : readXML(infile);
+        } catch (Exception e) {
+            System.err.println("Can't load hyphenation patterns from " + infile + ": " + e);
+            return;
+        }
+        try {
+            OutputStream out = new java.io.BufferedOutputStream(
+                    new java.io.FileOutputStream(outfile));
+            try {
+                MappedHyphenationTree.write(hTree, out);
+            } finally {
+                IOUtils.closeQuietly(out);
+            }
+        } catch (IOException ioe) {
+            System.err.println("Can't write compact pattern file: " + outfile);
+            System.err.println(ioe);
+            outfile.delete();
+        }
+    }
+
+    private HyphenationTree readSerialized(File infile)
+            throws IOException, ClassNotFoundException {
+        InputStream in = new BufferedInputStream(new FileInputStream(infile));
+        try {
+            return (HyphenationTree) new ObjectInputStream(in).readObject();
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private HyphenationTree readXML(File infile) throws HyphenationException {
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(infile.toString());
+        return hTree;
+    }
+
+    /**
+     * Entry point for ant java task
+     * @param args sourceDir, targetDir
+     */
+    public static void main(String[] args) {
+        CompactHyphPattern compactor = new CompactHyphPattern();
+        compactor.compactDir(new File(args[0]), new File(args[1]));
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of hyphenated words. Documents usually use the same words over and over
+ * again, and looking up a word in the cache is much cheaper than matching it against the
+ * hyphenation patterns. There is one cache per hyphenation tree (i.e. per language), which
+ * holds the most recently used words of that language (including the words without
+ * hyphenation points). The cache is safe for concurrent use.
+ */
+public class HyphenationCache {
+
+    /** Marks words without hyphenation points. */
+    private static final Object NO_HYPHENATION = new Object();
+
+    private final int maxSize;
+
+    private final ConcurrentMap<HyphenationTree, Map<Key, Object>> languages
+            = new ConcurrentHashMap<HyphenationTree, Map<Key, Object>>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of words held per language
+     */
+    public HyphenationCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Hyphenates a word, using the cached result if the word has been hyphenated before.
+     * @param hTree the hyphenation tree
+     * @param word the word to be hyphenated
+     * @param remainCharCount Minimum number of characters allowed
+     * before the hyphenation point.
+     * @param pushCharCount Minimum number of characters allowed after
+     * the hyphenation point.
+     * @return a {@link Hyphenation Hyphenation} object representing
+     * the hyphenated word or null if word is not hyphenated.
+     */
+    public Hyphenation hyphenate(HyphenationTree hTree, String word,
+            int remainCharCount, int pushCharCount) {
+        Map<Key, Object> words = getWords(hTree);
+        Key key = new Key(word, remainCharCount, pushCharCount);
+        Object result;
+        synchronized (words) {
+            result = words.get(key);
+        }
+        if (result != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+            Hyphenation hyphenation = hTree.hyphenate(word, remainCharCount, pushCharCount);
+            result = (hyphenation != null) ? hyphenation : NO_HYPHENATION;
+            synchronized (words) {
+                words.put(key, result);
+            }
+        }
+        return (result != NO_HYPHENATION) ? (Hyphenation) result : null;
+    }
+
+    private Map<Key, Object> getWords(HyphenationTree hTree) {
+        Map<Key, Object> words = languages.get(hTree);
+        if (words == null) {
+            words = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                    return size() > maxSize;
+                }
+            };
+            Map<Key, Object> existing = languages.putIfAbsent(hTree, words);
+            if (existing != null) {
+                words = existing;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the maximum number of words held per language.
+     * @return the maximum size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of cached words (of all languages).
+     * @return the number of words
+     */
+    public int size() {
+        int size = 0;
+        for (Map<Key, Object> words : languages.values()) {
+            synchronized (words) {
+                size += words.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of words found in the cache.
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of words which had to be hyphenated.
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the ratio of the words found in the cache to all words looked up.
+     * @return the hit rate (between 0 and 1)
+     */
+    public double getHitRate() {
+        long hits = getHitCount();
+        long lookups = hits + getMissCount();
+        return (lookups > 0) ? (double) hits / lookups : 0;
+    }
+
+    private static final class Key {
+
+        private final String word;
+        private final int remainCharCount;
+        private final int pushCharCount;
+
+        Key(String word, int remainCharCount, int pushCharCount) {
+            this.word = word;
+            this.remainCharCount = remainCharCount;
+            this.pushCharCount = pushCharCount;
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            return (word.hashCode() * 31 + remainCharCount) * 31 + pushCharCount;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return remainCharCount == other.remainCharCount
+                    && pushCharCount == other.pushCharCount
+                    && word.equals(other.word);
+        }
+    }
+}
@@ -24,6 +24,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.Map;
 
 import javax.xml.transform.Source;
@@ -45,7 +48,7 @@ public final class Hyphenator {
     /** logging instance */
     protected static final Log log = LogFactory.getLog(Hyphenator.class);
 
-    private static HyphenationTreeCache hTreeCache = null;
+    private static final HyphenationTreeCache TREE_CACHE = new HyphenationTreeCache();
 
     /** Enables a dump of statistics. Note: If activated content is sent to System.out! */
     private static boolean statisticsDump = false;
@@ -56,11 +59,8 @@ public final class Hyphenator {
     private Hyphenator() { }
 
     /** @return the default (static) hyphenation tree cache */
-    public static synchronized HyphenationTreeCache getHyphenationTreeCache() {
-        if (hTreeCache == null) {
-            hTreeCache = new HyphenationTreeCache();
-        }
-        return hTreeCache;
+    public static HyphenationTreeCache getHyphenationTreeCache() {
+        return TREE_CACHE;
     }
 
     /**
@@ -186,6 +186,66 @@ public final class Hyphenator {
         return is;
     }
 
+    private static URL getResource(String name) {
+        URL url = null;
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        if (contextClassLoader != null) {
+            url = contextClassLoader.getResource("hyph/" + name);
+        }
+        if (url == null) {
+            url = Hyphenator.class.getResource("/hyph/" + name);
+        }
+        return url;
+    }
+
+    private static File getLocalFile(String systemId) {
+        if (systemId == null || !systemId.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return new File(new URI(systemId));
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Loads a hyphenation tree in the compact binary format. Local files are memory-mapped.
+     * @param source the source of the compact pattern file
+     * @return the hyphenation tree or null if the file doesn't exist or can't be read
+     */
+    private static HyphenationTree readCompactHyphenationTree(Source source) {
+        try {
+            InputStream in = null;
+            if (source instanceof StreamSource) {
+                in = ((StreamSource) source).getInputStream();
+            }
+            if (in == null) {
+                File file = getLocalFile(source.getSystemId());
+                if (file != null) {
+                    return file.isFile() ? MappedHyphenationTree.map(file) : null;
+                } else if (source.getSystemId() != null) {
+                    in = new URL(source.getSystemId()).openStream();
+                } else {
+                    return null;
+                }
+            }
+            try {
+                return MappedHyphenationTree.read(in);
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+        } catch (java.io.FileNotFoundException fnfe) {
+            return null;
+        } catch (IOException ioe) {
+            log.warn("Can't load compact hyphenation pattern file " + source.getSystemId()
+                    + ": " + ioe.getMessage());
+            return null;
+        }
+    }
+
     private static HyphenationTree readHyphenationTree(InputStream in) {
         HyphenationTree hTree = null;
         try {
@@ -207,6 +267,14 @@ public final class Hyphenator {
      */
     public static HyphenationTree getFopHyphenationTree(String key) {
         HyphenationTree hTree = null;
+        // prefer the compact format
+        URL url = getResource(key + MappedHyphenationTree.EXTENSION);
+        if (url != null) {
+            hTree = readCompactHyphenationTree(new StreamSource(url.toExternalForm()));
+            if (hTree != null) {
+                return hTree;
+            }
+        }
         ObjectInputStream ois = null;
         InputStream is = null;
         try {
@@ -256,12 +324,23 @@ public final class Hyphenator {
         HyphenationTree hTree = null;
         // I use here the following convention. The file name specified in
         // the configuration is taken as the base name. First we try
-        // name + ".hyp" assuming a serialized HyphenationTree. If that fails
+        // name + ".hyb" assuming a compact (memory-mappable) pattern file,
+        // then name + ".hyp" assuming a serialized HyphenationTree. If that fails
         // we try name + ".xml", assumming a raw hyphenation pattern file.
 
-        // first try serialized object
-        String name = key + ".hyp";
+        // first try the compact format
+        String name = key + MappedHyphenationTree.EXTENSION;
         Source source = resolver.resolve(name);
+        if (source != null) {
+            hTree = readCompactHyphenationTree(source);
+            if (hTree != null) {
+                return hTree;
+            }
+        }
+
+        // then try serialized object
+        name = key + ".hyp";
+        source = resolver.resolve(name);
         if (source != null) {
             try {
                 InputStream in = null;
@@ -359,10 +438,34 @@ public final class Hyphenator {
                                         Map hyphPatNames,
                                         String word,
                                         int leftMin, int rightMin) {
+        return hyphenate(lang, country, resolver, hyphPatNames, word, leftMin, rightMin, null);
+    }
+
+    /**
+     * Hyphenates a word, using a cache of hyphenated words.
+     * @param lang the language
+     * @param country the optional country code (may be null or "none")
+     * @param resolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @param word the word to hyphenate
+     * @param leftMin the minimum number of characters before the hyphenation point
+     * @param rightMin the minimum number of characters after the hyphenation point
+     * @param cache the cache of hyphenated words (may be null)
+     * @return the hyphenation result
+     */
+    public static Hyphenation hyphenate(String lang, String country,
+                                        HyphenationTreeResolver resolver,
+                                        Map hyphPatNames,
+                                        String word,
+                                        int leftMin, int rightMin,
+                                        HyphenationCache cache) {
         HyphenationTree hTree = getHyphenationTree(lang, country, resolver, hyphPatNames);
         if (hTree == null) {
             return null;
         }
+        if (cache != null) {
+            return cache.hyphenate(hTree, word, leftMin, rightMin);
+        }
         return hTree.hyphenate(word, leftMin, rightMin);
     }
 
@@ -0,0 +1,491 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.xml.sax.InputSource;
+
+/**
+ * A read-only hyphenation tree that is queried in place in the compact binary
+ * hyphenation pattern format (".hyb" files). The node arrays (lo/hi/eq/sc) and the
+ * key storage of the pattern tree make up nearly all of the data of a hyphenation tree.
+ * They are not copied to the heap but read directly from the (usually memory-mapped)
+ * buffer, so loading a tree is cheap and the pattern data is shared by all JVMs using
+ * the same file. The (small) character classes, interletter values and exceptions are
+ * copied to the heap.
+ * <p>
+ * The format is position-independent (all pointers are node or array indices) and uses
+ * big-endian byte order:
+ * <pre>
+ * int      magic ("FHYB"), int format version
+ * tree     the pattern tree
+ * tree     the character class tree
+ * int      length of the value space, byte[] value space
+ * int      number of exceptions, followed by the exceptions
+ * </pre>
+ * where a tree is written as: int number of keys, char root, int number of nodes,
+ * char[] lo, char[] hi, char[] eq, char[] sc, int length of the key storage,
+ * char[] key storage.
+ */
+public class MappedHyphenationTree extends HyphenationTree {
+
+    private static final long serialVersionUID = -1318473284796283547L;
+
+    /** The file name extension of compact hyphenation pattern files. */
+    public static final String EXTENSION = ".hyb";
+
+    private static final int MAGIC = 0x46485942;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte EXCEPTION_STRING = 0;
+
+    private static final byte EXCEPTION_HYPHEN = 1;
+
+    private final transient CharBuffer nodeLo;
+    private final transient CharBuffer nodeHi;
+    private final transient CharBuffer nodeEq;
+    private final transient CharBuffer nodeSc;
+    private final transient CharBuffer keys;
+    private final int nodeCount;
+
+    /**
+     * Creates a hyphenation tree from data in the compact binary format. The buffer
+     * must not be modified afterwards.
+     * @param data the data
+     * @throws IOException if the data is not a valid compact hyphenation tree
+     */
+    public MappedHyphenationTree(ByteBuffer data) throws IOException {
+        ByteBuffer buf = data.duplicate();
+        try {
+            if (buf.remaining() < 8 || buf.getInt() != MAGIC) {
+                throw new IOException("Not a compact hyphenation pattern file");
+            }
+            int version = buf.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported compact hyphenation pattern format version "
+                        + version);
+            }
+            length = buf.getInt();
+            root = buf.getChar();
+            nodeCount = buf.getInt();
+            nodeLo = slice(buf, nodeCount);
+            nodeHi = slice(buf, nodeCount);
+            nodeEq = slice(buf, nodeCount);
+            nodeSc = slice(buf, nodeCount);
+            keys = slice(buf, buf.getInt());
+
+            classmap = readTree(buf);
+            byte[] values = new byte[checkLength(buf, buf.getInt(), 1)];
+            buf.get(values);
+            vspace = new ByteVector(values);
+            readExceptions(buf);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Compact hyphenation pattern file is truncated");
+        }
+        // the pattern tree is read in place
+        lo = null;
+        hi = null;
+        eq = null;
+        sc = null;
+        kv = null;
+    }
+
+    /**
+     * Memory-maps a compact hyphenation pattern file.
+     * @param file the file
+     * @return the hyphenation tree
+     * @throws IOException if the file can't be read or is not a valid compact hyphenation tree
+     */
+    public static MappedHyphenationTree map(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            return new MappedHyphenationTree(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Reads a compact hyphenation tree from a stream. Use {@link #map(File)} for local files.
+     * @param in the stream (it is not closed)
+     * @return the hyphenation tree
+     * @throws IOException if the stream can't be read or is not a valid compact hyphenation
+     *          tree
+     */
+    public static MappedHyphenationTree read(InputStream in) throws IOException {
+        return new MappedHyphenationTree(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+    }
+
+    private static int checkLength(ByteBuffer buf, int count, int size) throws IOException {
+        if (count < 0 || (long) count * size > buf.remaining()) {
+            throw new IOException("Compact hyphenation pattern file is truncated");
+        }
+        return count;
+    }
+
+    private static CharBuffer slice(ByteBuffer buf, int count) throws IOException {
+        int bytes = checkLength(buf, count, 2) * 2;
+        ByteBuffer section = buf.slice();
+        section.limit(bytes);
+        buf.position(buf.position() + bytes);
+        return section.asCharBuffer();
+    }
+
+    private static char[] readChars(ByteBuffer buf, int count) throws IOException {
+        char[] chars = new char[count];
+        slice(buf, count).get(chars);
+        return chars;
+    }
+
+    private static TernaryTree readTree(ByteBuffer buf) throws IOException {
+        TernaryTree tree = new TernaryTree();
+        tree.length = buf.getInt();
+        tree.root = buf.getChar();
+        int count = buf.getInt();
+        tree.lo = readChars(buf, count);
+        tree.hi = readChars(buf, count);
+        tree.eq = readChars(buf, count);
+        tree.sc = readChars(buf, count);
+        tree.freenode = (char) count;
+        tree.kv = new CharVector(readChars(buf, buf.getInt()));
+        return tree;
+    }
+
+    private void readExceptions(ByteBuffer buf) throws IOException {
+        byte[] data = new byte[buf.remaining()];
+        buf.get(data);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        for (int i = 0, c = in.readInt(); i < c; i++) {
+            String word = in.readUTF();
+            int itemCount = in.readInt();
+            ArrayList hyphenatedWord = new ArrayList(itemCount);
+            for (int j = 0; j < itemCount; j++) {
+                if (in.readByte() == EXCEPTION_HYPHEN) {
+                    hyphenatedWord.add(new Hyphen(readOptionalString(in),
+                            readOptionalString(in), readOptionalString(in)));
+                } else {
+                    hyphenatedWord.add(in.readUTF());
+                }
+            }
+            stoplist.put(word, hyphenatedWord);
+        }
+    }
+
+    private static String readOptionalString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeOptionalString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    /**
+     * Writes a hyphenation tree in the compact binary format.
+     * @param hTree the hyphenation tree (as loaded from XML or a serialized object)
+     * @param out the stream to write to (it is not closed)
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(HyphenationTree hTree, OutputStream out) throws IOException {
+        if (hTree instanceof MappedHyphenationTree) {
+            throw new IllegalArgumentException("The tree is already in the compact format");
+        }
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(MAGIC);
+        dout.writeInt(FORMAT_VERSION);
+        writeTree(dout, hTree);
+        writeTree(dout, hTree.classmap);
+        int valueLength = hTree.vspace.length();
+        dout.writeInt(valueLength);
+        dout.write(hTree.vspace.getArray(), 0, valueLength);
+        dout.writeInt(hTree.stoplist.size());
+        for (java.util.Iterator iter = hTree.stoplist.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry entry = (Map.Entry) iter.next();
+            dout.writeUTF((String) entry.getKey());
+            ArrayList hyphenatedWord = (ArrayList) entry.getValue();
+            dout.writeInt(hyphenatedWord.size());
+            for (int i = 0; i < hyphenatedWord.size(); i++) {
+                Object item = hyphenatedWord.get(i);
+                if (item instanceof Hyphen) {
+                    Hyphen hyphen = (Hyphen) item;
+                    dout.writeByte(EXCEPTION_HYPHEN);
+                    writeOptionalString(dout, hyphen.preBreak);
+                    writeOptionalString(dout, hyphen.noBreak);
+                    writeOptionalString(dout, hyphen.postBreak);
+                } else {
+                    dout.writeByte(EXCEPTION_STRING);
+                    dout.writeUTF((String) item);
+                }
+            }
+        }
+        dout.flush();
+    }
+
+    private static void writeTree(DataOutputStream out, TernaryTree tree) throws IOException {
+        out.writeInt(tree.length);
+        out.writeChar(tree.root);
+        int count = tree.sc.length;
+        out.writeInt(count);
+        writeChars(out, tree.lo, count);
+        writeChars(out, tree.hi, count);
+        writeChars(out, tree.eq, count);
+        writeChars(out, tree.sc, count);
+        int keyLength = tree.kv.length();
+        out.writeInt(keyLength);
+        writeChars(out, tree.kv.getArray(), keyLength);
+    }
+
+    private static void writeChars(DataOutputStream out, char[] chars, int count)
+            throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeChar(chars[i]);
+        }
+    }
+
+    /**
+     * Compares the word (starting at an index) with a key in the key storage. Returns 0 if
+     * they are equal or if the key is a prefix of the word.
+     */
+    private int hstrcmp(char[] s, int si, int ti) {
+        char t = keys.get(ti);
+        for (; s[si] == t; si++, t = keys.get(++ti)) {
+            if (s[si] == 0) {
+                return 0;
+            }
+        }
+        if (t == 0) {
+            return 0;
+        }
+        return s[si] - t;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void searchPatterns(char[] word, int index, byte[] il) {
+        int i = index;
+        char sp = word[i];
+        char p = root;
+
+        while (p > 0 && p < nodeCount) {
+            char split = nodeSc.get(p);
+            if (split == 0xFFFF) {
+                if (hstrcmp(word, i, nodeLo.get(p)) == 0) {
+                    updateValues(nodeEq.get(p), index, il);    // data pointer is in eq[]
+                }
+                return;
+            }
+            int d = sp - split;
+            if (d == 0) {
+                if (sp == 0) {
+                    break;
+                }
+                sp = word[++i];
+                p = nodeEq.get(p);
+                char q = p;
+
+                // look for a pattern ending at this position by searching for
+                // the null char ( splitchar == 0 )
+                while (q > 0 && q < nodeCount) {
+                    char qsplit = nodeSc.get(q);
+                    if (qsplit == 0xFFFF) {        // stop at compressed branch
+                        break;
+                    }
+                    if (qsplit == 0) {
+                        updateValues(nodeEq.get(q), index, il);
+                        break;
+                    } else {
+                        q = nodeLo.get(q);
+                    }
+                }
+            } else {
+                p = d < 0 ? nodeLo.get(p) : nodeHi.get(p);
+            }
+        }
+    }
+
+    /**
+     * Updates the interletter values with the packed values at k, without creating
+     * the intermediate array of {@link #getValues(int)}.
+     */
+    private void updateValues(int k, int index, byte[] il) {
+        byte[] va = vspace.getArray();
+        int j = index;
+        byte v = va[k++];
+        while (v != 0) {
+            // same arithmetic as getValues(int)
+            byte value = (byte) ((v >>> 4) - 1);
+            if (j < il.length && value > il[j]) {
+                il[j] = value;
+            }
+            j++;
+            int low = v & 0x0f;
+            if (low == 0) {
+                break;
+            }
+            value = (byte) (low - 1);
+            if (j < il.length && value > il[j]) {
+                il[j] = value;
+            }
+            j++;
+            v = va[k++];
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int find(char[] key, int start) {
+        int d;
+        char p = root;
+        int i = start;
+        char c;
+
+        while (p != 0) {
+            char split = nodeSc.get(p);
+            if (split == 0xFFFF) {
+                int ti = nodeLo.get(p);
+                for (; key[i] == keys.get(ti); i++, ti++) {
+                    if (key[i] == 0) {
+                        return nodeEq.get(p);
+                    }
+                }
+                return -1;
+            }
+            c = key[i];
+            d = c - split;
+            if (d == 0) {
+                if (c == 0) {
+                    return nodeEq.get(p);
+                }
+                i++;
+                p = nodeEq.get(p);
+            } else if (d < 0) {
+                p = nodeLo.get(p);
+            } else {
+                p = nodeHi.get(p);
+            }
+        }
+        return -1;
+    }
+
+    private UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Compact hyphenation trees are read-only");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void insert(String key, char val) {
+        throw readOnly();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void insert(char[] key, int start, char val) {
+        throw readOnly();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void loadPatterns(InputSource source) throws HyphenationException {
+        throw readOnly();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addClass(String chargroup) {
+        throw readOnly();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addException(String word, ArrayList hyphenatedword) {
+        throw readOnly();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addPattern(String pattern, String ivalue) {
+        throw readOnly();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void balance() {
+        throw readOnly();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void trimToSize() {
+        throw readOnly();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Enumeration keys() {
+        throw new UnsupportedOperationException(
+                "Compact hyphenation trees don't support enumerating their keys");
+    }
+
+    /**
+     * Returns this tree: it is immutable.
+     * @return this tree
+     */
+    @Override
+    public Object clone() {
+        return this;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void printStats() {
+        System.out.println("Value space size = "
+                           + Integer.toString(vspace.getArray().length));
+        System.out.println("Number of keys = " + Integer.toString(length));
+        System.out.println("Node count = " + Integer.toString(nodeCount));
+        System.out.println("Key Array length = " + Integer.toString(keys.limit()));
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        throw new NotSerializableException(getClass().getName());
+    }
+}
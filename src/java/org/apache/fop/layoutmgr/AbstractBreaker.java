@@ -204,6 +204,9 @@ public abstract class AbstractBreaker {
 
     private boolean empty = true;
 
+    /** true if the content of the last block sequence is still to be appended to it */
+    private boolean contentPending;
+
     /** desired text alignment */
     protected int alignment;
 
@@ -392,6 +395,17 @@ public abstract class AbstractBreaker {
             for (int blockListIndex = 0; blockListIndex < blockLists.size(); blockListIndex++) {
                 blockList = blockLists.get(blockListIndex);
 
+                int lookahead = (getCurrentDisplayAlign() == Constants.EN_X_FILL
+                        ? 0 : getPageBreakingLookahead());
+                if (lookahead == 0 && contentPending) {
+                    //The optimal breaks are found over the whole content
+                    nextSequenceStartsOn = appendPendingContent(childLC, blockList,
+                            nextSequenceStartsOn, Long.MAX_VALUE);
+                    if (blockList.isEmpty()) {
+                        continue;
+                    }
+                }
+
                 //debug code start
                 if (log.isDebugEnabled()) {
                     log.debug("  blockListIndex = " + blockListIndex);
@@ -418,8 +432,39 @@ public abstract class AbstractBreaker {
                 }
 
                 alg.setConstantLineWidth(flowBPD);
+                alg.setLookahead(lookahead);
+                alg.setContentPending(contentPending);
                 int optimalPageCount = alg.findBreakingPoints(effectiveList, 1, true,
                         BreakingAlgorithm.ALL_BREAKS);
+                while (alg.isInterrupted()
+                        || (contentPending && alg.getIPDdifference() != 0)) {
+                    if (!alg.isInterrupted()) {
+                        //*** Phase 1 for all the remaining content, needed for the IPD change ***
+                        nextSequenceStartsOn = appendPendingContent(childLC, effectiveList,
+                                nextSequenceStartsOn, Long.MAX_VALUE);
+                    } else {
+                        if (optimalPageCount > 0) {
+                            //*** Phase 3 for the parts committed so far ***
+                            addCommittedAreas(alg, optimalPageCount, blockList, effectiveList);
+                        }
+                        if (alg.isEndOfContentReached()) {
+                            //*** Phase 1 for the next parts of the content ***
+                            nextSequenceStartsOn = appendPendingContent(childLC, effectiveList,
+                                    nextSequenceStartsOn, (lookahead + 1L) * flowBPD);
+                        }
+                    }
+
+                    //*** Phase 2 for the remaining content ***
+                    alg = new PageBreakingAlgorithm(getTopLevelLM(),
+                            getPageProvider(), createLayoutListener(),
+                            alignment, alignmentLast, footnoteSeparatorLength,
+                            isPartOverflowRecoveryActivated(), autoHeight, isSinglePartFavored());
+                    alg.setConstantLineWidth(flowBPD);
+                    alg.setLookahead(lookahead);
+                    alg.setContentPending(contentPending);
+                    optimalPageCount = alg.findBreakingPoints(effectiveList, 1, true,
+                            BreakingAlgorithm.ALL_BREAKS);
+                }
                 if (alg.getIPDdifference() != 0) {
                     addAreas(alg, optimalPageCount, blockList, effectiveList);
                     // *** redo Phase 1 ***
@@ -459,6 +504,48 @@ public abstract class AbstractBreaker {
         }
     }
 
+    /**
+     * Adds the areas of the parts committed by an interrupted breaking, and removes the
+     * elements of these parts from the element list, so they (and their positions) can be
+     * garbage collected. The remaining content is then broken from the start of the list.
+     * @param alg PageBreakingAlgorithm instance which determined the breaks
+     * @param partCount number of committed parts
+     * @param originalList original Knuth element list
+     * @param effectiveList effective Knuth element list (after adjustments), the same as
+     * the original list since the lookahead isn't used with display-align="x-fill"
+     */
+    private void addCommittedAreas(PageBreakingAlgorithm alg, int partCount,
+            BlockSequence originalList, BlockSequence effectiveList) {
+        addAreas(alg, partCount, originalList, effectiveList);
+        int breakIndex = alg.getPageBreaks().get(partCount - 1).getLeafPos();
+        ListElement breakElement = effectiveList.getElement(breakIndex);
+        int breakClass = breakElement.isPenalty()
+                ? ((KnuthPenalty) breakElement).getBreakClass() : Constants.EN_COLUMN;
+        handleCommittedBreak(breakClass);
+        //Drop the elements of the committed parts, up to and including the break
+        effectiveList.subList(0, breakIndex + 1).clear();
+        effectiveList.ignoreAtStart = 0;
+    }
+
+    /**
+     * Returns the number of parts the page breaking looks ahead before it commits the breaks
+     * found so far, and adds their areas. The default implementation returns 0, i.e. the
+     * breaks are optimized over the whole element list.
+     * @return the page breaking lookahead (in parts)
+     */
+    protected int getPageBreakingLookahead() {
+        return 0;
+    }
+
+    /**
+     * Handles the last break committed by an interrupted breaking (see
+     * {@link #getPageBreakingLookahead()}) before the remaining content is broken.
+     * @param breakClass the break class of the break
+     */
+    protected void handleCommittedBreak(int breakClass) {
+        //nop
+    }
+
     /**
      * Phase 3 of Knuth algorithm: Adds the areas
      * @param alg PageBreakingAlgorithm instance which determined the breaks
@@ -664,8 +751,9 @@ public abstract class AbstractBreaker {
             Position positionAtIPDChange, LayoutManager restartAtLM,
             List<KnuthElement> firstElements) {
         updateLayoutContext(childLC);
-        //Make sure the span change signal is reset
+        //Make sure the span change and pending content signals are reset
         childLC.signalSpanChange(Constants.NOT_SET);
+        childLC.setContentPending(false);
 
         BlockSequence blockList;
         List<KnuthElement> returnedList;
@@ -701,30 +789,20 @@ public abstract class AbstractBreaker {
             //Only implemented by the PSLM
             nextSequenceStartsOn = handleSpanChange(childLC, nextSequenceStartsOn);
 
+            contentPending = childLC.isContentPending();
+            if (contentPending) {
+                //The sequence is ended once the rest of its content has been appended
+                blockList.addAll(returnedList);
+                blockLists.add(blockList);
+                return nextSequenceStartsOn;
+            }
+
             Position breakPosition = null;
             if (ElementListUtils.endsWithForcedBreak(returnedList)) {
                 KnuthPenalty breakPenalty = (KnuthPenalty) ListUtil
                         .removeLast(returnedList);
                 breakPosition = breakPenalty.getPosition();
-                log.debug("PLM> break - " + getBreakClassName(breakPenalty.getBreakClass()));
-                switch (breakPenalty.getBreakClass()) {
-                case Constants.EN_PAGE:
-                    nextSequenceStartsOn = Constants.EN_ANY;
-                    break;
-                case Constants.EN_COLUMN:
-                    //TODO Fix this when implementing multi-column layout
-                    nextSequenceStartsOn = Constants.EN_COLUMN;
-                    break;
-                case Constants.EN_ODD_PAGE:
-                    nextSequenceStartsOn = Constants.EN_ODD_PAGE;
-                    break;
-                case Constants.EN_EVEN_PAGE:
-                    nextSequenceStartsOn = Constants.EN_EVEN_PAGE;
-                    break;
-                default:
-                    throw new IllegalStateException("Invalid break class: "
-                            + breakPenalty.getBreakClass());
-                }
+                nextSequenceStartsOn = getNextSequenceStartsOn(breakPenalty);
             }
             blockList.addAll(returnedList);
             BlockSequence seq;
@@ -736,6 +814,66 @@ public abstract class AbstractBreaker {
         return nextSequenceStartsOn;
     }
 
+    /**
+     * Returns the kind of page the sequence following a forced break starts on.
+     * @param breakPenalty the penalty of the forced break
+     * @return the page on which the next content should appear after the break
+     */
+    private int getNextSequenceStartsOn(KnuthPenalty breakPenalty) {
+        log.debug("PLM> break - " + getBreakClassName(breakPenalty.getBreakClass()));
+        switch (breakPenalty.getBreakClass()) {
+        case Constants.EN_PAGE:
+            return Constants.EN_ANY;
+        case Constants.EN_COLUMN:
+            //TODO Fix this when implementing multi-column layout
+            return Constants.EN_COLUMN;
+        case Constants.EN_ODD_PAGE:
+            return Constants.EN_ODD_PAGE;
+        case Constants.EN_EVEN_PAGE:
+            return Constants.EN_EVEN_PAGE;
+        default:
+            throw new IllegalStateException("Invalid break class: "
+                    + breakPenalty.getBreakClass());
+        }
+    }
+
+    /**
+     * Appends the next parts of the content to a block sequence whose content is pending
+     * (see {@link LayoutContext#setContentPending(boolean)}), and ends the sequence once its
+     * last part has been appended.
+     * @param childLC LayoutContext to use
+     * @param blockList the block sequence
+     * @param nextSequenceStartsOn indicates on what page the next sequence should start
+     * @param minLength the content length to append at least, unless the content ends
+     * before
+     * @return the page on which the next content should appear after a hard break
+     */
+    private int appendPendingContent(LayoutContext childLC, BlockSequence blockList,
+            int nextSequenceStartsOn, long minLength) {
+        long length = 0;
+        while (contentPending && length < minLength) {
+            childLC.setContentPending(false);
+            List<KnuthElement> returnedList = getNextKnuthElements(childLC, alignment);
+            length += ElementListUtils.calcContentLength(returnedList);
+            nextSequenceStartsOn = handleSpanChange(childLC, nextSequenceStartsOn);
+            contentPending = childLC.isContentPending();
+            if (contentPending) {
+                blockList.addAll(returnedList);
+            } else {
+                Position breakPosition = null;
+                if (ElementListUtils.endsWithForcedBreak(returnedList)) {
+                    KnuthPenalty breakPenalty = (KnuthPenalty) ListUtil
+                            .removeLast(returnedList);
+                    breakPosition = breakPenalty.getPosition();
+                    nextSequenceStartsOn = getNextSequenceStartsOn(breakPenalty);
+                }
+                blockList.addAll(returnedList);
+                blockList.endSequence(breakPosition);
+            }
+        }
+        return nextSequenceStartsOn;
+    }
+
     /**
      * @param childLC LayoutContext to use
      * @param alg the pagebreaking algorithm
@@ -19,6 +19,8 @@
 
 package org.apache.fop.layoutmgr;
 
+import java.util.Arrays;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -159,6 +161,15 @@ public abstract class BreakingAlgorithm {
      */
     protected int activeNodeCount;
 
+    /** The nodes available for reuse (null if nodes aren't reused). */
+    private KnuthNode[] nodePool;
+
+    /** The number of nodes in {@link #nodePool}. */
+    private int nodePoolSize;
+
+    /** The number of nodes of {@link #nodePool} in use by the current run. */
+    private int nodesInUse;
+
     /**
      * The lowest available line in the set of active nodes.
      */
@@ -223,37 +234,38 @@ public abstract class BreakingAlgorithm {
 
     /**
      * Class recording all the informations of a feasible breaking point.
+     * Nodes may be recycled by later runs of the algorithm (see {@link #setNodeReuse}).
      */
-    public class KnuthNode {
+    public static class KnuthNode {
         /** index of the breakpoint represented by this node */
-        public final int position;                              // CSOK: VisibilityModifier
+        public int position;                                    // CSOK: VisibilityModifier
 
         /** number of the line ending at this breakpoint */
-        public final int line;                                  // CSOK: VisibilityModifier
+        public int line;                                        // CSOK: VisibilityModifier
 
         /** fitness class of the line ending at this breakpoint. One of 0, 1, 2, 3. */
-        public final int fitness;                               // CSOK: VisibilityModifier
+        public int fitness;                                     // CSOK: VisibilityModifier
 
         /** accumulated width of the KnuthElements up to after this breakpoint. */
-        public final int totalWidth;                            // CSOK: VisibilityModifier
+        public int totalWidth;                                  // CSOK: VisibilityModifier
 
         /** accumulated stretchability of the KnuthElements up to after this breakpoint. */
-        public final int totalStretch;                          // CSOK: VisibilityModifier
+        public int totalStretch;                                // CSOK: VisibilityModifier
 
         /** accumulated shrinkability of the KnuthElements up to after this breakpoint. */
-        public final int totalShrink;                           // CSOK: VisibilityModifier
+        public int totalShrink;                                 // CSOK: VisibilityModifier
 
         /** adjustment ratio if the line ends at this breakpoint */
-        public final double adjustRatio;                        // CSOK: VisibilityModifier
+        public double adjustRatio;                              // CSOK: VisibilityModifier
 
         /** available stretch of the line ending at this breakpoint */
-        public final int availableShrink;                       // CSOK: VisibilityModifier
+        public int availableShrink;                             // CSOK: VisibilityModifier
 
         /** available shrink of the line ending at this breakpoint */
-        public final int availableStretch;                      // CSOK: VisibilityModifier
+        public int availableStretch;                            // CSOK: VisibilityModifier
 
         /** difference between target and actual line width */
-        public final int difference;                            // CSOK: VisibilityModifier
+        public int difference;                                  // CSOK: VisibilityModifier
 
         /** minimum total demerits up to this breakpoint */
         public double totalDemerits;                            // CSOK: VisibilityModifier
@@ -290,6 +302,16 @@ public abstract class BreakingAlgorithm {
                 int totalWidth, int totalStretch, int totalShrink,
                 double adjustRatio, int availableShrink, int availableStretch,
                 int difference, double totalDemerits, KnuthNode previous) {
+            set(position, line, fitness, totalWidth, totalStretch, totalShrink,
+                adjustRatio, availableShrink, availableStretch,
+                difference, totalDemerits, previous);
+        }
+
+        private void set(                                       // CSOK: ParameterNumber
+                int position, int line, int fitness,
+                int totalWidth, int totalStretch, int totalShrink,
+                double adjustRatio, int availableShrink, int availableStretch,
+                int difference, double totalDemerits, KnuthNode previous) {
             this.position = position;
             this.line = line;
             this.fitness = fitness;
@@ -302,6 +324,8 @@ public abstract class BreakingAlgorithm {
             this.difference = difference;
             this.totalDemerits = totalDemerits;
             this.previous = previous;
+            this.next = null;
+            this.fitRecoveryCounter = 0;
         }
 
         /** {@inheritDoc} */
@@ -579,10 +603,20 @@ public abstract class BreakingAlgorithm {
                     this.lastRecovered = null;
                 }
                 elementIndex = restartFrom(lastForced, elementIndex);
+            } else if (elementIndex < par.size() - 1) {
+                int committedBreaks = commitBreaks(elementIndex);
+                if (committedBreaks >= 0) {
+                    return committedBreaks;
+                }
             }
 
         }
 
+        int committedBreaks = commitBreaksAtEnd();
+        if (committedBreaks >= 0) {
+            return committedBreaks;
+        }
+
         finish();
 
         // there is at least one set of breaking points
@@ -597,7 +631,6 @@ public abstract class BreakingAlgorithm {
             }
         }
 
-        activeLines = null;
         return line;
     }
 
@@ -617,6 +650,27 @@ public abstract class BreakingAlgorithm {
         throw new IllegalStateException();
     }
 
+    /**
+     * Gives subclasses the opportunity to stop the breaking before the end of the sequence
+     * and to commit the breaks found so far. Called after each element as long as there are
+     * active nodes. The default implementation never stops.
+     * @param elementIndex index of the element that has just been handled
+     * @return the number of committed breaks, or -1 to go on with the breaking
+     */
+    protected int commitBreaks(int elementIndex) {
+        return -1;
+    }
+
+    /**
+     * Gives subclasses the opportunity to stop the breaking at the end of the sequence, if
+     * more elements are yet to be appended to it, and to commit the breaks found so far.
+     * The default implementation never stops.
+     * @return the number of committed breaks, or -1 to find the breaks of the last parts
+     */
+    protected int commitBreaksAtEnd() {
+        return -1;
+    }
+
     /**
      * Recover from a {@link KnuthNode} leading to a line that is too long.
      * The default implementation creates a new node corresponding to a break
@@ -658,7 +712,93 @@ public abstract class BreakingAlgorithm {
         this.lastTooLong = null;
         this.startLine = 0;
         this.endLine = 0;
-        this.activeLines = new KnuthNode[20];
+        if (activeLines == null) {
+            this.activeLines = new KnuthNode[20];
+        } else {
+            Arrays.fill(activeLines, null);
+        }
+        this.nodesInUse = 0;
+    }
+
+    /**
+     * Resets the state kept from one run of the algorithm to the next. Must be called before
+     * reusing the algorithm for a different sequence.
+     */
+    protected void resetState() {
+        this.activeNodeCount = 0;
+        this.lastDeactivated = null;
+        this.lastRecovered = null;
+    }
+
+    /**
+     * Enables or disables the reuse of the nodes created by {@link #createNode}. If enabled,
+     * the nodes of a run of the algorithm are recycled by the next run, so a subclass must
+     * not keep references to them once {@link #findBreakingPoints} has returned.
+     * @param reuseNodes true to reuse the nodes
+     */
+    protected void setNodeReuse(boolean reuseNodes) {
+        this.nodePool = (reuseNodes ? new KnuthNode[64] : null);
+        this.nodePoolSize = 0;
+        this.nodesInUse = 0;
+    }
+
+    /**
+     * Drops the references to the sequence and the nodes of the last run once the breaks
+     * have been handled, so they don't stay reachable while the algorithm is kept for the
+     * next sequence. The pooled nodes are unlinked but kept for reuse.
+     */
+    protected void releaseNodes() {
+        this.par = null;
+        this.lastTooShort = null;
+        this.lastTooLong = null;
+        this.lastDeactivated = null;
+        this.lastRecovered = null;
+        this.activeNodeCount = 0;
+        this.startLine = 0;
+        this.endLine = 0;
+        if (activeLines != null) {
+            Arrays.fill(activeLines, null);
+        }
+        Arrays.fill(best.bestNode, null);
+        for (int i = 0; i < nodePoolSize; i++) {
+            nodePool[i].previous = null;
+            nodePool[i].next = null;
+        }
+        this.nodesInUse = 0;
+    }
+
+    private KnuthNode obtainNode(                               // CSOK: ParameterNumber
+            int position, int line, int fitness,
+            int totalWidth, int totalStretch, int totalShrink,
+            double adjustRatio, int availableShrink, int availableStretch,
+            int difference, double totalDemerits, KnuthNode previous) {
+        if (nodePool == null) {
+            return new KnuthNode(position, line, fitness,
+                                 totalWidth, totalStretch, totalShrink,
+                                 adjustRatio, availableShrink, availableStretch,
+                                 difference, totalDemerits, previous);
+        }
+        KnuthNode node;
+        if (nodesInUse < nodePoolSize) {
+            node = nodePool[nodesInUse];
+            node.set(position, line, fitness,
+                     totalWidth, totalStretch, totalShrink,
+                     adjustRatio, availableShrink, availableStretch,
+                     difference, totalDemerits, previous);
+        } else {
+            node = new KnuthNode(position, line, fitness,
+                                 totalWidth, totalStretch, totalShrink,
+                                 adjustRatio, availableShrink, availableStretch,
+                                 difference, totalDemerits, previous);
+            if (nodePoolSize == nodePool.length) {
+                KnuthNode[] oldPool = nodePool;
+                nodePool = new KnuthNode[nodePoolSize + nodePoolSize];
+                System.arraycopy(oldPool, 0, nodePool, 0, nodePoolSize);
+            }
+            nodePool[nodePoolSize++] = node;
+        }
+        nodesInUse++;
+        return node;
     }
 
     /**
@@ -686,10 +826,10 @@ public abstract class BreakingAlgorithm {
             int totalWidth, int totalStretch, int totalShrink,
             double adjustRatio, int availableShrink, int availableStretch,
             int difference, double totalDemerits, KnuthNode previous) {
-        return new KnuthNode(position, line, fitness,
-                             totalWidth, totalStretch, totalShrink,
-                             adjustRatio, availableShrink, availableStretch,
-                             difference, totalDemerits, previous);
+        return obtainNode(position, line, fitness,
+                          totalWidth, totalStretch, totalShrink,
+                          adjustRatio, availableShrink, availableStretch,
+                          difference, totalDemerits, previous);
     }
 
     /** Creates a new active node for a break from the best active node of the given
@@ -709,11 +849,11 @@ public abstract class BreakingAlgorithm {
      */
     protected KnuthNode createNode(int position, int line, int fitness,
                                    int totalWidth, int totalStretch, int totalShrink) {
-        return new KnuthNode(position, line, fitness,
-                             totalWidth, totalStretch, totalShrink, best.getAdjust(fitness),
-                             best.getAvailableShrink(fitness), best.getAvailableStretch(fitness),
-                             best.getDifference(fitness), best.getDemerits(fitness),
-                             best.getNode(fitness));
+        return obtainNode(position, line, fitness,
+                          totalWidth, totalStretch, totalShrink, best.getAdjust(fitness),
+                          best.getAvailableShrink(fitness), best.getAvailableStretch(fitness),
+                          best.getDifference(fitness), best.getDemerits(fitness),
+                          best.getNode(fitness));
     }
 
     /**
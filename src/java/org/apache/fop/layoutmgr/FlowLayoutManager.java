@@ -164,6 +164,13 @@ public class FlowLayoutManager extends BlockStackingLayoutManager
             SpaceResolver.resolveElementList(elements);
             return elements;
         }
+        if (childLC.isContentPending()) {
+            // the child returns its elements in several parts, the next one is obtained
+            // by the next call
+            context.setContentPending(true);
+            SpaceResolver.resolveElementList(elements);
+            return elements;
+        }
         return null;
     }
 
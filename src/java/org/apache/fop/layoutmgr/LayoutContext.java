@@ -87,6 +87,9 @@ public class LayoutContext {
     private int currentSpan = Constants.NOT_SET;
     private int nextSpan = Constants.NOT_SET;
 
+    /** to signal that the element list ends before the content (see setContentPending()) */
+    private boolean contentPending;
+
     /** inline-progression-dimension of nearest ancestor reference area */
     private int refIPD;
     //TODO After the split of stackLimit into stackLimitBP and stackLimitIP there's now some
@@ -561,6 +564,25 @@ public class LayoutContext {
         }
     }
 
+    /**
+     * Used to signal the breaker that the element list ends before the content does, because
+     * a layout manager returns its elements in several parts. The remaining elements are
+     * returned by the next calls to getNextKnuthElements(), and belong to the same element
+     * list.
+     * @param contentPending true if more elements are to be appended to the element list
+     */
+    public void setContentPending(boolean contentPending) {
+        this.contentPending = contentPending;
+    }
+
+    /**
+     * @return true if more elements are to be appended to the element list
+     * @see #setContentPending(boolean)
+     */
+    public boolean isContentPending() {
+        return contentPending;
+    }
+
     /**
      * Get the writing mode of the relevant reference area.
      * @return the applicable writing mode
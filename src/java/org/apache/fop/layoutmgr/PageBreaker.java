@@ -420,6 +420,20 @@ public class PageBreaker extends AbstractBreaker {
         addAreas(algRestart, optimalPageCount, originalList, effectiveList);
     }
 
+    /** {@inheritDoc} */
+    protected int getPageBreakingLookahead() {
+        return pslm.getPageSequence().getUserAgent().getPageBreakingLookahead();
+    }
+
+    /** {@inheritDoc} */
+    protected void handleCommittedBreak(int breakClass) {
+        //Handle the page break right here, as in redoLayout()
+        handleBreakTrait(breakClass);
+        pageBreakHandled = true;
+        pageProvider.setStartOfNextElementList(pslm.getCurrentPageNum(),
+                pslm.getCurrentPV().getCurrentSpan().getCurrentFlowIndex(), this.spanAllActive);
+    }
+
     private void setLastPageIndex(int currentPageNum) {
         int lastPageIndex = pslm.getForcedLastPageNum(currentPageNum);
         pageProvider.setLastPageIndex(lastPageIndex);
@@ -99,6 +99,17 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
     private int currentKeepContext = Constants.EN_AUTO;
     private KnuthNode lastBeforeKeepContextSwitch;
 
+    /** Number of parts to look ahead before committing breaks (0: the whole sequence). */
+    private int lookahead;
+    /** The value of endLine when the committing of breaks was last considered. */
+    private int lastCommitCheck;
+    /** True if the breaking stopped before the end of the sequence. */
+    private boolean interrupted;
+    /** True if more elements are to be appended to the sequence. */
+    private boolean contentPending;
+    /** True if the breaking stopped at the end of a sequence whose content is pending. */
+    private boolean endOfContentReached;
+
     /**
      * Construct a page breaking algorithm.
      * @param topLevelLM the top level layout manager
@@ -150,6 +161,9 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         /** Index of the last inserted element of the last inserted footnote. */
         public int footnoteElementIndex;                        // CSOK: VisibilityModifier
 
+        /** Length of the footnotes cited when this node was created. */
+        private final int citedFootnotesLength;
+
         public KnuthPageNode(int position,                      // CSOK: ParameterNumber
                              int line, int fitness,
                              int totalWidth, int totalStretch, int totalShrink,
@@ -163,6 +177,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
             this.totalFootnotes = totalFootnotes;
             this.footnoteListIndex = footnoteListIndex;
             this.footnoteElementIndex = footnoteElementIndex;
+            this.citedFootnotesLength = (footnotesPending ? totalFootnotesLength : 0);
         }
 
     }
@@ -208,6 +223,152 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         insertedFootnotesLength = 0;
         footnoteListIndex = 0;
         footnoteElementIndex = -1;
+        lastCommitCheck = 0;
+        interrupted = false;
+        endOfContentReached = false;
+    }
+
+    /**
+     * Sets the number of parts the algorithm looks ahead before it commits breaks. Once the
+     * best active node is twice that many parts ahead of the start, the breaking stops at the
+     * last page break at least that many parts before the best node, so the areas of the
+     * committed parts can be added, and the breaking goes on from there (see
+     * {@link #isInterrupted()}). Breaks are only committed at page breaks which leave no
+     * footnote cited before them pending.
+     * @param lookahead the number of parts, or 0 to find the optimal breaks over the whole
+     * sequence
+     */
+    public void setLookahead(int lookahead) {
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * Indicates whether the last run of the algorithm stopped before the end of the sequence
+     * because of the lookahead. If so, the page breaks cover the committed parts only.
+     * @return true if the breaking stopped before the end of the sequence
+     */
+    public boolean isInterrupted() {
+        return interrupted;
+    }
+
+    /**
+     * Indicates whether more elements are to be appended to the sequence, once the content
+     * available so far is broken. If so, the breaking stops at the end of the sequence
+     * and commits the breaks at least lookahead parts before the best active node, if any
+     * (see {@link #isEndOfContentReached()}).
+     * @param contentPending true if the sequence isn't complete yet
+     */
+    public void setContentPending(boolean contentPending) {
+        this.contentPending = contentPending;
+    }
+
+    /**
+     * Indicates whether the last run of the algorithm stopped at the end of a sequence
+     * whose content is pending. If so, the breaking was interrupted, possibly without
+     * committing any part, and must go on once more elements have been appended.
+     * @return true if the breaking stopped at the end of the sequence
+     */
+    public boolean isEndOfContentReached() {
+        return endOfContentReached;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int commitBreaks(int elementIndex) {
+        if (lookahead <= 0 || endLine - 1 < 2 * lookahead || endLine == lastCommitCheck
+                || ipdDifference != 0) {
+            return -1;
+        }
+        lastCommitCheck = endLine;
+        KnuthNode node = findLastCommittableNode();
+        if (node == null) {
+            return -1;
+        }
+        return commitBreaksUpTo(node);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int commitBreaksAtEnd() {
+        if (!contentPending) {
+            return -1;
+        }
+        interrupted = true;
+        endOfContentReached = true;
+        // with a change of IPD, all the content is needed (see handleIpdChange())
+        KnuthNode node = (ipdDifference != 0) ? null : findLastCommittableNode();
+        if (node == null) {
+            log.debug("No part to commit before more content is appended");
+            return 0;
+        }
+        return commitBreaksUpTo(node);
+    }
+
+    /**
+     * Returns the node of the last break which can be committed: a page break at least
+     * lookahead parts before the best of the active nodes which reach the most parts.
+     * @return the node, or null if no break can be committed
+     */
+    private KnuthNode findLastCommittableNode() {
+        // the best of the active nodes which reach the most parts
+        KnuthNode bestNode = null;
+        for (int line = endLine - 1; line >= startLine && bestNode == null; line--) {
+            for (KnuthNode node = getNode(line); node != null; node = node.next) {
+                if (bestNode == null || node.totalDemerits < bestNode.totalDemerits) {
+                    bestNode = node;
+                }
+            }
+        }
+        if (bestNode == null) {
+            return null;
+        }
+        KnuthNode node = bestNode;
+        while (node.line > 0
+                && (node.line > bestNode.line - lookahead || !canCommitAt(node))) {
+            node = node.previous;
+        }
+        return (node.line == 0) ? null : node;
+    }
+
+    private int commitBreaksUpTo(KnuthNode node) {
+        if (log.isDebugEnabled()) {
+            log.debug("Committing " + node.line + " parts, up to position " + node.position);
+        }
+        interrupted = true;
+        removeUncommittedFootnotes((KnuthPageNode) node);
+        // not the last part: see handleIpdChange()
+        calculateBreakPoints(node, par, node.line + 1);
+        return node.line;
+    }
+
+    /**
+     * Removes the footnotes cited after the last committed break from the footnote list.
+     * They are met again by the run that breaks the remaining content, and may have been
+     * removed already by a restart, so the list only matches the footnote indices of the
+     * committed nodes once it is cut back to the footnotes placed on the committed pages.
+     * @param lastNode the node of the last committed break
+     */
+    private void removeUncommittedFootnotes(KnuthPageNode lastNode) {
+        if (footnotesList == null) {
+            return;
+        }
+        int placedLists = (lastNode.footnoteElementIndex >= 0)
+                ? lastNode.footnoteListIndex + 1 : 0;
+        while (footnotesList.size() > placedLists) {
+            ListUtil.removeLast(footnotesList);
+            ListUtil.removeLast(lengthList);
+        }
+        if (footnotesList.isEmpty()) {
+            footnotesList = null;
+            lengthList = null;
+        }
+    }
+
+    private boolean canCommitAt(KnuthNode node) {
+        // all the footnotes cited before the break must have been placed
+        KnuthPageNode pageNode = (KnuthPageNode) node;
+        return pageProvider != null && pageProvider.endPage(node.line - 1)
+                && pageNode.totalFootnotes == pageNode.citedFootnotesLength;
     }
 
     /**
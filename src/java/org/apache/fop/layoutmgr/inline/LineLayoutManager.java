@@ -311,7 +311,7 @@ public class LineLayoutManager extends InlineStackingLayoutManager
         private static final double MAX_DEMERITS = 10e6;
 
         public LineBreakingAlgorithm(                            // CSOK: ParameterNumber
-                int pageAlign, int textAlign, int textAlignLast, int indent, int fillerWidth,
+                int pageAlign, int textAlign, int textAlignLast, int indent,
                 int lh, int ld, int fl, boolean first, int maxFlagCount, LineLayoutManager llm) {
             super(textAlign, textAlignLast, first, false, maxFlagCount);
             pageAlignment = pageAlign;
@@ -321,6 +321,26 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             follow = fl;
             thisLLM = llm;
             activePossibility = -1;
+            setNodeReuse(true);
+        }
+
+        /**
+         * Prepares the algorithm for the next paragraph of the block. The algorithm (and
+         * its nodes) is reused for all the paragraphs.
+         * @param first true if the paragraph is the first one of the block
+         */
+        public void startParagraph(boolean first) {
+            resetState();
+            indentFirstPart = first;
+            activePossibility = -1;
+        }
+
+        /**
+         * Releases the paragraph and the nodes once its line breaks have been found, so
+         * they don't stay reachable while the algorithm is kept for the next paragraph.
+         */
+        public void endParagraph() {
+            releaseNodes();
         }
 
         @Override
@@ -801,6 +821,7 @@ public class LineLayoutManager extends InlineStackingLayoutManager
         Iterator<KnuthSequence> paragraphsIterator = knuthParagraphs.iterator();
         lineLayoutsList = new LineLayoutPossibilities[knuthParagraphs.size()];
         LineLayoutPossibilities llPoss;
+        LineBreakingAlgorithm alg = null;
         for (int i = 0; paragraphsIterator.hasNext(); i++) {
             KnuthSequence seq = paragraphsIterator.next();
             if (!seq.isInlineSequence()) {
@@ -808,7 +829,17 @@ public class LineLayoutManager extends InlineStackingLayoutManager
                 // we only need an entry in lineLayoutsList.
                 llPoss = new LineLayoutPossibilities();
             } else {
-                llPoss = findOptimalBreakingPoints(alignment, (Paragraph) seq,
+                if (alg == null) {
+                    alg = new LineBreakingAlgorithm(alignment,
+                            textAlignment, textAlignmentLast,
+                            textIndent.getValue(this),
+                            lineHeight.getValue(this), lead, follow, false,
+                            hyphenationLadderCount.getEnum() == EN_NO_LIMIT
+                                ? 0 : hyphenationLadderCount.getValue(),
+                            this);
+                }
+                alg.startParagraph(knuthParagraphs.indexOf(seq) == 0);
+                llPoss = findOptimalBreakingPoints(alignment, (Paragraph) seq, alg,
                                                    !paragraphsIterator.hasNext());
             }
             lineLayoutsList[i] = llPoss;
@@ -824,22 +855,15 @@ public class LineLayoutManager extends InlineStackingLayoutManager
      * Find the optimal linebreaks for a paragraph
      * @param alignment alignment of the paragraph
      * @param currPar the Paragraph for which the linebreaks are found
+     * @param alg the line breaking algorithm, prepared for the paragraph
      * @param isLastPar flag indicating whether currPar is the last paragraph
      * @return the line layout possibilities for the paragraph
      */
     private LineLayoutPossibilities findOptimalBreakingPoints(int alignment, Paragraph currPar,
-                                                              boolean isLastPar) {
+            LineBreakingAlgorithm alg, boolean isLastPar) {
         // use the member lineLayouts, which is read by LineBreakingAlgorithm.updateData1 and 2
         lineLayouts = new LineLayoutPossibilities();
         double maxAdjustment = 1;
-        LineBreakingAlgorithm alg = new LineBreakingAlgorithm(alignment,
-                                        textAlignment, textAlignmentLast,
-                                        textIndent.getValue(this), currPar.lineFiller.getOpt(),
-                                        lineHeight.getValue(this), lead, follow,
-                                        (knuthParagraphs.indexOf(currPar) == 0),
-                                        hyphenationLadderCount.getEnum() == EN_NO_LIMIT
-                                            ? 0 : hyphenationLadderCount.getValue(),
-                                        this);
         alg.setConstantLineWidth(ipd);
         boolean canWrap = (wrapOption != EN_NO_WRAP);
         boolean canHyphenate = (canWrap && hyphenationProperties.hyphenate.getEnum() == EN_TRUE);
@@ -895,6 +919,7 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             lineLayouts.restorePossibilities();
         }
 
+        alg.endParagraph();
         return lineLayouts;
     }
 
@@ -1398,7 +1423,8 @@ public class LineLayoutManager extends InlineStackingLayoutManager
                                getFObj().getUserAgent().getFactory().getHyphPatNames(),
                                sbChars.toString(),
                                hyphenationProperties.hyphenationRemainCharacterCount.getValue(),
-                               hyphenationProperties.hyphenationPushCharacterCount.getValue());
+                               hyphenationProperties.hyphenationPushCharacterCount.getValue(),
+                               getFObj().getUserAgent().getFactory().getHyphenationCache());
         // They hyph structure contains the information we need
         // Now start from prev: reset to that position, ask that LM to get
         // a Position for the first hyphenation offset. If the offset isn't in
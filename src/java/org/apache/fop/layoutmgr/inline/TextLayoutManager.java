@@ -39,6 +39,7 @@ import org.apache.fop.fo.flow.Character;
 import org.apache.fop.fo.properties.StructurePointerPropertySet;
 import org.apache.fop.fonts.Font;
 import org.apache.fop.fonts.FontSelector;
+import org.apache.fop.fonts.ShapingCache;
 import org.apache.fop.layoutmgr.InlineKnuthSequence;
 import org.apache.fop.layoutmgr.KnuthBox;
 import org.apache.fop.layoutmgr.KnuthElement;
@@ -1019,31 +1020,46 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             language = "dflt";
         }
 
-        // 3. perform mapping of chars to glyphs ... to glyphs ... to chars
-        CharSequence mcs = font.performSubstitution ( ics, script, language );
+        // 3. if the word has been shaped before with this font, then reuse the result of steps 4 to 6
+        ShapingCache cache = ( script != null ) ? font.getShapingCache() : null;
+        String word = ( cache != null ) ? ics.toString() : null;
+        ShapingCache.Result shaped = ( cache != null ) ? cache.get ( word, script, language ) : null;
 
-        // 4. compute glyph position adjustments on (substituted) characters
+        CharSequence mcs;
         int[][] gpa;
-        if ( font.performsPositioning() ) {
-            // handle GPOS adjustments
-            gpa = font.performPositioning ( mcs, script, language );
-        } else if ( font.hasKerning() ) {
-            // handle standard (non-GPOS) kerning adjustments
-            gpa = getKerningAdjustments ( mcs, font );
+        if ( shaped != null ) {
+            mcs = shaped.getChars();
+            gpa = shaped.getAdjustments();
         } else {
-            gpa = null;
-        }
+            // 4. perform mapping of chars to glyphs ... to glyphs ... to chars
+            mcs = font.performSubstitution ( ics, script, language );
+
+            // 5. compute glyph position adjustments on (substituted) characters
+            if ( font.performsPositioning() ) {
+                // handle GPOS adjustments
+                gpa = font.performPositioning ( mcs, script, language );
+            } else if ( font.hasKerning() ) {
+                // handle standard (non-GPOS) kerning adjustments
+                gpa = getKerningAdjustments ( mcs, font );
+            } else {
+                gpa = null;
+            }
 
-        // 5. reorder combining marks so that they precede (within the mapped char sequence) the
-        // base to which they are applied; N.B. position adjustments (gpa) are reordered in place
-        mcs = font.reorderCombiningMarks ( mcs, gpa, script, language );
+            // 6. reorder combining marks so that they precede (within the mapped char sequence) the
+            // base to which they are applied; N.B. position adjustments (gpa) are reordered in place
+            mcs = font.reorderCombiningMarks ( mcs, gpa, script, language );
+
+            if ( cache != null ) {
+                mcs = cache.put ( word, script, language, mcs, gpa ).getChars();
+            }
+        }
 
-        // 6. if mapped sequence differs from input sequence, then memoize mapped sequence
+        // 7. if mapped sequence differs from input sequence, then memoize mapped sequence
         if ( !CharUtilities.isSameSequence ( mcs, ics ) ) {
             foText.addMapping ( s, e, mcs );
         }
 
-        // 7. compute word ipd based on final position adjustments
+        // 8. compute word ipd based on final position adjustments
         MinOptMax ipd = MinOptMax.ZERO;
         for ( int i = 0, n = mcs.length(); i < n; i++ ) {
             int c = mcs.charAt ( i );
@@ -19,6 +19,7 @@
 
 package org.apache.fop.layoutmgr.table;
 
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -71,6 +72,23 @@ public class TableContentLayoutManager implements PercentBaseContext {
 
     private TableStepper stepper;
 
+    /** The elements added at the end of the element list, after the table body. */
+    private KnuthBox headerAsSecondToLast;
+    private KnuthBox footerAsLast;
+
+    /**
+     * Creates the element list of the table body, if it is returned one row group at a time
+     * (see {@link TableLayoutManager#isStreamingLayout()}). Null once the last row group has
+     * been returned.
+     */
+    private RowGroupElementProducer bodyElementProducer;
+
+    /**
+     * The grid units of the body row group being added (as keys), whose layout data can be
+     * released once the last position of the row group has been handled.
+     */
+    private Map pendingGridUnits = new IdentityHashMap();
+
     /**
      * Main constructor
      * @param parent Parent layout manager
@@ -141,8 +159,8 @@ public class TableContentLayoutManager implements PercentBaseContext {
             LOG.debug("==> Columns: " + getTableLM().getColumns());
         }
         KnuthBox headerAsFirst = null;
-        KnuthBox headerAsSecondToLast = null;
-        KnuthBox footerAsLast = null;
+        headerAsSecondToLast = null;
+        footerAsLast = null;
         if (headerIter != null && headerList == null) {
             this.headerList = getKnuthElementsForRowIterator(
                     headerIter, context, alignment, TableRowIterator.HEADER);
@@ -178,15 +196,52 @@ public class TableContentLayoutManager implements PercentBaseContext {
             KnuthBox box = new KnuthBox(footerNetHeight, pos, false);
             footerAsLast = box;
         }
-        LinkedList returnList = getKnuthElementsForRowIterator(
-                bodyIter, context, alignment, TableRowIterator.BODY);
+        LinkedList returnList;
+        if (getTableLM().isStreamingLayout()) {
+            bodyElementProducer = new RowGroupElementProducer(
+                    bodyIter, context, alignment, TableRowIterator.BODY);
+            returnList = getNextBodyElements();
+        } else {
+            returnList = getKnuthElementsForRowIterator(
+                    bodyIter, context, alignment, TableRowIterator.BODY);
+            addHeaderFooterAtEnd(returnList);
+        }
         if (headerAsFirst != null) {
             int insertionPoint = 0;
             if (returnList.size() > 0 && ((ListElement)returnList.getFirst()).isForcedBreak()) {
                 insertionPoint++;
             }
             returnList.add(insertionPoint, headerAsFirst);
-        } else if (headerAsSecondToLast != null) {
+        }
+        return returnList;
+    }
+
+    /**
+     * Returns the next part of the element list of the table body, when it is returned one
+     * row group at a time (see {@link TableLayoutManager#isStreamingLayout()}).
+     * @return the elements of the next row group
+     */
+    LinkedList getNextBodyElements() {
+        bodyElementProducer.addNextRowGroup();
+        if (bodyElementProducer.hasNextRowGroup()) {
+            return bodyElementProducer.takeElements();
+        }
+        LinkedList returnList = bodyElementProducer.finish();
+        bodyElementProducer = null;
+        addHeaderFooterAtEnd(returnList);
+        return returnList;
+    }
+
+    /**
+     * @return true if the element list of the table body has parts which haven't been
+     * returned yet
+     */
+    boolean hasNextBodyElements() {
+        return bodyElementProducer != null;
+    }
+
+    private void addHeaderFooterAtEnd(LinkedList returnList) {
+        if (headerAsSecondToLast != null) {
             int insertionPoint = returnList.size();
             if (returnList.size() > 0 && ((ListElement)returnList.getLast()).isForcedBreak()) {
                 insertionPoint--;
@@ -200,7 +255,6 @@ public class TableContentLayoutManager implements PercentBaseContext {
             }
             returnList.add(insertionPoint, footerAsLast);
         }
-        return returnList;
     }
 
     /**
@@ -214,101 +268,166 @@ public class TableContentLayoutManager implements PercentBaseContext {
      */
     private LinkedList getKnuthElementsForRowIterator(TableRowIterator iter,
             LayoutContext context, int alignment, int bodyType) {
-        LinkedList returnList = new LinkedList();
-        EffRow[] rowGroup = iter.getNextRowGroup();
-        // TODO homogenize the handling of keeps and breaks
-        context.clearKeepsPending();
-        context.setBreakBefore(Constants.EN_AUTO);
-        context.setBreakAfter(Constants.EN_AUTO);
-        Keep keepWithPrevious = Keep.KEEP_AUTO;
-        int breakBefore = Constants.EN_AUTO;
-        if (rowGroup != null) {
-            RowGroupLayoutManager rowGroupLM = new RowGroupLayoutManager(getTableLM(), rowGroup,
-                    stepper);
-            List nextRowGroupElems = rowGroupLM.getNextKnuthElements(context, alignment, bodyType);
-            keepWithPrevious = keepWithPrevious.compare(context.getKeepWithPreviousPending());
-            breakBefore = context.getBreakBefore();
-            int breakBetween = context.getBreakAfter();
-            returnList.addAll(nextRowGroupElems);
-            while ((rowGroup = iter.getNextRowGroup()) != null) {
-                rowGroupLM = new RowGroupLayoutManager(getTableLM(), rowGroup, stepper);
-
-                //Note previous pending keep-with-next and clear the strength
-                //(as the layout context is reused)
-                Keep keepWithNextPending = context.getKeepWithNextPending();
-                context.clearKeepWithNextPending();
-
-                //Get elements for next row group
-                nextRowGroupElems = rowGroupLM.getNextKnuthElements(context, alignment, bodyType);
-                /*
-                 * The last break element produced by TableStepper (for the previous row
-                 * group) may be used to represent the break between the two row groups.
-                 * Its penalty value and break class must just be overridden by the
-                 * characteristics of the keep or break between the two.
-                 *
-                 * However, we mustn't forget that if the after border of the last row of
-                 * the row group is thicker in the normal case than in the trailing case,
-                 * an additional glue will be appended to the element list. So we may have
-                 * to go two steps backwards in the list.
-                 */
-
-                //Determine keep constraints
-                Keep keep = keepWithNextPending.compare(context.getKeepWithPreviousPending());
-                context.clearKeepWithPreviousPending();
-                keep = keep.compare(getTableLM().getKeepTogether());
-                int penaltyValue = keep.getPenalty();
-                int breakClass = keep.getContext();
-
-                breakBetween = BreakUtil.compareBreakClasses(breakBetween,
-                        context.getBreakBefore());
-                if (breakBetween != Constants.EN_AUTO) {
-                    penaltyValue = -KnuthElement.INFINITE;
-                    breakClass = breakBetween;
-                }
-                BreakElement breakElement;
-                ListIterator elemIter = returnList.listIterator(returnList.size());
-                ListElement elem = (ListElement) elemIter.previous();
-                if (elem instanceof KnuthGlue) {
-                    breakElement = (BreakElement) elemIter.previous();
-                } else {
-                    breakElement = (BreakElement) elem;
-                }
-                breakElement.setPenaltyValue(penaltyValue);
-                breakElement.setBreakClass(breakClass);
-                returnList.addAll(nextRowGroupElems);
+        RowGroupElementProducer producer = new RowGroupElementProducer(
+                iter, context, alignment, bodyType);
+        while (producer.hasNextRowGroup()) {
+            producer.addNextRowGroup();
+        }
+        return producer.finish();
+    }
+
+    /**
+     * Creates the combined element list of a table part (the body, header or footer), one
+     * row group at a time.
+     */
+    private class RowGroupElementProducer {
+
+        private TableRowIterator iter;
+        private LayoutContext context;
+        private int alignment;
+        private int bodyType;
+
+        /** The elements created so far, but not returned yet. */
+        private LinkedList elements = new LinkedList();
+
+        private boolean firstRowGroup = true;
+        private Keep keepWithPrevious = Keep.KEEP_AUTO;
+        private int breakBefore = Constants.EN_AUTO;
+        private int breakBetween;
+
+        RowGroupElementProducer(TableRowIterator iter, LayoutContext context, int alignment,
+                int bodyType) {
+            this.iter = iter;
+            this.context = context;
+            this.alignment = alignment;
+            this.bodyType = bodyType;
+            // TODO homogenize the handling of keeps and breaks
+            context.clearKeepsPending();
+            context.setBreakBefore(Constants.EN_AUTO);
+            context.setBreakAfter(Constants.EN_AUTO);
+        }
+
+        boolean hasNextRowGroup() {
+            return iter.hasNextRowGroup();
+        }
+
+        /** Creates the elements for the next row group. */
+        void addNextRowGroup() {
+            RowGroupLayoutManager rowGroupLM = new RowGroupLayoutManager(getTableLM(),
+                    iter.getNextRowGroup(), stepper);
+            if (firstRowGroup) {
+                firstRowGroup = false;
+                List nextRowGroupElems = rowGroupLM.getNextKnuthElements(
+                        context, alignment, bodyType);
+                keepWithPrevious = keepWithPrevious.compare(context.getKeepWithPreviousPending());
+                breakBefore = context.getBreakBefore();
                 breakBetween = context.getBreakAfter();
+                elements.addAll(nextRowGroupElems);
+                return;
+            }
+
+            //Note previous pending keep-with-next and clear the strength
+            //(as the layout context is reused)
+            Keep keepWithNextPending = context.getKeepWithNextPending();
+            context.clearKeepWithNextPending();
+
+            //Get elements for next row group
+            List nextRowGroupElems = rowGroupLM.getNextKnuthElements(context, alignment, bodyType);
+            /*
+             * The last break element produced by TableStepper (for the previous row
+             * group) may be used to represent the break between the two row groups.
+             * Its penalty value and break class must just be overridden by the
+             * characteristics of the keep or break between the two.
+             *
+             * However, we mustn't forget that if the after border of the last row of
+             * the row group is thicker in the normal case than in the trailing case,
+             * an additional glue will be appended to the element list. So we may have
+             * to go two steps backwards in the list.
+             */
+
+            //Determine keep constraints
+            Keep keep = keepWithNextPending.compare(context.getKeepWithPreviousPending());
+            context.clearKeepWithPreviousPending();
+            keep = keep.compare(getTableLM().getKeepTogether());
+            int penaltyValue = keep.getPenalty();
+            int breakClass = keep.getContext();
+
+            breakBetween = BreakUtil.compareBreakClasses(breakBetween,
+                    context.getBreakBefore());
+            if (breakBetween != Constants.EN_AUTO) {
+                penaltyValue = -KnuthElement.INFINITE;
+                breakClass = breakBetween;
             }
+            BreakElement breakElement;
+            ListIterator elemIter = elements.listIterator(elements.size());
+            ListElement elem = (ListElement) elemIter.previous();
+            if (elem instanceof KnuthGlue) {
+                breakElement = (BreakElement) elemIter.previous();
+            } else {
+                breakElement = (BreakElement) elem;
+            }
+            breakElement.setPenaltyValue(penaltyValue);
+            breakElement.setBreakClass(breakClass);
+            elements.addAll(nextRowGroupElems);
+            breakBetween = context.getBreakAfter();
         }
-        /*
-         * The last break produced for the last row-group of this table part must be
-         * removed, because the breaking after the table will be handled by TableLM.
-         * Unless the element list ends with a glue, which must be kept to accurately
-         * represent the content. In such a case the break is simply disabled by setting
-         * its penalty to infinite.
+
+        /**
+         * Returns the elements created so far, except the break after the last row group
+         * (and the glue which may follow it), which is only known once the next row group
+         * is created.
+         * @return the elements
          */
-        ListIterator elemIter = returnList.listIterator(returnList.size());
-        ListElement elem = (ListElement) elemIter.previous();
-        if (elem instanceof KnuthGlue) {
-            BreakElement breakElement = (BreakElement) elemIter.previous();
-            breakElement.setPenaltyValue(KnuthElement.INFINITE);
-        } else {
-            elemIter.remove();
+        LinkedList takeElements() {
+            LinkedList returnList = elements;
+            elements = new LinkedList();
+            ListElement elem;
+            do {
+                elem = (ListElement) returnList.removeLast();
+                elements.addFirst(elem);
+            } while (!(elem instanceof BreakElement));
+            return returnList;
         }
-        context.updateKeepWithPreviousPending(keepWithPrevious);
-        context.setBreakBefore(breakBefore);
 
-        //fox:widow-content-limit
-        int widowContentLimit = getTableLM().getTable().getWidowContentLimit().getValue();
-        if (widowContentLimit != 0 && bodyType == TableRowIterator.BODY) {
-            ElementListUtils.removeLegalBreaks(returnList, widowContentLimit);
-        }
-        //fox:orphan-content-limit
-        int orphanContentLimit = getTableLM().getTable().getOrphanContentLimit().getValue();
-        if (orphanContentLimit != 0 && bodyType == TableRowIterator.BODY) {
-            ElementListUtils.removeLegalBreaksFromEnd(returnList, orphanContentLimit);
-        }
+        /**
+         * Returns the remaining elements, once the elements for the last row group have been
+         * created.
+         * @return the elements
+         */
+        LinkedList finish() {
+            LinkedList returnList = elements;
+            elements = null;
+            /*
+             * The last break produced for the last row-group of this table part must be
+             * removed, because the breaking after the table will be handled by TableLM.
+             * Unless the element list ends with a glue, which must be kept to accurately
+             * represent the content. In such a case the break is simply disabled by setting
+             * its penalty to infinite.
+             */
+            ListIterator elemIter = returnList.listIterator(returnList.size());
+            ListElement elem = (ListElement) elemIter.previous();
+            if (elem instanceof KnuthGlue) {
+                BreakElement breakElement = (BreakElement) elemIter.previous();
+                breakElement.setPenaltyValue(KnuthElement.INFINITE);
+            } else {
+                elemIter.remove();
+            }
+            context.updateKeepWithPreviousPending(keepWithPrevious);
+            context.setBreakBefore(breakBefore);
 
-        return returnList;
+            //fox:widow-content-limit
+            int widowContentLimit = getTableLM().getTable().getWidowContentLimit().getValue();
+            if (widowContentLimit != 0 && bodyType == TableRowIterator.BODY) {
+                ElementListUtils.removeLegalBreaks(returnList, widowContentLimit);
+            }
+            //fox:orphan-content-limit
+            int orphanContentLimit = getTableLM().getTable().getOrphanContentLimit().getValue();
+            if (orphanContentLimit != 0 && bodyType == TableRowIterator.BODY) {
+                ElementListUtils.removeLegalBreaksFromEnd(returnList, orphanContentLimit);
+            }
+
+            return returnList;
+        }
     }
 
     /**
@@ -461,11 +580,13 @@ public class TableContentLayoutManager implements PercentBaseContext {
             boolean lastOnPage) {
         painter.startBody();
         List lst = new java.util.ArrayList();
+        List finishedGridUnits = new java.util.ArrayList();
         TableContentPosition pos = (TableContentPosition) iterator.next();
         boolean isFirstPos = pos.getFlag(TableContentPosition.FIRST_IN_ROWGROUP)
                 && pos.getRow().getFlag(EffRow.FIRST_IN_PART);
         TablePart part = pos.getTablePart();
         lst.add(pos);
+        collectGridUnits(pos, finishedGridUnits);
         while (iterator.hasNext()) {
             pos = (TableContentPosition) iterator.next();
             if (pos.getTablePart() != part) {
@@ -475,11 +596,38 @@ public class TableContentLayoutManager implements PercentBaseContext {
                 part = pos.getTablePart();
             }
             lst.add(pos);
+            collectGridUnits(pos, finishedGridUnits);
         }
         boolean isLastPos = pos.getFlag(TableContentPosition.LAST_IN_ROWGROUP)
                 && pos.getRow().getFlag(EffRow.LAST_IN_PART);
         addTablePartAreas(lst, painter, part, isFirstPos, isLastPos, true, lastOnPage);
         painter.endBody();
+        /*
+         * The row groups which ended on this page will never be handled again, so their
+         * cell layout managers and element lists no longer need to be kept in memory
+         * until the end of the page-sequence. With the streaming layout of the table body
+         * (see TableLayoutManager.isStreamingLayout()), only the row groups of the pages
+         * being broken have their layout data at a given time.
+         */
+        for (Iterator iter = finishedGridUnits.iterator(); iter.hasNext();) {
+            ((PrimaryGridUnit) iter.next()).releaseLayoutData();
+        }
+    }
+
+    /**
+     * Records the grid units contributing to the given body position. If the position
+     * ends its row group, the grid units of the whole row group are moved to the given
+     * list of finished grid units.
+     */
+    private void collectGridUnits(TableContentPosition pos, List finishedGridUnits) {
+        for (Iterator iter = pos.cellParts.iterator(); iter.hasNext();) {
+            PrimaryGridUnit pgu = ((CellPart) iter.next()).pgu;
+            pendingGridUnits.put(pgu, null);
+        }
+        if (pos.getFlag(TableContentPosition.LAST_IN_ROWGROUP)) {
+            finishedGridUnits.addAll(pendingGridUnits.keySet());
+            pendingGridUnits.clear();
+        }
     }
 
     /**
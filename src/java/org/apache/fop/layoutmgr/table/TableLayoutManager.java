@@ -40,6 +40,7 @@ import org.apache.fop.layoutmgr.BlockLevelEventProducer;
 import org.apache.fop.layoutmgr.BlockStackingLayoutManager;
 import org.apache.fop.layoutmgr.BreakElement;
 import org.apache.fop.layoutmgr.ConditionalElementListener;
+import org.apache.fop.layoutmgr.FlowLayoutManager;
 import org.apache.fop.layoutmgr.KnuthElement;
 import org.apache.fop.layoutmgr.KnuthGlue;
 import org.apache.fop.layoutmgr.LayoutContext;
@@ -70,6 +71,8 @@ public class TableLayoutManager extends BlockStackingLayoutManager
     private static Log log = LogFactory.getLog(TableLayoutManager.class);
 
     private TableContentLayoutManager contentLM;
+    /** The layout context of the content LM, while the table body is returned in parts. */
+    private LayoutContext contentLC;
     private ColumnSetup columns = null;
 
     private Block curBlockArea;
@@ -183,6 +186,9 @@ public class TableLayoutManager extends BlockStackingLayoutManager
 
     /** {@inheritDoc} */
     public List getNextKnuthElements(LayoutContext context, int alignment) {
+        if (contentLM != null && contentLM.hasNextBodyElements()) {
+            return getNextBodyElements(context, alignment);
+        }
 
         List returnList = new LinkedList();
 
@@ -251,6 +257,52 @@ public class TableLayoutManager extends BlockStackingLayoutManager
         childLC.copyPendingMarksFrom(context);
 
         contentKnuthElements = contentLM.getNextKnuthElements(childLC, alignment);
+        addContentElements(contentKnuthElements, returnList);
+
+        context.updateKeepWithPreviousPending(getKeepWithPrevious());
+        context.updateKeepWithPreviousPending(childLC.getKeepWithPreviousPending());
+
+        if (!context.suppressBreakBefore()) {
+            //addKnuthElementsForBreakBefore(returnList, context);
+            int breakBefore = BreakUtil.compareBreakClasses(getTable().getBreakBefore(),
+                    childLC.getBreakBefore());
+            if (breakBefore != Constants.EN_AUTO) {
+                returnList.add(0, new BreakElement(getAuxiliaryPosition(), 0,
+                        -KnuthElement.INFINITE, breakBefore, context));
+            }
+        }
+
+        if (contentLM.hasNextBodyElements()) {
+            //The rest of the table body is returned by the next calls
+            contentLC = childLC;
+            context.setContentPending(true);
+            return returnList;
+        }
+        addEndElements(returnList, context, childLC, alignment);
+        return returnList;
+    }
+
+    /**
+     * Returns the next part of the element list, when the table body is returned one row
+     * group at a time (see {@link #isStreamingLayout()}).
+     * @param context the layout context
+     * @param alignment the desired text alignment
+     * @return the elements of the next row group, followed by the end of the table after
+     * the last one
+     */
+    private List getNextBodyElements(LayoutContext context, int alignment) {
+        List returnList = new LinkedList();
+        addContentElements(contentLM.getNextBodyElements(), returnList);
+        if (contentLM.hasNextBodyElements()) {
+            context.setContentPending(true);
+        } else {
+            addEndElements(returnList, context, contentLC, alignment);
+            contentLC = null;
+        }
+        return returnList;
+    }
+
+    private void addContentElements(List contentKnuthElements, List returnList) {
         //Set index values on elements coming from the content LM
         Iterator iter = contentKnuthElements.iterator();
         while (iter.hasNext()) {
@@ -259,10 +311,18 @@ public class TableLayoutManager extends BlockStackingLayoutManager
         }
         log.debug(contentKnuthElements);
         wrapPositionElements(contentKnuthElements, returnList);
+    }
 
-        context.updateKeepWithPreviousPending(getKeepWithPrevious());
-        context.updateKeepWithPreviousPending(childLC.getKeepWithPreviousPending());
-
+    /**
+     * Adds the elements for the end of the table, after the content.
+     * @param returnList the element list
+     * @param context the layout context
+     * @param childLC the layout context of the content LM, which also holds the pending
+     * marks of the table
+     * @param alignment the desired text alignment
+     */
+    private void addEndElements(List returnList, LayoutContext context, LayoutContext childLC,
+            int alignment) {
         context.updateKeepWithNextPending(getKeepWithNext());
         context.updateKeepWithNextPending(childLC.getKeepWithNextPending());
 
@@ -271,27 +331,33 @@ public class TableLayoutManager extends BlockStackingLayoutManager
         }
         addKnuthElementsForSpaceAfter(returnList, alignment);
 
-        if (!context.suppressBreakBefore()) {
-            //addKnuthElementsForBreakBefore(returnList, context);
-            int breakBefore = BreakUtil.compareBreakClasses(getTable().getBreakBefore(),
-                    childLC.getBreakBefore());
-            if (breakBefore != Constants.EN_AUTO) {
-                returnList.add(0, new BreakElement(getAuxiliaryPosition(), 0,
-                        -KnuthElement.INFINITE, breakBefore, context));
-            }
-        }
-
         //addKnuthElementsForBreakAfter(returnList, context);
         int breakAfter = BreakUtil.compareBreakClasses(getTable().getBreakAfter(),
                 childLC.getBreakAfter());
         if (breakAfter != Constants.EN_AUTO) {
             returnList.add(new BreakElement(getAuxiliaryPosition(),
-                    0, -KnuthElement.INFINITE, breakAfter, context));
+                    0, -KnuthElement.INFINITE, breakAfter, childLC));
         }
 
         setFinished(true);
         resetSpaces();
-        return returnList;
+    }
+
+    /**
+     * Indicates whether the element list of the table body is returned one row group at a
+     * time, so the first pages of a large table can be broken, and their areas added, before
+     * the elements of its last rows are created. This is done when the page breaking looks
+     * ahead a bounded number of pages (see
+     * {@link org.apache.fop.apps.FOUserAgent#setPageBreakingLookahead(int)}), for tables
+     * directly in the flow which don't use fox:widow-content-limit or
+     * fox:orphan-content-limit, as they apply to the whole list.
+     * @return true if the table body is returned in several parts
+     */
+    boolean isStreamingLayout() {
+        return getParent() instanceof FlowLayoutManager
+                && getTable().getUserAgent().getPageBreakingLookahead() > 0
+                && getTable().getWidowContentLimit().getValue() == 0
+                && getTable().getOrphanContentLimit().getValue() == 0;
     }
 
     /** {@inheritDoc} */
@@ -84,6 +84,13 @@ public class TableRowIterator {
         }
     }
 
+    /**
+     * @return true if there is a next row group
+     */
+    boolean hasNextRowGroup() {
+        return rowGroupsIter.hasNext();
+    }
+
     /**
      * Returns the next row group if any. A row group in this context is the minimum number of
      * consecutive rows which contains all spanned grid units of its cells.
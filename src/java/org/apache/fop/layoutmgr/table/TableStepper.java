@@ -278,6 +278,10 @@ public class TableStepper {
         } while (step >= 0);
         assert !returnList.isEmpty();
         lastTCPos.setFlag(TableContentPosition.LAST_IN_ROWGROUP, true);
+        // Only the state of the current row group is kept
+        rowGroup = null;
+        activeCells.clear();
+        nextActiveCells.clear();
         return returnList;
     }
 
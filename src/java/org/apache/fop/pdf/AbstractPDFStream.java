@@ -20,7 +20,14 @@
 package org.apache.fop.pdf;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.Deflater;
 
 import org.apache.commons.io.output.CountingOutputStream;
 
@@ -34,6 +41,9 @@ public abstract class AbstractPDFStream extends PDFDictionary {
     /** The filters that should be applied */
     private PDFFilterList filters;
 
+    /** The encoded stream if encoding has been started in advance, null otherwise */
+    private Future<StreamCache> encodedStreamInAdvance;
+
     /**
      * Constructor for AbstractPDFStream.
      */
@@ -52,6 +62,10 @@ public abstract class AbstractPDFStream extends PDFDictionary {
                 getDefaultFilterName());
         }
         prepareImplicitFilters();
+        int compressionLevel = getDocument().getCompressionLevel();
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+            getFilterList().setCompressionLevel(compressionLevel);
+        }
         getDocument().applyEncryption(this);
     }
 
@@ -140,6 +154,64 @@ public abstract class AbstractPDFStream extends PDFDictionary {
         return encodedStream;
     }
 
+    /**
+     * Indicates whether this stream may be encoded on another thread before it is written.
+     * This requires {@link #outputRawStreamData(OutputStream)} and {@link #getSizeHint()}
+     * not to depend on any state shared with other objects.
+     * @return true if the stream can be encoded in advance
+     */
+    protected boolean isEncodingInAdvanceSupported() {
+        return false;
+    }
+
+    /**
+     * Indicates whether the encoding of this stream has been started in advance.
+     * @return true if the stream is being or has been encoded in advance
+     */
+    boolean isEncodedInAdvance() {
+        return this.encodedStreamInAdvance != null;
+    }
+
+    /**
+     * Starts encoding this stream in advance. The stream must not be modified anymore after
+     * this method has been called.
+     * @param executor the executor to run the encoding task on
+     */
+    void encodeInAdvance(Executor executor) {
+        setupFilterList();
+        FutureTask<StreamCache> task = new FutureTask<StreamCache>(
+                new Callable<StreamCache>() {
+                    public StreamCache call() throws IOException {
+                        return encodeStream();
+                    }
+                });
+        this.encodedStreamInAdvance = task;
+        executor.execute(task);
+    }
+
+    private StreamCache getEncodedStreamInAdvance() throws IOException {
+        try {
+            return this.encodedStreamInAdvance.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding " + this);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            IOException ioe = new IOException("Error while encoding " + this);
+            ioe.initCause(cause);
+            throw ioe;
+        } finally {
+            this.encodedStreamInAdvance = null;
+        }
+    }
+
     /**
      * Encodes and writes a stream directly to an OutputStream. The length of
      * the stream, in this case, is set on a PDFNumber object that has to be
@@ -181,7 +253,10 @@ public abstract class AbstractPDFStream extends PDFDictionary {
      */
     @Override
     protected int output(OutputStream stream) throws IOException {
-        setupFilterList();
+        boolean encodedInAdvance = isEncodedInAdvance();
+        if (!encodedInAdvance) {
+            setupFilterList();
+        }
 
         CountingOutputStream cout = new CountingOutputStream(stream);
         StringBuilder textBuffer = new StringBuilder(64);
@@ -190,7 +265,10 @@ public abstract class AbstractPDFStream extends PDFDictionary {
         StreamCache encodedStream = null;
         PDFNumber refLength = null;
         final Object lengthEntry;
-        if (isEncodingOnTheFly()) {
+        if (encodedInAdvance) {
+            encodedStream = getEncodedStreamInAdvance();
+            lengthEntry = Integer.valueOf(encodedStream.getSize() + 1);
+        } else if (isEncodingOnTheFly()) {
             refLength = new PDFNumber();
             getDocumentSafely().registerObject(refLength);
             lengthEntry = refLength;
@@ -21,8 +21,10 @@ package org.apache.fop.pdf;
 
 import java.io.IOException;
 import java.io.OutputStream;
-
-import org.apache.xmlgraphics.util.io.FlateEncodeOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 /**
  * A filter to deflate a stream.
@@ -74,11 +76,21 @@ public class FlateFilter extends PDFFilter {
      */
     public static final int PREDICTION_PNG_OPT = 15;
 
+    /** the maximum number of idle Deflater instances kept for reuse */
+    private static final int MAX_POOLED_DEFLATERS = 16;
+
+    /** the size of the buffer used to write the compressed data */
+    private static final int BUFFER_SIZE = 4096;
+
+    /** Deflater instances available for reuse (they keep large native buffers) */
+    private static final List<Deflater> DEFLATER_POOL = new ArrayList<Deflater>();
+
 
     private int predictor = PREDICTION_NONE;
     private int colors;
     private int bitsPerComponent;
     private int columns;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
 
     /**
      * Get the name of this filter.
@@ -208,13 +220,76 @@ public class FlateFilter extends PDFFilter {
     }
 
 
+    /**
+     * Sets the compression level used when this filter compresses data.
+     *
+     * @param level the compression level (0-9 or -1 for the default level)
+     * @see Deflater#setLevel(int)
+     */
+    public void setCompressionLevel(int level) {
+        if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+                && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.compressionLevel = level;
+    }
+
+    /**
+     * Returns the compression level used when this filter compresses data.
+     *
+     * @return the compression level
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
     /** {@inheritDoc} */
     public OutputStream applyFilter(OutputStream out) throws IOException {
         if (isApplied()) {
             return out;
         } else {
-            return new FlateEncodeOutputStream(out);
+            final Deflater deflater = acquireDeflater(compressionLevel);
+            return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+                private boolean closed = false;
+
+                public void close() throws IOException {
+                    if (!closed) {
+                        closed = true;
+                        try {
+                            super.close();
+                        } finally {
+                            releaseDeflater(deflater);
+                        }
+                    }
+                }
+            };
+        }
+    }
+
+    private static Deflater acquireDeflater(int level) {
+        Deflater deflater = null;
+        synchronized (DEFLATER_POOL) {
+            if (!DEFLATER_POOL.isEmpty()) {
+                deflater = DEFLATER_POOL.remove(DEFLATER_POOL.size() - 1);
+            }
+        }
+        if (deflater == null) {
+            deflater = new Deflater(level);
+        } else {
+            deflater.setLevel(level);
+        }
+        return deflater;
+    }
+
+    private static void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        synchronized (DEFLATER_POOL) {
+            if (DEFLATER_POOL.size() < MAX_POOLED_DEFLATERS) {
+                DEFLATER_POOL.add(deflater);
+                return;
+            }
         }
+        deflater.end();
     }
 
 }
@@ -20,6 +20,7 @@
 package org.apache.fop.pdf;
 
 // Java
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -33,10 +34,13 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.fonts.FontSubsetCache;
+
 /* image support modified from work of BoBoGi */
 /* font support based on work by Takayuki Takeuchi */
 
@@ -63,14 +67,18 @@ import org.apache.commons.logging.LogFactory;
  */
 public class PDFDocument {
 
-    private static final Long LOCATION_PLACEHOLDER = new Long(0);
-
     /** Integer constant to represent PDF 1.3 */
     public static final int PDF_VERSION_1_3 = 3;
 
     /** Integer constant to represent PDF 1.4 */
     public static final int PDF_VERSION_1_4 = 4;
 
+    /** Integer constant to represent PDF 1.5 */
+    public static final int PDF_VERSION_1_5 = 5;
+
+    /** the maximum number of objects packed into a single object stream */
+    private static final int MAX_OBJECTS_PER_STREAM = 100;
+
     /** the encoding to use when converting strings to PDF commands */
     public static final String ENCODING = "ISO-8859-1";
 
@@ -86,8 +94,20 @@ public class PDFDocument {
     /** character position of xref table */
     private long xref;
 
-    /** the character position of each object */
-    private List<Long> location = new ArrayList<Long>();
+    /**
+     * the character position of each object, indexed by object number - 1, or the index of
+     * the object within its object stream for objects contained in an object stream
+     */
+    private long[] locations = new long[1024];
+
+    /**
+     * the number of the object stream containing each object (0 for objects which are not
+     * part of an object stream), indexed by object number - 1
+     */
+    private int[] objectStreamNumbers = new int[1024];
+
+    /** the number of valid entries in {@link #locations} */
+    private int locationCount = 0;
 
     /** List of objects to write in the trailer */
     private List trailerObjects = new ArrayList();
@@ -184,6 +204,23 @@ public class PDFDocument {
 
     private FileIDGenerator fileIDGenerator;
 
+    private boolean streamingEnabled = false;
+
+    private boolean objectStreamsEnabled = false;
+
+    /** the object stream currently being filled (null if there's none) */
+    private PDFObjectStream objectStream;
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /** encodes streams on worker threads (null if streams are encoded when written) */
+    private ParallelStreamEncoder streamEncoder;
+
+    /** shares XObjects with identical content (null if XObjects are not deduplicated) */
+    private XObjectDigestRegistry xObjectDigestRegistry;
+
+    private FontSubsetCache fontSubsetCache;
+
     /**
      * Creates an empty PDF document.
      *
@@ -228,6 +265,8 @@ public class PDFDocument {
             return "1.3";
         case PDF_VERSION_1_4:
             return "1.4";
+        case PDF_VERSION_1_5:
+            return "1.5";
         default:
             throw new IllegalStateException("Unsupported PDF version selected");
         }
@@ -286,6 +325,160 @@ public class PDFDocument {
         textBuffer.setLength(0);
     }
 
+    /**
+     * Indicates whether streaming mode is enabled.
+     * @return true if objects are released as soon as they are written
+     * @see #setStreamingEnabled(boolean)
+     */
+    public boolean isStreamingEnabled() {
+        return this.streamingEnabled;
+    }
+
+    /**
+     * Enables or disables streaming mode. In streaming mode, the document releases all
+     * page-scoped objects (link annotations, go-to actions and the file specifications,
+     * remote go-to and launch actions used by links) as soon as they have been written by
+     * {@link #output(OutputStream)}, rather than keeping them until the end of the document
+     * for reuse by later pages. Go-to actions are written with the page that uses them
+     * instead of with the trailer. As a consequence, such objects are only shared between
+     * links on the same page.
+     * <p>
+     * After a page has been written, the document retains 8 bytes per indirect object
+     * (its offset for the cross-reference table) and the page's reference in the /Pages
+     * object (about 60 bytes). Document-level objects (fonts, images, the shared resources,
+     * destinations, outlines and the structure tree of tagged PDF) are still kept until the
+     * trailer is written.
+     * @param streamingEnabled true to enable streaming mode
+     */
+    public void setStreamingEnabled(boolean streamingEnabled) {
+        this.streamingEnabled = streamingEnabled;
+    }
+
+    /**
+     * Indicates whether object streams and a cross-reference stream are used.
+     * @return true if PDF 1.5 object streams are enabled
+     * @see #setObjectStreamsEnabled(boolean)
+     */
+    public boolean isObjectStreamsEnabled() {
+        return this.objectStreamsEnabled;
+    }
+
+    /**
+     * Enables or disables PDF 1.5 object streams. If enabled, the document is written as
+     * PDF 1.5, non-stream objects are packed into compressed object streams and the
+     * cross-reference table and trailer are replaced by a cross-reference stream. Objects
+     * are not packed into object streams if encryption is active. This method must be
+     * called before {@link #outputHeader(OutputStream)}.
+     * @param objectStreamsEnabled true to enable object streams
+     */
+    public void setObjectStreamsEnabled(boolean objectStreamsEnabled) {
+        this.objectStreamsEnabled = objectStreamsEnabled;
+        if (objectStreamsEnabled) {
+            this.pdfVersion = PDF_VERSION_1_5;
+        } else if (this.pdfVersion == PDF_VERSION_1_5) {
+            this.pdfVersion = PDF_VERSION_1_4;
+        }
+    }
+
+    /**
+     * Returns the compression level used by Flate filters.
+     * @return the compression level (0-9 or -1 for the default level)
+     */
+    public int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+
+    /**
+     * Sets the compression level used by Flate filters, trading compression speed
+     * for file size.
+     * @param level the compression level (0-9 or -1 for the default level)
+     * @see java.util.zip.Deflater#setLevel(int)
+     */
+    public void setCompressionLevel(int level) {
+        if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+                && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.compressionLevel = level;
+    }
+
+    /**
+     * Sets the number of threads used to encode (compress) content streams and images.
+     * With more than one thread, the streams of the objects passed to a call to
+     * {@link #output(OutputStream)} are encoded in parallel ahead of being written. They
+     * are still written in the same order, so the resulting file doesn't depend on the
+     * scheduling of the threads. A value of 0 or 1 encodes each stream on the calling
+     * thread when it is written. The threads of a previous setting are stopped.
+     * @param threadCount the number of encoding threads
+     * @see #shutdownEncoding()
+     */
+    public void setEncodingThreadCount(int threadCount) {
+        shutdownEncoding();
+        if (threadCount > 1) {
+            this.streamEncoder = new ParallelStreamEncoder(threadCount);
+        }
+    }
+
+    /**
+     * Stops the threads used to encode streams, if any. Streams written afterwards are
+     * encoded on the calling thread. This is done by {@link #outputTrailer(OutputStream)};
+     * call it if the document is abandoned before its trailer is written.
+     */
+    public void shutdownEncoding() {
+        if (this.streamEncoder != null) {
+            this.streamEncoder.shutdown();
+            this.streamEncoder = null;
+        }
+    }
+
+    /**
+     * Indicates whether streams are currently encoded on several threads.
+     * @return true if streams are encoded in parallel
+     */
+    boolean isEncodingInParallel() {
+        return this.streamEncoder != null;
+    }
+
+    /**
+     * Enables or disables the deduplication of XObjects by content. If enabled, images and
+     * form XObjects whose content is identical are only embedded once, even if they don't
+     * share the same key (for example because they are loaded from different URIs).
+     * @param enabled true to enable XObject deduplication
+     */
+    public void setXObjectDeduplicationEnabled(boolean enabled) {
+        if (enabled) {
+            if (this.xObjectDigestRegistry == null) {
+                this.xObjectDigestRegistry = new XObjectDigestRegistry();
+            }
+        } else {
+            this.xObjectDigestRegistry = null;
+        }
+    }
+
+    /**
+     * Returns the registry used to deduplicate XObjects by content.
+     * @return the registry or null if XObject deduplication is disabled
+     */
+    public XObjectDigestRegistry getXObjectDigestRegistry() {
+        return this.xObjectDigestRegistry;
+    }
+
+    /**
+     * Sets the cache of generated font subsets which is shared with other documents.
+     * @param cache the font subset cache (null to disable caching)
+     */
+    public void setFontSubsetCache(FontSubsetCache cache) {
+        this.fontSubsetCache = cache;
+    }
+
+    /**
+     * Returns the cache of generated font subsets.
+     * @return the font subset cache or null if subsets are not cached
+     */
+    public FontSubsetCache getFontSubsetCache() {
+        return this.fontSubsetCache;
+    }
+
     /**
      * Sets the producer of the document.
      *
@@ -474,6 +667,10 @@ public class PDFDocument {
         if (obj instanceof PDFGoToRemote) {
             this.gotoremotes.add(obj);
         }
+        if (obj instanceof PDFGoTo && this.streamingEnabled) {
+            //written with the current page instead of the trailer (see addTrailerObject())
+            this.gotos.add(obj);
+        }
     }
 
     /**
@@ -810,9 +1007,35 @@ public class PDFDocument {
      * @return the PDF XObject that references the PDF image data
      */
     public PDFImageXObject addImage(PDFResourceContext res, PDFImage img) {
+        return addImage(res, img, null, 0);
+    }
+
+    /**
+     * Add an image to the PDF document.
+     * This adds an image to the PDF objects.
+     * If an image with the same key already exists it will return the
+     * old {@link PDFXObject}. If XObject deduplication is enabled and an image with the
+     * same content digest already exists, that image is returned and is registered under
+     * the new image's key, too.
+     *
+     * @param res the PDF resource context to add to, may be null
+     * @param img the PDF image to add
+     * @param contentDigest the digest of the image content (may be null)
+     * @param contentSize the size of the image content in bytes
+     * @return the PDF XObject that references the PDF image data
+     * @see XObjectDigestRegistry
+     */
+    public PDFImageXObject addImage(PDFResourceContext res, PDFImage img,
+                String contentDigest, long contentSize) {
         // check if already created
         String key = img.getKey();
         PDFImageXObject xObject = (PDFImageXObject)this.xObjectsMap.get(key);
+        if (xObject == null && contentDigest != null && this.xObjectDigestRegistry != null) {
+            xObject = (PDFImageXObject)this.xObjectDigestRegistry.lookup(contentDigest);
+            if (xObject != null) {
+                this.xObjectsMap.put(key, xObject);
+            }
+        }
         if (xObject != null) {
             if (res != null) {
                 res.getPDFResources().addXObject(xObject);
@@ -830,6 +1053,9 @@ public class PDFDocument {
             res.getPDFResources().addXObject(xObject);
         }
         this.xObjectsMap.put(key, xObject);
+        if (contentDigest != null && this.xObjectDigestRegistry != null) {
+            this.xObjectDigestRegistry.register(contentDigest, xObject, contentSize);
+        }
         return xObject;
     }
 
@@ -908,10 +1134,35 @@ public class PDFDocument {
      * @param position  the position
      */
     private void setLocation(int objidx, long position) {
-        while (this.location.size() <= objidx) {
-            this.location.add(LOCATION_PLACEHOLDER);
+        ensureLocationCapacity(objidx);
+        this.locations[objidx] = position;
+        this.objectStreamNumbers[objidx] = 0;
+    }
+
+    /**
+     * Records the location of an object contained in an object stream.
+     * @param objidx the object's index
+     * @param streamNumber the object number of the object stream
+     * @param index the index of the object within the object stream
+     */
+    private void setCompressedLocation(int objidx, int streamNumber, int index) {
+        ensureLocationCapacity(objidx);
+        this.locations[objidx] = index;
+        this.objectStreamNumbers[objidx] = streamNumber;
+    }
+
+    private void ensureLocationCapacity(int objidx) {
+        if (objidx >= this.locations.length) {
+            int capacity = Math.max(objidx + 1, this.locations.length * 2);
+            long[] newLocations = new long[capacity];
+            System.arraycopy(this.locations, 0, newLocations, 0, this.locationCount);
+            this.locations = newLocations;
+            int[] newStreamNumbers = new int[capacity];
+            System.arraycopy(this.objectStreamNumbers, 0, newStreamNumbers, 0,
+                    this.locationCount);
+            this.objectStreamNumbers = newStreamNumbers;
         }
-        this.location.set(objidx, position);
+        this.locationCount = Math.max(this.locationCount, objidx + 1);
     }
 
     /**
@@ -924,9 +1175,27 @@ public class PDFDocument {
         //Write out objects until the list is empty. This approach (used with a
         //LinkedList) allows for output() methods to create and register objects
         //on the fly even during serialization.
+        if (this.streamEncoder != null) {
+            this.streamEncoder.prepare(this.objects);
+        }
         while (this.objects.size() > 0) {
             /* Retrieve first */
             PDFObject object = (PDFObject)this.objects.remove(0);
+            if (this.streamEncoder != null) {
+                this.streamEncoder.beforeOutput(object);
+            }
+            outputObject(object, stream);
+        }
+
+        if (streamingEnabled) {
+            releasePageScopedObjects();
+        }
+    }
+
+    private void outputObject(PDFObject object, OutputStream stream) throws IOException {
+        if (isObjectStreamCandidate(object)) {
+            addToObjectStream(object, stream);
+        } else {
             /*
              * add the position of this object to the list of object
              * locations
@@ -939,9 +1208,107 @@ public class PDFDocument {
              */
             this.position += object.output(stream);
         }
+    }
 
-        //Clear all objects written to the file
-        //this.objects.clear();
+    private boolean isObjectStreamCandidate(PDFObject object) {
+        //Streams can't be contained in object streams. Functions and patterns may contain
+        //stream data without being derived from AbstractPDFStream.
+        return this.objectStreamsEnabled
+                && !isEncryptionActive()
+                && object.getGeneration() == 0
+                && !(object instanceof AbstractPDFStream)
+                && !(object instanceof PDFFunction)
+                && !(object instanceof PDFPattern);
+    }
+
+    private void addToObjectStream(PDFObject object, OutputStream stream) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream(256);
+        object.output(bout);
+        byte[] serialized = bout.toByteArray();
+        byte[] content = stripObjectKeywords(object, serialized);
+        if (content == null) {
+            //Unexpected serialization, write the object normally
+            setLocation(object.getObjectNumber() - 1, this.position);
+            stream.write(serialized);
+            this.position += serialized.length;
+            return;
+        }
+        if (this.objectStream == null) {
+            this.objectStream = new PDFObjectStream();
+            assignObjectNumber(this.objectStream);
+        }
+        int index = this.objectStream.addObject(object.getObjectNumber(), content);
+        setCompressedLocation(object.getObjectNumber() - 1,
+                this.objectStream.getObjectNumber(), index);
+        if (this.objectStream.getObjectCount() >= MAX_OBJECTS_PER_STREAM) {
+            flushObjectStream(stream);
+        }
+    }
+
+    /**
+     * Removes the "n g obj" and "endobj" keywords from a serialized indirect object.
+     * @param object the object
+     * @param serialized the serialized object
+     * @return the object's content or null if the keywords could not be found
+     */
+    private static byte[] stripObjectKeywords(PDFObject object, byte[] serialized) {
+        byte[] start = encode(object.getObjectID());
+        byte[] end = encode("endobj");
+        int endIndex = serialized.length;
+        while (endIndex > 0 && isWhitespace(serialized[endIndex - 1])) {
+            endIndex--;
+        }
+        endIndex -= end.length;
+        if (endIndex < start.length
+                || !regionMatches(serialized, 0, start)
+                || !regionMatches(serialized, endIndex, end)) {
+            return null;
+        }
+        while (endIndex > start.length && isWhitespace(serialized[endIndex - 1])) {
+            endIndex--;
+        }
+        byte[] content = new byte[endIndex - start.length];
+        System.arraycopy(serialized, start.length, content, 0, content.length);
+        return content;
+    }
+
+    private static boolean regionMatches(byte[] data, int offset, byte[] region) {
+        for (int i = 0; i < region.length; i++) {
+            if (data[offset + i] != region[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Writes the object stream currently being filled, if any.
+     * @param stream the OutputStream to write to
+     * @throws IOException if there is an exception writing to the output stream
+     */
+    private void flushObjectStream(OutputStream stream) throws IOException {
+        if (this.objectStream != null) {
+            PDFObjectStream objStm = this.objectStream;
+            this.objectStream = null;
+            setLocation(objStm.getObjectNumber() - 1, this.position);
+            this.position += objStm.output(stream);
+        }
+    }
+
+    /**
+     * Forgets the page-scoped objects that were kept for reuse, so they can be garbage
+     * collected once written.
+     */
+    private void releasePageScopedObjects() {
+        this.links.clear();
+        this.gotos.clear();
+        this.filespecs.clear();
+        this.gotoremotes.clear();
+        this.launches.clear();
     }
 
     /**
@@ -989,11 +1356,24 @@ public class PDFDocument {
             }
             this.root.getNames().setDests(dests);
         }
-        output(stream);
+        try {
+            output(stream);
+        } finally {
+            shutdownEncoding();
+        }
+        if (this.xObjectDigestRegistry != null && log.isDebugEnabled()) {
+            log.debug("XObject deduplication: " + this.xObjectDigestRegistry.getHitCount()
+                    + " XObject(s) reused, "
+                    + this.xObjectDigestRegistry.getBytesSaved() + " bytes saved");
+        }
         for (int count = 0; count < this.trailerObjects.size(); count++) {
             PDFObject o = (PDFObject)this.trailerObjects.get(count);
-            setLocation(o.getObjectNumber() - 1, this.position);
-            this.position += o.output(stream);
+            outputObject(o, stream);
+        }
+        if (this.objectStreamsEnabled) {
+            flushObjectStream(stream);
+            outputXRefStream(stream);
+            return;
         }
         /* output the xref table and increment the character position
           by the table's length */
@@ -1045,9 +1425,9 @@ public class PDFDocument {
         pdf.append("\n0000000000 65535 f \n");
 
         String s, loc;
-        for (int count = 0; count < this.location.size(); count++) {
+        for (int count = 0; count < this.locationCount; count++) {
             final String padding = "0000000000";
-            s = this.location.get(count).toString();
+            s = Long.toString(this.locations[count]);
             if (s.length() > 10) {
                 throw new IOException("PDF file too large. PDF cannot grow beyond approx. 9.3GB.");
             }
@@ -1065,6 +1445,67 @@ public class PDFDocument {
         return pdfBytes.length;
     }
 
+    /**
+     * Writes a cross-reference stream which replaces both the xref table and the trailer.
+     * @param stream the OutputStream to write the cross-reference stream to
+     * @throws IOException if there is an exception writing to the output stream
+     */
+    private void outputXRefStream(OutputStream stream) throws IOException {
+        int xrefNumber = ++this.objectcount;
+        this.xref = this.position;
+        setLocation(xrefNumber - 1, this.position);
+
+        //Type (1 byte), offset or object stream number, generation or index (2 bytes)
+        int offsetWidth = 1;
+        while (offsetWidth < 8 && (this.position >>> (offsetWidth * 8)) != 0) {
+            offsetWidth++;
+        }
+        int[] fieldWidths = {1, offsetWidth, 2};
+        int entryLength = 1 + offsetWidth + 2;
+        byte[] entries = new byte[(this.objectcount + 1) * entryLength];
+        //Object 0 is the head of the (empty) list of free objects
+        writeXRefEntry(entries, 0, 0, 0, offsetWidth, 65535);
+        for (int i = 0; i < this.objectcount; i++) {
+            int offset = (i + 1) * entryLength;
+            if (this.objectStreamNumbers[i] != 0) {
+                writeXRefEntry(entries, offset, 2, this.objectStreamNumbers[i], offsetWidth,
+                        (int)this.locations[i]);
+            } else {
+                writeXRefEntry(entries, offset, 1, this.locations[i], offsetWidth, 0);
+            }
+        }
+
+        PDFXRefStream xrefStream = new PDFXRefStream(entries, fieldWidths);
+        xrefStream.setObjectNumber(xrefNumber);
+        xrefStream.setDocument(this);
+        xrefStream.put("Size", this.objectcount + 1);
+        xrefStream.put("Root", this.root.makeReference());
+        xrefStream.put("Info", this.info.makeReference());
+        FileIDGenerator gen = getFileIDGenerator();
+        if (this.isEncryptionActive()) {
+            xrefStream.put("Encrypt", ((PDFObject)this.encryption).makeReference());
+            xrefStream.setFileID(gen.getOriginalFileID(), gen.getUpdatedFileID());
+        } else {
+            xrefStream.setFileID(gen.getOriginalFileID(), gen.getOriginalFileID());
+        }
+        this.position += xrefStream.output(stream);
+
+        byte[] pdf = encode("startxref\n" + this.xref + "\n%%EOF\n");
+        stream.write(pdf);
+        this.position += pdf.length;
+    }
+
+    private static void writeXRefEntry(byte[] entries, int offset, int type,
+            long field2, int field2Width, int field3) {
+        entries[offset] = (byte)type;
+        for (int i = field2Width; i > 0; i--) {
+            entries[offset + i] = (byte)(field2 & 0xFF);
+            field2 >>>= 8;
+        }
+        entries[offset + field2Width + 1] = (byte)(field3 >>> 8);
+        entries[offset + field2Width + 2] = (byte)field3;
+    }
+
     long getCurrentFileSize() {
         return position;
     }
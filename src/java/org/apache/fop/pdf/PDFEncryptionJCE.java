@@ -40,6 +40,14 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
 
     private final MessageDigest digest;
 
+    /** the digests used to create the object keys while streams are encoded in parallel */
+    private static final ThreadLocal<MessageDigest> THREAD_DIGEST
+            = new ThreadLocal<MessageDigest>() {
+        protected MessageDigest initialValue() {
+            return createDigest();
+        }
+    };
+
     private byte[] encryptionKey;
 
     private String encryptionDictionary;
@@ -434,14 +442,18 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
 
     private PDFEncryptionJCE(int objectNumber, PDFEncryptionParams params, PDFDocument pdf) {
         setObjectNumber(objectNumber);
+        digest = createDigest();
+        setDocument(pdf);
+        EncryptionInitializer encryptionInitializer = new EncryptionInitializer(params);
+        encryptionInitializer.init();
+    }
+
+    private static MessageDigest createDigest() {
         try {
-            digest = MessageDigest.getInstance("MD5");
+            return MessageDigest.getInstance("MD5");
         } catch (NoSuchAlgorithmException e) {
             throw new UnsupportedOperationException(e.getMessage());
         }
-        setDocument(pdf);
-        EncryptionInitializer encryptionInitializer = new EncryptionInitializer(params);
-        encryptionInitializer.init();
     }
 
     /**
@@ -536,8 +548,16 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
         // Step 2
         byte[] md5Input = prepareMD5Input(objectNumber, generationNumber);
         // Step 3
-        digest.reset();
-        byte[] hash = digest.digest(md5Input);
+        MessageDigest md;
+        if (getDocumentSafely().isEncodingInParallel()) {
+            // Not the shared digest: streams are encrypted on worker threads
+            // (see ParallelStreamEncoder) while strings are encrypted on the writing thread
+            md = THREAD_DIGEST.get();
+        } else {
+            md = digest;
+            md.reset();
+        }
+        byte[] hash = md.digest(md5Input);
         // Step 4
         int keyLength = Math.min(16, md5Input.length);
         byte[] key = new byte[keyLength];
@@ -23,6 +23,7 @@ package org.apache.fop.pdf;
 import java.awt.Color;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -53,6 +54,7 @@ import org.apache.fop.fonts.CodePointMapping;
 import org.apache.fop.fonts.CustomFont;
 import org.apache.fop.fonts.FontDescriptor;
 import org.apache.fop.fonts.FontMetrics;
+import org.apache.fop.fonts.FontSubsetCache;
 import org.apache.fop.fonts.FontType;
 import org.apache.fop.fonts.LazyFont;
 import org.apache.fop.fonts.MultiByteFont;
@@ -1193,7 +1195,12 @@ public class PDFFactory {
         PDFGoTo oldgt = getDocument().findGoTo(gt);
         if (oldgt == null) {
             getDocument().assignObjectNumber(gt);
-            getDocument().addTrailerObject(gt);
+            if (getDocument().isStreamingEnabled()) {
+                //written with the current page, reused by findGoTo() until then
+                getDocument().addObject(gt);
+            } else {
+                getDocument().addTrailerObject(gt);
+            }
         } else {
             gt = oldgt;
         }
@@ -1697,11 +1704,30 @@ public class PDFFactory {
                     AbstractPDFStream embeddedFont;
                     if (desc.getFontType() == FontType.TYPE0) {
                         MultiByteFont mbfont = (MultiByteFont)font;
-                        FontFileReader reader = new FontFileReader(in);
-
-                        TTFSubSetFile subset = new TTFSubSetFile();
-                        byte[] subsetFont = subset.readFont(reader,
-                                             mbfont.getTTCName(), mbfont.getUsedGlyphs());
+                        FontSubsetCache subsetCache = getDocument().getFontSubsetCache();
+                        Object subsetKey = null;
+                        byte[] subsetFont = null;
+                        if (subsetCache != null) {
+                            subsetKey = FontSubsetCache.createKey(source.getSystemId(),
+                                    mbfont.getTTCName(), mbfont.getUsedGlyphs());
+                            subsetFont = subsetCache.get(subsetKey);
+                        }
+                        if (subsetFont == null) {
+                            //Map local font files instead of copying them onto the heap
+                            File fontFile = FontFileReader.getLocalFile(source.getSystemId());
+                            FontFileReader reader = (fontFile != null)
+                                    ? new FontFileReader(fontFile) : new FontFileReader(in);
+
+                            TTFSubSetFile subset = new TTFSubSetFile();
+                            subsetFont = subset.readFont(reader,
+                                    mbfont.getTTCName(), mbfont.getUsedGlyphs());
+                            if (subsetCache != null) {
+                                subsetCache.put(subsetKey, subsetFont);
+                            }
+                        } else if (log.isDebugEnabled()) {
+                            log.debug("Reusing cached subset of font " + desc.getEmbedFontName()
+                                    + " (" + subsetFont.length + " bytes)");
+                        }
                         // Only TrueType CID fonts are supported now
 
                         embeddedFont = new PDFTTFStream(subsetFont.length);
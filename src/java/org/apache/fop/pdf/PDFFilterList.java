@@ -95,6 +95,20 @@ public class PDFFilterList {
         return this.filters.size() > 0;
     }
 
+    /**
+     * Sets the compression level of all {@link FlateFilter}s in this list which have
+     * not been applied, yet.
+     * @param level the compression level (0-9 or -1 for the default level)
+     */
+    public void setCompressionLevel(int level) {
+        for (int i = 0; i < filters.size(); i++) {
+            Object filter = filters.get(i);
+            if (filter instanceof FlateFilter && !((FlateFilter)filter).isApplied()) {
+                ((FlateFilter)filter).setCompressionLevel(level);
+            }
+        }
+    }
+
     /**
      * Add a filter for compression of the stream. Filters are
      * applied in the order they are added. This should always be a
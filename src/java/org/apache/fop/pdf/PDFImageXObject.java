@@ -150,6 +150,11 @@ public class PDFImageXObject extends PDFXObject {
         return 0;
     }
 
+    /** {@inheritDoc} */
+    protected boolean isEncodingInAdvanceSupported() {
+        return true;
+    }
+
     /** {@inheritDoc} */
     protected void prepareImplicitFilters() {
         PDFFilter pdfFilter = pdfimage.getPDFFilter();
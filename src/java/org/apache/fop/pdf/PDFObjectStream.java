@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Class representing a PDF 1.5 object stream (see section 7.5.7 of ISO 32000-1). An object
+ * stream holds the serialized form of several non-stream objects which are thus compressed
+ * together with the stream's filters.
+ */
+public class PDFObjectStream extends AbstractPDFStream {
+
+    /** the header: pairs of object number and offset of the object in the body */
+    private StringBuilder header = new StringBuilder(256);
+
+    /** the body: the objects without their "obj"/"endobj" keywords */
+    private ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+
+    private int objectCount = 0;
+
+    /**
+     * Adds an object to this object stream.
+     * @param objectNumber the number of the object
+     * @param content the serialized object, without the "obj"/"endobj" keywords
+     * @return the index of the object within this object stream
+     */
+    public int addObject(int objectNumber, byte[] content) {
+        if (objectCount > 0) {
+            header.append(' ');
+            body.write('\n');
+        }
+        header.append(objectNumber).append(' ').append(body.size());
+        body.write(content, 0, content.length);
+        return objectCount++;
+    }
+
+    /**
+     * Returns the number of objects contained in this object stream.
+     * @return the number of objects
+     */
+    public int getObjectCount() {
+        return this.objectCount;
+    }
+
+    /** {@inheritDoc} */
+    protected boolean isEncodingOnTheFly() {
+        //The object stream is written after the document's object list has been processed,
+        //so an indirect /Length object would not be written anymore.
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    protected void populateStreamDict(Object lengthEntry) {
+        put("Type", new PDFName("ObjStm"));
+        put("N", objectCount);
+        put("First", header.length() + 1);
+        super.populateStreamDict(lengthEntry);
+    }
+
+    /** {@inheritDoc} */
+    protected int getSizeHint() throws IOException {
+        return header.length() + 1 + body.size();
+    }
+
+    /** {@inheritDoc} */
+    protected void outputRawStreamData(OutputStream out) throws IOException {
+        out.write(encode(header.toString()));
+        out.write('\n');
+        body.writeTo(out);
+    }
+
+    /** {@inheritDoc} */
+    protected int output(OutputStream stream) throws IOException {
+        final int len = super.output(stream);
+
+        //Now that the data has been written, it can be discarded.
+        this.header = null;
+        this.body = null;
+        return len;
+    }
+}
@@ -133,6 +133,11 @@ public class PDFStream extends AbstractPDFStream {
         data.outputContents(out);
     }
 
+    /** {@inheritDoc} */
+    protected boolean isEncodingInAdvanceSupported() {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Class representing a PDF 1.5 cross-reference stream (see section 7.5.8 of ISO 32000-1).
+ * It replaces both the cross-reference table and the trailer dictionary.
+ */
+public class PDFXRefStream extends AbstractPDFStream {
+
+    private final byte[] entries;
+
+    /**
+     * Creates a new cross-reference stream.
+     * @param entries the binary cross-reference entries
+     * @param fieldWidths the widths of the three fields of an entry, in bytes
+     */
+    public PDFXRefStream(byte[] entries, int[] fieldWidths) {
+        this.entries = entries;
+        put("Type", new PDFName("XRef"));
+        put("W", new PDFArray(this, fieldWidths));
+    }
+
+    /**
+     * Sets the file identifier (the /ID entry).
+     * @param originalFileID the original file identifier
+     * @param updatedFileID the updated file identifier
+     */
+    public void setFileID(byte[] originalFileID, byte[] updatedFileID) {
+        //The trailer entries must not be encrypted so they can't be written as normal strings
+        final String id = "[" + PDFText.toHex(originalFileID)
+                + " " + PDFText.toHex(updatedFileID) + "]";
+        put("ID", new PDFWritable() {
+            public void outputInline(OutputStream out, StringBuilder textBuffer) {
+                textBuffer.append(id);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    protected void setupFilterList() {
+        //Cross-reference streams are never encrypted
+        if (!getFilterList().isInitialized()) {
+            getFilterList().addDefaultFilters(
+                getDocumentSafely().getFilterMap(),
+                getDefaultFilterName());
+        }
+    }
+
+    /** {@inheritDoc} */
+    protected boolean isEncodingOnTheFly() {
+        //The cross-reference stream is the last object and can't have an indirect /Length
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    protected int getSizeHint() throws IOException {
+        return entries.length;
+    }
+
+    /** {@inheritDoc} */
+    protected void outputRawStreamData(OutputStream out) throws IOException {
+        out.write(entries);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes (i.e. compresses) PDF streams on a pool of worker threads ahead of their
+ * serialization by {@link PDFDocument#output(java.io.OutputStream)}. The streams are still
+ * written in the order of the document's object list, so the object order and the offsets
+ * in the resulting file don't depend on the timing of the worker threads. To bound the
+ * memory needed for the encoded data, only a limited number of streams is encoded ahead
+ * of the stream currently being written.
+ * <p>
+ * The worker threads are daemon threads which stop once they have been idle for a few
+ * seconds, so that they don't linger if the document is never finished (e.g. because
+ * rendering failed). When all worker threads are busy, a stream is encoded on the thread
+ * submitting it.
+ */
+class ParallelStreamEncoder {
+
+    /** the time (in seconds) after which an idle worker thread stops */
+    private static final long IDLE_TIMEOUT = 10;
+
+    private final ThreadPoolExecutor executor;
+
+    /** the maximum number of streams encoded ahead of serialization */
+    private final int lookahead;
+
+    /** the streams that may be encoded in advance but haven't been submitted, yet */
+    private final LinkedList<AbstractPDFStream> candidates = new LinkedList<AbstractPDFStream>();
+
+    /** the number of streams submitted for encoding and not yet written */
+    private int inFlight = 0;
+
+    /**
+     * Creates a new encoder.
+     * @param threadCount the number of worker threads
+     */
+    ParallelStreamEncoder(int threadCount) {
+        this.lookahead = threadCount * 2;
+        this.executor = new ThreadPoolExecutor(0, threadCount, IDLE_TIMEOUT, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            private int count = 0;
+
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "FOP PDF stream encoder " + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Notifies the encoder of the objects about to be written. The streams among them that
+     * support encoding in advance are submitted to the worker threads.
+     * @param objects the document's list of objects to be written
+     */
+    void prepare(List objects) {
+        Iterator iter = objects.iterator();
+        while (iter.hasNext()) {
+            Object obj = iter.next();
+            if (obj instanceof AbstractPDFStream) {
+                AbstractPDFStream stream = (AbstractPDFStream)obj;
+                if (stream.isEncodingInAdvanceSupported() && !stream.isEncodedInAdvance()) {
+                    candidates.add(stream);
+                }
+            }
+        }
+        submit();
+    }
+
+    /**
+     * Notifies the encoder that an object is about to be written.
+     * @param object the object
+     */
+    void beforeOutput(PDFObject object) {
+        if (object instanceof AbstractPDFStream) {
+            AbstractPDFStream stream = (AbstractPDFStream)object;
+            if (stream.isEncodedInAdvance()) {
+                inFlight--;
+                submit();
+            }
+        }
+    }
+
+    private void submit() {
+        while (inFlight < lookahead && !candidates.isEmpty()) {
+            AbstractPDFStream stream = candidates.removeFirst();
+            stream.encodeInAdvance(executor);
+            inFlight++;
+        }
+    }
+
+    /** Stops the worker threads. */
+    void shutdown() {
+        executor.shutdown();
+    }
+}
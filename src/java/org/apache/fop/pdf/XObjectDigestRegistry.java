@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Content-addressed registry of XObjects. XObjects are registered under a digest of their
+ * content (for example the decoded image data or the content stream of a form XObject), so
+ * identical content obtained from different sources (different URIs, data URLs, SVG
+ * documents etc.) is only embedded once in the PDF document.
+ */
+public class XObjectDigestRegistry {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    private int hitCount = 0;
+
+    private long bytesSaved = 0;
+
+    private static final class Entry {
+
+        private final PDFXObject xObject;
+
+        private final long size;
+
+        private Entry(PDFXObject xObject, long size) {
+            this.xObject = xObject;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Returns the XObject registered for the given digest. If there is one, the lookup is
+     * counted as a hit.
+     * @param digest the content digest
+     * @return the XObject or null if no XObject with this content has been registered
+     */
+    public PDFXObject lookup(String digest) {
+        Entry entry = entries.get(digest);
+        if (entry == null) {
+            return null;
+        }
+        hitCount++;
+        bytesSaved += entry.size;
+        return entry.xObject;
+    }
+
+    /**
+     * Registers an XObject under the digest of its content.
+     * @param digest the content digest
+     * @param xObject the XObject
+     * @param size the size of the content in bytes (used for statistics)
+     */
+    public void register(String digest, PDFXObject xObject, long size) {
+        entries.put(digest, new Entry(xObject, size));
+    }
+
+    /**
+     * Returns the number of lookups which found an already registered XObject, i.e. the
+     * number of XObjects which have not been embedded again.
+     * @return the number of hits
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of content bytes (before compression) which didn't have to be
+     * embedded again thanks to the registry.
+     * @return the number of bytes saved
+     */
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    /**
+     * Creates a new {@link Digester} to compute a content digest.
+     * @param type the type of content (e.g. "image" or "form"), becomes part of the digest
+     * @return the digester
+     */
+    public static Digester createDigester(String type) {
+        return new Digester(type);
+    }
+
+    /**
+     * An output stream computing the digest of the data written to it.
+     */
+    public static final class Digester extends OutputStream {
+
+        private final String type;
+
+        private final MessageDigest digest;
+
+        private long count = 0;
+
+        private Digester(String type) {
+            this.type = type;
+            try {
+                this.digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                //Every Java platform is required to support SHA-256
+                throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void write(int b) {
+            digest.update((byte)b);
+            count++;
+        }
+
+        /** {@inheritDoc} */
+        public void write(byte[] b, int off, int len) {
+            digest.update(b, off, len);
+            count += len;
+        }
+
+        /**
+         * Adds a value which is not part of the content but distinguishes contents (such as
+         * the image dimensions) to the digest.
+         * @param value the value
+         */
+        public void addProperty(String value) {
+            digest.update(PDFDocument.encode(value));
+            digest.update((byte)0);
+        }
+
+        /**
+         * Adds binary data which is not part of the content itself but distinguishes
+         * contents (such as a color profile) to the digest.
+         * @param value the value
+         */
+        public void addProperty(byte[] value) {
+            digest.update(value);
+            digest.update((byte)0);
+        }
+
+        /**
+         * Returns the number of content bytes written to this digester.
+         * @return the content size
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Completes the digest computation. The digester must not be used afterwards.
+         * @return the digest, prefixed with the content type
+         */
+        public String getDigest() {
+            return type + ":" + PDFText.toHex(digest.digest(), false);
+        }
+    }
+}
@@ -82,7 +82,8 @@ public class PrintRendererConfigurator extends AbstractRendererConfigurator
     }
 
     /**
-     * Builds the font list from configuration.
+     * Builds the font list from configuration. The font list is built only once per
+     * configuration and then kept by the {@link FontManager} for later documents.
      * @param cfg the configuration object
      * @param fontResolver a font resolver
      * @param listener the font event listener
@@ -100,14 +101,20 @@ public class PrintRendererConfigurator extends AbstractRendererConfigurator
                     ( userAgent.isComplexScriptFeaturesEnabled() );
         }
 
-        boolean strict = factory.validateUserConfigStrictly();
-
-        //Read font configuration
-        FontInfoConfigurator fontInfoConfigurator
-            = new FontInfoConfigurator(cfg, fontManager, fontResolver, listener, strict);
-        List<EmbedFontInfo> fontInfoList = new ArrayList<EmbedFontInfo>();
-        fontInfoConfigurator.configure(fontInfoList);
-        return fontInfoList;
+        //Reuse the font list if it has already been built from this configuration
+        String snapshotKey = "complex-scripts=" + userAgent.isComplexScriptFeaturesEnabled();
+        List<EmbedFontInfo> snapshot = fontManager.getFontSetupSnapshot(cfg, snapshotKey);
+        if (snapshot == null) {
+            boolean strict = factory.validateUserConfigStrictly();
+
+            //Read font configuration
+            FontInfoConfigurator fontInfoConfigurator
+                = new FontInfoConfigurator(cfg, fontManager, fontResolver, listener, strict);
+            List<EmbedFontInfo> fontInfoList = new ArrayList<EmbedFontInfo>();
+            fontInfoConfigurator.configure(fontInfoList);
+            snapshot = fontManager.putFontSetupSnapshot(cfg, snapshotKey, fontInfoList);
+        }
+        return new ArrayList<EmbedFontInfo>(snapshot);
     }
 
     // ---=== IFDocumentHandler configuration ===---
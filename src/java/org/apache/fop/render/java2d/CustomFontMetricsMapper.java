@@ -185,6 +185,11 @@ public class CustomFontMetricsMapper extends Typeface implements FontMetricsMapp
         return typeface.getKerningInfo();
     }
 
+    /** {@inheritDoc} */
+    public final int getKernValue(final int ch1, final int ch2) {
+        return typeface.getKernValue(ch1, ch2);
+    }
+
     /** {@inheritDoc} */
     public final int getWidth(final int i, final int size) {
         return typeface.getWidth(i, size);
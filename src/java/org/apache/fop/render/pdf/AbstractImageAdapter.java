@@ -20,11 +20,16 @@
 package org.apache.fop.render.pdf;
 import java.awt.color.ColorSpace;
 import java.awt.color.ICC_Profile;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
 import org.apache.xmlgraphics.java2d.color.profile.ColorProfileUtil;
 
 import org.apache.fop.pdf.PDFColor;
@@ -37,6 +42,7 @@ import org.apache.fop.pdf.PDFICCStream;
 import org.apache.fop.pdf.PDFImage;
 import org.apache.fop.pdf.PDFName;
 import org.apache.fop.pdf.PDFReference;
+import org.apache.fop.pdf.XObjectDigestRegistry;
 
 /**
  * Abstract PDFImage implementation for the PDF renderer.
@@ -202,6 +208,67 @@ public abstract class AbstractImageAdapter implements PDFImage {
         //nop
     }
 
+    /**
+     * Writes the content of the image to the given digester so identical images coming
+     * from different sources can share a single XObject. The digest must cover everything
+     * that ends up in the image XObject. Subclasses which support this override this method,
+     * call {@link #digestImageProperties(XObjectDigestRegistry.Digester)} and write the image
+     * data.
+     * @param digester the digester
+     * @return true if the digest has been computed, false if the image doesn't support
+     *          content digests
+     * @throws IOException if an I/O error occurs while reading the image data
+     */
+    protected boolean digestContent(XObjectDigestRegistry.Digester digester)
+                throws IOException {
+        return false;
+    }
+
+    /**
+     * Adds the properties common to all images (kind of image, dimensions, color space and
+     * color profile) to the given digester.
+     * @param digester the digester
+     */
+    protected void digestImageProperties(XObjectDigestRegistry.Digester digester) {
+        digester.addProperty(getClass().getName());
+        digester.addProperty(getWidth() + "x" + getHeight());
+        digester.addProperty(String.valueOf(getImageColorSpace().getType()));
+        ICC_Profile prof = getEffectiveICCProfile();
+        if (prof != null) {
+            digester.addProperty(prof.getData());
+        }
+    }
+
+    /**
+     * Writes the data of a raw image stream to the given digester. If the stream can only be
+     * read once, its data is buffered in memory and the image is changed to read from the
+     * buffer so the data is still available when the image is written.
+     * @param raw the raw image stream
+     * @param digester the digester
+     * @throws IOException if an I/O error occurs while reading the image data
+     */
+    protected static void digestRawStream(ImageRawStream raw,
+                XObjectDigestRegistry.Digester digester) throws IOException {
+        if (raw.isCacheable()) {
+            InputStream in = raw.createInputStream();
+            try {
+                IOUtils.copy(in, digester);
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+        } else {
+            InputStream in = raw.createInputStream();
+            byte[] data;
+            try {
+                data = IOUtils.toByteArray(in);
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+            raw.setInputStreamFactory(new ImageRawStream.ByteArrayStreamFactory(data));
+            digester.write(data, 0, data.length);
+        }
+    }
+
     /**
      * Converts a ColorSpace object to a PDFColorSpace object.
      * @param cs ColorSpace instance
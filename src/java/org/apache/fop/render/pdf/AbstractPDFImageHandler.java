@@ -24,8 +24,11 @@ import java.io.IOException;
 
 import org.apache.xmlgraphics.image.loader.Image;
 
+import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFImage;
+import org.apache.fop.pdf.PDFResourceContext;
 import org.apache.fop.pdf.PDFXObject;
+import org.apache.fop.pdf.XObjectDigestRegistry;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.RenderingContext;
 import org.apache.fop.render.pdf.PDFLogicalStructureHandler.MarkedContentInfo;
@@ -43,8 +46,8 @@ abstract class AbstractPDFImageHandler implements ImageHandler {
         PDFRenderingContext pdfContext = (PDFRenderingContext)context;
         PDFContentGenerator generator = pdfContext.getGenerator();
         PDFImage pdfimage = createPDFImage(image, image.getInfo().getOriginalURI());
-        PDFXObject xobj = generator.getDocument().addImage(
-                generator.getResourceContext(), pdfimage);
+        PDFXObject xobj = addImage(generator.getDocument(), generator.getResourceContext(),
+                pdfimage);
 
         float x = (float)pos.getX() / 1000f;
         float y = (float)pos.getY() / 1000f;
@@ -58,6 +61,20 @@ abstract class AbstractPDFImageHandler implements ImageHandler {
         }
     }
 
+    private static PDFXObject addImage(PDFDocument doc, PDFResourceContext res,
+                PDFImage pdfimage) throws IOException {
+        if (doc.getXObjectDigestRegistry() != null
+                && doc.getXObject(pdfimage.getKey()) == null
+                && pdfimage instanceof AbstractImageAdapter) {
+            XObjectDigestRegistry.Digester digester
+                    = XObjectDigestRegistry.createDigester("image");
+            if (((AbstractImageAdapter)pdfimage).digestContent(digester)) {
+                return doc.addImage(res, pdfimage, digester.getDigest(), digester.getCount());
+            }
+        }
+        return doc.addImage(res, pdfimage);
+    }
+
     /**
      * Creates a PDF image object out of the given image.
      *
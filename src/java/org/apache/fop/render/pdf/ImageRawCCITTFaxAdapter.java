@@ -31,6 +31,7 @@ import org.apache.fop.pdf.PDFDictionary;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFFilter;
 import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.XObjectDigestRegistry;
 
 /**
  * PDFImage implementation for the PDF renderer which handles raw CCITT fax images.
@@ -101,6 +102,16 @@ public class ImageRawCCITTFaxAdapter extends AbstractImageAdapter {
         getImage().writeTo(out);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean digestContent(XObjectDigestRegistry.Digester digester)
+                throws IOException {
+        digestImageProperties(digester);
+        digester.addProperty(String.valueOf(getImage().getCompression()));
+        digestRawStream(getImage(), digester);
+        return true;
+    }
+
     /** {@inheritDoc} */
     public String getFilterHint() {
         return PDFFilterList.TIFF_FILTER;
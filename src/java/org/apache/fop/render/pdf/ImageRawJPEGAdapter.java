@@ -35,6 +35,7 @@ import org.apache.fop.pdf.PDFDeviceColorSpace;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFFilter;
 import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.XObjectDigestRegistry;
 
 /**
  * PDFImage implementation for the PDF renderer which handles raw JPEG images.
@@ -169,6 +170,16 @@ public class ImageRawJPEGAdapter extends AbstractImageAdapter {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean digestContent(XObjectDigestRegistry.Digester digester)
+                throws IOException {
+        digestImageProperties(digester);
+        digester.addProperty(String.valueOf(isInverted()));
+        digestRawStream(getImage(), digester);
+        return true;
+    }
+
     /** {@inheritDoc} */
     public String getFilterHint() {
         return PDFFilterList.JPEG_FILTER;
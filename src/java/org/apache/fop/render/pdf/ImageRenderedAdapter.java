@@ -45,6 +45,7 @@ import org.apache.fop.pdf.PDFFilter;
 import org.apache.fop.pdf.PDFFilterList;
 import org.apache.fop.pdf.PDFName;
 import org.apache.fop.pdf.PDFReference;
+import org.apache.fop.pdf.XObjectDigestRegistry;
 
 /**
  * PDFImage implementation for the PDF renderer which handles RenderedImages.
@@ -230,6 +231,37 @@ public class ImageRenderedAdapter extends AbstractImageAdapter {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean digestContent(XObjectDigestRegistry.Digester digester)
+                throws IOException {
+        digestImageProperties(digester);
+        ColorModel cm = getEffectiveColorModel();
+        digester.addProperty(String.valueOf(getBitsPerComponent()));
+        if (cm instanceof IndexColorModel) {
+            IndexColorModel icm = (IndexColorModel)cm;
+            int[] palette = new int[icm.getMapSize()];
+            icm.getRGBs(palette);
+            StringBuffer sb = new StringBuffer();
+            for (int i = 0; i < palette.length; i++) {
+                sb.append(Integer.toHexString(palette[i])).append(' ');
+            }
+            digester.addProperty(sb.toString());
+        }
+        if (getImage().getTransparentColor() != null) {
+            digester.addProperty(getImage().getTransparentColor().toString());
+        }
+        encodingHelper.encode(digester);
+
+        //The soft mask is part of the image
+        RenderedImage ri = getImage().getRenderedImage();
+        ColorModel orgcm = ri.getColorModel();
+        if (orgcm.hasAlpha() && orgcm.getTransparency() == ColorModel.TRANSLUCENT) {
+            new AlphaRasterImage(getKey(), ri).outputContents(digester);
+        }
+        return true;
+    }
+
     private static final int MAX_HIVAL = 255;
 
     /** {@inheritDoc} */
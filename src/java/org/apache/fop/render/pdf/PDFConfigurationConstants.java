@@ -79,4 +79,24 @@ public interface PDFConfigurationConstants {
      * PDF/X profile is active).
      */
     String KEY_DISABLE_SRGB_COLORSPACE = "disable-srgb-colorspace";
+    /**
+     * Rendering Options key for enabling PDF 1.5 object streams and cross-reference streams
+     * (only possible if no PDF/A or PDF/X profile is active).
+     */
+    String KEY_OBJECT_STREAMS = "object-streams";
+    /**
+     * Rendering Options key for the compression level of the Flate filter (0-9 or -1 for the
+     * default level), datatype: Integer or String.
+     */
+    String KEY_COMPRESSION_LEVEL = "compression-level";
+    /**
+     * Rendering Options key for the number of threads used to compress streams in parallel,
+     * datatype: Integer or String.
+     */
+    String KEY_ENCODING_THREADS = "encoding-threads";
+    /**
+     * Rendering Options key for embedding images and SVG graphics with identical content
+     * only once, datatype: Boolean or String.
+     */
+    String KEY_DEDUPLICATE_XOBJECTS = "deduplicate-xobjects";
 }
@@ -172,6 +172,11 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
             currentPage = null;
         } catch (IOException ioe) {
             throw new IFException("I/O error in endDocument()", ioe);
+        } finally {
+            if (this.pdfDoc != null) {
+                //Stop the stream encoding threads if the trailer couldn't be written
+                this.pdfDoc.shutdownEncoding();
+            }
         }
         super.endDocument();
     }
@@ -22,6 +22,7 @@ package org.apache.fop.render.pdf;
 import java.awt.Color;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 
 import org.w3c.dom.Document;
@@ -42,6 +43,13 @@ import org.apache.xmlgraphics.util.UnitConv;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.image.loader.batik.BatikImageFlavors;
 import org.apache.fop.image.loader.batik.BatikUtil;
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.PDFFormXObject;
+import org.apache.fop.pdf.PDFResourceContext;
+import org.apache.fop.pdf.PDFStream;
+import org.apache.fop.pdf.PDFXObject;
+import org.apache.fop.pdf.XObjectDigestRegistry;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.ImageHandlerUtil;
 import org.apache.fop.render.RenderingContext;
@@ -165,6 +173,19 @@ public class PDFImageHandlerSVG implements ImageHandler {
 
         //SVGSVGElement svg = ((SVGDocument)doc).getRootElement();
 
+        //With XObject deduplication, the SVG is painted into a form XObject so identical
+        //SVG graphics (like a logo in the page header) are only embedded once. Links can't
+        //be shared between pages and tagged PDF needs the marked content on the page, so
+        //those are still painted directly into the page content.
+        PDFDocument pdfDoc = generator.getDocument();
+        StringBuffer formContent = null;
+        if (pdfDoc.getXObjectDigestRegistry() != null
+                && !context.getUserAgent().isAccessibilityEnabled()
+                && clonedDoc.getElementsByTagNameNS(SVGDOMImplementation.SVG_NAMESPACE_URI,
+                        SVGConstants.SVG_A_TAG).getLength() == 0) {
+            formContent = new StringBuffer();
+        }
+
         PDFGraphics2D graphics = new PDFGraphics2D(true, pdfContext.getFontInfo(),
                 generator.getDocument(),
                 generator.getResourceContext(), pdfContext.getPage().referencePDF(),
@@ -176,8 +197,12 @@ public class PDFImageHandlerSVG implements ImageHandler {
                 generator.comment("resolution scaling for " + uaResolution
                         + " -> " + deviceResolution);
             }
-            generator.add(
-                    CTMHelper.toPDFString(resolutionScaling, false) + " cm\n");
+            String cm = CTMHelper.toPDFString(resolutionScaling, false) + " cm\n";
+            if (formContent != null) {
+                formContent.append(cm);
+            } else {
+                generator.add(cm);
+            }
             graphics.scale(
                     1.0 / resolutionScaling.getScaleX(),
                     1.0 / resolutionScaling.getScaleY());
@@ -202,7 +227,14 @@ public class PDFImageHandlerSVG implements ImageHandler {
         try {
             root.paint(graphics);
             ctx.dispose();
-            generator.add(graphics.getString());
+            if (formContent != null) {
+                formContent.append(graphics.getString());
+                PDFXObject form = addForm(pdfDoc, generator.getResourceContext(),
+                        formContent.toString(), w / 1000f / sourceScale, h / 1000f / sourceScale);
+                generator.add(form.getName() + " Do\n");
+            } else {
+                generator.add(graphics.getString());
+            }
         } catch (Exception e) {
             SVGEventProducer eventProducer = SVGEventProducer.Provider.get(
                     context.getUserAgent().getEventBroadcaster());
@@ -219,6 +251,32 @@ public class PDFImageHandlerSVG implements ImageHandler {
         }
     }
 
+    private static PDFXObject addForm(PDFDocument pdfDoc, PDFResourceContext resourceContext,
+                String content, double width, double height) throws IOException {
+        Rectangle2D bbox = new Rectangle2D.Double(0, 0, width, height);
+        byte[] data = PDFDocument.encode(content);
+        XObjectDigestRegistry.Digester digester = XObjectDigestRegistry.createDigester("form");
+        digester.addProperty(bbox.toString());
+        digester.write(data, 0, data.length);
+        String digest = digester.getDigest();
+
+        XObjectDigestRegistry registry = pdfDoc.getXObjectDigestRegistry();
+        PDFXObject form = registry.lookup(digest);
+        if (form != null) {
+            resourceContext.getPDFResources().addXObject(form);
+        } else {
+            PDFStream stream = pdfDoc.getFactory().makeStream(
+                    PDFFilterList.CONTENT_FILTER, false);
+            stream.setData(data);
+            PDFFormXObject formXObject = pdfDoc.addFormXObject(resourceContext, stream,
+                    pdfDoc.getResources().makeReference(), digest);
+            formXObject.setBBox(bbox);
+            registry.register(digest, formXObject, data.length);
+            form = formXObject;
+        }
+        return form;
+    }
+
     /** {@inheritDoc} */
     public int getPriority() {
         return 400;
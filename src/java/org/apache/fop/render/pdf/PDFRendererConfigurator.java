@@ -157,6 +157,26 @@ public class PDFRendererConfigurator extends PrintRendererConfigurator {
             pdfUtil.setDisableSRGBColorSpace(
                     disableColorSpaceConfig.getValueAsBoolean(false));
         }
+        Configuration objectStreamsConfig = cfg.getChild(
+                PDFConfigurationConstants.KEY_OBJECT_STREAMS, false);
+        if (objectStreamsConfig != null) {
+            pdfUtil.setObjectStreams(objectStreamsConfig.getValueAsBoolean(false));
+        }
+        Configuration compressionLevelConfig = cfg.getChild(
+                PDFConfigurationConstants.KEY_COMPRESSION_LEVEL, false);
+        if (compressionLevelConfig != null) {
+            pdfUtil.setCompressionLevel(compressionLevelConfig.getValueAsInteger(-1));
+        }
+        Configuration encodingThreadsConfig = cfg.getChild(
+                PDFConfigurationConstants.KEY_ENCODING_THREADS, false);
+        if (encodingThreadsConfig != null) {
+            pdfUtil.setEncodingThreads(encodingThreadsConfig.getValueAsInteger(0));
+        }
+        Configuration deduplicateConfig = cfg.getChild(
+                PDFConfigurationConstants.KEY_DEDUPLICATE_XOBJECTS, false);
+        if (deduplicateConfig != null) {
+            pdfUtil.setDeduplicateXObjects(deduplicateConfig.getValueAsBoolean(false));
+        }
     }
 
     private int checkEncryptionLength(int encryptionLength) {
@@ -99,6 +99,18 @@ class PDFRenderingUtil implements PDFConfigurationConstants {
     /** controls whether the sRGB color space should be installed */
     protected boolean disableSRGBColorSpace = false;
 
+    /** controls whether PDF 1.5 object streams should be used */
+    protected boolean objectStreams = false;
+
+    /** the compression level of the Flate filter (-1 for the default level) */
+    protected int compressionLevel = -1;
+
+    /** the number of threads used to compress streams (0 or 1: no parallel compression) */
+    protected int encodingThreads = 0;
+
+    /** controls whether XObjects with identical content are only embedded once */
+    protected boolean deduplicateXObjects = false;
+
     /** Optional URI to an output profile to be used. */
     protected String outputProfileURI;
 
@@ -108,6 +120,16 @@ class PDFRenderingUtil implements PDFConfigurationConstants {
         initialize();
     }
 
+    private static int intValueOf(Object obj) {
+        if (obj instanceof Number) {
+            return ((Number)obj).intValue();
+        } else if (obj instanceof String) {
+            return Integer.parseInt((String)obj);
+        } else {
+            throw new IllegalArgumentException("Integer or String with a number expected.");
+        }
+    }
+
     private static boolean booleanValueOf(Object obj) {
         if (obj instanceof Boolean) {
             return ((Boolean)obj).booleanValue();
@@ -185,6 +207,23 @@ class PDFRenderingUtil implements PDFConfigurationConstants {
         if (disableSRGBColorSpace != null) {
             this.disableSRGBColorSpace = booleanValueOf(disableSRGBColorSpace);
         }
+        Object objectStreams = userAgent.getRendererOptions().get(KEY_OBJECT_STREAMS);
+        if (objectStreams != null) {
+            this.objectStreams = booleanValueOf(objectStreams);
+        }
+        Object compressionLevel = userAgent.getRendererOptions().get(KEY_COMPRESSION_LEVEL);
+        if (compressionLevel != null) {
+            this.compressionLevel = intValueOf(compressionLevel);
+        }
+        Object encodingThreads = userAgent.getRendererOptions().get(KEY_ENCODING_THREADS);
+        if (encodingThreads != null) {
+            this.encodingThreads = intValueOf(encodingThreads);
+        }
+        Object deduplicateXObjects = userAgent.getRendererOptions().get(
+                KEY_DEDUPLICATE_XOBJECTS);
+        if (deduplicateXObjects != null) {
+            this.deduplicateXObjects = booleanValueOf(deduplicateXObjects);
+        }
     }
 
     public FOUserAgent getUserAgent() {
@@ -224,6 +263,39 @@ class PDFRenderingUtil implements PDFConfigurationConstants {
         this.disableSRGBColorSpace = disable;
     }
 
+    /**
+     * Enables or disables PDF 1.5 object streams and cross-reference streams which make the
+     * document considerably smaller, especially tagged PDF.
+     * @param objectStreams true to enable, false to disable
+     */
+    public void setObjectStreams(boolean objectStreams) {
+        this.objectStreams = objectStreams;
+    }
+
+    /**
+     * Sets the compression level of the Flate filter.
+     * @param level the compression level (0-9 or -1 for the default level)
+     */
+    public void setCompressionLevel(int level) {
+        this.compressionLevel = level;
+    }
+
+    /**
+     * Sets the number of threads used to compress content streams and images in parallel.
+     * @param threadCount the number of threads (0 or 1 to compress on the rendering thread)
+     */
+    public void setEncodingThreads(int threadCount) {
+        this.encodingThreads = threadCount;
+    }
+
+    /**
+     * Enables or disables the deduplication of images and SVG graphics by content.
+     * @param deduplicate true to embed XObjects with identical content only once
+     */
+    public void setDeduplicateXObjects(boolean deduplicate) {
+        this.deduplicateXObjects = deduplicate;
+    }
+
     /**
      * Sets the filter map to be used by the PDF renderer.
      * @param filterMap the filter map
@@ -380,6 +452,19 @@ class PDFRenderingUtil implements PDFConfigurationConstants {
         updateInfo();
         updatePDFProfiles();
         pdfDoc.setFilterMap(filterMap);
+        pdfDoc.setStreamingEnabled(userAgent.isConserveMemoryPolicyEnabled());
+        pdfDoc.setCompressionLevel(compressionLevel);
+        pdfDoc.setEncodingThreadCount(encodingThreads);
+        pdfDoc.setXObjectDeduplicationEnabled(deduplicateXObjects);
+        pdfDoc.setFontSubsetCache(userAgent.getFactory().getFontManager().getSubsetCache());
+        if (objectStreams) {
+            if (pdfAMode.isPDFA1LevelB() || pdfXMode != PDFXMode.DISABLED) {
+                log.warn("Object streams are not allowed with " + pdfDoc.getProfile()
+                        + ". Object streams disabled.");
+            } else {
+                pdfDoc.setObjectStreamsEnabled(true);
+            }
+        }
         pdfDoc.outputHeader(out);
 
         //Setup encryption if necessary
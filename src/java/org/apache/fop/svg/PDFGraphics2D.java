@@ -71,6 +71,7 @@ import org.apache.xmlgraphics.java2d.GraphicContext;
 
 import org.apache.fop.fonts.Font;
 import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.fonts.FontMetrics;
 import org.apache.fop.fonts.FontSetup;
 import org.apache.fop.pdf.BitmapImage;
 import org.apache.fop.pdf.PDFAnnotList;
@@ -1339,8 +1340,7 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
         applyPaint(getPaint(), true);
         applyAlpha(c.getAlpha(), OPAQUE);
 
-        Map<Integer, Map<Integer, Integer>> kerning = fontState.getKerning();
-        boolean kerningAvailable = (kerning != null && !kerning.isEmpty());
+        boolean kerningAvailable = fontState.hasKerning();
 
         boolean useMultiByte = isMultiByteFont(currentFontName);
 
@@ -1397,9 +1397,8 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
             }
 
             if (kerningAvailable && (i + 1) < l) {
-                addKerning(currentStream, (Integer.valueOf(ch)),
-                           (Integer.valueOf(fontState.mapChar(s.charAt(i + 1)))),
-                           kerning, startText, endText);
+                addKerning(currentStream, ch, fontState.mapChar(s.charAt(i + 1)),
+                           fontState.getFontMetrics(), startText, endText);
             }
 
         }
@@ -1472,17 +1471,13 @@ public class PDFGraphics2D extends AbstractGraphics2D implements NativeImageHand
         return f.isMultiByte();
     }
 
-    private void addKerning(StringWriter buf, Integer ch1, Integer ch2,
-                            Map<Integer, Map<Integer, Integer>> kerning, String startText,
+    private void addKerning(StringWriter buf, int ch1, int ch2,
+                            FontMetrics metrics, String startText,
                             String endText) {
         preparePainting();
-        Map<Integer, Integer> kernPair = kerning.get(ch1);
-
-        if (kernPair != null) {
-            Integer width = kernPair.get(ch2);
-            if (width != null) {
-                currentStream.write(endText + (-width.intValue()) + " " + startText);
-            }
+        int width = metrics.getKernValue(ch1, ch2);
+        if (width != 0) {
+            currentStream.write(endText + (-width) + " " + startText);
         }
     }
 
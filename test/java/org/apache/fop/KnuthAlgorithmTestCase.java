@@ -20,6 +20,7 @@
 package org.apache.fop;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.util.List;
 
@@ -80,6 +81,38 @@ public class KnuthAlgorithmTestCase {
         assertEquals(5000, parts[1].difference);
     }
 
+    /**
+     * Tests that reusing the nodes of the algorithm for several runs and sequences
+     * doesn't change the breaks.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testNodeReuse() throws Exception {
+        MyBreakingAlgorithm algo = new MyBreakingAlgorithm(0, 0, true, true, 0);
+        algo.setConstantLineWidth(30000);
+        algo.findBreakingPoints(getKnuthSequence1(), 1, true, BreakingAlgorithm.ALL_BREAKS);
+        Part[] expected = algo.getParts();
+
+        algo = new MyBreakingAlgorithm(0, 0, true, true, 0);
+        algo.setNodeReuse(true);
+        algo.setConstantLineWidth(30000);
+        for (int i = 0; i < 3; i++) {
+            algo.resetState();
+            algo.findBreakingPoints(getKnuthSequence1(), 1, true, BreakingAlgorithm.ALL_BREAKS);
+            Part[] parts = algo.getParts();
+            assertEquals(expected.length, parts.length);
+            for (int j = 0; j < parts.length; j++) {
+                assertEquals(expected[j].position, parts[j].position);
+                assertEquals(expected[j].difference, parts[j].difference);
+                assertEquals(expected[j].ratio, parts[j].ratio, 0);
+            }
+            algo.clearParts();
+            algo.releaseNodes();
+            assertNull(algo.getNode(0));
+            assertNull(algo.getSequence());
+        }
+    }
+
     private class Part {
         private int difference;
         private double ratio;
@@ -99,6 +132,34 @@ public class KnuthAlgorithmTestCase {
             return (Part[])parts.toArray(new Part[parts.size()]);
         }
 
+        public void clearParts() {
+            parts.clear();
+        }
+
+        @Override
+        protected void setNodeReuse(boolean reuseNodes) {
+            super.setNodeReuse(reuseNodes);
+        }
+
+        @Override
+        protected void resetState() {
+            super.resetState();
+        }
+
+        @Override
+        protected void releaseNodes() {
+            super.releaseNodes();
+        }
+
+        @Override
+        protected KnuthNode getNode(int line) {
+            return super.getNode(line);
+        }
+
+        public KnuthSequence getSequence() {
+            return par;
+        }
+
         public void updateData1(int total, double demerits) {
             //nop
         }
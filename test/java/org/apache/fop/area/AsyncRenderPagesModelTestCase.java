@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.render.xml.XMLRenderer;
+
+/**
+ * Tests that rendering the pages on a separate thread produces the same output as
+ * rendering them on the layout thread, and that rendering errors reach the caller.
+ */
+public class AsyncRenderPagesModelTestCase {
+
+    private FopFactory fopFactory = FopFactory.newInstance();
+
+    /**
+     * Builds a document with a forward page-number-citation, so some pages are prepared
+     * and only rendered once the citation is resolved.
+     */
+    private String createDocument() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'>"
+                + "<fo:layout-master-set>"
+                + "<fo:simple-page-master master-name='A6' page-height='10cm' page-width='10cm'>"
+                + "<fo:region-body margin='1cm'/></fo:simple-page-master>"
+                + "</fo:layout-master-set>");
+        for (int i = 0; i < 3; i++) {
+            sb.append("<fo:page-sequence master-reference='A6'>"
+                    + "<fo:flow flow-name='xsl-region-body'>");
+            if (i == 0) {
+                sb.append("<fo:block>The end is on page "
+                        + "<fo:page-number-citation ref-id='end'/></fo:block>");
+            }
+            for (int j = 0; j < 40; j++) {
+                sb.append("<fo:block>Block " + j + " of page-sequence " + i
+                        + ", lorem ipsum dolor sit amet</fo:block>");
+            }
+            if (i == 2) {
+                sb.append("<fo:block id='end'>The end</fo:block>");
+            }
+            sb.append("</fo:flow></fo:page-sequence>");
+        }
+        sb.append("</fo:root>");
+        return sb.toString();
+    }
+
+    private Fop render(FOUserAgent userAgent, ByteArrayOutputStream out) throws Exception {
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(createDocument())),
+                new SAXResult(fop.getDefaultHandler()));
+        return fop;
+    }
+
+    private String renderAreaTree(int renderingQueueSize) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setRenderingQueueSize(renderingQueueSize);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = render(userAgent, out);
+        assertTrue(fop.getResults().getPageCount() > 6);
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void testSameAreaTree() throws Exception {
+        String expected = renderAreaTree(0);
+        assertEquals(expected, renderAreaTree(1));
+        assertEquals(expected, renderAreaTree(4));
+    }
+
+    @Test
+    public void testRenderingThreadEndsWithDocument() throws Exception {
+        final Thread[] renderingThread = new Thread[1];
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setRenderingQueueSize(1000);
+        XMLRenderer renderer = new XMLRenderer() {
+            public void renderPage(PageViewport page) throws IOException, FOPException {
+                renderingThread[0] = Thread.currentThread();
+                super.renderPage(page);
+            }
+        };
+        renderer.setUserAgent(userAgent);
+        userAgent.setRendererOverride(renderer);
+        render(userAgent, new ByteArrayOutputStream());
+        assertNotSame(Thread.currentThread(), renderingThread[0]);
+        renderingThread[0].join(10000);
+        assertFalse(renderingThread[0].isAlive());
+    }
+
+    @Test
+    public void testRenderingErrorIsPropagated() throws Exception {
+        final IllegalStateException error = new IllegalStateException("rendering failed");
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setRenderingQueueSize(2);
+        XMLRenderer renderer = new XMLRenderer() {
+            private int count;
+
+            public void renderPage(PageViewport page) throws IOException, FOPException {
+                if (++count == 3) {
+                    throw error;
+                }
+                super.renderPage(page);
+            }
+        };
+        renderer.setUserAgent(userAgent);
+        userAgent.setRendererOverride(renderer);
+        try {
+            render(userAgent, new ByteArrayOutputStream());
+            fail("The rendering error must be thrown by the layout thread");
+        } catch (Exception e) {
+            Throwable cause = e;
+            while (cause != null && cause != error) {
+                cause = cause.getCause();
+            }
+            assertSame(error, cause);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Tests that laying out independent page-sequences on worker threads produces the same
+ * area tree as laying them out sequentially.
+ */
+public class PageSequenceDispatcherTestCase {
+
+    private static final Pattern PAGE_KEY = Pattern.compile("\\bP\\d+\\b");
+
+    private static final String TITLE = "Independent page-sequences";
+
+    private FopFactory fopFactory = FopFactory.newInstance();
+
+    /**
+     * Builds a document with many page-sequences: most restart their page numbers and only
+     * cite IDs inside themselves, one continues the page numbering of its predecessor and
+     * one cites an ID in a following page-sequence. All contain links to other
+     * page-sequences.
+     */
+    private String createDocument() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'>"
+                + "<fo:layout-master-set>"
+                + "<fo:simple-page-master master-name='A6' page-height='10cm' page-width='10cm'>"
+                + "<fo:region-body margin='1cm'/><fo:region-after extent='1cm'/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:declarations><x:xmpmeta xmlns:x='adobe:ns:meta/'>"
+                + "<rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>"
+                + "<rdf:Description rdf:about='' xmlns:dc='http://purl.org/dc/elements/1.1/'>"
+                + "<dc:title>" + TITLE + "</dc:title></rdf:Description></rdf:RDF></x:xmpmeta>"
+                + "</fo:declarations>");
+        int count = 12;
+        for (int i = 0; i < count; i++) {
+            String initialPageNumber = (i == 5) ? "auto" : "1";
+            sb.append("<fo:page-sequence master-reference='A6' id='seq" + i
+                    + "' initial-page-number='" + initialPageNumber + "'>"
+                    + "<fo:static-content flow-name='xsl-region-after'><fo:block>Page "
+                    + "<fo:page-number/> of <fo:page-number-citation-last ref-id='seq" + i
+                    + "'/></fo:block></fo:static-content>"
+                    + "<fo:flow flow-name='xsl-region-body'>");
+            for (int j = 0; j < 10 + i * 3; j++) {
+                sb.append("<fo:block id='b" + i + "_" + j + "'>Block " + j + " of page-sequence "
+                        + i + ", lorem ipsum dolor sit amet</fo:block>");
+            }
+            sb.append("<fo:block><fo:basic-link internal-destination='b" + ((i + 7) % count)
+                    + "_1'>link</fo:basic-link>");
+            if (i == 8) {
+                sb.append(" see page <fo:page-number-citation ref-id='b10_3'/>");
+            }
+            sb.append("</fo:block></fo:flow></fo:page-sequence>");
+        }
+        sb.append("</fo:root>");
+        return sb.toString();
+    }
+
+    private String renderAreaTree(String document, int layoutThreadCount) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setLayoutThreadCount(layoutThreadCount);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(document)),
+                new SAXResult(fop.getDefaultHandler()));
+        assertEquals(55, fop.getResults().getPageCount());
+        return normalizePageKeys(out.toString("UTF-8"));
+    }
+
+    /**
+     * Page viewport keys are unique but their order depends on which page-sequence is laid
+     * out first, so they are renumbered in the order of their first appearance.
+     */
+    private String normalizePageKeys(String areaTree) {
+        Map<String, String> keys = new java.util.HashMap<String, String>();
+        StringBuffer sb = new StringBuffer();
+        Matcher matcher = PAGE_KEY.matcher(areaTree);
+        while (matcher.find()) {
+            String key = keys.get(matcher.group());
+            if (key == null) {
+                key = "K" + keys.size();
+                keys.put(matcher.group(), key);
+            }
+            matcher.appendReplacement(sb, key);
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    @Test
+    public void testSameAreaTreeAsSequentialLayout() throws Exception {
+        String document = createDocument();
+        String sequential = renderAreaTree(document, 0);
+        assertTrue(sequential.indexOf("internal-link") > 0);
+        for (int threads = 1; threads <= 4; threads++) {
+            assertEquals(sequential, renderAreaTree(document, threads));
+        }
+    }
+
+    @Test
+    public void testDeclarationsAddedOnce() throws Exception {
+        String areaTree = renderAreaTree(createDocument(), 4);
+        int first = areaTree.indexOf(TITLE);
+        assertTrue(first > 0);
+        assertEquals(-1, areaTree.indexOf(TITLE, first + 1));
+    }
+}
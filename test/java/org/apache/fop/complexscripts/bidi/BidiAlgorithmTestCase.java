@@ -23,10 +23,14 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.apache.fop.complexscripts.bidi.UnicodeBidiAlgorithm;
+import org.apache.fop.traits.Direction;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -93,6 +97,43 @@ public class BidiAlgorithmTestCase {
         }
     }
 
+    @Test
+    public void testTriggersBidi() throws Exception {
+        for ( int ch = 0; ch <= 0x10FFFF; ch++ ) {
+            if ( ( ch >= 0xD800 ) && ( ch <= 0xDFFF ) ) {
+                continue;
+            }
+            int bc = BidiClass.getBidiClass ( ch );
+            boolean expected = ( bc == BidiConstants.R ) || ( bc == BidiConstants.AL ) || ( bc == BidiConstants.AN )
+                || ( bc == BidiConstants.RLE ) || ( bc == BidiConstants.RLO );
+            String s = "latin " + new String ( Character.toChars ( ch ) ) + " text";
+            assertEquals ( "character " + Integer.toHexString ( ch ), expected, UnicodeBidiAlgorithm.triggersBidi ( s ) );
+        }
+        // ill-formed surrogates are left to full resolution, which reports them
+        assertTrue ( UnicodeBidiAlgorithm.triggersBidi ( "latin \uD800 text" ) );
+        assertTrue ( UnicodeBidiAlgorithm.triggersBidi ( "latin \uDC00 text" ) );
+        assertTrue ( UnicodeBidiAlgorithm.triggersBidi ( "latin \uD800" ) );
+        try {
+            UnicodeBidiAlgorithm.resolveLevels ( "latin \uD800 text", Direction.LR );
+            fail ( "isolated high surrogate not reported" );
+        } catch ( IllegalArgumentException e ) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testUnidirectionalText() throws Exception {
+        String s = "left-to-right (latin) text, \u00E9t\u00E9 \u03B1\u03B2\u03B3 \uD835\uDC00 \u2014 1, 2, 3";
+        assertNull ( UnicodeBidiAlgorithm.resolveLevels ( s, Direction.LR ) );
+        int[] levels = UnicodeBidiAlgorithm.resolveLevels ( s, Direction.RL );
+        assertNotNull ( levels );
+        assertEquals ( s.length(), levels.length );
+        levels = UnicodeBidiAlgorithm.resolveLevels ( s + " \u05D0", Direction.LR );
+        assertNotNull ( levels );
+        assertEquals ( 0, levels [ 0 ] );
+        assertEquals ( 1, levels [ s.length() + 1 ] );
+    }
+
     private void testBidiAlgorithm ( int testSet, int[] da ) throws Exception {
         if ( da.length < 1 ) {
             fail ( "test data is empty" );
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.bidi;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.traits.Direction;
+
+// CSOFF: NoWhitespaceAfterCheck
+// CSOFF: WhitespaceAroundCheck
+// CSOFF: MethodParamPadCheck
+
+/**
+ * Debug tool measuring the overhead of complex script features on purely left-to-right
+ * (Latin) input: the time taken and the memory allocated to resolve the bidirectional levels
+ * of Latin paragraphs, and the time taken to lay out a Latin document to the area tree with
+ * complex script features disabled and enabled. Pass the number of paragraphs of the document.
+ */
+public final class BidiResolutionBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private static final String PARAGRAPH = "Lorem ipsum dolor sit amet, consectetur adipisicing elit, "
+        + "sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, "
+        + "quis nostrud exercitation ullamco laboris nisi ut aliquip ex ea commodo consequat \u2014 "
+        + "\u201Cduis aute irure dolor\u201D in reprehenderit, 1.234,56 \u20AC.";
+
+    private BidiResolutionBenchmark() {
+    }
+
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ( bean instanceof com.sun.management.ThreadMXBean ) {
+            return ( (com.sun.management.ThreadMXBean) bean ).getThreadAllocatedBytes ( Thread.currentThread().getId() );
+        }
+        return 0;
+    }
+
+    private static String createDocument ( int paragraphs ) {
+        StringBuffer sb = new StringBuffer();
+        sb.append ( "<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'><fo:layout-master-set>"
+                    + "<fo:simple-page-master master-name='A4' page-height='29.7cm' page-width='21cm'>"
+                    + "<fo:region-body margin='2cm'/></fo:simple-page-master></fo:layout-master-set>"
+                    + "<fo:page-sequence master-reference='A4'><fo:flow flow-name='xsl-region-body'>" );
+        for ( int i = 0; i < paragraphs; i++ ) {
+            sb.append ( "<fo:block space-after='6pt'>" + i + ". " + PARAGRAPH
+                        + " <fo:inline font-weight='bold'>" + PARAGRAPH + "</fo:inline></fo:block>" );
+        }
+        sb.append ( "</fo:flow></fo:page-sequence></fo:root>" );
+        return sb.toString();
+    }
+
+    private static void render ( FopFactory fopFactory, String document, boolean complexScripts ) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setComplexScriptFeaturesEnabled ( complexScripts );
+        Fop fop = fopFactory.newFop ( MimeConstants.MIME_FOP_AREA_TREE, userAgent, new NullOutputStream() );
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform ( new StreamSource ( new StringReader ( document ) ), new SAXResult ( fop.getDefaultHandler() ) );
+    }
+
+    /**
+     * Main method.
+     * @param args the number of paragraphs of the document
+     * @throws Exception if the document cannot be laid out
+     */
+    public static void main ( String[] args ) throws Exception {
+        int paragraphs = ( args.length > 0 ) ? Integer.parseInt ( args[0] ) : 200;
+        String paragraph = PARAGRAPH + " " + PARAGRAPH;
+        int count = paragraphs * 100;
+        for ( int round = 0; round < ROUNDS; round++ ) {
+            long bytes = getAllocatedBytes();
+            long start = System.nanoTime();
+            for ( int i = 0; i < count; i++ ) {
+                UnicodeBidiAlgorithm.resolveLevels ( paragraph, Direction.LR );
+            }
+            long time = System.nanoTime() - start;
+            bytes = getAllocatedBytes() - bytes;
+            System.out.println ( "round " + round + ": resolve levels " + ( time / count ) + " ns/paragraph, "
+                                 + ( bytes / count ) + " bytes/paragraph allocated" );
+        }
+        FopFactory fopFactory = FopFactory.newInstance();
+        String document = createDocument ( paragraphs );
+        System.out.println ( paragraphs + " paragraphs" );
+        for ( int round = 0; round < ROUNDS; round++ ) {
+            for ( int complexScripts = 0; complexScripts <= 1; complexScripts++ ) {
+                long start = System.nanoTime();
+                render ( fopFactory, document, complexScripts == 1 );
+                long time = System.nanoTime() - start;
+                System.out.println ( "round " + round + ( ( complexScripts == 1 ) ? ": complex scripts enabled " : ": complex scripts disabled " )
+                                     + ( time / 1000000 ) + " ms" );
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.fonts;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.fop.complexscripts.util.GlyphSequence;
+import org.apache.fop.fonts.truetype.FontFileReader;
+import org.apache.fop.fonts.truetype.TTFFile;
+
+// CSOFF: NoWhitespaceAfterCheck
+// CSOFF: WhitespaceAroundCheck
+// CSOFF: MethodParamPadCheck
+
+/**
+ * Debug tool measuring the cost of loading the advanced typographic tables of a TrueType or
+ * OpenType font: the time taken to read the font with and without advanced tables, and the
+ * heap retained by the tables once read, and once a Latin word has been shaped with them.
+ * Pass a font file; by default, the DejaVu font used by the font tests is read.
+ */
+public final class AdvancedTableLoadBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private static final int FONTS = 20;
+
+    private AdvancedTableLoadBenchmark() {
+    }
+
+    private static TTFFile readFont ( File file, boolean useAdvanced ) throws IOException {
+        TTFFile ttf = new TTFFile ( false, useAdvanced );
+        ttf.readFont ( new FontFileReader ( file ), null );
+        return ttf;
+    }
+
+    private static long getUsedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for ( int i = 0; i < 3; i++ ) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static void shapeLatinWord ( GlyphSubstitutionTable gsub, GlyphPositioningTable gpos ) {
+        String word = "office";
+        int[] chars = new int [ word.length() ];
+        int[] glyphs = new int [ word.length() ];
+        int[] widths = new int [ word.length() ];
+        for ( int i = 0; i < glyphs.length; i++ ) {
+            chars [ i ] = word.charAt ( i );
+            glyphs [ i ] = i + 1;
+            widths [ i ] = 500;
+        }
+        GlyphSequence gs = new GlyphSequence ( IntBuffer.wrap ( chars ), IntBuffer.wrap ( glyphs ), null );
+        if ( gsub != null ) {
+            gs = gsub.substitute ( gs, "latn", "dflt" );
+        }
+        if ( gpos != null ) {
+            gpos.position ( gs, "latn", "dflt", 1000, widths, new int [ gs.getGlyphCount() ] [ 4 ] );
+        }
+    }
+
+    /**
+     * Main method.
+     * @param args a font file
+     * @throws IOException if the font cannot be read
+     */
+    public static void main ( String[] args ) throws IOException {
+        File file = new File ( ( args.length > 0 ) ? args[0] : "test/resources/fonts/ttf/DejaVuLGCSerif.ttf" );
+        System.out.println ( file );
+        for ( int round = 0; round < ROUNDS; round++ ) {
+            for ( int advanced = 0; advanced <= 1; advanced++ ) {
+                long start = System.nanoTime();
+                for ( int i = 0; i < FONTS; i++ ) {
+                    readFont ( file, advanced == 1 );
+                }
+                long time = ( System.nanoTime() - start ) / FONTS;
+                System.out.println ( "round " + round + ( ( advanced == 1 ) ? ": with advanced tables " : ": without advanced tables " )
+                                     + ( time / 1000 ) + " us/font" );
+            }
+        }
+        // retain the tables only, as fonts do once loaded
+        List<GlyphTable[]> tables = new ArrayList<GlyphTable[]>();
+        long used = getUsedMemory();
+        for ( int i = 0; i < FONTS; i++ ) {
+            TTFFile ttf = readFont ( file, true );
+            tables.add ( new GlyphTable[] { ttf.getGDEF(), ttf.getGSUB(), ttf.getGPOS() } );
+        }
+        long loaded = getUsedMemory();
+        for ( GlyphTable[] ta : tables ) {
+            shapeLatinWord ( (GlyphSubstitutionTable) ta [ 1 ], (GlyphPositioningTable) ta [ 2 ] );
+        }
+        long shaped = getUsedMemory();
+        System.out.println ( "advanced tables: " + ( ( loaded - used ) / FONTS / 1024 ) + " KB/font once loaded, "
+                             + ( ( shaped - used ) / FONTS / 1024 ) + " KB/font once a Latin word is shaped" );
+        tables.clear();
+    }
+}
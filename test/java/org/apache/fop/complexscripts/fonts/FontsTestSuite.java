@@ -33,7 +33,8 @@ import org.apache.fop.complexscripts.fonts.ttx.TTXFileTestCase;
     TTXFileTestCase.class,
     GDEFTestCase.class,
     GSUBTestCase.class,
-    GPOSTestCase.class
+    GPOSTestCase.class,
+    GlyphTableTestCase.class
 })
 public class FontsTestSuite {
 }
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.fonts;
+
+import java.io.File;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.fop.complexscripts.fonts.GlyphTable.LookupSpec;
+import org.apache.fop.complexscripts.fonts.GlyphTable.LookupTable;
+import org.apache.fop.complexscripts.fonts.GlyphTable.UseSpec;
+import org.apache.fop.complexscripts.fonts.ttx.TTXFile;
+import org.apache.fop.complexscripts.scripts.ScriptProcessor;
+import org.apache.fop.complexscripts.util.GlyphSequence;
+import org.apache.fop.fonts.truetype.FontFileReader;
+import org.apache.fop.fonts.truetype.TTFFile;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the caching of assembled lookups by {@link GlyphTable}, and the loading of lookup tables on first use.
+ */
+public class GlyphTableTestCase {
+
+    private static final String TTX_FONT = "test/resources/complexscripts/arab/ttx/arab-001.ttx";
+
+    @Test
+    public void testAssembledLookupsAreCached() {
+        TTXFile tf = TTXFile.getFromCache ( TTX_FONT );
+        ScriptProcessor sp = ScriptProcessor.getInstance ( "arab" );
+        GlyphTable[] tables = { tf.getGSUB(), tf.getGPOS() };
+        String[][] features = { sp.getSubstitutionFeatures(), sp.getPositioningFeatures() };
+        for ( int i = 0; i < tables.length; i++ ) {
+            GlyphTable table = tables [ i ];
+            UseSpec[] usa = table.getAssembledLookups ( "arab", "dflt", features [ i ] );
+            assertNotNull ( usa );
+            assertTrue ( usa.length > 0 );
+            UseSpec[] expected = table.assembleLookups ( features [ i ], table.matchLookups ( "arab", "dflt", "*" ) );
+            assertTrue ( Arrays.equals ( expected, usa ) );
+            assertSame ( usa, table.getAssembledLookups ( "arab", "dflt", features [ i ] ) );
+        }
+    }
+
+    @Test
+    public void testNoMatchingLookups() {
+        GlyphTable gsub = TTXFile.getFromCache ( TTX_FONT ).getGSUB();
+        String[] features = ScriptProcessor.getInstance ( "grek" ).getSubstitutionFeatures();
+        assertNull ( gsub.getAssembledLookups ( "grek", "dflt", features ) );
+        assertNull ( gsub.getAssembledLookups ( "grek", "dflt", features ) );
+    }
+
+    /** Loads single substitution lookup tables, of which "lu2" has an invalid format, recording loaded lookups. */
+    private static class SingleSubstitutionLoader implements GlyphTable.LookupTableLoader {
+        private final List<String> loaded = new ArrayList<String>();
+        public List getLookupIds() {
+            return Arrays.asList ( "lu0", "lu1", "lu2" );
+        }
+        public List loadSubtables ( String lid ) {
+            loaded.add ( lid );
+            if ( lid.equals ( "lu2" ) ) {
+                throw new AdvancedTypographicTableFormatException ( "invalid lookup table" );
+            }
+            int delta = lid.equals ( "lu0" ) ? 1 : 2;
+            return Collections.singletonList ( GlyphSubstitutionTable.createSubtable ( GlyphSubstitutionTable.GSUB_LOOKUP_TYPE_SINGLE, lid, 0, 0, 1,
+                Arrays.asList ( 10, 20 ), Arrays.asList ( delta ) ) );
+        }
+    }
+
+    @Test
+    public void testLookupTablesAreLoadedOnFirstUse() {
+        Map lookups = new java.util.LinkedHashMap();
+        lookups.put ( new LookupSpec ( "latn", "dflt", "liga" ), Arrays.asList ( "lu0" ) );
+        lookups.put ( new LookupSpec ( "arab", "dflt", "init" ), Arrays.asList ( "lu1" ) );
+        lookups.put ( new LookupSpec ( "arab", "dflt", "fina" ), Arrays.asList ( "lu2" ) );
+        SingleSubstitutionLoader loader = new SingleSubstitutionLoader();
+        GlyphSubstitutionTable gsub = new GlyphSubstitutionTable ( null, lookups, loader );
+        assertTrue ( loader.loaded.isEmpty() );
+        GlyphSequence gs = new GlyphSequence ( IntBuffer.wrap ( new int[] { 'a', 'b' } ), IntBuffer.wrap ( new int[] { 10, 15 } ), null );
+        GlyphSequence ogs = gsub.substitute ( gs, "latn", "dflt" );
+        assertEquals ( 11, ogs.getGlyph ( 0 ) );
+        assertEquals ( 15, ogs.getGlyph ( 1 ) );
+        assertEquals ( Arrays.asList ( "lu0" ), loader.loaded );
+        // the invalid lookup table is ignored, and neither lookup table is loaded again
+        List<LookupTable> ltl = gsub.getLookupTables();
+        assertEquals ( 2, ltl.size() );
+        assertNull ( gsub.getLookupTable ( "lu2" ) );
+        assertSame ( ltl.get ( 0 ), gsub.getLookupTable ( "lu0" ) );
+        assertEquals ( Arrays.asList ( "lu0", "lu1", "lu2" ), loader.loaded );
+    }
+
+    @Test
+    public void testLookupTablesOfFontFile() throws Exception {
+        TTFFile ttf = new TTFFile ( false, true );
+        ttf.readFont ( new FontFileReader ( new File ( "test/resources/fonts/ttf/DejaVuLGCSerif.ttf" ) ), null );
+        GlyphTable[] tables = { ttf.getGSUB(), ttf.getGPOS() };
+        for ( int i = 0; i < tables.length; i++ ) {
+            GlyphTable table = tables [ i ];
+            assertNotNull ( table );
+            assertTrue ( table.getLookups().size() > 0 );
+            List<LookupTable> ltl = table.getLookupTables();
+            assertTrue ( ltl.size() > 0 );
+            for ( LookupTable lt : ltl ) {
+                assertTrue ( lt.getSubtables().length > 0 );
+                assertSame ( lt, table.getLookupTable ( lt.getId() ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.scripts;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.fop.complexscripts.fonts.GlyphPositioningTable;
+import org.apache.fop.complexscripts.fonts.GlyphSubstitutionTable;
+import org.apache.fop.complexscripts.fonts.ttx.TTXFile;
+import org.apache.fop.complexscripts.util.GlyphSequence;
+
+// CSOFF: NoWhitespaceAfterCheck
+// CSOFF: WhitespaceAroundCheck
+// CSOFF: MethodParamPadCheck
+
+/**
+ * Debug tool measuring the throughput of glyph substitution and positioning, word by word as
+ * done when laying out text, with the lookups assembled once per script and language by the
+ * glyph tables, and with the lookups matched and assembled for every word, as before.
+ * Pass a TTX font file, a script, a language and a text file with one word per line; by
+ * default, the Arabic word forms and font used by the Arabic tests are shaped. For instance,
+ * pass the TTX dump of a Devanagari font, "dev2", "dflt" and a Devanagari word list to
+ * measure Indic shaping.
+ */
+public final class ShapingBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private ShapingBenchmark() {
+    }
+
+    private static List<String> readWords ( String filename ) throws IOException {
+        List<String> words = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader ( new InputStreamReader ( new FileInputStream ( filename ), "UTF-8" ) );
+        try {
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                line = line.trim();
+                if ( line.length() > 0 ) {
+                    words.add ( line );
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return words;
+    }
+
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ( bean instanceof com.sun.management.ThreadMXBean ) {
+            return ( (com.sun.management.ThreadMXBean) bean ).getThreadAllocatedBytes ( Thread.currentThread().getId() );
+        }
+        return 0;
+    }
+
+    private static long shape ( List<GlyphSequence> words, GlyphSubstitutionTable gsub, GlyphPositioningTable gpos,
+                                int[] widths, String script, String language, boolean cached ) {
+        ScriptProcessor sp = ScriptProcessor.getInstance ( script );
+        long checksum = 0;
+        for ( GlyphSequence igs : words ) {
+            GlyphSequence ogs;
+            if ( cached ) {
+                ogs = gsub.substitute ( igs, script, language );
+            } else {
+                ogs = sp.substitute ( gsub, igs, script, language, gsub.matchLookups ( script, language, "*" ) );
+            }
+            int[][] adjustments = new int [ ogs.getGlyphCount() ] [ 4 ];
+            if ( gpos != null ) {
+                if ( cached ) {
+                    gpos.position ( ogs, script, language, 1000, widths, adjustments );
+                } else {
+                    sp.position ( gpos, ogs, script, language, 1000, gpos.matchLookups ( script, language, "*" ), widths, adjustments );
+                }
+            }
+            checksum += ogs.getGlyphCount();
+        }
+        return checksum;
+    }
+
+    /**
+     * Main method.
+     * @param args a TTX font file, a script, a language and a word list
+     * @throws IOException if the word list cannot be read
+     */
+    public static void main ( String[] args ) throws IOException {
+        String ttx = ( args.length > 0 ) ? args[0] : "test/resources/complexscripts/arab/ttx/arab-001.ttx";
+        String script = ( args.length > 1 ) ? args[1] : "arab";
+        String language = ( args.length > 2 ) ? args[2] : "dflt";
+        String text = ( args.length > 3 ) ? args[3] : "test/resources/complexscripts/arab/data/arab-001.txt";
+        TTXFile tf = TTXFile.getFromCache ( ttx );
+        GlyphSubstitutionTable gsub = tf.getGSUB();
+        GlyphPositioningTable gpos = tf.getGPOS();
+        int[] widths = tf.getWidths();
+        List<GlyphSequence> words = new ArrayList<GlyphSequence>();
+        for ( String word : readWords ( text ) ) {
+            words.add ( tf.mapCharsToGlyphs ( word ) );
+        }
+        System.out.println ( ttx + ", script " + script + ", language " + language + ", " + words.size() + " words" );
+        for ( int round = 0; round < ROUNDS; round++ ) {
+            for ( int cached = 0; cached <= 1; cached++ ) {
+                long bytes = getAllocatedBytes();
+                long start = System.nanoTime();
+                shape ( words, gsub, gpos, widths, script, language, cached == 1 );
+                long time = System.nanoTime() - start;
+                bytes = getAllocatedBytes() - bytes;
+                System.out.println ( "round " + round + ( ( cached == 1 ) ? ": cached lookups " : ": assembled per word " )
+                                     + ( time / 1000000 ) + " ms, " + ( ( time / words.size() ) ) + " ns/word, "
+                                     + ( bytes / words.size() ) + " bytes/word allocated" );
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo;
+
+import java.io.File;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.expr.PropertyException;
+import org.apache.fop.fo.pagination.PageSequence;
+import org.apache.fop.fo.properties.Property;
+
+/**
+ * Debug tool measuring the time and the memory allocated to build the FO tree of a large
+ * document (without layout), with the sparse property storage of {@link StaticPropertyList}
+ * and with arrays holding a slot for every property, as before. Pass an FO file, or the
+ * number of blocks of a generated document.
+ */
+public final class PropertyListBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private PropertyListBenchmark() {
+    }
+
+    /** Property list storing the properties in arrays indexed by property ID. */
+    private static final class DensePropertyList extends PropertyList {
+
+        private final Property[] explicit = new Property[Constants.PROPERTY_COUNT + 1];
+        private final Property[] values = new Property[Constants.PROPERTY_COUNT + 1];
+
+        DensePropertyList(FObj fobj, PropertyList parentPropertyList) {
+            super(fobj, parentPropertyList);
+        }
+
+        public Property getExplicit(int propId) {
+            return explicit[propId];
+        }
+
+        public void putExplicit(int propId, Property value) {
+            explicit[propId] = value;
+            if (values[propId] != null) {
+                values[propId] = value;
+            }
+        }
+
+        public Property get(int propId, boolean bTryInherit, boolean bTryDefault)
+                throws PropertyException {
+            Property p = values[propId];
+            if (p == null) {
+                p = super.get(propId, bTryInherit, bTryDefault);
+                values[propId] = p;
+            }
+            return p;
+        }
+    }
+
+    /** Builds the FO tree only, optionally with the dense property lists. */
+    private static final class TreeOnlyHandler extends FOEventHandler {
+
+        private final boolean dense;
+
+        TreeOnlyHandler(FOUserAgent userAgent, boolean dense) {
+            super(userAgent);
+            this.dense = dense;
+        }
+
+        public void startPageSequence(PageSequence pageSeq) {
+            if (dense) {
+                pageSeq.getBuilderContext().setPropertyListMaker(new PropertyListMaker() {
+                    public PropertyList make(FObj fobj, PropertyList parentPropertyList) {
+                        return new DensePropertyList(fobj, parentPropertyList);
+                    }
+                });
+            }
+        }
+    }
+
+    private static String createDocument(int blocks) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'>"
+                + "<fo:layout-master-set><fo:simple-page-master master-name='A'>"
+                + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference='A'><fo:flow flow-name='xsl-region-body'>");
+        for (int i = 0; i < blocks; i++) {
+            sb.append("<fo:block space-before='3pt' font-size='10pt'>Block ").append(i)
+                    .append(" <fo:inline font-weight='bold'>bold</fo:inline> and <fo:inline"
+                            + " color='red'>red</fo:inline></fo:block>");
+        }
+        sb.append("</fo:flow></fo:page-sequence></fo:root>");
+        return sb.toString();
+    }
+
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static void buildTree(FopFactory fopFactory, Source src, boolean dense)
+            throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setFOEventHandlerOverride(new TreeOnlyHandler(userAgent, dense));
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(src, new SAXResult(fop.getDefaultHandler()));
+    }
+
+    /**
+     * Main method.
+     * @param args an FO file or the number of blocks of a generated document
+     * @throws Exception if an error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        File file = null;
+        String document = null;
+        if (args.length > 0 && new File(args[0]).isFile()) {
+            file = new File(args[0]);
+            System.out.println(file);
+        } else {
+            int blocks = (args.length > 0 ? Integer.parseInt(args[0]) : 100000);
+            document = createDocument(blocks);
+            System.out.println(blocks + " blocks with 2 inlines");
+        }
+        FopFactory fopFactory = FopFactory.newInstance();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int dense = 1; dense >= 0; dense--) {
+                Source src = (file != null ? new StreamSource(file)
+                        : new StreamSource(new StringReader(document)));
+                long bytes = getAllocatedBytes();
+                long start = System.nanoTime();
+                buildTree(fopFactory, src, dense == 1);
+                long time = System.nanoTime() - start;
+                bytes = getAllocatedBytes() - bytes;
+                System.out.println("round " + round + (dense == 1 ? ": dense " : ": sparse ")
+                        + (time / 1000000) + " ms, " + (bytes >> 20) + " MB allocated");
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.apache.fop.fo.properties.NumberProperty;
+import org.apache.fop.fo.properties.Property;
+
+/**
+ * Tests {@link SparsePropertyArray}.
+ */
+public class SparsePropertyArrayTestCase {
+
+    @Test
+    public void testPutAndGet() {
+        SparsePropertyArray array = new SparsePropertyArray();
+        Property[] expected = new Property[Constants.PROPERTY_COUNT + 1];
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int propId = 1 + random.nextInt(Constants.PROPERTY_COUNT);
+            Property value = (random.nextInt(4) == 0 ? null : NumberProperty.getInstance(i));
+            array.put(propId, value);
+            expected[propId] = value;
+            int size = 0;
+            for (int id = 1; id <= Constants.PROPERTY_COUNT; id++) {
+                assertSame(expected[id], array.get(id));
+                if (expected[id] != null) {
+                    size++;
+                }
+            }
+            assertEquals(size, array.size());
+        }
+    }
+
+    @Test
+    public void testRemoveMissing() {
+        SparsePropertyArray array = new SparsePropertyArray();
+        array.put(Constants.PROPERTY_COUNT, null);
+        assertEquals(0, array.size());
+        assertNull(array.get(Constants.PROPERTY_COUNT));
+    }
+}
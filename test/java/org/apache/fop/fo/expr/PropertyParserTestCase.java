@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.expr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import org.apache.fop.fo.StaticPropertyList;
+import org.apache.fop.fo.properties.ListProperty;
+import org.apache.fop.fo.properties.Property;
+
+/**
+ * Tests the caching of context-free expressions by {@link PropertyParser}.
+ */
+public class PropertyParserTestCase {
+
+    private PropertyInfo createPropertyInfo() {
+        return new PropertyInfo(null, new StaticPropertyList(null, null));
+    }
+
+    @Test
+    public void testContextFreeExpressionsAreCached() throws PropertyException {
+        Property length = PropertyParser.parse("2 * (3pt + 1pt)", createPropertyInfo());
+        assertEquals(8000, length.getLength().getValue());
+        assertSame(length, PropertyParser.parse("2 * (3pt + 1pt)", createPropertyInfo()));
+    }
+
+    @Test
+    public void testNamesAreNotCached() throws PropertyException {
+        Property name = PropertyParser.parse("unique-id", createPropertyInfo());
+        assertEquals("unique-id", name.getString());
+        assertNotSame(name, PropertyParser.parse("unique-id", createPropertyInfo()));
+    }
+
+    @Test
+    public void testRecentlyUsedExpressionsStayCached() throws PropertyException {
+        Property length = PropertyParser.parse("7pt + 0.5pt", createPropertyInfo());
+        for (int i = 0; i < 10000; i++) {
+            PropertyParser.parse(i + ".25pt", createPropertyInfo());
+            assertSame(length, PropertyParser.parse("7pt + 0.5pt", createPropertyInfo()));
+        }
+    }
+
+    @Test
+    public void testListsAreNotCached() throws PropertyException {
+        Property list = PropertyParser.parse("first second", createPropertyInfo());
+        assertTrue(list instanceof ListProperty);
+        assertEquals(2, list.getList().size());
+        assertNotSame(list, PropertyParser.parse("first second", createPropertyInfo()));
+    }
+}
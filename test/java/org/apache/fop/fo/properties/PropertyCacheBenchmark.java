@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.properties;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Debug tool measuring the throughput of the property caches with several threads
+ * fetching canonical instances concurrently, as several concurrent renderings do. Most
+ * fetches find a cached instance, some add a new one which soon becomes garbage. Pass the
+ * maximum number of threads and the number of fetches per thread.
+ */
+public final class PropertyCacheBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    /** The number of distinct values fetched over and over. */
+    private static final int COMMON_VALUES = 1000;
+
+    private PropertyCacheBenchmark() {
+    }
+
+    private static long fetch(int thread, int count) {
+        long checksum = 0;
+        for (int i = 0; i < count; i++) {
+            Property p;
+            if (i % 10 == 0) {
+                //a value which is only used once
+                p = FixedLength.getInstance(thread * (double) count + i);
+            } else {
+                p = NumberProperty.getInstance((i * 31) % COMMON_VALUES);
+            }
+            checksum += p.hashCode();
+        }
+        return checksum;
+    }
+
+    private static long run(final int threadCount, final int count) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            final int thread = t;
+            new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        fetch(thread, count);
+                    } catch (InterruptedException e) {
+                        //ignore
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            } .start();
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * Main method.
+     * @param args the maximum number of threads and the number of fetches per thread
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = (args.length > 0 ? Integer.parseInt(args[0]) : 8);
+        int count = (args.length > 1 ? Integer.parseInt(args[1]) : 2000000);
+        System.out.println(Runtime.getRuntime().availableProcessors() + " processors, "
+                + count + " fetches per thread");
+        for (int round = 0; round < ROUNDS; round++) {
+            StringBuilder sb = new StringBuilder("round " + round + ":");
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                long time = run(threads, count);
+                sb.append(" ").append(threads).append(" threads ")
+                        .append((double) time / ((long) threads * count)).append(" ns/fetch;");
+            }
+            System.out.println(sb);
+        }
+    }
+}
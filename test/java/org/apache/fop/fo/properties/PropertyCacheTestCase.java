@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link PropertyCache}.
+ */
+public class PropertyCacheTestCase {
+
+    private static final class TestProperty extends Property {
+
+        private final int value;
+
+        TestProperty(int value) {
+            this.value = value;
+        }
+
+        public int hashCode() {
+            return value;
+        }
+
+        public boolean equals(Object obj) {
+            return obj instanceof TestProperty && ((TestProperty) obj).value == value;
+        }
+    }
+
+    @Test
+    public void testCanonicalInstances() {
+        PropertyCache cache = new PropertyCache(TestProperty.class);
+        TestProperty first = new TestProperty(1);
+        assertSame(first, cache.fetch(first));
+        assertSame(first, cache.fetch(new TestProperty(1)));
+        TestProperty second = new TestProperty(2);
+        assertSame(second, cache.fetch(second));
+        assertNull(cache.fetch((Property) null));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testConcurrentFetch() throws InterruptedException {
+        final PropertyCache cache = new PropertyCache(TestProperty.class);
+        final List<List<Property>> results = new ArrayList<List<Property>>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final List<Property> result = new ArrayList<Property>();
+            results.add(result);
+            threads.add(new Thread() {
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        result.add(cache.fetch(new TestProperty(i)));
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < 1000; i++) {
+            for (List<Property> result : results) {
+                assertSame(results.get(0).get(i), result.get(i));
+            }
+        }
+        assertEquals(1000, cache.getMissCount());
+        assertEquals(3000, cache.getHitCount());
+    }
+
+    @Test
+    public void testEviction() {
+        PropertyCache cache = new PropertyCache(TestProperty.class);
+        TestProperty kept = new TestProperty(-1);
+        cache.fetch(kept);
+        for (int i = 0; cache.getEvictionCount() == 0 && i < 1000; i++) {
+            for (int j = 0; j < 1000; j++) {
+                cache.fetch(new TestProperty(i * 1000 + j));
+            }
+            System.gc();
+        }
+        assertTrue(cache.getEvictionCount() > 0);
+        assertTrue(cache.size() < cache.getMissCount());
+        assertSame(kept, cache.fetch(new TestProperty(-1)));
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.fop.fonts.autodetect.FontFileFinder;
+
+/**
+ * Tests the binary font cache file and the directory entries of {@link FontCache}.
+ */
+public class FontCacheTestCase {
+
+    private static final File FONT_FILE = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+
+    private File tempDir;
+
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = File.createTempFile("fop-font-cache", "");
+        tempDir.delete();
+        tempDir.mkdir();
+        cacheFile = new File(tempDir, "fop-fonts.cache");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(tempDir);
+    }
+
+    private EmbedFontInfo createFontInfo() {
+        EmbedFontInfo fontInfo = new EmbedFontInfo(null, true, false,
+                Collections.singletonList(new FontTriplet("DejaVu LGC Serif", "italic", 700)),
+                FONT_FILE.toURI().toString(), "Sub");
+        fontInfo.setPostScriptName("DejaVuLGCSerif");
+        fontInfo.setEncodingMode(EncodingMode.CID);
+        return fontInfo;
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        FontCache cache = new FontCache();
+        EmbedFontInfo fontInfo = createFontInfo();
+        cache.addFont(fontInfo);
+        cache.registerFailedFont("file:/broken.ttf", 42);
+        //the cache file must not be written to the cached directory
+        File fontDir = new File(tempDir, "fonts");
+        fontDir.mkdir();
+        cache.addDirectory(fontDir, fontDir.lastModified(), new String[] {"file:/a.ttf"},
+                new String[] {"/sub"});
+        cache.saveTo(cacheFile);
+
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        assertNotNull(loaded);
+        assertTrue(loaded.isFailedFont("file:/broken.ttf", 42));
+        String embedUrl = fontInfo.getEmbedFile();
+        assertTrue(loaded.containsFont(embedUrl));
+        EmbedFontInfo[] infos = loaded.getFontInfos(embedUrl, FONT_FILE.lastModified());
+        assertEquals(1, infos.length);
+        EmbedFontInfo info = infos[0];
+        assertEquals(embedUrl, info.getEmbedFile());
+        assertNull(info.getMetricsFile());
+        assertTrue(info.getKerning());
+        assertFalse(info.getAdvanced());
+        assertEquals("Sub", info.getSubFontName());
+        assertEquals("DejaVuLGCSerif", info.getPostScriptName());
+        assertEquals(EncodingMode.CID, info.getEncodingMode());
+        assertEquals(fontInfo.getFontTriplets(), info.getFontTriplets());
+
+        FontCache.CachedDirectory dir = loaded.getDirectory(fontDir);
+        assertNotNull(dir);
+        assertArrayEquals(new String[] {"file:/a.ttf"}, dir.getFontURLs());
+        assertArrayEquals(new String[] {"/sub"}, dir.getSubdirectories());
+    }
+
+    @Test
+    public void testInvalidCacheFileIsDiscarded() throws Exception {
+        FileOutputStream out = new FileOutputStream(cacheFile);
+        try {
+            out.write("not a font cache".getBytes("US-ASCII"));
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+        assertNull(FontCache.loadFrom(cacheFile));
+        assertFalse(cacheFile.exists());
+    }
+
+    @Test
+    public void testModifiedDirectoryIsInvalidated() {
+        FontCache cache = new FontCache();
+        cache.addDirectory(tempDir, tempDir.lastModified() - 1000, new String[0], new String[0]);
+        int invalidations = cache.getInvalidationCount();
+        assertNull(cache.getDirectory(tempDir));
+        assertEquals(invalidations + 1, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void testFontFileFinderUsesCache() throws Exception {
+        File sub = new File(tempDir, "sub");
+        sub.mkdir();
+        File hidden = new File(tempDir, ".hidden");
+        hidden.mkdir();
+        FileUtils.copyFile(FONT_FILE, new File(tempDir, "b.ttf"));
+        FileUtils.copyFile(FONT_FILE, new File(tempDir, "a.TTF"));
+        FileUtils.copyFile(FONT_FILE, new File(sub, "c.ttf"));
+        FileUtils.copyFile(FONT_FILE, new File(hidden, "d.ttf"));
+        FileUtils.touch(new File(tempDir, "readme.txt"));
+
+        FontCache cache = new FontCache();
+        List<URL> fonts = new FontFileFinder(-1, null, cache).find(tempDir.getAbsolutePath());
+        assertEquals(3, fonts.size());
+        assertTrue(fonts.get(0).getPath().endsWith("/a.TTF"));
+        assertTrue(fonts.get(1).getPath().endsWith("/b.ttf"));
+        assertTrue(fonts.get(2).getPath().endsWith("/sub/c.ttf"));
+        assertNotNull(cache.getDirectory(tempDir));
+        assertNotNull(cache.getDirectory(sub));
+
+        //the cached directory contents are used as long as the directory isn't modified
+        assertEquals(fonts, new FontFileFinder(-1, null, cache).find(tempDir.getAbsolutePath()));
+
+        //non-recursive search
+        assertEquals(fonts.subList(0, 2),
+                new FontFileFinder(1, null, cache).find(tempDir.getAbsolutePath()));
+    }
+
+    /**
+     * Tests that the pooled directory walk still calls the {@link FontFileFinder} hooks.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testFontFileFinderHooks() throws Exception {
+        File sub = new File(tempDir, "sub");
+        sub.mkdir();
+        File skipped = new File(tempDir, "skipped");
+        skipped.mkdir();
+        FileUtils.copyFile(FONT_FILE, new File(tempDir, "a.ttf"));
+        FileUtils.copyFile(FONT_FILE, new File(sub, "b.ttf"));
+        FileUtils.copyFile(FONT_FILE, new File(skipped, "c.ttf"));
+
+        final List<String> calls = new java.util.ArrayList<String>();
+        FontFileFinder finder = new FontFileFinder(-1, null, new FontCache()) {
+            protected boolean handleDirectory(File directory, int depth, Collection results) {
+                calls.add("dir " + directory.getName() + " " + depth);
+                return !directory.getName().equals("skipped");
+            }
+
+            protected void handleFile(File file, int depth, Collection results) {
+                calls.add("file " + file.getName() + " " + depth);
+                super.handleFile(file, depth, results);
+            }
+
+            protected void handleDirectoryEnd(File directory, int depth, Collection results) {
+                calls.add("end " + directory.getName() + " " + depth);
+            }
+        };
+        List<URL> fonts = finder.find(tempDir.getAbsolutePath());
+        assertEquals(2, fonts.size());
+        assertTrue(fonts.get(0).getPath().endsWith("/a.ttf"));
+        assertTrue(fonts.get(1).getPath().endsWith("/sub/b.ttf"));
+        String root = tempDir.getName();
+        assertEquals(Arrays.asList(new String[] {
+                "dir " + root + " 0", "file a.ttf 1",
+                "dir skipped 1",
+                "dir sub 1", "file b.ttf 2", "end sub 1",
+                "end " + root + " 0"}), calls);
+    }
+}
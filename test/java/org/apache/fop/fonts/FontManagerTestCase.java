@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the font setup snapshots of {@link FontManager}.
+ */
+public class FontManagerTestCase {
+
+    private FontManager fontManager;
+
+    private Object configuration;
+
+    private List<EmbedFontInfo> fontList;
+
+    @Before
+    public void setUp() {
+        fontManager = new FontManager();
+        configuration = new Object();
+        fontList = Collections.singletonList(new EmbedFontInfo(null, true, true,
+                Collections.singletonList(new FontTriplet("Test", "normal", 400)),
+                "test.ttf", null));
+    }
+
+    @Test
+    public void testSnapshot() {
+        assertNull(fontManager.getFontSetupSnapshot(configuration, "key"));
+        fontManager.putFontSetupSnapshot(configuration, "key", fontList);
+        assertEquals(fontList, fontManager.getFontSetupSnapshot(configuration, "key"));
+        assertNull(fontManager.getFontSetupSnapshot(configuration, "other"));
+        assertNull(fontManager.getFontSetupSnapshot(new Object(), "key"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotIsImmutable() {
+        fontManager.putFontSetupSnapshot(configuration, "key", fontList).clear();
+    }
+
+    @Test
+    public void testExplicitInvalidation() {
+        fontManager.putFontSetupSnapshot(configuration, "key", fontList);
+        fontManager.invalidateFontSetupSnapshots();
+        assertNull(fontManager.getFontSetupSnapshot(configuration, "key"));
+    }
+
+    @Test
+    public void testFontCacheInvalidation() {
+        fontManager.getFontCache();
+        fontManager.putFontSetupSnapshot(configuration, "key", fontList);
+        //ex. a font file has changed
+        fontManager.getFontCache().clear();
+        assertNull(fontManager.getFontSetupSnapshot(configuration, "key"));
+    }
+}
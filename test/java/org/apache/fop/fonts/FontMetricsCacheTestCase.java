@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link FontMetricsCache}.
+ */
+public class FontMetricsCacheTestCase {
+
+    private static final String FONT_URI
+            = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").toURI().toString();
+
+    private FontMetricsCache cache;
+
+    @Before
+    public void setUp() {
+        cache = FontMetricsCache.getInstance();
+        cache.setEnabled(true);
+        cache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        cache.clear();
+    }
+
+    private LazyFont createFont(boolean kerning) {
+        EmbedFontInfo info = new EmbedFontInfo(null, kerning, false,
+                Collections.<FontTriplet>emptyList(), FONT_URI, null);
+        return new LazyFont(info, null);
+    }
+
+    /**
+     * Tests that a font is parsed only once, but every user gets its own copy.
+     */
+    @Test
+    public void testFontsAreShared() {
+        long misses = cache.getMissCount();
+        long hits = cache.getHitCount();
+        MultiByteFont first = (MultiByteFont) createFont(true).getRealFont();
+        MultiByteFont second = (MultiByteFont) createFont(true).getRealFont();
+        assertEquals(misses + 1, cache.getMissCount());
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(1, cache.size());
+
+        assertNotSame(first, second);
+        assertEquals(first.getFontName(), second.getFontName());
+        assertArrayEquals(first.getWidths(), second.getWidths());
+        assertEquals(first.getKernValue('A', 'V'), second.getKernValue('A', 'V'));
+
+        //the used glyphs are tracked per copy
+        assertNotSame(first.getCIDSubset(), second.getCIDSubset());
+        first.mapChar('A');
+        assertTrue(first.hadMappingOperations());
+        assertFalse(second.hadMappingOperations());
+        assertEquals(2, first.getCIDSubset().getSubsetSize());
+        assertEquals(1, second.getCIDSubset().getSubsetSize());
+    }
+
+    @Test
+    public void testLoadingOptionsArePartOfKey() {
+        assertTrue(createFont(true).getRealFont().hasKerningInfo());
+        assertFalse(createFont(false).getRealFont().hasKerningInfo());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testOnlyLocalFilesAreCached() {
+        assertNull(FontMetricsCache.createKey(null, null, "http://localhost/font.ttf", null,
+                true, EncodingMode.AUTO, true, false));
+        assertNull(FontMetricsCache.createKey(null, null, null, null,
+                true, EncodingMode.AUTO, true, false));
+    }
+
+    @Test
+    public void testDisabled() {
+        cache.setEnabled(false);
+        try {
+            createFont(true).getRealFont();
+            assertEquals(0, cache.size());
+        } finally {
+            cache.setEnabled(true);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link FontSubsetCache}.
+ */
+public class FontSubsetCacheTestCase {
+
+    private static final String FONT_URI
+            = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").toURI().toString();
+
+    private static Map<Integer, Integer> glyphs(int... originalIndices) {
+        Map<Integer, Integer> glyphs = new HashMap<Integer, Integer>();
+        for (int i = 0; i < originalIndices.length; i++) {
+            glyphs.put(Integer.valueOf(originalIndices[i]), Integer.valueOf(i));
+        }
+        return glyphs;
+    }
+
+    @Test
+    public void testKey() {
+        Object key = FontSubsetCache.createKey(FONT_URI, null, glyphs(0, 36, 37));
+        assertEquals(key, FontSubsetCache.createKey(FONT_URI, null, glyphs(0, 36, 37)));
+        assertEquals(key.hashCode(),
+                FontSubsetCache.createKey(FONT_URI, null, glyphs(0, 36, 37)).hashCode());
+        //the same glyphs in a different order produce a different subset
+        assertFalse(key.equals(FontSubsetCache.createKey(FONT_URI, null, glyphs(0, 37, 36))));
+        assertFalse(key.equals(FontSubsetCache.createKey(FONT_URI, null, glyphs(0, 36))));
+        assertFalse(key.equals(FontSubsetCache.createKey(FONT_URI, "Sub", glyphs(0, 36, 37))));
+        assertNull(FontSubsetCache.createKey("http://localhost/font.ttf", null, glyphs(0)));
+        assertNull(FontSubsetCache.createKey(null, null, glyphs(0)));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSubsetIsEvicted() {
+        FontSubsetCache cache = new FontSubsetCache(2);
+        Object key1 = FontSubsetCache.createKey(FONT_URI, null, glyphs(0, 1));
+        Object key2 = FontSubsetCache.createKey(FONT_URI, null, glyphs(0, 2));
+        Object key3 = FontSubsetCache.createKey(FONT_URI, null, glyphs(0, 3));
+        byte[] subset1 = new byte[1];
+        cache.put(key1, subset1);
+        cache.put(key2, new byte[2]);
+        assertSame(subset1, cache.get(key1));
+        cache.put(key3, new byte[3]);
+        assertEquals(2, cache.size());
+        assertNull(cache.get(key2));
+        assertSame(subset1, cache.get(key1));
+        assertEquals(3, cache.get(key3).length);
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+}
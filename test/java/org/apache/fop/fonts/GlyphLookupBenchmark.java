@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.List;
+
+import org.apache.fop.fonts.truetype.FontFileReader;
+import org.apache.fop.fonts.truetype.TTFCmapEntry;
+import org.apache.fop.fonts.truetype.TTFFile;
+
+/**
+ * Debug tool comparing the Unicode to glyph index lookup of {@link MultiByteFont} (a
+ * {@link RangeMap}) with the linear search over the character map ranges used before. Pass
+ * the path of a TrueType font, preferably a large CJK font with many character map ranges.
+ */
+public final class GlyphLookupBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private GlyphLookupBenchmark() {
+    }
+
+    private static int linearSearch(BFEntry[] entries, int c) {
+        int retIdx = 0;
+        for (int i = 0; (i < entries.length) && retIdx == 0; i++) {
+            if (entries[i].getUnicodeStart() <= c && entries[i].getUnicodeEnd() >= c) {
+                retIdx = entries[i].getGlyphStartIndex() + c - entries[i].getUnicodeStart();
+            }
+        }
+        return retIdx;
+    }
+
+    /**
+     * Main method.
+     * @param args the path to a TrueType font
+     * @throws Exception if an error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        String fontFile = (args.length > 0 ? args[0]
+                : "test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+        TTFFile ttf = new TTFFile(false, false);
+        ttf.readFont(new FontFileReader(fontFile), null);
+        List<?> cmaps = ttf.getCMaps();
+        BFEntry[] entries = new BFEntry[cmaps.size()];
+        for (int i = 0; i < entries.length; i++) {
+            TTFCmapEntry ce = (TTFCmapEntry)cmaps.get(i);
+            entries[i] = new BFEntry(ce.getUnicodeStart(), ce.getUnicodeEnd(),
+                    ce.getGlyphStartIndex());
+        }
+        MultiByteFont font = new MultiByteFont();
+        long start = System.nanoTime();
+        font.setBFEntries(entries);
+        long setup = System.nanoTime() - start;
+        System.out.println(fontFile + ": " + entries.length + " character map ranges, "
+                + "lookup table built in " + (setup / 1000) + " µs");
+
+        //Look up every BMP character (the mapped ones dominate in CJK text)
+        for (int round = 0; round < ROUNDS; round++) {
+            int checksum = 0;
+            start = System.nanoTime();
+            for (int c = 0; c < 0x10000; c++) {
+                checksum += linearSearch(entries, c);
+            }
+            long linear = System.nanoTime() - start;
+
+            int checksum2 = 0;
+            start = System.nanoTime();
+            for (int c = 0; c < 0x10000; c++) {
+                checksum2 += font.hasChar((char)c) ? 1 : 0;
+            }
+            long table = System.nanoTime() - start;
+            System.out.println("round " + round + ": linear search " + (linear / 0x10000)
+                    + " ns/char, lookup table " + (table / 0x10000) + " ns/char"
+                    + " (checksums " + checksum + "/" + checksum2 + ")");
+        }
+    }
+}
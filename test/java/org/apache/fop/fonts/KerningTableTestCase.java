@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test case for {@link KerningTable}.
+ */
+public class KerningTableTestCase {
+
+    private static Map<Integer, Map<Integer, Integer>> createRandomKerning(int firstCount) {
+        Random random = new Random(1234);
+        Map<Integer, Map<Integer, Integer>> kerning
+                = new HashMap<Integer, Map<Integer, Integer>>();
+        for (int i = 0; i < firstCount; i++) {
+            Map<Integer, Integer> pairs = new HashMap<Integer, Integer>();
+            for (int j = random.nextInt(50); j >= 0; j--) {
+                pairs.put(Integer.valueOf(random.nextInt(0x10000)),
+                        Integer.valueOf(random.nextInt(400) - 200));
+            }
+            kerning.put(Integer.valueOf(random.nextInt(0x10000)), pairs);
+        }
+        return kerning;
+    }
+
+    /**
+     * Tests that the table contains exactly the pairs of the kerning map.
+     */
+    @Test
+    public void testLookup() {
+        Map<Integer, Map<Integer, Integer>> kerning = createRandomKerning(500);
+        KerningTable table = KerningTable.create(kerning);
+        int pairCount = 0;
+        for (Map.Entry<Integer, Map<Integer, Integer>> entry : kerning.entrySet()) {
+            for (Map.Entry<Integer, Integer> pair : entry.getValue().entrySet()) {
+                assertEquals(pair.getValue().intValue(),
+                        table.get(entry.getKey().intValue(), pair.getKey().intValue()));
+                pairCount++;
+            }
+        }
+        assertEquals(pairCount, table.size());
+        assertEquals(kerning, table.toMap());
+
+        Map<Integer, Integer> pairs = kerning.get(kerning.keySet().iterator().next());
+        for (int ch2 = 0; ch2 < 0x10000; ch2++) {
+            if (!pairs.containsKey(Integer.valueOf(ch2))) {
+                assertEquals(0, table.get(kerning.keySet().iterator().next().intValue(), ch2));
+            }
+        }
+        assertEquals(0, table.get(-1, 'A'));
+    }
+
+    /**
+     * Tests empty tables.
+     */
+    @Test
+    public void testEmpty() {
+        assertSame(KerningTable.EMPTY, KerningTable.create(null));
+        assertSame(KerningTable.EMPTY,
+                KerningTable.create(new HashMap<Integer, Map<Integer, Integer>>()));
+        assertTrue(KerningTable.EMPTY.isEmpty());
+        assertEquals(0, KerningTable.EMPTY.get('A', 'V'));
+        assertTrue(KerningTable.EMPTY.toMap().isEmpty());
+    }
+
+    /**
+     * Tests the kerning of a custom font built through putKerningEntry() and
+     * replaceKerningMap().
+     */
+    @Test
+    public void testCustomFont() {
+        SingleByteFont font = new SingleByteFont();
+        assertFalse(font.hasKerningInfo());
+        Map<Integer, Integer> pairs = new HashMap<Integer, Integer>();
+        pairs.put(Integer.valueOf('V'), Integer.valueOf(-80));
+        font.putKerningEntry(Integer.valueOf('A'), pairs);
+        assertTrue(font.hasKerningInfo());
+        assertEquals(-80, font.getKernValue('A', 'V'));
+        assertEquals(0, font.getKernValue('V', 'A'));
+
+        pairs = new HashMap<Integer, Integer>();
+        pairs.put(Integer.valueOf('A'), Integer.valueOf(-70));
+        font.putKerningEntry(Integer.valueOf('V'), pairs);
+        assertEquals(-80, font.getKernValue('A', 'V'));
+        assertEquals(-70, font.getKernValue('V', 'A'));
+        assertEquals(2, font.getKerningInfo().size());
+
+        font.setKerningEnabled(false);
+        assertFalse(font.hasKerningInfo());
+        assertEquals(0, font.getKernValue('A', 'V'));
+        font.setKerningEnabled(true);
+
+        font.replaceKerningMap(null);
+        assertFalse(font.hasKerningInfo());
+        assertEquals(0, font.getKernValue('A', 'V'));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.apache.fop.fonts.truetype.FontFileReader;
+import org.apache.fop.fonts.truetype.TTFCmapEntry;
+import org.apache.fop.fonts.truetype.TTFFile;
+
+/**
+ * Tests {@link RangeMap} against the linear search over the ranges it replaces.
+ */
+public class RangeMapTestCase {
+
+    /** The lookup previously done by MultiByteFont: first range with a non-zero value. */
+    private static int linearSearch(int[] starts, int[] ends, int[] values, int key) {
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] <= key && ends[i] >= key) {
+                int value = values[i] + key - starts[i];
+                if (value != 0) {
+                    return value;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static void assertSameMapping(int[] starts, int[] ends, int[] values,
+            RangeMap map, int maxKey) {
+        for (int key = -1; key <= maxKey; key++) {
+            assertEquals("key " + key, linearSearch(starts, ends, values, key), map.get(key));
+        }
+    }
+
+    /**
+     * Tests disjoint, overlapping and zero-valued ranges.
+     */
+    @Test
+    public void testOverlappingRanges() {
+        int[] starts = {0x41, 0x20, 0x45, 0x100, 0x0, 0x1F600};
+        int[] ends = {0x5A, 0x7E, 0x1FF, 0x100, 0x0, 0x1F64F};
+        int[] values = {100, 3, 500, 7, 0, 2000};
+        RangeMap map = RangeMap.create(starts, ends, values);
+        assertSameMapping(starts, ends, values, map, 0x20000);
+        assertEquals(104, map.get(0x45));
+        assertEquals(3 + 0x5B - 0x20, map.get(0x5B));
+        assertEquals(500 + 0x80 - 0x45, map.get(0x80));
+        assertEquals(0, map.get(0));
+    }
+
+    /**
+     * Tests random ranges spread over several planes.
+     */
+    @Test
+    public void testRandomRanges() {
+        Random random = new Random(4711);
+        int n = 2000;
+        int[] starts = new int[n];
+        int[] ends = new int[n];
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = random.nextInt(0x30000);
+            ends[i] = starts[i] + random.nextInt(random.nextBoolean() ? 4 : 300);
+            values[i] = random.nextInt(60000);
+        }
+        RangeMap map = RangeMap.create(starts, ends, values);
+        assertSameMapping(starts, ends, values, map, 0x30200);
+    }
+
+    /**
+     * Tests adding single mappings.
+     */
+    @Test
+    public void testWith() {
+        int[] starts = {0x20, 0xE010};
+        int[] ends = {0x7E, 0xE0FF};
+        int[] values = {3, 900};
+        RangeMap map = RangeMap.create(starts, ends, values);
+        assertSame(map, map.with(0x41, 17));
+        assertSame(map, map.with(0xE000, 0));
+        RangeMap map2 = map.with(0xE000, 1234).with(0xE001, 1235).with(0x10, 5);
+        assertEquals(1234, map2.get(0xE000));
+        assertEquals(1235, map2.get(0xE001));
+        assertEquals(5, map2.get(0x10));
+        assertEquals(0, map2.get(0x11));
+        assertEquals(900, map2.get(0xE010));
+        assertEquals(0, map.get(0xE000));
+        assertEquals(5, map2.getRangeCount());
+    }
+
+    /**
+     * Tests the lookups in both directions with the character map of a real font.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testFontCMap() throws Exception {
+        TTFFile ttf = new TTFFile(false, false);
+        ttf.readFont(new FontFileReader("test/resources/fonts/ttf/DejaVuLGCSerif.ttf"), null);
+        List<?> cmaps = ttf.getCMaps();
+        int n = cmaps.size();
+        int[] unicodeStarts = new int[n];
+        int[] unicodeEnds = new int[n];
+        int[] glyphStarts = new int[n];
+        int[] glyphEnds = new int[n];
+        for (int i = 0; i < n; i++) {
+            TTFCmapEntry entry = (TTFCmapEntry)cmaps.get(i);
+            unicodeStarts[i] = entry.getUnicodeStart();
+            unicodeEnds[i] = entry.getUnicodeEnd();
+            glyphStarts[i] = entry.getGlyphStartIndex();
+            glyphEnds[i] = glyphStarts[i] + unicodeEnds[i] - unicodeStarts[i];
+        }
+        RangeMap glyphIndexMap = RangeMap.create(unicodeStarts, unicodeEnds, glyphStarts);
+        assertSameMapping(unicodeStarts, unicodeEnds, glyphStarts, glyphIndexMap, 0x10000);
+        RangeMap characterMap = RangeMap.create(glyphStarts, glyphEnds, unicodeStarts);
+        assertSameMapping(glyphStarts, glyphEnds, unicodeStarts, characterMap,
+                ttf.getWidths().length);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import org.apache.avalon.framework.configuration.DefaultConfigurationBuilder;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.FOTreeBuilder;
+
+/**
+ * Tests {@link ShapingCache}.
+ */
+public class ShapingCacheTestCase {
+
+    private static final String CONFIG = "<fop version='1.0'><renderers>"
+            + "<renderer mime='" + MimeConstants.MIME_FOP_AREA_TREE + "'><fonts>"
+            + "<font embed-url='test/resources/fonts/ttf/DejaVuLGCSerif.ttf'>"
+            + "<font-triplet name='DejaVu' style='normal' weight='normal'/>"
+            + "</font></fonts></renderer></renderers></fop>";
+
+    @Test
+    public void testHitsAndEviction() {
+        ShapingCache cache = new ShapingCache(2);
+        int[][] adjustments = new int[2][4];
+        ShapingCache.Result first = cache.put("ab", "latn", "dflt", new StringBuffer("ba"),
+                adjustments);
+        assertEquals("ba", first.getChars());
+        assertSame(adjustments, first.getAdjustments());
+        cache.put("cd", "latn", "dflt", "cd", null);
+        assertSame(first, cache.get("ab", "latn", "dflt"));
+        assertNull(cache.get("ab", "arab", "dflt"));
+        assertNull(cache.get("ab", "latn", "ara"));
+        //"cd" is the least recently used word
+        cache.put("ef", "latn", "dflt", "ef", null);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get("cd", "latn", "dflt"));
+        assertSame(first, cache.get("ab", "latn", "dflt"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    private String createDocument() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'>"
+                + "<fo:layout-master-set>"
+                + "<fo:simple-page-master master-name='A6' page-height='10cm' page-width='10cm'>"
+                + "<fo:region-body margin='1cm'/></fo:simple-page-master>"
+                + "</fo:layout-master-set><fo:page-sequence master-reference='A6'>"
+                + "<fo:flow flow-name='xsl-region-body' font-family='DejaVu' font-size='12pt'>");
+        for (int i = 0; i < 20; i++) {
+            sb.append("<fo:block>AVAST Wavy Tomato, fine offices " + i + "</fo:block>");
+        }
+        sb.append("</fo:flow></fo:page-sequence></fo:root>");
+        return sb.toString();
+    }
+
+    private String renderAreaTree(int shapingCacheSize, long[] hitsAndMisses) throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance();
+        fopFactory.setUserConfig(new DefaultConfigurationBuilder().build(
+                new ByteArrayInputStream(CONFIG.getBytes("UTF-8"))));
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setShapingCacheSize(shapingCacheSize);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(createDocument())),
+                new SAXResult(fop.getDefaultHandler()));
+        FontInfo fontInfo = ((FOTreeBuilder) fop.getDefaultHandler()).getEventHandler()
+                .getFontInfo();
+        Font font = fontInfo.getFontInstance(
+                new FontTriplet("DejaVu", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL), 12000);
+        assertTrue(font.performsSubstitution() || font.performsPositioning());
+        ShapingCache cache = font.getShapingCache();
+        if (hitsAndMisses != null) {
+            hitsAndMisses[0] = cache.getHitCount();
+            hitsAndMisses[1] = cache.getMissCount();
+        } else {
+            assertNull(cache);
+        }
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void testSameAreaTree() throws Exception {
+        String expected = renderAreaTree(0, null);
+        long[] hitsAndMisses = new long[2];
+        assertEquals(expected, renderAreaTree(1000, hitsAndMisses));
+        assertTrue(hitsAndMisses[0] > hitsAndMisses[1]);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts.truetype;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link FontFileReader} over mapped font files.
+ */
+public class FontFileReaderTestCase {
+
+    private static final File FONT_FILE = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+
+    private FontFileReader mappedReader;
+
+    private FontFileReader streamReader;
+
+    @Before
+    public void setUp() throws IOException {
+        mappedReader = new FontFileReader(FONT_FILE);
+        InputStream in = new FileInputStream(FONT_FILE);
+        try {
+            streamReader = new FontFileReader(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testMappedContent() throws IOException {
+        assertTrue(mappedReader.isMapped());
+        assertFalse(streamReader.isMapped());
+        assertEquals(FONT_FILE.length(), mappedReader.getFileSize());
+        assertArrayEquals(streamReader.getBytes(0, streamReader.getFileSize()),
+                mappedReader.getBytes(0, mappedReader.getFileSize()));
+        mappedReader.seekSet(12);
+        streamReader.seekSet(12);
+        assertEquals(streamReader.readTTFString(4), mappedReader.readTTFString(4));
+        assertEquals(streamReader.readTTFULong(), mappedReader.readTTFULong());
+        assertEquals(streamReader.getCurrentPos(), mappedReader.getCurrentPos());
+    }
+
+    /**
+     * Tests that writing to a mapped font doesn't change the file but is visible when
+     * reading.
+     */
+    @Test
+    public void testWriteToMappedFile() throws IOException {
+        int original = mappedReader.readTTFUShort(100);
+        mappedReader.writeTTFUShort(100, original ^ 0xFFFF);
+        assertEquals(original ^ 0xFFFF, mappedReader.readTTFUShort(100));
+        byte[] bytes = mappedReader.getBytes(99, 4);
+        assertEquals((original ^ 0xFFFF) >> 8, bytes[1] & 0xFF);
+        assertEquals((original ^ 0xFFFF) & 0xFF, bytes[2] & 0xFF);
+        assertEquals(original, new FontFileReader(FONT_FILE).readTTFUShort(100));
+    }
+
+    @Test
+    public void testSubsetFromMappedFile() throws IOException {
+        Map<Integer, Integer> glyphs = new HashMap<Integer, Integer>();
+        glyphs.put(Integer.valueOf(0), Integer.valueOf(0));
+        //a composite glyph, so the subsetter has to rewrite glyph indices
+        glyphs.put(Integer.valueOf(408), Integer.valueOf(1));
+        byte[] fromStream = new TTFSubSetFile().readFont(streamReader, null, glyphs);
+        byte[] fromMapping = new TTFSubSetFile().readFont(mappedReader, null, glyphs);
+        assertArrayEquals(fromStream, fromMapping);
+    }
+
+    @Test
+    public void testGetLocalFile() throws IOException {
+        assertEquals(FONT_FILE.getCanonicalFile(), FontFileReader.getLocalFile(
+                FONT_FILE.toURI().toString()).getCanonicalFile());
+        assertNull(FontFileReader.getLocalFile(null));
+        assertNull(FontFileReader.getLocalFile("http://localhost/font.ttf"));
+        assertNull(FontFileReader.getLocalFile("file:font.ttf"));
+        assertNull(FontFileReader.getLocalFile(new File("nonexistent.ttf").toURI().toString()));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests {@link HyphenationCache}.
+ */
+public class HyphenationCacheTestCase {
+
+    private static final String PATTERNS = "<?xml version='1.0'?>"
+            + "<hyphenation-info>"
+            + "<classes>aA bB cC dD eE fF gG hH iI jJ kK lL mM nN oO pP qQ rR sS tT uU vV wW"
+            + " xX yY zZ</classes>"
+            + "<patterns>.hy3p he2n hen3at hen5a 1tion 1na n2at 4ph ph5e 2p1h</patterns>"
+            + "</hyphenation-info>";
+
+    private HyphenationTree hTree;
+
+    @Before
+    public void setUp() throws HyphenationException {
+        hTree = new HyphenationTree();
+        hTree.loadPatterns(new InputSource(new StringReader(PATTERNS)));
+    }
+
+    @Test
+    public void testWordsAreCached() {
+        HyphenationCache cache = new HyphenationCache(10);
+        Hyphenation first = cache.hyphenate(hTree, "hyphenation", 2, 2);
+        assertEquals(hTree.hyphenate("hyphenation", 2, 2).toString(), first.toString());
+        assertSame(first, cache.hyphenate(hTree, "hyphenation", 2, 2));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        //the minimum character counts are part of the key
+        assertEquals(hTree.hyphenate("hyphenation", 3, 3).toString(),
+                cache.hyphenate(hTree, "hyphenation", 3, 3).toString());
+        assertEquals(2, cache.getMissCount());
+
+        //words without hyphenation points are cached, too
+        assertNull(cache.hyphenate(hTree, "xyz", 1, 1));
+        assertNull(cache.hyphenate(hTree, "xyz", 1, 1));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(0.4, cache.getHitRate(), 0.0001);
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedWordsAreEvicted() {
+        HyphenationCache cache = new HyphenationCache(2);
+        cache.hyphenate(hTree, "hyphen", 1, 1);
+        cache.hyphenate(hTree, "nation", 1, 1);
+        cache.hyphenate(hTree, "hyphen", 1, 1);
+        cache.hyphenate(hTree, "phenol", 1, 1);
+        assertEquals(2, cache.size());
+        cache.hyphenate(hTree, "hyphen", 1, 1);
+        assertEquals(2, cache.getHitCount());
+        cache.hyphenate(hTree, "nation", 1, 1);
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void testCachePerLanguage() throws HyphenationException {
+        HyphenationTree other = new HyphenationTree();
+        other.loadPatterns(new InputSource(new StringReader(PATTERNS)));
+        HyphenationCache cache = new HyphenationCache(1);
+        cache.hyphenate(hTree, "hyphenation", 1, 1);
+        cache.hyphenate(other, "hyphenation", 1, 1);
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getMissCount());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests the compact hyphenation pattern format read by {@link MappedHyphenationTree}.
+ */
+public class MappedHyphenationTreeTestCase {
+
+    private static final String PATTERNS = "<?xml version='1.0'?>"
+            + "<hyphenation-info>"
+            + "<hyphen-char value='-'/>"
+            + "<classes>aA bB cC dD eE fF gG hH iI jJ kK lL mM nN oO pP qQ rR sS tT uU vV wW"
+            + " xX yY zZ</classes>"
+            + "<exceptions>ta-ble present ex<hyphen pre='c' no='k' post='k'/>ample</exceptions>"
+            + "<patterns>.hy3p .ach4 .ad4der .af1t .al3t .am5at .an5c .ang4 .ani5m"
+            + " 1tion 1na n2at he2n hen3at hen5a 4ph ph5e 2p1h 1ci 4cie 1ca 2c1t 5ter"
+            + " 9ze en1ni ing1 1mu ta4ble 2b1l .re1 rep1r 1pr 3ty</patterns>"
+            + "</hyphenation-info>";
+
+    private static final String[] WORDS = {"hyphenation", "hyphenated", "nation", "presentation",
+        "table", "example", "recitation", "repository", "community", "Hyphenation", "a",
+        "zebra-crossing", "typesetting", "amazing", "antiparticle", "adder", "anteater"};
+
+    private HyphenationTree heapTree;
+
+    @Before
+    public void setUp() throws HyphenationException {
+        heapTree = new HyphenationTree();
+        heapTree.loadPatterns(new InputSource(new StringReader(PATTERNS)));
+    }
+
+    private MappedHyphenationTree compact(HyphenationTree hTree) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MappedHyphenationTree.write(hTree, out);
+        return MappedHyphenationTree.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static String toString(Hyphenation hyphenation) {
+        return (hyphenation != null) ? hyphenation.toString() : null;
+    }
+
+    @Test
+    public void testSameResultsAsHeapTree() throws IOException {
+        MappedHyphenationTree mappedTree = compact(heapTree);
+        assertEquals(heapTree.size(), mappedTree.size());
+        boolean hyphenated = false;
+        for (int i = 0; i < WORDS.length; i++) {
+            for (int min = 1; min <= 3; min++) {
+                String expected = toString(heapTree.hyphenate(WORDS[i], min, min));
+                assertEquals(WORDS[i], expected,
+                        toString(mappedTree.hyphenate(WORDS[i], min, min)));
+                hyphenated |= (expected != null);
+            }
+        }
+        assertTrue(hyphenated);
+        assertEquals(heapTree.findPattern("hen"), mappedTree.findPattern("hen"));
+        assertEquals(heapTree.findPattern("tion"), mappedTree.findPattern("tion"));
+        assertEquals("", mappedTree.findPattern("xyz"));
+    }
+
+    @Test
+    public void testExceptions() throws IOException {
+        MappedHyphenationTree mappedTree = compact(heapTree);
+        assertEquals("ta-ble", toString(mappedTree.hyphenate("table", 1, 1)));
+        assertEquals(heapTree.stoplist.keySet(), mappedTree.stoplist.keySet());
+        for (Object word : heapTree.stoplist.keySet()) {
+            assertEquals(heapTree.stoplist.get(word).toString(),
+                    mappedTree.stoplist.get(word).toString());
+        }
+    }
+
+    @Test
+    public void testMapFile() throws IOException {
+        File dir = File.createTempFile("fop-hyph", "");
+        dir.delete();
+        dir.mkdir();
+        try {
+            File file = new File(dir, "xx" + MappedHyphenationTree.EXTENSION);
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                MappedHyphenationTree.write(heapTree, out);
+            } finally {
+                IOUtils.closeQuietly(out);
+            }
+            MappedHyphenationTree mappedTree = MappedHyphenationTree.map(file);
+            assertEquals(toString(heapTree.hyphenate("hyphenation", 2, 2)),
+                    toString(mappedTree.hyphenate("hyphenation", 2, 2)));
+
+            //the compact format is preferred to the other formats
+            HyphenationTree userTree = Hyphenator.getUserHyphenationTree("xx",
+                    dir.getAbsolutePath());
+            assertTrue(userTree instanceof MappedHyphenationTree);
+            assertNull(Hyphenator.getUserHyphenationTree("yy", dir.getAbsolutePath()));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void testInvalidData() {
+        try {
+            new MappedHyphenationTree(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+            fail("IOException expected");
+        } catch (IOException e) {
+            //expected
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            MappedHyphenationTree.write(heapTree, out);
+            byte[] data = out.toByteArray();
+            new MappedHyphenationTree(ByteBuffer.wrap(data, 0, data.length / 2).slice());
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() throws IOException {
+        compact(heapTree).addPattern("abc", "0100");
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import org.apache.fop.fo.Constants;
+
+/**
+ * Debug tool comparing the line breaking of many paragraphs with a new algorithm (and new
+ * nodes) per paragraph, as before, and with a single algorithm reusing its nodes. Pass the
+ * number of paragraphs and the number of words per paragraph.
+ */
+public final class BreakingAlgorithmBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private static final int LINE_WIDTH = 300000;
+
+    private BreakingAlgorithmBenchmark() {
+    }
+
+    private static final class Algorithm extends BreakingAlgorithm {
+
+        private long checksum;
+
+        Algorithm(boolean reuseNodes) {
+            super(Constants.EN_JUSTIFY, Constants.EN_START, true, false, 0);
+            setNodeReuse(reuseNodes);
+            setConstantLineWidth(LINE_WIDTH);
+        }
+
+        @Override
+        public void updateData1(int total, double demerits) {
+            checksum += total;
+        }
+
+        @Override
+        public void updateData2(KnuthNode bestActiveNode, KnuthSequence sequence, int total) {
+            checksum += bestActiveNode.position;
+        }
+
+        @Override
+        protected int filterActiveNodes() {
+            KnuthNode bestActiveNode = null;
+            for (int i = startLine; i < endLine; i++) {
+                for (KnuthNode node = getNode(i); node != null; node = node.next) {
+                    bestActiveNode = compareNodes(bestActiveNode, node);
+                    if (node != bestActiveNode) {
+                        removeNode(i, node);
+                    }
+                }
+            }
+            return bestActiveNode.line;
+        }
+    }
+
+    private static KnuthSequence createParagraph(int words, int seed) {
+        KnuthSequence seq = new BlockKnuthSequence();
+        for (int i = 0; i < words; i++) {
+            int length = 2 + (i * 7 + seed) % 9;
+            //a word, with a hyphenation point in the longer ones
+            if (length > 6) {
+                seq.add(new KnuthBox(length * 2500, null, false));
+                seq.add(new KnuthPenalty(3000, KnuthPenalty.FLAGGED_PENALTY, true, null, false));
+                seq.add(new KnuthBox(length * 2500, null, false));
+            } else {
+                seq.add(new KnuthBox(length * 5000, null, false));
+            }
+            seq.add(new KnuthGlue(3000, 1500, 1000, null, false));
+        }
+        seq.add(new KnuthPenalty(0, KnuthPenalty.INFINITE, false, null, false));
+        seq.add(new KnuthGlue(0, 10000000, 0, null, false));
+        seq.add(new KnuthPenalty(0, -KnuthPenalty.INFINITE, false, null, false));
+        return seq;
+    }
+
+    private static long breakParagraphs(KnuthSequence[] paragraphs, boolean reuse) {
+        long checksum = 0;
+        Algorithm reused = (reuse ? new Algorithm(true) : null);
+        for (int i = 0; i < paragraphs.length; i++) {
+            Algorithm alg;
+            if (reuse) {
+                alg = reused;
+                alg.resetState();
+            } else {
+                alg = new Algorithm(false);
+            }
+            alg.checksum = 0;
+            alg.findBreakingPoints(paragraphs[i], 1, true, BreakingAlgorithm.ALL_BREAKS);
+            checksum += alg.checksum;
+        }
+        return checksum;
+    }
+
+    /**
+     * Main method.
+     * @param args the number of paragraphs and the number of words per paragraph
+     */
+    public static void main(String[] args) {
+        int count = (args.length > 0 ? Integer.parseInt(args[0]) : 2000);
+        int words = (args.length > 1 ? Integer.parseInt(args[1]) : 200);
+        KnuthSequence[] paragraphs = new KnuthSequence[count];
+        for (int i = 0; i < count; i++) {
+            paragraphs[i] = createParagraph(words, i);
+        }
+        System.out.println(count + " paragraphs of " + words + " words");
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long checksum = breakParagraphs(paragraphs, false);
+            long allocating = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long checksum2 = breakParagraphs(paragraphs, true);
+            long reusing = System.nanoTime() - start;
+            System.out.println("round " + round + ": new nodes " + (allocating / 1000 / count)
+                    + " µs/paragraph, reused nodes " + (reusing / 1000 / count)
+                    + " µs/paragraph (checksums " + checksum + "/" + checksum2 + ")");
+        }
+    }
+}
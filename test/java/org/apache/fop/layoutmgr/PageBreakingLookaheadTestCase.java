@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Tests the page breaking with a bounded lookahead (see
+ * {@link FOUserAgent#setPageBreakingLookahead(int)}).
+ */
+public class PageBreakingLookaheadTestCase {
+
+    private static final Pattern WORD = Pattern.compile("<word[^>]*>([^<]*)</word>");
+
+    private static final Pattern PAGE = Pattern.compile(
+            "<pageViewport[^>]*simple-page-master-name=\"(\\w+)\"");
+
+    private FopFactory fopFactory = FopFactory.newInstance();
+
+    /**
+     * Builds a long flow with footnotes, keeps and forced breaks, and a page-master for the
+     * last page.
+     */
+    private String createDocument() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'>"
+                + "<fo:layout-master-set>"
+                + "<fo:simple-page-master master-name='A' page-height='10cm' page-width='10cm'>"
+                + "<fo:region-body margin='1cm'/></fo:simple-page-master>"
+                + "<fo:simple-page-master master-name='Last' page-height='10cm'"
+                + " page-width='10cm'><fo:region-body margin='1cm' margin-bottom='3cm'/>"
+                + "</fo:simple-page-master>"
+                + "<fo:page-sequence-master master-name='S'>"
+                + "<fo:repeatable-page-master-alternatives>"
+                + "<fo:conditional-page-master-reference master-reference='Last'"
+                + " page-position='last'/>"
+                + "<fo:conditional-page-master-reference master-reference='A'/>"
+                + "</fo:repeatable-page-master-alternatives></fo:page-sequence-master>"
+                + "</fo:layout-master-set>"
+                + "<fo:page-sequence master-reference='S'><fo:flow flow-name='xsl-region-body'>");
+        for (int i = 0; i < 300; i++) {
+            sb.append("<fo:block space-before='2pt'");
+            if (i % 7 == 0) {
+                sb.append(" keep-with-next='always'");
+            }
+            if (i % 101 == 100) {
+                sb.append(" break-before='odd-page'");
+            }
+            sb.append(">Block " + i);
+            for (int j = 0; j < i % 23; j++) {
+                sb.append(" lorem ipsum");
+            }
+            if (i % 19 == 0) {
+                sb.append("<fo:footnote><fo:inline>*</fo:inline><fo:footnote-body>"
+                        + "<fo:block>Footnote " + i + "</fo:block></fo:footnote-body>"
+                        + "</fo:footnote>");
+            }
+            sb.append("</fo:block>");
+        }
+        sb.append("</fo:flow></fo:page-sequence></fo:root>");
+        return sb.toString();
+    }
+
+    private String renderAreaTree(String document, int lookahead) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setPageBreakingLookahead(lookahead);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(document)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toString("UTF-8");
+    }
+
+    private List<String> getSortedWords(String areaTree) {
+        List<String> words = new java.util.ArrayList<String>();
+        Matcher matcher = WORD.matcher(areaTree);
+        while (matcher.find()) {
+            words.add(matcher.group(1));
+        }
+        Collections.sort(words);
+        return words;
+    }
+
+    private List<String> getPageMasters(String areaTree) {
+        List<String> masters = new java.util.ArrayList<String>();
+        Matcher matcher = PAGE.matcher(areaTree);
+        while (matcher.find()) {
+            masters.add(matcher.group(1));
+        }
+        return masters;
+    }
+
+    @Test
+    public void testAllContentIsLaidOut() throws Exception {
+        String document = createDocument();
+        String totalFit = renderAreaTree(document, 0);
+        List<String> totalFitPages = getPageMasters(totalFit);
+        for (int lookahead = 1; lookahead <= 3; lookahead++) {
+            String areaTree = renderAreaTree(document, lookahead);
+            assertEquals(getSortedWords(totalFit), getSortedWords(areaTree));
+            List<String> pages = getPageMasters(areaTree);
+            assertEquals("Last", pages.get(pages.size() - 1));
+            assertTrue(Math.abs(pages.size() - totalFitPages.size())
+                    <= totalFitPages.size() / 10);
+        }
+    }
+
+    @Test
+    public void testLargeLookaheadKeepsOptimalBreaks() throws Exception {
+        String document = createDocument();
+        assertEquals(renderAreaTree(document, 0), renderAreaTree(document, 1000));
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.table;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.PageViewport;
+import org.apache.fop.layoutmgr.ElementListObserver;
+import org.apache.fop.render.xml.XMLRenderer;
+
+/**
+ * Tests the streaming layout of table bodies, whose element list is returned one row group
+ * at a time when the page breaking uses a bounded lookahead (see
+ * {@link TableLayoutManager#isStreamingLayout()}).
+ */
+public class TableStreamingTestCase {
+
+    private static final int ROW_COUNT = 200;
+
+    private static final Pattern WORD = Pattern.compile("<word[^>]*>([^<]*)</word>");
+
+    private static final Pattern PAGE = Pattern.compile("<pageViewport ");
+
+    private FopFactory fopFactory = FopFactory.newInstance();
+
+    /**
+     * Builds a long table with a header and a footer, row groups spanning several rows, and
+     * keeps and breaks between the rows.
+     */
+    private String createTableDocument(String borderCollapse) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'>"
+                + "<fo:layout-master-set>"
+                + "<fo:simple-page-master master-name='A' page-height='10cm' page-width='10cm'>"
+                + "<fo:region-body margin='1cm'/></fo:simple-page-master>"
+                + "</fo:layout-master-set>"
+                + "<fo:page-sequence master-reference='A'><fo:flow flow-name='xsl-region-body'>"
+                + "<fo:block>Before</fo:block>"
+                + "<fo:table table-layout='fixed' width='100%' space-before='5pt'"
+                + " space-after='5pt' border='2pt solid' border-collapse='" + borderCollapse
+                + "'>"
+                + "<fo:table-column column-width='50%'/><fo:table-column column-width='50%'/>"
+                + "<fo:table-header><fo:table-row><fo:table-cell border='1pt solid'>"
+                + "<fo:block>Header</fo:block></fo:table-cell><fo:table-cell>"
+                + "<fo:block>Header</fo:block></fo:table-cell></fo:table-row></fo:table-header>"
+                + "<fo:table-footer><fo:table-row><fo:table-cell number-columns-spanned='2'>"
+                + "<fo:block>Footer</fo:block></fo:table-cell></fo:table-row></fo:table-footer>"
+                + "<fo:table-body>");
+        for (int i = 0; i < ROW_COUNT; i++) {
+            sb.append("<fo:table-row");
+            if (i % 13 == 0) {
+                sb.append(" keep-with-next='always'");
+            }
+            if (i % 67 == 66) {
+                sb.append(" break-before='page'");
+            }
+            sb.append("><fo:table-cell border='0.5pt solid'");
+            if (i % 5 == 0) {
+                sb.append(" number-rows-spanned='2'");
+            }
+            sb.append("><fo:block>Cell " + i);
+            for (int j = 0; j < i % 11; j++) {
+                sb.append(" lorem ipsum");
+            }
+            sb.append("</fo:block></fo:table-cell>");
+            if (i % 5 != 1) {
+                sb.append("<fo:table-cell><fo:block>Right " + i + "</fo:block></fo:table-cell>");
+            }
+            sb.append("</fo:table-row>");
+        }
+        sb.append("</fo:table-body></fo:table>"
+                + "<fo:block>After</fo:block></fo:flow></fo:page-sequence></fo:root>");
+        return sb.toString();
+    }
+
+    private String renderAreaTree(String document, FOUserAgent userAgent) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(document)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toString("UTF-8");
+    }
+
+    private String renderAreaTree(String document, int lookahead) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setPageBreakingLookahead(lookahead);
+        return renderAreaTree(document, userAgent);
+    }
+
+    private List<String> getSortedWords(String areaTree) {
+        List<String> words = new java.util.ArrayList<String>();
+        Matcher matcher = WORD.matcher(areaTree);
+        while (matcher.find()) {
+            words.add(matcher.group(1));
+        }
+        Collections.sort(words);
+        return words;
+    }
+
+    private int getPageCount(String areaTree) {
+        int count = 0;
+        Matcher matcher = PAGE.matcher(areaTree);
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testTableHeaderAndFooterAreRepeated() throws Exception {
+        String document = createTableDocument("collapse");
+        String totalFit = renderAreaTree(document, 0);
+        List<String> expected = getSortedWords(totalFit);
+        expected.removeAll(Arrays.asList("Header", "Footer"));
+        for (int lookahead = 0; lookahead <= 2; lookahead++) {
+            String areaTree = (lookahead == 0 ? totalFit : renderAreaTree(document, lookahead));
+            List<String> words = getSortedWords(areaTree);
+            int pageCount = getPageCount(areaTree);
+            assertTrue(pageCount > 1);
+            assertEquals(2 * pageCount, Collections.frequency(words, "Header"));
+            assertEquals(pageCount, Collections.frequency(words, "Footer"));
+            words.removeAll(Arrays.asList("Header", "Footer"));
+            assertEquals(expected, words);
+        }
+    }
+
+    /**
+     * With a lookahead larger than the table, the parts of the table body are all appended
+     * to the element list before any break is committed, which must then be the same as
+     * the element list created at once.
+     */
+    @Test
+    public void testPartsMakeTheWholeElementList() throws Exception {
+        String[] models = {"collapse", "separate"};
+        for (int i = 0; i < models.length; i++) {
+            String document = createTableDocument(models[i]);
+            assertEquals(renderAreaTree(document, 0), renderAreaTree(document, 1000));
+        }
+    }
+
+    private int countCellElementListsBeforeFirstPage(String document, int lookahead)
+            throws Exception {
+        final int[] cellCount = new int[1];
+        final int[] cellCountAtFirstPage = {-1};
+        ElementListObserver.Observer observer = new ElementListObserver.Observer() {
+            public void observe(List elementList, String category, String id) {
+                if ("table-cell".equals(category)) {
+                    cellCount[0]++;
+                }
+            }
+        };
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setPageBreakingLookahead(lookahead);
+        XMLRenderer renderer = new XMLRenderer() {
+            public void renderPage(PageViewport page) throws IOException, FOPException {
+                if (cellCountAtFirstPage[0] < 0) {
+                    cellCountAtFirstPage[0] = cellCount[0];
+                }
+                super.renderPage(page);
+            }
+        };
+        renderer.setUserAgent(userAgent);
+        userAgent.setRendererOverride(renderer);
+        ElementListObserver.addObserver(observer);
+        try {
+            renderAreaTree(document, userAgent);
+        } finally {
+            ElementListObserver.removeObserver(observer);
+        }
+        return cellCountAtFirstPage[0];
+    }
+
+    @Test
+    public void testRowGroupsAreLaidOutIncrementally() throws Exception {
+        String document = createTableDocument("collapse");
+        // 3 header and footer cells, and 2 cells in 4 rows out of 5
+        int cellCount = 3 + ROW_COUNT * 9 / 5;
+        assertEquals(cellCount, countCellElementListsBeforeFirstPage(document, 0));
+        int streamedCellCount = countCellElementListsBeforeFirstPage(document, 1);
+        assertTrue("Element lists of " + streamedCellCount + " cells were created before the"
+                + " first page was finished", streamedCellCount < cellCount / 4);
+    }
+}
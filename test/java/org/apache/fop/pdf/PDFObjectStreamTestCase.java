@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the PDF 1.5 object streams and cross-reference stream written by {@link PDFDocument}.
+ */
+public class PDFObjectStreamTestCase {
+
+    private static final Pattern STARTXREF = Pattern.compile("startxref\n(\\d+)\n%%EOF\n$");
+
+    private static final Pattern LENGTH = Pattern.compile("/Length (\\d+)");
+
+    private static final Pattern W = Pattern.compile("/W \\[(\\d+) (\\d+) (\\d+)\\]");
+
+    private PDFDocument doc;
+
+    private ByteArrayOutputStream out;
+
+    private String pdf;
+
+    @Before
+    public void setUp() throws IOException {
+        doc = new PDFDocument("Test");
+        doc.setObjectStreamsEnabled(true);
+        out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        PDFFactory factory = doc.getFactory();
+        for (int i = 0; i < 150; i++) {
+            PDFPage page = factory.makePage(doc.getResources(), 595, 842, i);
+            PDFStream content = factory.makeStream(PDFFilterList.CONTENT_FILTER, false);
+            content.add("BT /F1 12 Tf 72 720 Td (Page " + i + ") Tj ET\n");
+            doc.registerObject(content);
+            page.setContents(content);
+            Rectangle2D rect = new Rectangle2D.Double(72, 700, 100, 12);
+            page.addAnnotation(factory.makeLink(rect, "doc" + i + ".pdf", PDFLink.EXTERNAL, 0));
+            doc.addObject(page.getAnnotations());
+            doc.addObject(page);
+            doc.output(out);
+        }
+        doc.outputTrailer(out);
+        pdf = new String(out.toByteArray(), PDFDocument.ENCODING);
+    }
+
+    @Test
+    public void testStructure() {
+        assertTrue(pdf.startsWith("%PDF-1.5\n"));
+        assertTrue(pdf.contains("/Type /ObjStm"));
+        assertTrue(pdf.contains("/Type /XRef"));
+        assertFalse("no classic cross-reference table expected", pdf.contains("\nxref\n"));
+        assertFalse("no classic trailer expected", pdf.contains("trailer"));
+        assertFalse("pages must be in object streams", pdf.contains("/Type /Page\n"));
+    }
+
+    @Test
+    public void testCrossReferenceStream() throws Exception {
+        Matcher m = STARTXREF.matcher(pdf);
+        assertTrue(m.find());
+        int xref = Integer.parseInt(m.group(1));
+        String dict = pdf.substring(xref, pdf.indexOf("stream\n", xref));
+        assertTrue(dict.contains("/Type /XRef"));
+        Matcher w = W.matcher(dict);
+        assertTrue(w.find());
+        int[] widths = new int[3];
+        for (int i = 0; i < 3; i++) {
+            widths[i] = Integer.parseInt(w.group(i + 1));
+        }
+        int entryLength = widths[0] + widths[1] + widths[2];
+        byte[] entries = getStreamData(xref);
+        assertEquals(0, entries.length % entryLength);
+
+        int compressed = 0;
+        for (int i = 1; i < entries.length / entryLength; i++) {
+            int offset = i * entryLength;
+            int type = (int)readField(entries, offset, widths[0]);
+            long field2 = readField(entries, offset + widths[0], widths[1]);
+            long field3 = readField(entries, offset + widths[0] + widths[1], widths[2]);
+            if (type == 1) {
+                assertTrue("object " + i + " expected at " + field2,
+                        pdf.startsWith(i + " 0 obj\n", (int)field2));
+            } else {
+                assertEquals(2, type);
+                assertObjectInStream(i, (int)field2, (int)field3, entries, widths);
+                compressed++;
+            }
+        }
+        assertTrue(compressed > 300);
+    }
+
+    private void assertObjectInStream(int number, int streamNumber, int index,
+            byte[] entries, int[] widths) throws Exception {
+        int entryLength = widths[0] + widths[1] + widths[2];
+        int streamOffset = (int)readField(entries, streamNumber * entryLength + widths[0],
+                widths[1]);
+        String header = new String(getStreamData(streamOffset), PDFDocument.ENCODING);
+        String[] numbers = header.substring(0, header.indexOf('\n')).split(" ");
+        assertEquals(String.valueOf(number), numbers[index * 2]);
+    }
+
+    private byte[] getStreamData(int objectOffset) throws IOException, DataFormatException {
+        int start = pdf.indexOf("stream\n", objectOffset) + "stream\n".length();
+        Matcher m = LENGTH.matcher(pdf.substring(objectOffset, start));
+        assertTrue(m.find());
+        int length = Integer.parseInt(m.group(1));
+        Inflater inflater = new Inflater();
+        inflater.setInput(out.toByteArray(), start, length);
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        while (!inflater.finished()) {
+            int count = inflater.inflate(buf);
+            assertTrue(count > 0 || inflater.finished());
+            result.write(buf, 0, count);
+        }
+        return result.toByteArray();
+    }
+
+    private static long readField(byte[] entries, int offset, int width) {
+        long value = 0;
+        for (int i = 0; i < width; i++) {
+            value = (value << 8) | (entries[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
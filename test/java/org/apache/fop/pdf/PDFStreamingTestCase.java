@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.Test;
+
+/**
+ * Tests that a {@link PDFDocument} in streaming mode releases the objects of a page once the
+ * page has been written.
+ */
+public class PDFStreamingTestCase {
+
+    private final OutputStream out = new NullOutputStream();
+
+    private String previousPage;
+
+    private PDFStream content;
+
+    private PDFLink externalLink;
+
+    private PDFDocument createDocument(boolean streaming) throws IOException {
+        PDFDocument doc = new PDFDocument("Test");
+        previousPage = null;
+        doc.setStreamingEnabled(streaming);
+        doc.outputHeader(out);
+        return doc;
+    }
+
+    /**
+     * Adds a page with some content, an internal link to the previous page and an
+     * external link to another document, without writing it.
+     */
+    private PDFPage addPage(PDFDocument doc, int index) {
+        PDFFactory factory = doc.getFactory();
+        PDFPage page = factory.makePage(doc.getResources(), 595, 842, index);
+        content = factory.makeStream(PDFFilterList.CONTENT_FILTER, false);
+        content.add("BT /F1 12 Tf 72 720 Td (Page " + index + ") Tj ET\n");
+        doc.registerObject(content);
+        page.setContents(content);
+        Rectangle2D rect = new Rectangle2D.Double(72, 700, 100, 12);
+        externalLink = factory.makeLink(rect, "doc" + index + ".pdf#page=2",
+                PDFLink.EXTERNAL, 0);
+        page.addAnnotation(externalLink);
+        if (previousPage != null) {
+            page.addAnnotation(factory.makeLink(rect, previousPage, PDFLink.INTERNAL, 100));
+        }
+        previousPage = page.referencePDF();
+        doc.addObject(page.getAnnotations());
+        doc.addObject(page);
+        return page;
+    }
+
+    private PDFLink writePage(PDFDocument doc, int index) throws IOException {
+        addPage(doc, index);
+        doc.output(out);
+        return externalLink;
+    }
+
+    private static void collectGarbage(WeakReference<?>[] refs) {
+        for (int i = 0; i < 100; i++) {
+            boolean cleared = true;
+            for (int j = 0; j < refs.length; j++) {
+                cleared &= refs[j].get() == null;
+            }
+            if (cleared) {
+                return;
+            }
+            System.gc();
+        }
+    }
+
+    @Test
+    public void testLinksReleasedAfterOutput() throws IOException {
+        PDFDocument doc = createDocument(true);
+        WeakReference<PDFLink> ref = new WeakReference<PDFLink>(writePage(doc, 0));
+        writePage(doc, 1);
+        collectGarbage(new WeakReference<?>[] {ref});
+        assertNull("link of a written page must not be retained", ref.get());
+        doc.outputTrailer(out);
+    }
+
+    @Test
+    public void testActionsReleasedAfterOutput() throws IOException {
+        PDFDocument doc = createDocument(true);
+        writePage(doc, 0);
+        String firstPage = previousPage;
+        addPage(doc, 1);
+        PDFFileSpec fileSpec = new PDFFileSpec("doc1.pdf");
+        PDFGoTo goTo = new PDFGoTo(firstPage, new Point2D.Float(0.0f, 100));
+        //kept for reuse by other links on the page
+        assertNotNull("file spec", doc.findFileSpec(fileSpec));
+        assertNotNull("go-to action", doc.findGoTo(goTo));
+        assertNotNull("link", doc.findLink(externalLink));
+        doc.output(out);
+        assertNull(doc.findFileSpec(fileSpec));
+        assertNull(doc.findGoTo(goTo));
+        assertNull(doc.findLink(externalLink));
+        doc.outputTrailer(out);
+    }
+
+    @Test
+    public void testPageObjectsReleasedAfterOutput() throws IOException {
+        PDFDocument doc = createDocument(true);
+        writePage(doc, 0);
+        WeakReference<?>[] refs = new WeakReference<?>[] {
+                new WeakReference<PDFPage>(addPage(doc, 1)),
+                new WeakReference<PDFStream>(content),
+                new WeakReference<PDFLink>(externalLink)};
+        doc.output(out);
+        writePage(doc, 2);
+        collectGarbage(refs);
+        assertNull("page must not be retained", refs[0].get());
+        assertNull("content stream must not be retained", refs[1].get());
+        assertNull("link must not be retained", refs[2].get());
+        doc.outputTrailer(out);
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+
+/**
+ * Tests the parallel encoding of PDF streams by {@link ParallelStreamEncoder}.
+ */
+public class ParallelStreamEncoderTestCase {
+
+    private static final int PAGE_COUNT = 20;
+
+    private static final Pattern STREAM = Pattern.compile(
+            "/Length (\\d+) /Filter /FlateDecode >>\nstream\n");
+
+    private static final Pattern ENCRYPTED_STREAM = Pattern.compile(
+            "(\\d+) 0 obj\n<< /Length (\\d+) /Filter /FlateDecode >>\nstream\n");
+
+    private static final Pattern ENCRYPTED_MARKER = Pattern.compile(
+            "(\\d+) 0 obj\n<< /Marker <([0-9A-F]+)> >>");
+
+    private static String getContent(int page) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("BT /F1 12 Tf 72 ").append(i).append(" Td (Page ").append(page)
+                    .append(", line ").append(i).append(") Tj ET\n");
+        }
+        return sb.toString();
+    }
+
+    private byte[] createPDF(int threadCount, int compressionLevel) throws IOException {
+        return createPDF(new PDFDocument("Test"), threadCount, compressionLevel);
+    }
+
+    private byte[] createPDF(PDFDocument doc, int threadCount, int compressionLevel)
+            throws IOException {
+        doc.getInfo().setCreationDate(new Date(0));
+        doc.setEncodingThreadCount(threadCount);
+        doc.setCompressionLevel(compressionLevel);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        PDFFactory factory = doc.getFactory();
+        for (int i = 0; i < PAGE_COUNT; i++) {
+            PDFPage page = factory.makePage(doc.getResources(), 595, 842, i);
+            //Several streams per output() call so they are encoded concurrently
+            for (int j = 0; j < 3; j++) {
+                PDFStream content = factory.makeStream(PDFFilterList.CONTENT_FILTER, false);
+                content.add(getContent(i * 3 + j));
+                doc.registerObject(content);
+                if (j == 0) {
+                    page.setContents(content);
+                }
+            }
+            //A string encrypted on the writing thread while streams are encoded
+            PDFDictionary marker = new PDFDictionary();
+            marker.put("Marker", getMarker(i).getBytes(PDFDocument.ENCODING));
+            doc.registerObject(marker);
+            doc.addObject(page);
+            doc.output(out);
+        }
+        doc.outputTrailer(out);
+        return out.toByteArray();
+    }
+
+    private static String getMarker(int page) {
+        return "Marker of page " + page;
+    }
+
+    /** Returns everything before the trailer which contains a time-based file ID. */
+    private String withoutTrailer(byte[] pdf) throws IOException {
+        String text = new String(pdf, PDFDocument.ENCODING);
+        return text.substring(0, text.lastIndexOf("trailer"));
+    }
+
+    @Test
+    public void testDeterministicOutput() throws IOException {
+        String first = withoutTrailer(createPDF(4, -1));
+        String second = withoutTrailer(createPDF(4, -1));
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testStreamOrderAndContent() throws Exception {
+        byte[] pdf = createPDF(4, -1);
+        String text = new String(pdf, PDFDocument.ENCODING);
+        Matcher m = STREAM.matcher(text);
+        int index = 0;
+        while (m.find()) {
+            int length = Integer.parseInt(m.group(1)) - 1;
+            Inflater inflater = new Inflater();
+            inflater.setInput(pdf, m.end(), length);
+            byte[] buf = new byte[100000];
+            int count = inflater.inflate(buf);
+            assertTrue(inflater.finished());
+            assertEquals(getContent(index), new String(buf, 0, count, PDFDocument.ENCODING));
+            index++;
+        }
+        assertEquals(PAGE_COUNT * 3, index);
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] data = new byte[hex.length() / 2];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return data;
+    }
+
+    private static byte[] decrypt(PDFDocument doc, int objectNumber, byte[] data) {
+        //RC4 is symmetric: encrypting again with the object's key decrypts the data
+        PDFObject obj = new PDFDictionary();
+        obj.setObjectNumber(objectNumber);
+        return doc.getEncryption().encrypt(data, obj);
+    }
+
+    @Test
+    public void testEncryptedOutput() throws Exception {
+        PDFDocument doc = new PDFDocument("Test");
+        PDFEncryptionParams params = new PDFEncryptionParams();
+        params.setUserPassword("user");
+        params.setOwnerPassword("owner");
+        doc.setEncryption(params);
+        byte[] pdf = createPDF(doc, 4, -1);
+        String text = new String(pdf, PDFDocument.ENCODING);
+        Matcher m = ENCRYPTED_STREAM.matcher(text);
+        int index = 0;
+        while (m.find()) {
+            int length = Integer.parseInt(m.group(2)) - 1;
+            byte[] data = new byte[length];
+            System.arraycopy(pdf, m.end(), data, 0, length);
+            Inflater inflater = new Inflater();
+            inflater.setInput(decrypt(doc, Integer.parseInt(m.group(1)), data));
+            byte[] buf = new byte[100000];
+            int count = inflater.inflate(buf);
+            assertTrue(inflater.finished());
+            assertEquals(getContent(index), new String(buf, 0, count, PDFDocument.ENCODING));
+            index++;
+        }
+        assertEquals(PAGE_COUNT * 3, index);
+        m = ENCRYPTED_MARKER.matcher(text);
+        index = 0;
+        while (m.find()) {
+            byte[] data = fromHex(m.group(2));
+            byte[] marker = decrypt(doc, Integer.parseInt(m.group(1)), data);
+            assertEquals(getMarker(index), new String(marker, PDFDocument.ENCODING));
+            index++;
+        }
+        assertEquals(PAGE_COUNT, index);
+    }
+
+    private static int countLiveEncoderThreads() throws InterruptedException {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("FOP PDF stream encoder")) {
+                thread.join(5000);
+                if (thread.isAlive()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testThreadsStopped() throws Exception {
+        createPDF(4, -1);
+        assertEquals(0, countLiveEncoderThreads());
+        //A failure while writing the trailer mustn't leave the threads running
+        PDFDocument doc = new PDFDocument("Test");
+        doc.setEncodingThreadCount(4);
+        PDFStream content = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+        content.add(getContent(0));
+        doc.registerObject(content);
+        try {
+            doc.outputTrailer(new OutputStream() {
+                public void write(int b) throws IOException {
+                    throw new IOException("Disk full");
+                }
+            });
+            fail("IOException expected");
+        } catch (IOException e) {
+            //expected
+        }
+        assertEquals(0, countLiveEncoderThreads());
+    }
+
+    @Test
+    public void testCompressionLevel() throws IOException {
+        assertTrue(createPDF(2, 0).length > createPDF(2, 9).length);
+    }
+}
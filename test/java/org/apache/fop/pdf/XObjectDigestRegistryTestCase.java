@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Test case for {@link XObjectDigestRegistry}.
+ */
+public class XObjectDigestRegistryTestCase {
+
+    private static String digest(String type, byte[] data, String property) {
+        XObjectDigestRegistry.Digester digester = XObjectDigestRegistry.createDigester(type);
+        digester.addProperty(property);
+        digester.write(data, 0, data.length);
+        return digester.getDigest();
+    }
+
+    private static BitmapImage createImage(String key) {
+        return new BitmapImage(key, 2, 2, new byte[] {1, 2, 3, 4}, null);
+    }
+
+    /**
+     * Tests that the digest covers the content type, the properties and the data.
+     */
+    @Test
+    public void testDigester() {
+        byte[] data = new byte[] {1, 2, 3, 4};
+        String d = digest("image", data, "2x2");
+        assertEquals(d, digest("image", data.clone(), "2x2"));
+        assertFalse(d.equals(digest("form", data, "2x2")));
+        assertFalse(d.equals(digest("image", data, "4x1")));
+        assertFalse(d.equals(digest("image", new byte[] {1, 2, 3, 5}, "2x2")));
+
+        XObjectDigestRegistry.Digester digester = XObjectDigestRegistry.createDigester("image");
+        digester.addProperty("2x2");
+        digester.write(data, 0, data.length);
+        digester.write(5);
+        assertEquals(5, digester.getCount());
+    }
+
+    /**
+     * Tests that images with different keys but the same content share a single XObject
+     * and that hits and saved bytes are counted.
+     */
+    @Test
+    public void testImageDeduplication() {
+        PDFDocument doc = new PDFDocument("test");
+        assertNull(doc.getXObjectDigestRegistry());
+        doc.setXObjectDeduplicationEnabled(true);
+        XObjectDigestRegistry registry = doc.getXObjectDigestRegistry();
+
+        String digest = digest("image", new byte[] {1, 2, 3, 4}, "2x2");
+        PDFImageXObject first = doc.addImage(null, createImage("a"), digest, 4);
+        PDFImageXObject second = doc.addImage(null, createImage("b"), digest, 4);
+        assertSame(first, second);
+        assertSame(first, doc.getXObject("b"));
+        assertEquals(1, registry.getHitCount());
+        assertEquals(4, registry.getBytesSaved());
+
+        //found by key, no digest lookup necessary
+        assertSame(first, doc.addImage(null, createImage("b")));
+        assertEquals(1, registry.getHitCount());
+
+        String otherDigest = digest("image", new byte[] {4, 3, 2, 1}, "2x2");
+        assertNotSame(first, doc.addImage(null, createImage("c"), otherDigest, 4));
+        assertEquals(1, registry.getHitCount());
+    }
+
+    /**
+     * Tests that content digests are ignored if deduplication is disabled.
+     */
+    @Test
+    public void testDeduplicationDisabled() {
+        PDFDocument doc = new PDFDocument("test");
+        String digest = digest("image", new byte[] {1, 2, 3, 4}, "2x2");
+        PDFImageXObject first = doc.addImage(null, createImage("a"), digest, 4);
+        assertNotSame(first, doc.addImage(null, createImage("b"), digest, 4));
+    }
+}
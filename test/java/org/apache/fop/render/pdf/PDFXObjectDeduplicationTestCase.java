@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.junit.Test;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Tests the deduplication of images and SVG graphics by content.
+ */
+public class PDFXObjectDeduplicationTestCase extends BasePDFTest {
+
+    private static final String SVG
+            = "<fo:block><fo:instream-foreign-object>"
+            + "<svg xmlns='http://www.w3.org/2000/svg' width='20' height='20'>"
+            + "<rect x='2' y='2' width='16' height='16' fill='red'/></svg>"
+            + "</fo:instream-foreign-object></fo:block>";
+
+    private static String externalGraphic(String uri) {
+        return "<fo:block><fo:external-graphic src='" + uri + "'/></fo:block>";
+    }
+
+    private String createFO() {
+        File images = new File("test/resources/images");
+        String png = new File(images, "fop-logo-color-24bit.png").toURI().toString();
+        String pngAlias = new File(images, "../images/fop-logo-color-24bit.png")
+                .toURI().toString();
+        String jpeg = new File(images, "bgimg72dpi.jpg").toURI().toString();
+        String jpegAlias = new File(images, "./bgimg72dpi.jpg").toURI().toString();
+        StringBuffer sb = new StringBuffer();
+        sb.append("<fo:root xmlns:fo='http://www.w3.org/1999/XSL/Format'>"
+                + "<fo:layout-master-set><fo:simple-page-master master-name='page'>"
+                + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>");
+        for (int i = 0; i < 2; i++) {
+            sb.append("<fo:page-sequence master-reference='page'>"
+                    + "<fo:flow flow-name='xsl-region-body'>");
+            sb.append(externalGraphic(i == 0 ? png : pngAlias));
+            sb.append(externalGraphic(i == 0 ? jpeg : jpegAlias));
+            sb.append(SVG);
+            sb.append("</fo:flow></fo:page-sequence>");
+        }
+        sb.append("</fo:root>");
+        return sb.toString();
+    }
+
+    private String render(boolean deduplicate) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.getRendererOptions().put(
+                PDFConfigurationConstants.KEY_DEDUPLICATE_XOBJECTS, Boolean.valueOf(deduplicate));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent, out);
+        Transformer transformer = tFactory.newTransformer();
+        transformer.transform(new StreamSource(new StringReader(createFO())),
+                new SAXResult(fop.getDefaultHandler()));
+        return new String(out.toByteArray(), "ISO-8859-1");
+    }
+
+    private static int count(String pdf, String regex) {
+        Matcher m = Pattern.compile(regex).matcher(pdf);
+        int count = 0;
+        while (m.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Without deduplication, images loaded from different URIs are embedded separately and
+     * SVG graphics are painted into the page content.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testWithoutDeduplication() throws Exception {
+        String pdf = render(false);
+        assertEquals(4, count(pdf, "/Subtype /Image"));
+        assertEquals(0, count(pdf, "/Subtype /Form"));
+    }
+
+    /**
+     * With deduplication, identical images and SVG graphics are embedded once and used on
+     * both pages.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testWithDeduplication() throws Exception {
+        String pdf = render(true);
+        assertEquals(2, count(pdf, "/Subtype /Image"));
+        assertEquals(1, count(pdf, "/Subtype /Form"));
+        assertEquals(2, count(pdf, "/Im\\d+ \\d+ 0 R"));
+        assertEquals(1, count(pdf, "/Form\\d+ \\d+ 0 R"));
+    }
+
+}